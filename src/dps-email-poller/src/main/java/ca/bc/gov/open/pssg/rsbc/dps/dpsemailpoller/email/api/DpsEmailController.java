@@ -16,7 +16,12 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 public class DpsEmailController {
@@ -45,6 +50,37 @@ public class DpsEmailController {
         }
     }
 
+    @PutMapping(value = "/email/processed", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successful operation", response = DpsEmailResponse.class),
+            @ApiResponse(code = 400, message = "Bad Request", response = DpsEmailResponse.class)
+    })
+    @ApiOperation(value = "Mark a list of emails as processed", tags = {"DpsEmailProcessing"})
+    public ResponseEntity<DpsEmailResponse> ProcessedAll(@RequestBody DpsEmailsProcessedRequest dpsEmailsProcessedRequest) {
+        try {
+
+            List<String> ids = new ArrayList<>();
+            Map<String, String> encodedIds = new HashMap<>();
+
+            for (String encodedId : dpsEmailsProcessedRequest.getIds()) {
+                String id = new String(Base64.getDecoder().decode(encodedId));
+                ids.add(id);
+                encodedIds.put(id, encodedId);
+            }
+
+            List<String> failedIds = emailService.moveToProcessedFolder(ids)
+                    .stream()
+                    .map(encodedIds::get)
+                    .collect(Collectors.toList());
+
+            logger.info("{} of {} messages successfully moved to processed folder, id: [{}]",
+                    ids.size() - failedIds.size(), ids.size(), dpsEmailsProcessedRequest.getCorrelationId());
+            return new ResponseEntity<>(DpsEmailResponse.Success(failedIds), HttpStatus.OK);
+        } catch (DpsEmailException ex) {
+            return new ResponseEntity<>(DpsEmailResponse.Error(ex.getMessage()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @PutMapping(value = "/email/{id}/error", produces = MediaType.APPLICATION_JSON_VALUE)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successful operation", response = DpsEmailResponse.class),
@@ -0,0 +1,30 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DpsEmailsProcessedRequest {
+
+    public List<String> ids = new ArrayList<>();
+
+    public String correlationId;
+
+    /**
+     * @return the base64 encoded ids of the emails
+     */
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public String getCorrelationId() {
+        return correlationId;
+    }
+
+    public void setCorrelationId(String correlationId) {
+        this.correlationId = correlationId;
+    }
+}
@@ -1,11 +1,19 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Collections;
+import java.util.List;
+
 public class DpsEmailResponse {
 
     private boolean acknowledge;
 
     private String message;
 
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> failedIds = Collections.emptyList();
+
     private DpsEmailResponse(boolean acknowledge) {
         this.acknowledge = acknowledge;
     }
@@ -19,6 +27,16 @@ public class DpsEmailResponse {
         return new DpsEmailResponse(true);
     }
 
+    /**
+     * @param failedIds the ids of the emails that could not be processed
+     * @return a success response for a batch of emails
+     */
+    public static DpsEmailResponse Success(List<String> failedIds) {
+        DpsEmailResponse result = new DpsEmailResponse(true);
+        result.failedIds = failedIds;
+        return result;
+    }
+
     public static DpsEmailResponse Error(String message) {
         return new DpsEmailResponse(false, message);
     }
@@ -30,4 +48,8 @@ public class DpsEmailResponse {
     public String getMessage() {
         return message;
     }
+
+    public List<String> getFailedIds() {
+        return failedIds;
+    }
 }
@@ -1,6 +1,7 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.services;
 
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.models.DpsEmailContent;
+import ca.bc.gov.open.pssg.rsbc.utils.DateUtils;
 import io.krakens.grok.api.Grok;
 import io.krakens.grok.api.GrokCompiler;
 import io.krakens.grok.api.Match;
@@ -10,7 +11,10 @@ import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Calendar;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoField;
 import java.util.Date;
 import java.util.Map;
 
@@ -41,6 +45,15 @@ public class DpsEmailParserImpl implements DpsEmailParser {
             "%{NUMBER:" + PAGE_COUNT_KEY + "}\\s.*JobID:\\s" +
             "%{WORD:" + JOB_ID_KEY + "}";
 
+    private final Clock clock;
+
+    public DpsEmailParserImpl() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public DpsEmailParserImpl(Clock clock) {
+        this.clock = clock;
+    }
 
     /**
      * Parse the content of the body and extract DpsEmailContent
@@ -72,18 +85,27 @@ public class DpsEmailParserImpl implements DpsEmailParser {
         return elements.text();
     }
 
-    private static Date buildDate(Map<String, Object> emailMap) {
-
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(new Date());
-        cal.set(Calendar.YEAR, Integer.parseInt(emailMap.get(YEAR_KEY).toString()));
-        cal.set(Calendar.MONTH, Integer.parseInt(emailMap.get(MONTH_KEY).toString()) - 1);
-        cal.set(Calendar.DAY_OF_MONTH, Integer.parseInt(emailMap.get(MONTH_DAY_KEY).toString()));
-        cal.set(Calendar.AM_PM, emailMap.get(AA_KEY).toString().equalsIgnoreCase("am") ? Calendar.AM : Calendar.PM);
-        cal.set(Calendar.HOUR, Integer.parseInt(emailMap.get(HOUR_KEY).toString()));
-        cal.set(Calendar.MINUTE, Integer.parseInt(emailMap.get(MINUTE_KEY).toString()));
-        cal.set(Calendar.SECOND, Integer.parseInt(emailMap.get(SECOND_KEY).toString()));
-        return cal.getTime();
+    /**
+     * Builds the date the way a lenient calendar does: out of range values roll over, 12 is added to the hour for PM
+     * and the milliseconds are taken from the current time.
+     */
+    private Date buildDate(Map<String, Object> emailMap) {
+
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        int hourOfDay = Integer.parseInt(emailMap.get(HOUR_KEY).toString()) +
+                (emailMap.get(AA_KEY).toString().equalsIgnoreCase("am") ? 0 : 12);
+
+        LocalDateTime date = LocalDate.of(Integer.parseInt(emailMap.get(YEAR_KEY).toString()), 1, 1)
+                .plusMonths(Integer.parseInt(emailMap.get(MONTH_KEY).toString()) - 1L)
+                .plusDays(Integer.parseInt(emailMap.get(MONTH_DAY_KEY).toString()) - 1L)
+                .atStartOfDay()
+                .plusHours(hourOfDay)
+                .plusMinutes(Integer.parseInt(emailMap.get(MINUTE_KEY).toString()))
+                .plusSeconds(Integer.parseInt(emailMap.get(SECOND_KEY).toString()))
+                .with(ChronoField.MILLI_OF_SECOND, now.get(ChronoField.MILLI_OF_SECOND));
+
+        return DateUtils.toDate(date, clock.getZone());
     }
 
     private static Map<String, Object> parseString(String body) {
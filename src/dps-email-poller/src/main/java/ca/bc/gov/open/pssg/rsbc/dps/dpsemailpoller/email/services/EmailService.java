@@ -53,6 +53,13 @@ public interface EmailService {
      */
     EmailMessage moveToProcessedFolder(String id);
 
+    /**
+     * Moves messages to the processed folder on the mailbox with a single request.
+     * @param ids - the email message ids
+     * @return the ids of the messages that could not be moved
+     */
+    List<String> moveToProcessedFolder(List<String> ids);
+
 
     /**
      * Returns all the attachemts present in email
@@ -7,6 +7,11 @@ import microsoft.exchange.webservices.data.core.PropertySet;
 import microsoft.exchange.webservices.data.core.enumeration.property.BasePropertySet;
 import microsoft.exchange.webservices.data.core.enumeration.property.WellKnownFolderName;
 import microsoft.exchange.webservices.data.core.enumeration.search.SortDirection;
+import microsoft.exchange.webservices.data.core.enumeration.service.ServiceResult;
+import microsoft.exchange.webservices.data.core.enumeration.service.error.ServiceErrorHandling;
+import microsoft.exchange.webservices.data.core.request.MoveItemRequest;
+import microsoft.exchange.webservices.data.core.response.MoveCopyItemResponse;
+import microsoft.exchange.webservices.data.core.response.ServiceResponseCollection;
 import microsoft.exchange.webservices.data.core.service.folder.Folder;
 import microsoft.exchange.webservices.data.core.service.item.EmailMessage;
 import microsoft.exchange.webservices.data.core.service.item.Item;
@@ -134,6 +139,53 @@ public class EmailServiceImpl implements EmailService {
         return moveToFolder(id, this.mailboxProcessedFolder);
     }
 
+    @Override
+    public List<String> moveToProcessedFolder(List<String> ids) {
+        return moveToFolder(ids, this.mailboxProcessedFolder);
+    }
+
+    /**
+     * Moves the items with one EWS call, the folder is resolved once for all the items.
+     *
+     * The request returns the errors instead of throwing on the first item that failed, so the items that could not be
+     * moved are reported while the others are moved.
+     */
+    private List<String> moveToFolder(List<String> ids, String folderName) {
+
+        List<String> result = new ArrayList<>();
+
+        if (ids.isEmpty()) return result;
+
+        try (ExchangeService exchangeService = exchangeServiceFactory.createService()) {
+
+            List<ItemId> itemIds = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                itemIds.add(new ItemId(id));
+            }
+
+            FolderId folderId = getFolderIdByDisplayName(folderName);
+
+            MoveItemRequest request = new MoveItemRequest(exchangeService, ServiceErrorHandling.ReturnErrors);
+            request.getItemIds().addRange(itemIds);
+            request.setDestinationFolderId(folderId);
+
+            ServiceResponseCollection<MoveCopyItemResponse> responses = execute(request);
+
+            for (int i = 0; i < ids.size(); i++) {
+                if (i >= responses.getCount() || responses.getResponseAtIndex(i).getResult() != ServiceResult.Success)
+                    result.add(ids.get(i));
+            }
+
+        } catch (Exception e) {
+            throw new DpsEmailException("Exception while moving emails to " + folderName, e.getCause());
+        }
+
+        return result;
+    }
+
+    ServiceResponseCollection<MoveCopyItemResponse> execute(MoveItemRequest request) throws Exception {
+        return request.execute();
+    }
 
     private EmailMessage moveToFolder(String id, String folderName) {
         try (ExchangeService exchangeService = exchangeServiceFactory.createService()) {
@@ -1,5 +1,6 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.messaging;
 
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
 
 
@@ -18,4 +19,12 @@ public interface MessagingService {
      */
     void sendMessage(DpsMetadata item, String tenant);
 
+    /**
+     * Sends a message to the appropriate queue with the stage timestamps of the document in the headers.
+     * @param item
+     * @param tenant
+     * @param timestamps
+     */
+    void sendMessage(DpsMetadata item, String tenant, StageTimestamps timestamps);
+
 }
@@ -1,6 +1,7 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.messaging;
 
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.DpsEmailException;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +20,11 @@ public class MessagingServiceImpl implements MessagingService {
 
     @Override
     public void sendMessage(DpsMetadata dpsMetadata, String tenant) {
+        sendMessage(dpsMetadata, tenant, new StageTimestamps());
+    }
+
+    @Override
+    public void sendMessage(DpsMetadata dpsMetadata, String tenant, StageTimestamps timestamps) {
 
         logger.info("Send a message to the queue");
 
@@ -35,8 +41,11 @@ public class MessagingServiceImpl implements MessagingService {
         logger.debug("Attempting to publish message to emailMessage exchange with key [{}], item: [{}]",
                 tenant, dpsMetadata);
 
+        timestamps.withTenant(tenant).mark(StageTimestamps.PUBLISHED);
+
         emailMessageTopicTemplate.convertAndSend(tenant, dpsMetadata, m -> {
             m.getMessageProperties().getHeaders().put(Keys.X_DEAD_LETTER_ROUTING_KEY, tenant);
+            timestamps.writeTo(m.getMessageProperties().getHeaders());
             return m;
         });
 
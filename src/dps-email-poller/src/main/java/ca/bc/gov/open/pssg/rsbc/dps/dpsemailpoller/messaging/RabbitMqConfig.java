@@ -1,5 +1,7 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.messaging;
 
+import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.ClaimCheckStore;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -19,4 +21,12 @@ public class RabbitMqConfig {
         return new MessagingServiceImpl(emailMessageTopTemplate);
     }
 
+    /**
+     * Stores large message payloads in redis when dps.messaging.claim-check-enabled is set
+     */
+    @Bean
+    ClaimCheckStore claimCheckStore(StorageService storageService) {
+        return ClaimCheckStore.of(storageService::put, storageService::get, storageService::delete);
+    }
+
 }
@@ -8,6 +8,7 @@ import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.DpsEmailException;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.services.DpsMetadataMapper;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.services.EmailService;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.messaging.MessagingService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
 import ca.bc.gov.open.pssg.rsbc.error.DpsException;
 import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
@@ -74,6 +75,7 @@ public class EmailPoller {
 
                 String correlationId = UNDEFINED;
                 String filename = UNDEFINED;
+                StageTimestamps timestamps = new StageTimestamps();
 
                 try {
 
@@ -87,6 +89,7 @@ public class EmailPoller {
 
                     logger.debug("attempting to store email attachment");
                     String fileId = this.storageService.put(attachment.get().getContent());
+                    timestamps.mark(StageTimestamps.STORED);
                     logger.info("successfully stored attachments {}", attachment.get().getName());
 
                     logger.debug("attempting to parse email content");
@@ -97,6 +100,9 @@ public class EmailPoller {
                     correlationId = metadata.getTransactionId().toString();
                     filename = metadata.getFileInfo().getName();
                     MDC.put(MdcConstants.MDC_TRANSACTION_ID_KEY, metadata.getTransactionId().toString());
+                    if (metadata.getReceivedDate() != null)
+                        timestamps.mark(StageTimestamps.RECEIVED, metadata.getReceivedDate().getTime());
+                    timestamps.putInMdc();
 
                     logger.info("successfully parsed  email content");
 
@@ -104,7 +110,7 @@ public class EmailPoller {
                     metadata.setEmailId(processedItem.getId().getUniqueId());
                     logger.info("successfully moved message to processing folder");
 
-                    messagingService.sendMessage(metadata, this.tenant);
+                    messagingService.sendMessage(metadata, this.tenant, timestamps);
                     logger.info("successfully send message to processing queue");
 
                     notifySuccess(metadata);
@@ -137,6 +143,7 @@ public class EmailPoller {
 
                 } finally {
                     MDC.remove(MdcConstants.MDC_TRANSACTION_ID_KEY);
+                    timestamps.removeFromMdc();
                 }
 
             });
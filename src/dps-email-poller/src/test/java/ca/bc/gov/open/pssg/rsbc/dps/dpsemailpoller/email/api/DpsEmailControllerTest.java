@@ -12,11 +12,15 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class DpsEmailControllerTest {
 
     public static final String CASE_1 = "case1";
     public static final String CASE_2 = "case2";
+    public static final String CASE_3 = "case3";
     public static final String EMAIL_EXCEPTION = "email exception";
     private DpsEmailController sut;
 
@@ -39,6 +43,10 @@ public class DpsEmailControllerTest {
         Mockito.when(emailServiceMock.moveToErrorFolder(Mockito.eq(CASE_2))).thenThrow(new DpsEmailException(
                 EMAIL_EXCEPTION));
 
+        Mockito.when(emailServiceMock.moveToProcessedFolder(Mockito.eq(Arrays.asList(CASE_1, CASE_2)))).thenReturn(Collections.singletonList(CASE_2));
+        Mockito.when(emailServiceMock.moveToProcessedFolder(Mockito.eq(Collections.singletonList(CASE_3)))).thenThrow(new DpsEmailException(
+                EMAIL_EXCEPTION));
+
         sut = new DpsEmailController(emailServiceMock);
     }
 
@@ -102,9 +110,39 @@ public class DpsEmailControllerTest {
 
     }
 
+    @DisplayName("success - with processed emails should return acknowledge and failed ids")
+    @Test
+    public void withProcessedEmailsShouldReturnFailedIds() {
 
+        DpsEmailsProcessedRequest dpsEmailsProcessedRequest = new DpsEmailsProcessedRequest();
+        dpsEmailsProcessedRequest.setCorrelationId("test");
+        dpsEmailsProcessedRequest.setIds(Arrays.asList(
+                new DpsMetadata.Builder().withEmailId(CASE_1).build().getBase64EmailId(),
+                new DpsMetadata.Builder().withEmailId(CASE_2).build().getBase64EmailId()));
 
+        ResponseEntity<DpsEmailResponse> response = sut.ProcessedAll(dpsEmailsProcessedRequest);
 
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertTrue(response.getBody().isAcknowledge());
+        Assertions.assertEquals(1, response.getBody().getFailedIds().size());
+        Assertions.assertEquals(new DpsMetadata.Builder().withEmailId(CASE_2).build().getBase64EmailId(), response.getBody().getFailedIds().get(0));
+
+    }
 
+    @DisplayName("success - with processed emails not moved should return error message")
+    @Test
+    public void withProcessedEmailsNotMovedShouldReturnError() {
+
+        DpsEmailsProcessedRequest dpsEmailsProcessedRequest = new DpsEmailsProcessedRequest();
+        dpsEmailsProcessedRequest.setCorrelationId("test");
+        dpsEmailsProcessedRequest.setIds(Collections.singletonList(new DpsMetadata.Builder().withEmailId(CASE_3).build().getBase64EmailId()));
+
+        ResponseEntity<DpsEmailResponse> response = sut.ProcessedAll(dpsEmailsProcessedRequest);
+
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        Assertions.assertFalse(response.getBody().isAcknowledge());
+        Assertions.assertEquals(EMAIL_EXCEPTION, response.getBody().getMessage());
+
+    }
 
 }
@@ -4,6 +4,9 @@ import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.TestKey;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.models.DpsEmailContent;
 import org.junit.jupiter.api.*;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.Calendar;
 
 @DisplayName("DpsEmailParserImplTest test suite")
@@ -65,6 +68,29 @@ public class DpsEmailParserImplTest {
 
     }
 
+    @DisplayName("CASE 4: with a fixed clock the date should be the one of a lenient calendar")
+    @Test
+    public void TestValidEmailWithFixedClock() {
+
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(1580553026123L), ZoneId.systemDefault());
+
+        DpsEmailContent dpsEmailContent = new DpsEmailParserImpl(clock).parseEmail(TestKey.VALID_EMAIL_1);
+
+        // 12/12/2019 at 4:13:49 PM built the way the parser used to
+        Calendar expected = Calendar.getInstance();
+        expected.setTimeInMillis(clock.millis());
+        expected.set(Calendar.YEAR, 2019);
+        expected.set(Calendar.MONTH, 11);
+        expected.set(Calendar.DAY_OF_MONTH, 12);
+        expected.set(Calendar.AM_PM, Calendar.PM);
+        expected.set(Calendar.HOUR, 4);
+        expected.set(Calendar.MINUTE, 13);
+        expected.set(Calendar.SECOND, 49);
+
+        Assertions.assertEquals(expected.getTime(), dpsEmailContent.getDate());
+
+    }
+
     @DisplayName("CASE 3: when an email has a different body")
     @Test
     public void TestValidEmail3() {
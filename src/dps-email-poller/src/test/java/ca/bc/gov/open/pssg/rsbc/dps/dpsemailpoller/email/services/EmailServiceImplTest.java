@@ -7,7 +7,12 @@ import microsoft.exchange.webservices.data.core.PropertySet;
 import microsoft.exchange.webservices.data.core.enumeration.misc.ExchangeVersion;
 import microsoft.exchange.webservices.data.core.enumeration.property.BodyType;
 import microsoft.exchange.webservices.data.core.enumeration.property.WellKnownFolderName;
+import microsoft.exchange.webservices.data.core.enumeration.service.ServiceResult;
+import microsoft.exchange.webservices.data.core.enumeration.service.error.ServiceErrorHandling;
 import microsoft.exchange.webservices.data.core.exception.service.local.ServiceLocalException;
+import microsoft.exchange.webservices.data.core.request.MoveItemRequest;
+import microsoft.exchange.webservices.data.core.response.MoveCopyItemResponse;
+import microsoft.exchange.webservices.data.core.response.ServiceResponseCollection;
 import microsoft.exchange.webservices.data.core.service.folder.Folder;
 import microsoft.exchange.webservices.data.core.service.item.EmailMessage;
 import microsoft.exchange.webservices.data.core.service.item.Item;
@@ -21,11 +26,15 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -283,6 +292,57 @@ public class EmailServiceImplTest {
         });
     }
 
+    @Test
+    public void withMoveEmailsToProcessedReturnFailedIds() throws Exception {
+
+        FindFoldersResults folders = new FindFoldersResults();
+        Folder folder = new Folder(exchangeServiceMock);
+        folder.setDisplayName("I'm the display name");
+        folders.getFolders().add(folder);
+
+        Mockito.doReturn(folders).when(exchangeServiceMock).findFolders(Mockito.any(WellKnownFolderName.class), Mockito.any(SearchFilter.class), Mockito.any(FolderView.class));
+
+        MoveCopyItemResponse success = Mockito.mock(MoveCopyItemResponse.class);
+        Mockito.when(success.getResult()).thenReturn(ServiceResult.Success);
+        MoveCopyItemResponse error = Mockito.mock(MoveCopyItemResponse.class);
+        Mockito.when(error.getResult()).thenReturn(ServiceResult.Error);
+
+        ServiceResponseCollection<MoveCopyItemResponse> responses = new ServiceResponseCollection<>();
+        responses.add(success);
+        responses.add(error);
+
+        EmailServiceImpl sutSpy = Mockito.spy(sut);
+        ArgumentCaptor<MoveItemRequest> request = ArgumentCaptor.forClass(MoveItemRequest.class);
+        Mockito.doReturn(responses).when(sutSpy).execute(request.capture());
+
+        List<String> result = sutSpy.moveToProcessedFolder(Arrays.asList("moved", "notmoved", "notreported"));
+
+        Assertions.assertEquals(ServiceErrorHandling.ReturnErrors,
+                ReflectionTestUtils.getField(request.getValue(), "errorHandlingMode"));
+        Assertions.assertEquals(3, request.getValue().getItemIds().getCount());
+        Assertions.assertEquals(folder.getId(), request.getValue().getDestinationFolderId());
+        Mockito.verify(exchangeServiceMock, Mockito.never()).moveItems(Mockito.any(Iterable.class), Mockito.any(FolderId.class));
+
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("notmoved", result.get(0));
+        Assertions.assertEquals("notreported", result.get(1));
+    }
+
+    @Test
+    public void withMoveEmailsToProcessedReturnNoFolder() throws Exception {
+
+        Mockito.doReturn(new FindFoldersResults()).when(exchangeServiceMock).findFolders(Mockito.any(WellKnownFolderName.class), Mockito.any(SearchFilter.class), Mockito.any(FolderView.class));
+
+        Assertions.assertThrows(DpsEmailException.class, () -> {
+            sut.moveToProcessedFolder(Arrays.asList("moved", "notmoved"));
+        });
+    }
+
+    @Test
+    public void withNoEmailsToProcessedReturnEmptyList() {
+        Assertions.assertTrue(sut.moveToProcessedFolder(Collections.emptyList()).isEmpty());
+    }
+
     @Test
     public void withFileAttachmentShouldReturnAListOfAttachments () throws Exception {
 
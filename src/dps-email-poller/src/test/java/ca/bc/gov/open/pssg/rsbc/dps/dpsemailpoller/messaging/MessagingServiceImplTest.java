@@ -1,5 +1,6 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.messaging;
 
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.DpsEmailException;
 import microsoft.exchange.webservices.data.core.service.item.Item;
@@ -7,9 +8,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -67,4 +72,26 @@ public class MessagingServiceImplTest {
             sut.sendMessage(null, DPS_TENANT_SUCCESS);
         });
     }
+
+    @Test
+    public void withTimestampsShouldStampHeaders() {
+
+        RabbitTemplate rabbitTemplate = Mockito.mock(RabbitTemplate.class);
+        sut = new MessagingServiceImpl(rabbitTemplate);
+
+        DpsMetadata dpsMetadata = new DpsMetadata.Builder().withApplicationID("test").build();
+
+        sut.sendMessage(dpsMetadata, TENANT, new StageTimestamps().mark(StageTimestamps.RECEIVED, 1L));
+
+        ArgumentCaptor<MessagePostProcessor> postProcessor = ArgumentCaptor.forClass(MessagePostProcessor.class);
+        Mockito.verify(rabbitTemplate).convertAndSend(Mockito.eq(TENANT), Mockito.eq(dpsMetadata), postProcessor.capture());
+
+        Message message = postProcessor.getValue().postProcessMessage(new Message(new byte[0], new MessageProperties()));
+
+        StageTimestamps result = StageTimestamps.fromHeaders(message.getMessageProperties().getHeaders());
+
+        Assertions.assertEquals(TENANT, result.getTenant());
+        Assertions.assertEquals(1L, result.getTimestamps().get(StageTimestamps.RECEIVED));
+        Assertions.assertTrue(result.getTimestamps().containsKey(StageTimestamps.PUBLISHED));
+    }
 }
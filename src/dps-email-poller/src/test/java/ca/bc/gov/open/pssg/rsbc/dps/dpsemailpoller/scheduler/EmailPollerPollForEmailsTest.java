@@ -5,6 +5,7 @@ import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.DpsEmailException;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.services.DpsMetadataMapper;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.email.services.EmailService;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailpoller.messaging.MessagingService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
 import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
 import microsoft.exchange.webservices.data.core.ExchangeService;
@@ -103,7 +104,7 @@ public class EmailPollerPollForEmailsTest {
 
         Mockito.when(emailServiceMock.getDpsInboxEmails()).thenReturn(result);
         Mockito.when(emailServiceMock.moveToProcessingFolder(Mockito.anyString())).thenReturn(itemMock);
-        Mockito.doNothing().when(messagingServiceMock).sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString());
+        Mockito.doNothing().when(messagingServiceMock).sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString(), Mockito.any(StageTimestamps.class));
 
         sut.pollForEmails();
 
@@ -113,7 +114,7 @@ public class EmailPollerPollForEmailsTest {
 
         Mockito
                 .verify(messagingServiceMock, Mockito.times(1))
-                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString());
+                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString(), Mockito.any(StageTimestamps.class));
     }
 
     @Test
@@ -132,7 +133,7 @@ public class EmailPollerPollForEmailsTest {
 
         Mockito
                 .verify(messagingServiceMock, Mockito.times(0))
-                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString());
+                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString(), Mockito.any(StageTimestamps.class));
     }
 
     @Test
@@ -147,7 +148,7 @@ public class EmailPollerPollForEmailsTest {
 
         Mockito.when(emailServiceMock.getDpsInboxEmails()).thenReturn(result);
         Mockito.when(emailServiceMock.moveToProcessingFolder(Mockito.anyString())).thenReturn(itemMock);
-        Mockito.doNothing().when(messagingServiceMock).sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString());
+        Mockito.doNothing().when(messagingServiceMock).sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString(), Mockito.any(StageTimestamps.class));
 
         sut.pollForEmails();
 
@@ -157,7 +158,7 @@ public class EmailPollerPollForEmailsTest {
 
         Mockito
                 .verify(messagingServiceMock, Mockito.times(5))
-                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString());
+                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString(), Mockito.any(StageTimestamps.class));
     }
 
     @Test
@@ -170,7 +171,7 @@ public class EmailPollerPollForEmailsTest {
 
         Mockito
                 .verify(messagingServiceMock, Mockito.times(0))
-                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString());
+                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString(), Mockito.any(StageTimestamps.class));
     }
 
     @Test
@@ -186,7 +187,7 @@ public class EmailPollerPollForEmailsTest {
 
         Mockito
                 .verify(messagingServiceMock, Mockito.times(0))
-                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString());
+                .sendMessage(Mockito.any(DpsMetadata.class), Mockito.anyString(), Mockito.any(StageTimestamps.class));
 
 
     }
@@ -1,27 +1,54 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker;
 
-import ca.bc.gov.dps.monitoring.NotificationService;
-import ca.bc.gov.dps.monitoring.SystemNotification;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportSession;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.services.ImportSessionService;
-import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration.RegistrationService;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.EmailCompletionService;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.ProgressStore;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.StageTimer;
 import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
 import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
 import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailProcessedResponse;
 import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailService;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimitExceededException;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DpsTenantListener;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpProperties;
 import ca.bc.gov.open.pssg.rsbc.monitoring.MdcConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayInputStream;
 import java.text.MessageFormat;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Imports emails in kofax.
+ *
+ * The remaining stages are handed off to the {@link EmailCompletionService} once the files are uploaded to the kofax
+ * server, the message is acknowledged when the completion ends, or once it is journaled when
+ * dps.email.pipeline.journal-file is set. When kofax.aggregation-enabled is set the messages of a consumer batch share one
+ * ImportSession, one definition file and one control file.
+ *
+ * The stage timestamps stamped by the poller are read from the message headers and completed with the worker stages.
+ * When dps.email.pipeline.progress-enabled is set the upload is saved to the {@link ProgressStore}, a message
+ * redelivered after its files were uploaded goes straight to the completion.
+ *
+ * Parked messages move the email to ErrHold, unless dps.messaging.replay-endpoint-enabled is set to keep them in the
+ * parking lot for a replay.
+ */
 @Component
 public class DpsEmailConsumer {
 
@@ -39,123 +66,198 @@ public class DpsEmailConsumer {
 
     private final ImportSessionService importSessionService;
 
-    private final RegistrationService registrationService;
+    private final EmailCompletionService emailCompletionService;
+
+    private final DependencyLimiter dependencyLimiter;
+
+    private final StageTimer stageTimer;
+
+    private final ProgressStore progressStore;
 
     public DpsEmailConsumer(DpsEmailService dpsEmailService, StorageService storageService, FileService fileService,
                             SftpProperties sftpProperties, ImportSessionService importSessionService,
-                            RegistrationService registrationService) {
+                            EmailCompletionService emailCompletionService, DependencyLimiter dependencyLimiter,
+                            StageTimer stageTimer, ProgressStore progressStore) {
         this.dpsEmailService = dpsEmailService;
         this.storageService = storageService;
         this.fileService = fileService;
         this.sftpProperties = sftpProperties;
         this.importSessionService = importSessionService;
-        this.registrationService = registrationService;
+        this.emailCompletionService = emailCompletionService;
+        this.dependencyLimiter = dependencyLimiter;
+        this.stageTimer = stageTimer;
+        this.progressStore = progressStore;
     }
 
-    @RabbitListener(queues = Keys.EMAIL_QUEUE_NAME)
-    public void receiveMessage(DpsMetadata message) {
+    /**
+     * Processes a single message, registered on the main queue of this worker and of each dps.messaging.tenants entry
+     * so the tenants share the worker consumers fairly.
+     */
+    @DpsTenantListener(autoStartup = "#{!${kofax.aggregation-enabled:false}}")
+    public void receiveMessage(DpsMetadata message, @Headers Map<String, Object> headers) {
+
+        StageTimestamps timestamps = progressStore.load(message, StageTimestamps.fromHeaders(headers))
+                .mark(StageTimestamps.WORKER_STARTED);
 
         MDC.put(MdcConstants.MDC_TRANSACTION_ID_KEY, message.getTransactionId().toString());
+        timestamps.putInMdc();
 
-        logger.info("received new {}", message);
+        try {
 
-        ImportSession session = importSessionService.generateImportSession(message);
-        if(!session.getBatchName().isPresent()) throw new DpsEmailWorkerException("batch name is required.");
+            logger.info("received new {}", message);
 
-        try {
+            if (timestamps.isMarked(StageTimestamps.UPLOADED)) {
+                logger.info("Files already uploaded by a previous delivery, resuming completion");
+            } else {
+                upload(message);
+                progressStore.save(message, timestamps.mark(StageTimestamps.UPLOADED));
+            }
 
-            logger.debug("attempting to get message meta data [{}]", message);
-            DpsFileInfo dpsFileInfo = message.getFileInfo();
+        } finally {
+            MDC.remove(MdcConstants.MDC_TRANSACTION_ID_KEY);
+            timestamps.removeFromMdc();
+        }
 
-            // content to be used.
-            byte[] content = storageService.get(dpsFileInfo.getId());
-            logger.info("message attachment content retrieved [{}]", dpsFileInfo.getId());
+        // the control file makes the batch visible to kofax, the remaining stages run off the listener
+        await(Collections.singletonList(emailCompletionService.complete(message, timestamps)));
 
-            logger.debug("Attempting to upload image file to SFTP server");
-            fileService.uploadFile(new ByteArrayInputStream(content), MessageFormat.format("{0}/{1}", sftpProperties.getRemoteLocation(), message.getFileInfo().getName()));
-            logger.info("Successfully uploaded image file to remote SFTP server");
+    }
 
-            logger.debug("Attempting to upload definition file to SFTP server");
-            fileService.uploadFile(new ByteArrayInputStream(importSessionService.convertToXmlBytes(session)), MessageFormat.format("{0}/{1}.{2}", sftpProperties.getRemoteLocation(), session.getBatchName().get(), XML));
-            logger.info("Successfully uploaded definition file to remote SFTP server");
+    /**
+     * Imports the messages of a consumer batch in a single ImportSession, used when kofax.aggregation-enabled is set.
+     *
+     * The container delivers up to dps.messaging.listener.batch-size messages, or fewer when no message is received
+     * within dps.messaging.listener.receive-timeout. The messages are acknowledged or retried together.
+     */
+    @RabbitListener(queues = Keys.EMAIL_QUEUE_NAME, containerFactory = "batchRabbitListenerContainerFactory",
+            autoStartup = "${kofax.aggregation-enabled:false}")
+    public void receiveMessages(List<Message<DpsMetadata>> batch) {
 
-            logger.debug("Attempting to upload control file to SFTP server");
-            fileService.uploadFile(new ByteArrayInputStream("".getBytes()), MessageFormat.format("{0}/{1}/{2}.{3}", sftpProperties.getRemoteLocation(), Keys.KOFAX_CONTROL_FOLDER,  session.getBatchName().get(), XML));
-            logger.info("Successfully uploaded control file to remote SFTP server");
+        List<DpsMetadata> messages = new ArrayList<>(batch.size());
+        List<StageTimestamps> timestamps = new ArrayList<>(batch.size());
+        List<DpsMetadata> pending = new ArrayList<>(batch.size());
 
-            logger.debug("Attempting to remove document from redis cache");
-            storageService.delete(dpsFileInfo.getId());
-            logger.info("Successfully removed document from redis cache");
+        for (Message<DpsMetadata> message : batch) {
 
+            StageTimestamps stageTimestamps = progressStore.load(message.getPayload(),
+                    StageTimestamps.fromHeaders(message.getHeaders())).mark(StageTimestamps.WORKER_STARTED);
 
-            if(registrationService.isActive()) {
-                logger.info("Attempting to register package");
-                registrationService.registerPackage(message);
-                logger.info("Successfully registered package to OTS database.");
-            } else {
-                logger.info("Registration Service is not activated.");
-            }
+            messages.add(message.getPayload());
+            timestamps.add(stageTimestamps);
+            if (!stageTimestamps.isMarked(StageTimestamps.UPLOADED)) pending.add(message.getPayload());
+        }
 
-            logger.info("Attempting to move email to processed folder");
-            DpsEmailProcessedResponse dpsEmailProcessedResponse = dpsEmailService.dpsEmailProcessed(message.getBase64EmailId(), message.getTransactionId().toString());
+        logger.info("received {} new messages", messages.size());
 
-            if(!dpsEmailProcessedResponse.isAcknowledge()) {
-                notifyMoveEmailToError(message, dpsEmailProcessedResponse);
-                MDC.remove(MdcConstants.MDC_TRANSACTION_ID_KEY);
-                return;
-            }
+        if (pending.size() < messages.size())
+            logger.info("{} messages already uploaded by a previous delivery, resuming completion",
+                    messages.size() - pending.size());
 
-            logger.info("Successfully moved email to processed folder");
+        if (!pending.isEmpty()) upload(pending);
 
-        } catch (Exception e) {
+        List<CompletableFuture<Void>> completions = new ArrayList<>(messages.size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            if (!timestamps.get(i).isMarked(StageTimestamps.UPLOADED))
+                progressStore.save(messages.get(i), timestamps.get(i).mark(StageTimestamps.UPLOADED));
+            completions.add(emailCompletionService.complete(messages.get(i), timestamps.get(i)));
+        }
+
+        await(completions);
+
+    }
+
+    private void await(List<CompletableFuture<Void>> completions) {
+        try {
+            CompletableFuture.allOf(completions.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw new DpsEmailWorkerException("Exception while completing message.", e.getCause());
+        }
+    }
 
+    private void upload(DpsMetadata message) {
+
+        ImportSession session = stageTimer.record(StageTimer.IMPORT_SESSION,
+                () -> importSessionService.generateImportSession(message));
+        if(!session.getBatchName().isPresent()) throw new DpsEmailWorkerException("batch name is required.");
+
+        try {
+            importToKofax(session, Collections.singletonList(message));
+        } catch (DependencyLimitExceededException e) {
+            // nothing was uploaded, the message is requeued without spending a retry
+            throw e;
+        } catch (Exception e) {
             logger.error("Error in {} while processing message: ", e.getClass().getSimpleName(), e);
             throw new DpsEmailWorkerException("Exception while processing message.", e.getCause());
+        }
+    }
+
+    private void upload(List<DpsMetadata> messages) {
+
+        ImportSession session = stageTimer.record(StageTimer.IMPORT_SESSION,
+                () -> importSessionService.generateImportSession(messages));
+        if(!session.getBatchName().isPresent()) throw new DpsEmailWorkerException("batch name is required.");
+
+        MDC.put(MdcConstants.MDC_TRANSACTION_ID_KEY, session.getBatchName().get());
+
+        try {
+
+            importToKofax(session, messages);
+
+        } catch (DependencyLimitExceededException e) {
+
+            // nothing was uploaded, the messages are requeued without spending a retry
+            throw e;
+
+        } catch (Exception e) {
+
+            logger.error("Error in {} while processing messages: ", e.getClass().getSimpleName(), e);
+            throw new DpsEmailWorkerException("Exception while processing messages.", e.getCause());
 
         } finally {
             MDC.remove(MdcConstants.MDC_TRANSACTION_ID_KEY);
         }
+    }
 
-        notifySuccess(message);
+    private void importToKofax(ImportSession session, List<DpsMetadata> messages) {
 
-    }
+        List<byte[]> contents = new ArrayList<>(messages.size());
 
-    private void notifySuccess(DpsMetadata message) {
+        for (DpsMetadata message : messages) {
 
-        SystemNotification success = new SystemNotification
-                .Builder()
-                .withCorrelationId(message.getTransactionId().toString())
-                .withCorrelationId(message.getFileInfo().getName())
-                .withApplicationName(Keys.APPLICATION_NAME)
-                .withComponent("Image import")
-                .withMessage("All files were successfully uploaded to KOFAX sftp server.")
-                .withType("DPS UPLOAD SUCCESS")
-                .buildSuccess();
+            logger.debug("attempting to get message meta data [{}]", message);
+            DpsFileInfo dpsFileInfo = message.getFileInfo();
 
-        NotificationService.notify(success);
+            // content to be used.
+            contents.add(stageTimer.record(StageTimer.CACHE_GET, () -> storageService.get(dpsFileInfo.getId())));
+            logger.info("message attachment content retrieved [{}]", dpsFileInfo.getId());
+        }
 
-    }
+        stageTimer.run(StageTimer.SFTP_UPLOAD, () -> dependencyLimiter.run(Keys.SFTP_DEPENDENCY, () -> {
+
+            for (int i = 0; i < messages.size(); i++) {
+                logger.debug("Attempting to upload image file to SFTP server");
+                fileService.uploadFile(new ByteArrayInputStream(contents.get(i)), MessageFormat.format("{0}/{1}", sftpProperties.getRemoteLocation(), messages.get(i).getFileInfo().getName()));
+                logger.info("Successfully uploaded image file to remote SFTP server");
+            }
+
+            logger.debug("Attempting to upload definition file to SFTP server");
+            fileService.uploadFile(new ByteArrayInputStream(importSessionService.convertToXmlBytes(session)), MessageFormat.format("{0}/{1}.{2}", sftpProperties.getRemoteLocation(), session.getBatchName().get(), XML));
+            logger.info("Successfully uploaded definition file to remote SFTP server");
+
+            logger.debug("Attempting to upload control file to SFTP server");
+            fileService.uploadFile(new ByteArrayInputStream("".getBytes()), MessageFormat.format("{0}/{1}/{2}.{3}", sftpProperties.getRemoteLocation(), Keys.KOFAX_CONTROL_FOLDER,  session.getBatchName().get(), XML));
+            logger.info("Successfully uploaded control file to remote SFTP server");
 
-    private void notifyMoveEmailToError(DpsMetadata message, DpsEmailProcessedResponse response) {
-        SystemNotification success = new SystemNotification
-                .Builder()
-                .withCorrelationId(message.getTransactionId().toString())
-                .withCorrelationId(message.getFileInfo().getName())
-                .withApplicationName(Keys.APPLICATION_NAME)
-                .withComponent("Image import")
-                .withAction(MessageFormat.format("Manual Intervention: email with subject {0} in {1} error hold folder can be moved to Processed folder, " +
-                        "it was successfully processed by the system", message.getSubject(), message.getTo()))
-                .withMessage(response.getMessage())
-                .withType("MAILBOX ERROR")
-                .buildError();
-
-        NotificationService.notify(success);
+        }));
     }
 
     // Anything that hits the parking queue we can assume we can't process, so...
     // 1. Move the email to the error folder in exchange
     // 2. Delete the attached doc from the cache
-    @RabbitListener(queues = Keys.PARKING_QUEUE_NAME)
+    // Not started when dps.messaging.replay-endpoint-enabled is set, parked messages then wait for a replay
+    @RabbitListener(queues = Keys.PARKING_QUEUE_NAME,
+            autoStartup = "#{!${dps.messaging.replay-endpoint-enabled:false}}")
     public void receiveParkedMessage(DpsMetadata message) {
 
         logger.error("Error: email {} - landed in parking lot", message.toString());
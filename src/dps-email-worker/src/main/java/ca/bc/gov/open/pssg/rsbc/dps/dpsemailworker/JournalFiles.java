@@ -0,0 +1,45 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.MessageFormat;
+
+/**
+ * Checks the location of the local journals acknowledging messages before their work is done.
+ *
+ * A journal is the only copy of the work once the message is acknowledged, it has to be an absolute path in a
+ * directory mounted before the worker starts, a persistent volume claimed for each replica. Relative paths resolve in
+ * the container file system and are rejected at startup.
+ */
+public final class JournalFiles {
+
+    private JournalFiles() { }
+
+    /**
+     * @param file the configured journal file
+     * @param property the property configuring the file, reported when it is rejected
+     * @return the path of the journal file
+     * @throws DpsEmailWorkerException when the file is not an absolute path in an existing writable directory
+     */
+    public static Path resolve(String file, String property) {
+
+        if (file == null || file.trim().isEmpty())
+            throw new DpsEmailWorkerException(MessageFormat.format("{0} is required", property));
+
+        Path path = Paths.get(file);
+
+        if (!path.isAbsolute())
+            throw new DpsEmailWorkerException(MessageFormat.format("{0} [{1}] must be an absolute path on a " +
+                    "persistent volume", property, file));
+
+        Path directory = path.getParent();
+
+        if (directory == null || !Files.isDirectory(directory) || !Files.isWritable(directory))
+            throw new DpsEmailWorkerException(MessageFormat.format("{0} [{1}] must be in a writable directory " +
+                    "mounted on a persistent volume", property, file));
+
+        return path;
+    }
+
+}
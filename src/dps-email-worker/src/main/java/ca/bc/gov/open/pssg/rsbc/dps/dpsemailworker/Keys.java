@@ -55,6 +55,16 @@ public class Keys {
      */
     public static final String REGISTRATION_OPERATION_SUCCESS_STATUS = "0";
 
+    /**
+     * The sftp server dependency name used to limit concurrent calls
+     */
+    public static final String SFTP_DEPENDENCY = "sftp";
+
+    /**
+     * The OTS registration dependency name used to limit concurrent calls
+     */
+    public static final String REGISTRATION_DEPENDENCY = "registration";
+
 
 
 }
@@ -0,0 +1,33 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.backpressure;
+
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DpsMessagingProperties;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+@Configuration
+@EnableConfigurationProperties(BackPressureProperties.class)
+@ConditionalOnProperty(name = "dps.email.backpressure.enabled", havingValue = "true")
+public class BackPressureConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public BackPressureController backPressureController(BackPressureProperties backPressureProperties,
+                                                         DpsMessagingProperties dpsMessagingProperties,
+                                                         RabbitListenerEndpointRegistry rabbitListenerEndpointRegistry) {
+        BackPressureController result = new BackPressureController(backPressureProperties, dpsMessagingProperties,
+                rabbitListenerEndpointRegistry::getListenerContainers,
+                dpsMessagingProperties.getTenantRoutingKeys().stream()
+                        .map(dpsMessagingProperties::getMainQueueName)
+                        .collect(Collectors.toList()),
+                Executors.newSingleThreadScheduledExecutor(), Clock.systemUTC());
+        result.start();
+        return result;
+    }
+
+}
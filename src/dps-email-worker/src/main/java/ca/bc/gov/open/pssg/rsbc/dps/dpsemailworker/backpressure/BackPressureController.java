@@ -0,0 +1,189 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.backpressure;
+
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.StageTimer;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DpsMessagingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Reduces the consumers of the email listener containers of every tenant main queue while a downstream is saturated.
+ *
+ * The latency and error rate of the monitored pipeline stages are tracked over a rolling window. When a stage trips a
+ * threshold the consumers of each container are halved, a container down to no consumer is stopped. Once every stage
+ * is back under the thresholds, stopped containers are started with one consumer and one consumer is added per
+ * interval until the configured consumers are reached.
+ *
+ * Only the containers running when first seen are managed, containers that are not started on purpose stay stopped.
+ */
+public class BackPressureController implements StageTimer.Listener {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final BackPressureProperties backPressureProperties;
+    private final DpsMessagingProperties dpsMessagingProperties;
+    private final Supplier<Collection<MessageListenerContainer>> containers;
+    private final Collection<String> queueNames;
+    private final ScheduledExecutorService scheduler;
+    private final Clock clock;
+
+    private final Map<String, RollingWindow> windows = new HashMap<>();
+
+    // consumers allowed by container, 0 when stopped, accessed by the scheduler thread only
+    private final Map<SimpleMessageListenerContainer, Integer> consumers = new IdentityHashMap<>();
+
+    public BackPressureController(BackPressureProperties backPressureProperties,
+                                  DpsMessagingProperties dpsMessagingProperties,
+                                  Supplier<Collection<MessageListenerContainer>> containers, Collection<String> queueNames,
+                                  ScheduledExecutorService scheduler, Clock clock) {
+        this.backPressureProperties = backPressureProperties;
+        this.dpsMessagingProperties = dpsMessagingProperties;
+        this.containers = containers;
+        this.queueNames = queueNames;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        backPressureProperties.getMaxLatency().keySet()
+                .forEach(stage -> windows.put(stage, new RollingWindow(backPressureProperties.getWindow())));
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::evaluate, backPressureProperties.getInterval(),
+                backPressureProperties.getInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public void onStage(String stage, long elapsedNanos, boolean success) {
+        RollingWindow window = windows.get(stage);
+        if (window != null) window.record(clock.millis(), elapsedNanos, success);
+    }
+
+    /**
+     * @return true when a monitored stage is over its latency or error rate threshold
+     */
+    public boolean isSaturated() {
+
+        long now = clock.millis();
+
+        for (Map.Entry<String, RollingWindow> entry : windows.entrySet()) {
+
+            RollingWindow.Snapshot snapshot = entry.getValue().snapshot(now);
+
+            if (snapshot.getCalls() < backPressureProperties.getMinCalls()) continue;
+
+            if (snapshot.getErrorRate() > backPressureProperties.getMaxErrorRate() ||
+                    snapshot.getAverageLatencyMillis() > backPressureProperties.getMaxLatency().get(entry.getKey())) {
+                logger.warn("Downstream of stage [{}] saturated: {} calls, error rate {}, average latency {} ms",
+                        entry.getKey(), snapshot.getCalls(), snapshot.getErrorRate(),
+                        snapshot.getAverageLatencyMillis());
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    void evaluate() {
+
+        try {
+
+            boolean saturated = isSaturated();
+
+            for (MessageListenerContainer container : containers.get()) {
+
+                if (!(container instanceof SimpleMessageListenerContainer)) continue;
+
+                SimpleMessageListenerContainer simpleContainer = (SimpleMessageListenerContainer) container;
+
+                String queueName = Arrays.stream(simpleContainer.getQueueNames())
+                        .filter(queueNames::contains)
+                        .findFirst()
+                        .orElse(null);
+
+                if (queueName == null) continue;
+
+                if (!consumers.containsKey(simpleContainer)) {
+                    if (!simpleContainer.isRunning()) continue;
+                    consumers.put(simpleContainer, getConfiguredConsumers(queueName));
+                }
+
+                if (saturated) {
+                    throttle(simpleContainer, queueName);
+                } else {
+                    release(simpleContainer, queueName);
+                }
+            }
+
+        } catch (RuntimeException e) {
+            logger.error("Error while evaluating back pressure", e);
+        }
+    }
+
+    private void throttle(SimpleMessageListenerContainer container, String queueName) {
+
+        int current = consumers.get(container);
+
+        if (current == 0) return;
+
+        int target = current / 2;
+        consumers.put(container, target);
+
+        if (target == 0) {
+            logger.warn("Stopping listener container of [{}]", queueName);
+            container.stop();
+            return;
+        }
+
+        logger.warn("Reducing listener consumers of [{}] from {} to {}", queueName, current, target);
+        container.setConcurrentConsumers(target);
+        container.setMaxConcurrentConsumers(target);
+    }
+
+    private void release(SimpleMessageListenerContainer container, String queueName) {
+
+        int current = consumers.get(container);
+        int configured = getConfiguredConsumers(queueName);
+
+        if (current >= configured) return;
+
+        int target = current + 1;
+        consumers.put(container, target);
+
+        container.setMaxConcurrentConsumers(target == configured ? getConfiguredMaxConsumers(queueName) : target);
+        container.setConcurrentConsumers(target);
+
+        if (current == 0) {
+            logger.info("Starting listener container of [{}] with 1 consumer", queueName);
+            container.start();
+            return;
+        }
+
+        logger.info("Increasing listener consumers of [{}] from {} to {}", queueName, current, target);
+    }
+
+    private int getConfiguredConsumers(String queueName) {
+        Integer concurrentConsumers = dpsMessagingProperties.getListener(queueName).getConcurrentConsumers();
+        return concurrentConsumers != null ? Math.max(1, concurrentConsumers) : 1;
+    }
+
+    private int getConfiguredMaxConsumers(String queueName) {
+        Integer maxConcurrentConsumers = dpsMessagingProperties.getListener(queueName).getMaxConcurrentConsumers();
+        return maxConcurrentConsumers != null ? Math.max(maxConcurrentConsumers, getConfiguredConsumers(queueName)) :
+                getConfiguredConsumers(queueName);
+    }
+
+}
@@ -0,0 +1,97 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.backpressure;
+
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.StageTimer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "dps.email.backpressure")
+public class BackPressureProperties {
+
+    private boolean enabled;
+
+    private long interval = 5000;
+
+    private long window = 30000;
+
+    private int minCalls = 5;
+
+    private double maxErrorRate = 0.5;
+
+    private Map<String, Long> maxLatency = new HashMap<>();
+
+    public BackPressureProperties() {
+        maxLatency.put(StageTimer.SFTP_UPLOAD, 10000L);
+        maxLatency.put(StageTimer.REGISTRATION, 5000L);
+    }
+
+    /**
+     * @return true when the email listener consumers are reduced while a downstream is saturated
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return the time in milliseconds between two evaluations of the downstreams, consumers are added back one per
+     * evaluation
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * @return the time in milliseconds the latency and error rate of each downstream are computed over
+     */
+    public long getWindow() {
+        return window;
+    }
+
+    public void setWindow(long window) {
+        this.window = window;
+    }
+
+    /**
+     * @return the minimum number of calls in the window before a downstream can be considered saturated
+     */
+    public int getMinCalls() {
+        return minCalls;
+    }
+
+    public void setMinCalls(int minCalls) {
+        this.minCalls = minCalls;
+    }
+
+    /**
+     * @return the ratio of failed calls above which a downstream is saturated
+     */
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public void setMaxErrorRate(double maxErrorRate) {
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    /**
+     * @return the average latency in milliseconds above which a downstream is saturated, keyed by pipeline stage.
+     * Only the stages listed are monitored.
+     */
+    public Map<String, Long> getMaxLatency() {
+        return maxLatency;
+    }
+
+    public void setMaxLatency(Map<String, Long> maxLatency) {
+        this.maxLatency = maxLatency;
+    }
+
+}
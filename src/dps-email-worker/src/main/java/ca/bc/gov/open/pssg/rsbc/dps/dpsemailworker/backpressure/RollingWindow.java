@@ -0,0 +1,75 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.backpressure;
+
+/**
+ * Counts the calls, failures and time spent over the last window, split in buckets that are reset as time moves on.
+ */
+class RollingWindow {
+
+    private static final int BUCKETS = 10;
+
+    private final long bucketMillis;
+
+    // guarded by this
+    private final long[] epochs = new long[BUCKETS];
+    private final long[] calls = new long[BUCKETS];
+    private final long[] errors = new long[BUCKETS];
+    private final long[] nanos = new long[BUCKETS];
+
+    RollingWindow(long windowMillis) {
+        this.bucketMillis = Math.max(1, windowMillis / BUCKETS);
+        for (int i = 0; i < BUCKETS; i++) epochs[i] = -1;
+    }
+
+    synchronized void record(long nowMillis, long elapsedNanos, boolean success) {
+
+        long epoch = nowMillis / bucketMillis;
+        int bucket = (int) (epoch % BUCKETS);
+
+        if (epochs[bucket] != epoch) {
+            epochs[bucket] = epoch;
+            calls[bucket] = 0;
+            errors[bucket] = 0;
+            nanos[bucket] = 0;
+        }
+
+        calls[bucket]++;
+        if (!success) errors[bucket]++;
+        nanos[bucket] += elapsedNanos;
+    }
+
+    synchronized Snapshot snapshot(long nowMillis) {
+
+        long epoch = nowMillis / bucketMillis;
+        Snapshot result = new Snapshot();
+
+        for (int i = 0; i < BUCKETS; i++) {
+            if (epochs[i] > epoch - BUCKETS && epochs[i] <= epoch) {
+                result.calls += calls[i];
+                result.errors += errors[i];
+                result.nanos += nanos[i];
+            }
+        }
+
+        return result;
+    }
+
+    static class Snapshot {
+
+        private long calls;
+        private long errors;
+        private long nanos;
+
+        long getCalls() {
+            return calls;
+        }
+
+        double getErrorRate() {
+            return calls == 0 ? 0 : (double) errors / calls;
+        }
+
+        long getAverageLatencyMillis() {
+            return calls == 0 ? 0 : nanos / calls / 1_000_000;
+        }
+    }
+
+}
@@ -1,10 +1,21 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.configuration;
 
+import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.ClaimCheckStore;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 @EnableConfigurationProperties(TenantProperties.class)
 public class RabbitMqConfig {
 
+    /**
+     * Reads claim checked message payloads from redis
+     */
+    @Bean
+    public ClaimCheckStore claimCheckStore(StorageService storageService) {
+        return ClaimCheckStore.of(storageService::put, storageService::get, storageService::delete);
+    }
+
 }
@@ -31,6 +31,16 @@ public class KofaxProperties {
 
     private String errorHoldLocation;
 
+    private int errorPageSize = 100;
+
+    private int errorWorkerCount = 1;
+
+    private int errorProcessedLimit = 10000;
+
+    private boolean templateWriter;
+
+    private boolean aggregationEnabled;
+
     public String getUserId() {
         return userId;
     }
@@ -111,6 +121,9 @@ public class KofaxProperties {
         this.fileNameDatePattern = fileNameDatePattern;
     }
 
+    /**
+     * @return the SimpleDateFormat pattern of the import session date, an invalid pattern fails the startup
+     */
     public String getXmlDatePattern() {
         return xmlDatePattern;
     }
@@ -134,4 +147,53 @@ public class KofaxProperties {
     public void setErrorHoldLocation(String errorHoldLocation) {
         this.errorHoldLocation = errorHoldLocation;
     }
+
+    public int getErrorPageSize() {
+        return errorPageSize;
+    }
+
+    public void setErrorPageSize(int errorPageSize) {
+        this.errorPageSize = errorPageSize;
+    }
+
+    public int getErrorWorkerCount() {
+        return errorWorkerCount;
+    }
+
+    public void setErrorWorkerCount(int errorWorkerCount) {
+        this.errorWorkerCount = errorWorkerCount;
+    }
+
+    /**
+     * @return the maximum number of handled error file names kept in memory to skip them on the next runs
+     */
+    public int getErrorProcessedLimit() {
+        return errorProcessedLimit;
+    }
+
+    public void setErrorProcessedLimit(int errorProcessedLimit) {
+        this.errorProcessedLimit = errorProcessedLimit;
+    }
+
+    /**
+     * @return true to write the ImportSession xml with the template writer instead of JAXB
+     */
+    public boolean isTemplateWriter() {
+        return templateWriter;
+    }
+
+    public void setTemplateWriter(boolean templateWriter) {
+        this.templateWriter = templateWriter;
+    }
+
+    /**
+     * @return true to import the documents of a consumer batch in a single ImportSession
+     */
+    public boolean isAggregationEnabled() {
+        return aggregationEnabled;
+    }
+
+    public void setAggregationEnabled(boolean aggregationEnabled) {
+        this.aggregationEnabled = aggregationEnabled;
+    }
 }
@@ -1,10 +1,11 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models;
 
+import ca.bc.gov.open.pssg.rsbc.utils.DateUtils;
+
 import javax.xml.bind.annotation.*;
-import java.text.DateFormat;
 import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.Clock;
+import java.time.format.DateTimeFormatter;
 
 @XmlRootElement(name = "Batch")
 @XmlAccessorType(XmlAccessType.FIELD)
@@ -12,10 +13,15 @@ public class Batch {
 
     public static class Builder {
 
+        // YYYY is the week based year, kept for the batch names to stay identical to the SimpleDateFormat ones
+        private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateUtils.ofLegacyPattern("YYYY-MM-dd-HH-mm-ss-SSS");
+
         private String inputChannel;
         private String batchClassName;
         private String enableAutomaticSeparationAndFormID;
         private String relativeImageFilePath;
+        private Integer sequence;
+        private Clock clock = Clock.systemDefaultZone();
 
         public Builder withInputChannel(String inputChannel) {
             this.inputChannel = inputChannel;
@@ -37,16 +43,27 @@ public class Batch {
             return this;
         }
 
-        private String getTimeStamp() {
+        /**
+         * Appends the position of the batch to its name, batches of the same import session are built within the
+         * same millisecond.
+         */
+        public Builder withSequence(int sequence) {
+            this.sequence = sequence;
+            return this;
+        }
 
-            DateFormat df = new SimpleDateFormat("YYYY-MM-dd-HH-mm-ss-SSS");
-            Calendar calendar = Calendar.getInstance();
-            return df.format(calendar.getTime());
+        public Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
 
+        private String getTimeStamp() {
+            return DateUtils.now(this.clock, TIMESTAMP_FORMATTER);
         }
 
         private String getName() {
-            return MessageFormat.format("{0}-{1}", this.inputChannel, getTimeStamp());
+            String name = MessageFormat.format("{0}-{1}", this.inputChannel, getTimeStamp());
+            return this.sequence == null ? name : MessageFormat.format("{0}-{1}", name, String.valueOf(this.sequence));
         }
 
         public Batch build() {
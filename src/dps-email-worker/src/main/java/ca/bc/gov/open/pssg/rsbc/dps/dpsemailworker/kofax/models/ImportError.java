@@ -0,0 +1,33 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models;
+
+/**
+ * The error reported by kofax for an import session, with the import id of its first batch.
+ */
+public class ImportError {
+
+    private final String errorCode;
+    private final String errorMessage;
+    private final String importId;
+
+    public ImportError(String errorCode, String errorMessage, String importId) {
+        this.errorCode = errorCode;
+        this.errorMessage = errorMessage;
+        this.importId = importId;
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    /**
+     * @return the import id batch field of the first batch, null when missing
+     */
+    public String getImportId() {
+        return importId;
+    }
+
+}
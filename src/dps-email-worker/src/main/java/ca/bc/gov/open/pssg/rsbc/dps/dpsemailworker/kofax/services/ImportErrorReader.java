@@ -0,0 +1,77 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.services;
+
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportError;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * Reads the error of a kofax ImportSession xml document with a StAX stream reader instead of binding the whole
+ * document with JAXB.
+ *
+ * Only the ImportSession ErrorCode and ErrorMessage attributes and the import id batch field of the first batch are
+ * read, the rest of the document is not parsed. The factory is configured once and shared, DTDs and external entities
+ * are not supported.
+ */
+public class ImportErrorReader {
+
+    private static final String IMPORT_SESSION = "ImportSession";
+    private static final String BATCH = "Batch";
+    private static final String BATCH_FIELD = "BatchField";
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public ImportErrorReader() {
+        this.xmlInputFactory = XMLInputFactory.newInstance();
+        this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Reads the import error, the stream is not closed.
+     *
+     * @param inputStream
+     * @param importIdFieldName the name of the batch field holding the import id
+     * @return
+     * @throws XMLStreamException
+     */
+    public ImportError read(InputStream inputStream, String importIdFieldName) throws XMLStreamException {
+
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+
+        try {
+
+            String errorCode = null;
+            String errorMessage = null;
+
+            while (reader.hasNext()) {
+
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+
+                    if (IMPORT_SESSION.equals(reader.getLocalName())) {
+                        errorCode = reader.getAttributeValue(null, "ErrorCode");
+                        errorMessage = reader.getAttributeValue(null, "ErrorMessage");
+                    } else if (BATCH_FIELD.equals(reader.getLocalName())
+                            && importIdFieldName.equals(reader.getAttributeValue(null, "Name"))) {
+                        return new ImportError(errorCode, errorMessage, reader.getAttributeValue(null, "Value"));
+                    }
+
+                } else if (event == XMLStreamConstants.END_ELEMENT && BATCH.equals(reader.getLocalName())) {
+                    // the import id is only read from the first batch
+                    break;
+                }
+            }
+
+            return new ImportError(errorCode, errorMessage, null);
+
+        } finally {
+            reader.close();
+        }
+    }
+
+}
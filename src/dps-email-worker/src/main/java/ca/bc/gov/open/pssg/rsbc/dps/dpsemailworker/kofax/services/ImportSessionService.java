@@ -1,9 +1,12 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.services;
 
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportError;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportSession;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 
 
 /**
@@ -19,8 +22,29 @@ public interface ImportSessionService {
      */
     ImportSession generateImportSession(DpsMetadata dpsMetadata);
 
+    /**
+     * Generate a single import session with one batch per document
+     * @param dpsMetadata dpsMetatada info of the documents
+     * @return
+     */
+    ImportSession generateImportSession(List<DpsMetadata> dpsMetadata);
+
     byte[] convertToXmlBytes(ImportSession importSession);
 
+    /**
+     * Writes the xml of the import session to the output stream, the stream is not closed
+     * @param importSession
+     * @param outputStream
+     */
+    void writeXml(ImportSession importSession, OutputStream outputStream);
+
     ImportSession convertToImportSession(InputStream is);
 
+    /**
+     * Reads the error reported by kofax in an import session xml document, the stream is not closed
+     * @param is
+     * @return
+     */
+    ImportError readImportError(InputStream is);
+
 }
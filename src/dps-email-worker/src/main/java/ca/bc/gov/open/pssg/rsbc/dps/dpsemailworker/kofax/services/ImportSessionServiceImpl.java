@@ -5,6 +5,7 @@ import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.configuration.TenantPropertie
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.KofaxProperties;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.*;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import ca.bc.gov.open.pssg.rsbc.utils.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -12,16 +13,25 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
+import java.io.OutputStream;
+import java.time.Clock;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 
+/**
+ * Marshallers are not thread safe and costly to create, each listener thread keeps its own marshaller and unmarshaller.
+ */
 public class ImportSessionServiceImpl implements ImportSessionService {
 
+    private static final int XML_BUFFER_SIZE = 2048;
+
+    private static final DateTimeFormatter FAX_RECEIVED_DATE_FORMATTER = DateUtils.ofLegacyPattern("yyyy-MM-dd'T'H:mm:ss'Z'");
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final KofaxProperties kofaxProperties;
@@ -30,11 +40,32 @@ public class ImportSessionServiceImpl implements ImportSessionService {
 
     private final JAXBContext kofaxImportSession;
 
+    private final ImportSessionXmlWriter importSessionXmlWriter = new ImportSessionXmlWriter();
+
+    private final ImportErrorReader importErrorReader = new ImportErrorReader();
+
+    private final ThreadLocal<Marshaller> marshaller;
+
+    private final ThreadLocal<Unmarshaller> unmarshaller;
+
+    private final Clock clock;
+
+    private final DateTimeFormatter importDateFormatter;
+
     public ImportSessionServiceImpl(KofaxProperties kofaxProperties, TenantProperties tenantProperties,
                                     JAXBContext kofaxImportSession) {
+        this(kofaxProperties, tenantProperties, kofaxImportSession, Clock.systemDefaultZone());
+    }
+
+    public ImportSessionServiceImpl(KofaxProperties kofaxProperties, TenantProperties tenantProperties,
+                                    JAXBContext kofaxImportSession, Clock clock) {
         this.kofaxProperties = kofaxProperties;
         this.tenantProperties = tenantProperties;
         this.kofaxImportSession = kofaxImportSession;
+        this.marshaller = ThreadLocal.withInitial(this::createMarshaller);
+        this.unmarshaller = ThreadLocal.withInitial(this::createUnmarshaller);
+        this.clock = clock;
+        this.importDateFormatter = DateUtils.ofLegacyPattern(kofaxProperties.getXmlDatePattern());
     }
 
     @Override
@@ -43,45 +74,93 @@ public class ImportSessionServiceImpl implements ImportSessionService {
     }
 
     @Override
-    public byte[] convertToXmlBytes(ImportSession importSession) {
+    public ImportSession generateImportSession(List<DpsMetadata> dpsMetadata) {
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImportSession session = new ImportSession(kofaxProperties.getUserId(), kofaxProperties.getPassword(), null, null);
 
-        try {
-            Marshaller marshaller = kofaxImportSession.createMarshaller();
-            marshaller.marshal(importSession, baos);
-        } catch (JAXBException e) {
-            e.printStackTrace();
+        for (int i = 0; i < dpsMetadata.size(); i++) {
+            session.getBatches().addBatch(getBatch(dpsMetadata.get(i), i + 1));
         }
 
+        return session;
+    }
+
+    @Override
+    public byte[] convertToXmlBytes(ImportSession importSession) {
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(XML_BUFFER_SIZE);
+
+        writeXml(importSession, baos);
+
         return baos.toByteArray();
 
     }
 
+    /**
+     * Writes the import session with the template writer when kofax.template-writer is set, with JAXB otherwise.
+     *
+     * @param importSession
+     * @param outputStream
+     */
+    @Override
+    public void writeXml(ImportSession importSession, OutputStream outputStream) {
+
+        if (kofaxProperties.isTemplateWriter()) {
+            try {
+                importSessionXmlWriter.write(importSession, outputStream);
+            } catch (IOException e) {
+                throw new DpsEmailWorkerException("could not write import session xml document", e);
+            }
+            return;
+        }
+
+        try {
+            marshaller.get().marshal(importSession, outputStream);
+        } catch (JAXBException e) {
+            throw new DpsEmailWorkerException("could not marshall import session xml document", e);
+        }
+    }
+
     @Override
     public ImportSession convertToImportSession(InputStream inputStream) {
 
         try {
-            Unmarshaller unmarshaller = kofaxImportSession.createUnmarshaller();
-            ImportSession session = (ImportSession) unmarshaller.unmarshal(inputStream);
+            ImportSession session = (ImportSession) unmarshaller.get().unmarshal(inputStream);
             return session;
         } catch (JAXBException e) {
-            throw new DpsEmailWorkerException("could not unmarshall xml document");
+            throw new DpsEmailWorkerException("could not unmarshall xml document", e);
         }
     }
 
-    private ImportSession getImportSession(DpsMetadata dpsMetadata) {
+    @Override
+    public ImportError readImportError(InputStream inputStream) {
+
+        try {
+            return importErrorReader.read(inputStream, kofaxProperties.getBatchFieldImportId());
+        } catch (XMLStreamException e) {
+            throw new DpsEmailWorkerException("could not read import session error", e);
+        }
+    }
 
-        Batch batch = getBatch(dpsMetadata);
+    private Marshaller createMarshaller() {
+        try {
+            return kofaxImportSession.createMarshaller();
+        } catch (JAXBException e) {
+            throw new DpsEmailWorkerException("could not create import session marshaller", e);
+        }
+    }
 
-        batch.getPages().addPage(getPage(dpsMetadata));
+    private Unmarshaller createUnmarshaller() {
+        try {
+            return kofaxImportSession.createUnmarshaller();
+        } catch (JAXBException e) {
+            throw new DpsEmailWorkerException("could not create import session unmarshaller", e);
+        }
+    }
 
-        batch.getBatchFields().addBatchField(getDateBatchField(dpsMetadata));
+    private ImportSession getImportSession(DpsMetadata dpsMetadata) {
 
-        batch.getBatchFields().addBatchField(getProgramTypeBatchField(dpsMetadata));
-        batch.getBatchFields().addBatchField(getFaxReceivedDateField(dpsMetadata));
-        batch.getBatchFields().addBatchField(getOrininatingNumber(dpsMetadata));
-        batch.getBatchFields().addBatchField(getImportIdField(dpsMetadata));
+        Batch batch = getBatch(dpsMetadata, null);
 
         ImportSession session = new ImportSession(kofaxProperties.getUserId(), kofaxProperties.getPassword(), null, null);
 
@@ -90,13 +169,29 @@ public class ImportSessionServiceImpl implements ImportSessionService {
         return session;
     }
 
-    private Batch getBatch(DpsMetadata dpsMetadata) {
-        return new Batch.Builder()
+    private Batch getBatch(DpsMetadata dpsMetadata, Integer sequence) {
+
+        Batch.Builder builder = new Batch.Builder()
                 .withInputChannel(dpsMetadata.getInboundChannelType())
                 .withBatchClassName(tenantProperties.getName())
                 .withEnableAutomaticSeparationAndFormID(kofaxProperties.getEnableAutoSeparationAndFormid())
                 .withRelativeImageFilePath(kofaxProperties.getRelativeImageFilePath())
-                .build();
+                .withClock(clock);
+
+        if (sequence != null) builder.withSequence(sequence);
+
+        Batch batch = builder.build();
+
+        batch.getPages().addPage(getPage(dpsMetadata));
+
+        batch.getBatchFields().addBatchField(getDateBatchField(dpsMetadata));
+
+        batch.getBatchFields().addBatchField(getProgramTypeBatchField(dpsMetadata));
+        batch.getBatchFields().addBatchField(getFaxReceivedDateField(dpsMetadata));
+        batch.getBatchFields().addBatchField(getOrininatingNumber(dpsMetadata));
+        batch.getBatchFields().addBatchField(getImportIdField(dpsMetadata));
+
+        return batch;
     }
 
     private Page getPage(DpsMetadata dpsMetadata) {
@@ -108,7 +203,7 @@ public class ImportSessionServiceImpl implements ImportSessionService {
 
     private BatchField getDateBatchField(DpsMetadata dpsMetadata) {
         return new BatchField(kofaxProperties.getBatchFieldImportDate(),
-                getTimeStamp(kofaxProperties.getXmlDatePattern()));
+                DateUtils.now(clock, importDateFormatter));
     }
 
     private BatchField getProgramTypeBatchField(DpsMetadata dpsMetadata) {
@@ -116,7 +211,7 @@ public class ImportSessionServiceImpl implements ImportSessionService {
     }
 
     private BatchField getFaxReceivedDateField(DpsMetadata dpsMetadata) {
-        return new BatchField(kofaxProperties.getBatchFieldFaxReceiveDate(), formatDate(dpsMetadata.getReceivedDate(), "yyyy-MM-dd'T'H:mm:ss'Z'"));
+        return new BatchField(kofaxProperties.getBatchFieldFaxReceiveDate(), DateUtils.format(dpsMetadata.getReceivedDate(), FAX_RECEIVED_DATE_FORMATTER));
     }
 
     private BatchField getOrininatingNumber(DpsMetadata dpsMetadata) {
@@ -127,15 +222,5 @@ public class ImportSessionServiceImpl implements ImportSessionService {
         return new BatchField(kofaxProperties.getBatchFieldImportId(), dpsMetadata.getTransactionId().toString());
     }
 
-    private String getTimeStamp(String pattern) {
-        Calendar calendar = Calendar.getInstance();
-        return formatDate(calendar.getTime(), pattern);
-    }
-
-    private String formatDate(Date date, String pattern) {
-        DateFormat df = new SimpleDateFormat(pattern);
-        return df.format(date);
-    }
-
 
 }
@@ -0,0 +1,150 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.services;
+
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes the fixed kofax ImportSession xml shape without going through JAXB.
+ *
+ * The output is identical to the JAXB marshaller output: same declaration, attribute order and escaping, null
+ * attributes are omitted and empty lists are written as empty elements.
+ */
+public class ImportSessionXmlWriter {
+
+    private static final String DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+    private static final int BUFFER_SIZE = 2048;
+
+    /**
+     * Writes the import session to the output stream, the stream is flushed but not closed.
+     *
+     * @param importSession
+     * @param outputStream
+     * @throws IOException
+     */
+    public void write(ImportSession importSession, OutputStream outputStream) throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        writer.write(DECLARATION);
+
+        writer.write("<ImportSession");
+        writeAttribute(writer, "UserID", importSession.getUserID());
+        writeAttribute(writer, "Password", importSession.getPassword());
+        writeAttribute(writer, "ErrorCode", importSession.getErrorCode());
+        writeAttribute(writer, "ErrorMessage", importSession.getErrorMessage());
+        writer.write('>');
+
+        if (importSession.getBatches() != null) writeBatches(writer, importSession.getBatches().getBatches());
+
+        writer.write("</ImportSession>");
+        writer.flush();
+    }
+
+    private void writeBatches(Writer writer, List<Batch> batches) throws IOException {
+
+        if (batches.isEmpty()) {
+            writer.write("<Batches/>");
+            return;
+        }
+
+        writer.write("<Batches>");
+
+        for (Batch batch : batches) {
+
+            writer.write("<Batch");
+            writeAttribute(writer, "Name", batch.getName());
+            writeAttribute(writer, "BatchClassName", batch.getBatchClassName());
+            writeAttribute(writer, "EnableAutomaticSeparationAndFormID", batch.getEnableAutomaticSeparationAndFormID());
+            writeAttribute(writer, "RelativeImageFilePath", batch.getRelativeImageFilePath());
+            writer.write('>');
+
+            if (batch.getBatchFields() != null) writeBatchFields(writer, batch.getBatchFields().getBatchFields());
+            if (batch.getPages() != null) writePages(writer, batch.getPages().getPages());
+
+            writer.write("</Batch>");
+        }
+
+        writer.write("</Batches>");
+    }
+
+    private void writeBatchFields(Writer writer, List<BatchField> batchFields) throws IOException {
+
+        if (batchFields.isEmpty()) {
+            writer.write("<BatchFields/>");
+            return;
+        }
+
+        writer.write("<BatchFields>");
+
+        for (BatchField batchField : batchFields) {
+            writer.write("<BatchField");
+            writeAttribute(writer, "Name", batchField.getName());
+            writeAttribute(writer, "Value", batchField.getValue());
+            writer.write("/>");
+        }
+
+        writer.write("</BatchFields>");
+    }
+
+    private void writePages(Writer writer, List<Page> pages) throws IOException {
+
+        if (pages.isEmpty()) {
+            writer.write("<Pages/>");
+            return;
+        }
+
+        writer.write("<Pages>");
+
+        for (Page page : pages) {
+            writer.write("<Page");
+            writeAttribute(writer, "ImportFileName", page.getImportFileName());
+            writeAttribute(writer, "OriginalFileName", page.getOriginalFileName());
+            writeAttribute(writer, "ErrorCode", page.getErrorCode());
+            writeAttribute(writer, "ErrorMessage", page.getErrorMessage());
+            writer.write("/>");
+        }
+
+        writer.write("</Pages>");
+    }
+
+    private static void writeAttribute(Writer writer, String name, String value) throws IOException {
+
+        if (value == null) return;
+
+        writer.write(' ');
+        writer.write(name);
+        writer.write("=\"");
+
+        for (int i = 0; i < value.length(); i++) {
+
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '"':
+                    writer.write("&quot;");
+                    break;
+                default:
+                    writer.write(c);
+            }
+        }
+
+        writer.write('"');
+    }
+
+}
@@ -5,9 +5,11 @@ import ca.bc.gov.dps.monitoring.SystemNotification;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.DpsEmailWorkerException;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.configuration.TenantProperties;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.KofaxProperties;
-import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.Batch;
-import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportSession;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportError;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.services.ImportSessionService;
+import ca.bc.gov.open.pssg.rsbc.dps.files.DpsFileException;
+import ca.bc.gov.open.pssg.rsbc.dps.files.FileEntry;
+import ca.bc.gov.open.pssg.rsbc.dps.files.FileOperations;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.DpsSftpException;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpProperties;
@@ -18,10 +20,24 @@ import org.slf4j.event.Level;
 
 import java.io.InputStream;
 import java.text.MessageFormat;
-import java.util.Optional;
-
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves kofax import errors to the error hold folder and notifies the support team.
+ *
+ * Runs are incremental: the names of the files moved to the error hold folder are kept by {@link ProcessedFiles} and
+ * skipped while they are still listed, whatever their modification time, a full rescan can be requested with
+ * {@link #reset()}. Files that failed are not kept and are retried by the next run. The names are kept in memory only,
+ * up to kofax.error-processed-limit. The error folder is listed once per run and the new files are shared between the
+ * workers, kofax.error-worker-count sets the number of workers. Each worker reads and moves the files with the
+ * operations of its own connection, only a page of the listing is held in memory.
+ * Only the error and the import id are read from the error files, see {@link ImportSessionService#readImportError}.
+ */
 public class ErrorMonitoringJob implements MonitoringJob {
 
+    private static final String XML_GLOB = "*.xml";
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final FileService fileService;
@@ -29,48 +45,121 @@ public class ErrorMonitoringJob implements MonitoringJob {
     private final SftpProperties sftpProperties;
     private final TenantProperties tenantProperties;
     private final ImportSessionService importSessionService;
+    private final ExecutorService workerExecutorService;
+
+    private final ProcessedFiles processedFiles;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile JobProgress progress;
 
     public ErrorMonitoringJob(
             FileService fileService,
             ImportSessionService importSessionService,
             KofaxProperties kofaxProperties,
-            SftpProperties sftpProperties, TenantProperties tenantProperties) {
+            SftpProperties sftpProperties, TenantProperties tenantProperties,
+            ExecutorService workerExecutorService) {
         this.fileService = fileService;
         this.kofaxProperties = kofaxProperties;
         this.sftpProperties = sftpProperties;
         this.importSessionService = importSessionService;
         this.tenantProperties = tenantProperties;
+        this.workerExecutorService = workerExecutorService;
+        this.processedFiles = new ProcessedFiles(kofaxProperties.getErrorProcessedLimit());
     }
 
     @Override
     public void run() {
 
-        logger.info("starting error job");
+        if (!running.compareAndSet(false, true)) {
+            logger.info("error job already running, skipping");
+            return;
+        }
+
+        JobProgress jobProgress = new JobProgress();
+        this.progress = jobProgress;
+
+        int workerCount = Math.max(1, kofaxProperties.getErrorWorkerCount());
+
+        logger.info("starting error job with {} worker(s), {} file(s) already handled", workerCount,
+                processedFiles.size());
+
+        try {
+
+            processedFiles.beginListing();
+
+            fileService.processFiles(getErrorFolderPath(), XML_GLOB, kofaxProperties.getErrorPageSize(), workerCount,
+                    workerExecutorService, (fileEntry, fileOperations) ->
+                            processFile(fileEntry, fileOperations, jobProgress));
+
+            // the listing completed, handled files no longer listed are forgotten.
+            processedFiles.endListing();
+
+        } catch (DpsSftpException | DpsFileException ex) {
+            logger.error("Exception while processing error folder", ex);
+        } finally {
+            jobProgress.complete();
+            running.set(false);
+        }
+
+        logger.info("error job completed in {} ms: scanned [{}], skipped [{}], moved [{}], failed [{}]",
+                jobProgress.getDuration().toMillis(), jobProgress.getFilesScanned(), jobProgress.getFilesSkipped(),
+                jobProgress.getFilesMoved(), jobProgress.getFilesFailed());
+    }
+
+    @Override
+    public JobProgress getProgress() {
+        return progress;
+    }
 
-        fileService.listFiles(getErrorFolderPath())
-                .forEach(filename -> handleKofaxError(filename));
+    @Override
+    public void reset() {
+        logger.info("resetting error job processed files");
+        processedFiles.reset();
     }
 
-    private void handleKofaxError(String filename) {
+    /**
+     * Moves the error file with the operations of the worker connection.
+     *
+     * @return true if the file has been moved to the error hold folder
+     */
+    private boolean processFile(FileEntry fileEntry, FileOperations fileOperations, JobProgress jobProgress) {
+
+        if (!fileEntry.isRegularFile()) return false;
+
+        jobProgress.fileScanned();
+
+        if (!processedFiles.isNew(fileEntry.getName())) {
+            jobProgress.fileSkipped();
+            return false;
+        }
+
+        if (!handleKofaxError(fileEntry.getName(), fileOperations)) {
+            jobProgress.fileFailed();
+            return false;
+        }
 
-        if (!filename.endsWith(".xml")) return;
+        jobProgress.fileMoved();
+        processedFiles.add(fileEntry.getName());
+
+        return true;
+    }
+
+    private boolean handleKofaxError(String filename, FileOperations fileOperations) {
 
         try {
 
             logger.info("find error, file name is {}", getErrorFileName(filename));
-            InputStream fileContent = fileService.getFileContent(getErrorFileName(filename));
-            ImportSession importSession = importSessionService.convertToImportSession(fileContent);
-            logger.info(importSession.getErrorCode());
+            InputStream fileContent = fileOperations.getFileContent(getErrorFileName(filename));
+            ImportError importError = importSessionService.readImportError(fileContent);
+            logger.info(importError.getErrorCode());
 
             logger.debug("Attempting to move file to {}", getErrorHoldFileName(filename));
-            fileService.moveFile(getErrorFileName(filename), getErrorHoldFileName(filename));
+            fileOperations.moveFile(getErrorFileName(filename), getErrorHoldFileName(filename));
             logger.info("Successfully moved file to {}", getErrorHoldFileName(filename));
 
             SystemNotification systemNotification = new SystemNotification
                     .Builder()
                     .withLevel(Level.INFO)
-                    .withCorrelationId(getFirstBatchId(importSession).isPresent() ?
-                            getFirstBatchId(importSession).get() : null)
+                    .withCorrelationId(importError.getImportId())
                     .withTransactionId(filename)
                     .withAction(MessageFormat.format("Manual Intervention (File can be found in Kofax {0} Error Hold " +
                             "Directory)", tenantProperties.getName()))
@@ -78,34 +167,22 @@ public class ErrorMonitoringJob implements MonitoringJob {
                     .withComponent(MessageFormat.format("KOFAX {0} Import", tenantProperties.getName()))
                     .withDetails(MessageFormat.format("Kofax {0} Import failed", tenantProperties.getName()))
                     .withType(DpsError.KOFAX_ERROR.getCode())
-                    .withMessage(importSession.getErrorMessage())
+                    .withMessage(importError.getErrorMessage())
                     .buildError();
 
             NotificationService.notify(systemNotification);
 
+            return true;
 
-        } catch (DpsEmailWorkerException | DpsSftpException ex) {
+        } catch (DpsEmailWorkerException | DpsSftpException | DpsFileException ex) {
 
             logger.error("DpsEmailWorkerException while processing error message", ex);
+            return false;
 
         }
 
     }
 
-    private Optional<String> getFirstBatchId(ImportSession importSession) {
-
-        Optional<Batch> batch = importSession.getBatches().getBatches().stream().findFirst();
-
-        if (batch.isPresent())
-            return batch
-                    .get()
-                    .getBatchFields().getBatchFields()
-                    .stream().filter(x -> x.name.equals(kofaxProperties.getBatchFieldImportId())).map(x -> x.getValue())
-                    .findFirst();
-
-        return Optional.empty();
-    }
-
     private String getErrorFileName(String filename) {
         return MessageFormat.format("{0}/{1}", getErrorFolderPath(), filename);
     }
@@ -19,10 +19,15 @@ public class JobConfig {
         return Executors.newSingleThreadScheduledExecutor();
     }
 
+    @Bean
+    public ExecutorService errorJobWorkerExecutorService(KofaxProperties kofaxProperties) {
+        return Executors.newFixedThreadPool(Math.max(1, kofaxProperties.getErrorWorkerCount()));
+    }
+
     @Bean
     public MonitoringJob errorMonitoringJob(FileService fileService, ImportSessionService importSessionService, SftpProperties sftpProperties, KofaxProperties kofaxProperties, TenantProperties tenantProperties) {
         return new ErrorMonitoringJob(fileService, importSessionService, kofaxProperties, sftpProperties,
-                tenantProperties);
+                tenantProperties, errorJobWorkerExecutorService(kofaxProperties));
     }
 
 }
@@ -5,7 +5,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.concurrent.ExecutorService;
@@ -30,7 +32,18 @@ public class JobController {
     }
 
     @PostMapping(path = "/job/error", consumes = "application/json", produces = "application/json")
-    public ResponseEntity<JobResponse> createErrorJob() {
+    public ResponseEntity<JobResponse> createErrorJob(@RequestParam(name = "full", defaultValue = "false") boolean full) {
+
+        JobProgress progress = errorMonitoringJob.getProgress();
+
+        if (progress != null && progress.isRunning()) {
+            logger.info("Error job is already running, not scheduling a new one.");
+            JobResponse response = JobResponse.fromProgress(progress);
+            response.setScheduled(false);
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+        }
+
+        if (full) errorMonitoringJob.reset();
 
         executorService.execute(errorMonitoringJob);
 
@@ -43,4 +56,11 @@ public class JobController {
 
     }
 
+    @GetMapping(path = "/job/error", produces = "application/json")
+    public ResponseEntity<JobResponse> getErrorJob() {
+
+        return new ResponseEntity<>(JobResponse.fromProgress(errorMonitoringJob.getProgress()), HttpStatus.OK);
+
+    }
+
 }
@@ -0,0 +1,72 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.monitoring;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the progress of a monitoring job run, counters can be updated concurrently by the job workers.
+ */
+public class JobProgress {
+
+    private final AtomicInteger filesScanned = new AtomicInteger();
+    private final AtomicInteger filesSkipped = new AtomicInteger();
+    private final AtomicInteger filesMoved = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+
+    private final Instant startTime;
+    private volatile Instant endTime;
+
+    public JobProgress() {
+        this.startTime = Instant.now();
+    }
+
+    public void fileScanned() {
+        filesScanned.incrementAndGet();
+    }
+
+    public void fileSkipped() {
+        filesSkipped.incrementAndGet();
+    }
+
+    public void fileMoved() {
+        filesMoved.incrementAndGet();
+    }
+
+    public void fileFailed() {
+        filesFailed.incrementAndGet();
+    }
+
+    public void complete() {
+        this.endTime = Instant.now();
+    }
+
+    public boolean isRunning() {
+        return endTime == null;
+    }
+
+    public int getFilesScanned() {
+        return filesScanned.get();
+    }
+
+    public int getFilesSkipped() {
+        return filesSkipped.get();
+    }
+
+    public int getFilesMoved() {
+        return filesMoved.get();
+    }
+
+    public int getFilesFailed() {
+        return filesFailed.get();
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public Duration getDuration() {
+        return Duration.between(startTime, isRunning() ? Instant.now() : endTime);
+    }
+
+}
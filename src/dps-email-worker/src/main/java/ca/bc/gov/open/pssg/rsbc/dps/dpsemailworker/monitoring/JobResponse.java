@@ -1,9 +1,45 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.monitoring;
 
+import java.time.Instant;
+
 public class JobResponse {
 
     private Boolean scheduled;
 
+    private Boolean running;
+
+    private Instant startTime;
+
+    private Long duration;
+
+    private Integer filesScanned;
+
+    private Integer filesSkipped;
+
+    private Integer filesMoved;
+
+    private Integer filesFailed;
+
+    public static JobResponse fromProgress(JobProgress progress) {
+
+        JobResponse response = new JobResponse();
+
+        if (progress == null) {
+            response.setRunning(false);
+            return response;
+        }
+
+        response.setRunning(progress.isRunning());
+        response.setStartTime(progress.getStartTime());
+        response.setDuration(progress.getDuration().toMillis());
+        response.setFilesScanned(progress.getFilesScanned());
+        response.setFilesSkipped(progress.getFilesSkipped());
+        response.setFilesMoved(progress.getFilesMoved());
+        response.setFilesFailed(progress.getFilesFailed());
+
+        return response;
+    }
+
     public Boolean getScheduled() {
         return scheduled;
     }
@@ -11,4 +47,63 @@ public class JobResponse {
     public void setScheduled(Boolean scheduled) {
         this.scheduled = scheduled;
     }
+
+    public Boolean getRunning() {
+        return running;
+    }
+
+    public void setRunning(Boolean running) {
+        this.running = running;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Instant startTime) {
+        this.startTime = startTime;
+    }
+
+    /**
+     * @return the duration of the run in milliseconds
+     */
+    public Long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Long duration) {
+        this.duration = duration;
+    }
+
+    public Integer getFilesScanned() {
+        return filesScanned;
+    }
+
+    public void setFilesScanned(Integer filesScanned) {
+        this.filesScanned = filesScanned;
+    }
+
+    public Integer getFilesSkipped() {
+        return filesSkipped;
+    }
+
+    public void setFilesSkipped(Integer filesSkipped) {
+        this.filesSkipped = filesSkipped;
+    }
+
+    public Integer getFilesMoved() {
+        return filesMoved;
+    }
+
+    public void setFilesMoved(Integer filesMoved) {
+        this.filesMoved = filesMoved;
+    }
+
+    public Integer getFilesFailed() {
+        return filesFailed;
+    }
+
+    public void setFilesFailed(Integer filesFailed) {
+        this.filesFailed = filesFailed;
+    }
 }
@@ -2,4 +2,14 @@ package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.monitoring;
 
 public interface MonitoringJob extends Runnable {
 
+    /**
+     * @return the progress of the current or last run, null if the job has never run
+     */
+    JobProgress getProgress();
+
+    /**
+     * Forgets what previous runs have handled, the next run will rescan everything.
+     */
+    void reset();
+
 }
@@ -0,0 +1,79 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.monitoring;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Keeps the names of the files handled by a job so they are not handled again while they are still listed.
+ *
+ * A name is forgotten when its file is missing from a complete listing, and the oldest names are evicted once the limit
+ * is reached, an evicted file still listed is handled again. The names are kept in memory only, a restart of the
+ * worker handles the files left in the folder again.
+ */
+public class ProcessedFiles {
+
+    private final int limit;
+    private final Set<String> filenames = new LinkedHashSet<>();
+    private Set<String> listed = new HashSet<>();
+
+    public ProcessedFiles(int limit) {
+        this.limit = Math.max(1, limit);
+    }
+
+    /**
+     * Starts a new listing, the names not seen until {@link #endListing()} are forgotten.
+     */
+    public synchronized void beginListing() {
+        listed = new HashSet<>();
+    }
+
+    /**
+     * @param filename a listed file name
+     * @return true if the file has not been handled yet
+     */
+    public synchronized boolean isNew(String filename) {
+
+        if (!filenames.contains(filename)) return true;
+
+        listed.add(filename);
+        return false;
+    }
+
+    /**
+     * Marks the file as handled.
+     *
+     * @param filename
+     */
+    public synchronized void add(String filename) {
+
+        filenames.add(filename);
+        listed.add(filename);
+
+        Iterator<String> oldest = filenames.iterator();
+        while (filenames.size() > limit) {
+            String evicted = oldest.next();
+            oldest.remove();
+            listed.remove(evicted);
+        }
+    }
+
+    /**
+     * Forgets the handled files missing from the listing, only to be called once the whole folder has been listed.
+     */
+    public synchronized void endListing() {
+        filenames.retainAll(listed);
+        listed = new HashSet<>();
+    }
+
+    public synchronized void reset() {
+        filenames.clear();
+        listed = new HashSet<>();
+    }
+
+    public synchronized int size() {
+        return filenames.size();
+    }
+
+}
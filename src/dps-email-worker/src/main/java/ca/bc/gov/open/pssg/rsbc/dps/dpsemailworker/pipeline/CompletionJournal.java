@@ -0,0 +1,183 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.DpsEmailWorkerException;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local file keeping the completions not yet finished by the {@link EmailCompletionService}, one json document per
+ * line.
+ *
+ * Appends are synced to disk before returning. The journal is not thread safe, callers serialize the appends and
+ * rewrites.
+ *
+ * The file is only read by the worker that wrote it, it must be on a persistent volume of its own for each replica.
+ * Without a journal the completions are kept by the broker, see {@link #disabled()}.
+ */
+public class CompletionJournal {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    public CompletionJournal(Path path) {
+        this.path = path;
+        // fields only, the message getters do not match its creator properties
+        this.objectMapper = new ObjectMapper()
+                .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .setVisibility(PropertyAccessor.CREATOR, JsonAutoDetect.Visibility.ANY)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * @return a journal keeping nothing, the messages are then acknowledged once their completion ends
+     */
+    public static CompletionJournal disabled() {
+        return new CompletionJournal(null) {
+            @Override
+            public boolean isEnabled() {
+                return false;
+            }
+
+            @Override
+            public List<Entry> load() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void append(Entry entry) { }
+
+            @Override
+            public void rewrite(Collection<Entry> entries) { }
+        };
+    }
+
+    /**
+     * @return true when the completions are kept in the journal until they end
+     */
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @return the completions left in the journal, lines that cannot be read are skipped
+     */
+    public List<Entry> load() {
+
+        List<Entry> result = new ArrayList<>();
+
+        if (!Files.exists(path)) return result;
+
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isEmpty()) continue;
+                try {
+                    result.add(objectMapper.readValue(line, Entry.class));
+                } catch (JsonProcessingException e) {
+                    logger.warn("Skipping unreadable completion journal entry", e);
+                }
+            }
+        } catch (IOException e) {
+            throw new DpsEmailWorkerException("could not read completion journal", e);
+        }
+
+        return result;
+    }
+
+    public void append(Entry entry) {
+        try {
+            Files.write(path, toLine(entry).getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+        } catch (IOException e) {
+            throw new DpsEmailWorkerException("could not append to completion journal", e);
+        }
+    }
+
+    /**
+     * Replaces the content of the journal with the entries, the file is swapped atomically.
+     *
+     * @param entries
+     */
+    public void rewrite(Collection<Entry> entries) {
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+                    StandardOpenOption.DSYNC)) {
+                for (Entry entry : entries) {
+                    writer.write(toLine(entry));
+                }
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            throw new DpsEmailWorkerException("could not rewrite completion journal", e);
+        }
+    }
+
+    private String toLine(Entry entry) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(entry) + System.lineSeparator();
+    }
+
+    /**
+     * A message waiting for completion and the stages it went through.
+     */
+    public static class Entry {
+
+        private DpsMetadata message;
+
+        private String tenant;
+
+        private Map<String, Long> stages;
+
+        private Entry() { }
+
+        public Entry(DpsMetadata message, StageTimestamps timestamps) {
+            this.message = message;
+            this.tenant = timestamps.getTenant();
+            this.stages = new HashMap<>(timestamps.getTimestamps());
+        }
+
+        public DpsMetadata getMessage() {
+            return message;
+        }
+
+        /**
+         * @return the stages of the message as timestamps
+         */
+        public StageTimestamps toTimestamps() {
+            StageTimestamps result = new StageTimestamps().withTenant(tenant);
+            if (stages != null) stages.forEach(result::mark);
+            return result;
+        }
+
+    }
+
+}
@@ -0,0 +1,427 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.dps.monitoring.NotificationService;
+import ca.bc.gov.dps.monitoring.SystemNotification;
+import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.DpsEmailWorkerException;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.Keys;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration.RegistrationService;
+import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailProcessedResponse;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimitExceededException;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import ca.bc.gov.open.pssg.rsbc.monitoring.MdcConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completes messages once their files are durable on the kofax server: removes the document from the cache, registers
+ * the package and moves the email to the processed folder.
+ *
+ * Runs off the listener thread, the email processed callbacks are grouped by an {@link EmailProcessedCoalescer}. The
+ * {@link ProgressStore} entry of the message is deleted when its completion ends.
+ *
+ * By default the completion is not journaled and the broker stays the source of truth: the future returned by
+ * {@link #complete(DpsMetadata, StageTimestamps)} completes once the email is moved, and fails on the first
+ * registration or email processed callback error so the message goes through the retry queues as before.
+ *
+ * When a {@link CompletionJournal} is configured the completion is written to it before the future completes, so the
+ * message is acknowledged once its completion is durable. The registration and the email processed callback are then
+ * retried independently with an exponential delay and a failure after the last attempt is notified for manual
+ * intervention, an email whose package could not be registered is not moved to the processed folder. Completions
+ * still pending after the shutdown timeout stay in the journal and are resumed on the next start, the completed
+ * stages being skipped.
+ */
+public class EmailCompletionService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final EmailProcessedCoalescer emailProcessedCoalescer;
+    private final CompletionJournal completionJournal;
+    private final StorageService storageService;
+    private final ProgressStore progressStore;
+    private final RegistrationService registrationService;
+    private final DependencyLimiter dependencyLimiter;
+    private final StageTimer stageTimer;
+    private final ScheduledExecutorService executorService;
+    private final PipelineProperties pipelineProperties;
+
+    // pending completions and the acknowledgement of their message by document id, guarded by this
+    private final Map<String, CompletionJournal.Entry> pending = new LinkedHashMap<>();
+    private final Map<String, CompletableFuture<Void>> acknowledgements = new LinkedHashMap<>();
+
+    public EmailCompletionService(EmailProcessedCoalescer emailProcessedCoalescer,
+                                  CompletionJournal completionJournal, StorageService storageService,
+                                  ProgressStore progressStore, RegistrationService registrationService,
+                                  DependencyLimiter dependencyLimiter, StageTimer stageTimer,
+                                  ScheduledExecutorService executorService, PipelineProperties pipelineProperties) {
+        this.emailProcessedCoalescer = emailProcessedCoalescer;
+        this.completionJournal = completionJournal;
+        this.storageService = storageService;
+        this.progressStore = progressStore;
+        this.registrationService = registrationService;
+        this.dependencyLimiter = dependencyLimiter;
+        this.stageTimer = stageTimer;
+        this.executorService = executorService;
+        this.pipelineProperties = pipelineProperties;
+    }
+
+    /**
+     * Resumes the completions left in the journal.
+     */
+    public void start() {
+
+        List<CompletionJournal.Entry> recovered;
+
+        synchronized (this) {
+            completionJournal.load().forEach(entry -> pending.put(getKey(entry.getMessage()), entry));
+            recovered = new ArrayList<>(pending.values());
+        }
+
+        if (!recovered.isEmpty()) logger.info("{} email completions recovered from journal", recovered.size());
+
+        recovered.forEach(entry -> schedule(entry.getMessage(), entry.toTimestamps()));
+    }
+
+    /**
+     * Schedules the completion of an uploaded message.
+     *
+     * @param message
+     * @return completes when the message can be acknowledged
+     */
+    public CompletableFuture<Void> complete(DpsMetadata message) {
+        return complete(message, new StageTimestamps());
+    }
+
+    /**
+     * Schedules the completion of an uploaded message, the latency of each stage is recorded once the email is moved
+     * to the processed folder.
+     *
+     * @param message
+     * @param timestamps the stages the message went through so far
+     * @return completes when the message can be acknowledged: right away once journaled, when the email is moved
+     * otherwise
+     * @throws DpsEmailWorkerException when the completion cannot be journaled, the message must not be acknowledged
+     */
+    public CompletableFuture<Void> complete(DpsMetadata message, StageTimestamps timestamps) {
+
+        CompletableFuture<Void> result;
+
+        synchronized (this) {
+
+            if (pending.containsKey(getKey(message))) {
+                logger.info("Completion of document [{}] already pending", getKey(message));
+                return acknowledgements.get(getKey(message));
+            }
+
+            CompletionJournal.Entry entry = new CompletionJournal.Entry(message, timestamps);
+            completionJournal.append(entry);
+            pending.put(getKey(message), entry);
+
+            result = completionJournal.isEnabled() ? CompletableFuture.completedFuture(null) : new CompletableFuture<>();
+            acknowledgements.put(getKey(message), result);
+        }
+
+        schedule(message, timestamps);
+
+        return result;
+    }
+
+    private void schedule(DpsMetadata message, StageTimestamps timestamps) {
+        try {
+            executorService.execute(() -> withTransactionId(message, () -> {
+                deleteFromCache(message);
+                register(message, timestamps, 1);
+            }));
+        } catch (RejectedExecutionException e) {
+            abandon(message, new DpsEmailWorkerException("Completion rejected, the worker is stopping", e));
+        }
+    }
+
+    /**
+     * Stops accepting completions and waits for the pending ones.
+     */
+    public void shutdown() {
+
+        executorService.shutdown();
+
+        try {
+            if (!executorService.awaitTermination(pipelineProperties.getShutdownTimeout(), TimeUnit.MILLISECONDS))
+                logger.warn("Email completions still pending after {} ms, {}", pipelineProperties.getShutdownTimeout(),
+                        completionJournal.isEnabled() ? "they are resumed from the journal on the next start" :
+                                "their messages are redelivered");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deleteFromCache(DpsMetadata message) {
+
+        try {
+            logger.debug("Attempting to remove document from redis cache");
+            stageTimer.run(StageTimer.CACHE_DELETE, () -> storageService.delete(message.getFileInfo().getId()));
+            logger.info("Successfully removed document from redis cache");
+        } catch (RuntimeException e) {
+            logger.warn("Could not remove document [{}] from redis cache", message.getFileInfo().getId(), e);
+        }
+    }
+
+    private void register(DpsMetadata message, StageTimestamps timestamps, int attempt) {
+
+        if (!registrationService.isActive()) {
+            logger.info("Registration Service is not activated.");
+            processEmail(message, timestamps, 1);
+            return;
+        }
+
+        if (timestamps.isMarked(StageTimestamps.REGISTERED)) {
+            logger.info("Package already registered to OTS database.");
+            processEmail(message, timestamps, 1);
+            return;
+        }
+
+        try {
+
+            logger.info("Attempting to register package, attempt {}", attempt);
+            stageTimer.run(StageTimer.REGISTRATION, () ->
+                    dependencyLimiter.run(Keys.REGISTRATION_DEPENDENCY, () -> registrationService.registerPackage(message)));
+            journal(message, timestamps.mark(StageTimestamps.REGISTERED));
+            logger.info("Successfully registered package to OTS database.");
+
+        } catch (RuntimeException e) {
+
+            if (!completionJournal.isEnabled()) {
+                logger.error("Registration failed, the message is retried by the broker", e);
+                fail(message, e);
+                return;
+            }
+
+            if (e instanceof DependencyLimitExceededException) {
+                // the registration was not called, the attempt is not spent
+                logger.warn("Registration limit reached, attempt {} is retried", attempt);
+                retry(message, attempt, () -> register(message, timestamps, attempt));
+                return;
+            }
+
+            if (attempt < pipelineProperties.getMaxAttempts()) {
+                logger.warn("Registration failed, attempt {} of {}", attempt, pipelineProperties.getMaxAttempts(), e);
+                retry(message, attempt, () -> register(message, timestamps, attempt + 1));
+                return;
+            }
+
+            logger.error("Registration failed after {} attempts, email not moved to processed folder", attempt, e);
+            notifyRegistrationFailed(message, e);
+            finish(message);
+            return;
+        }
+
+        processEmail(message, timestamps, 1);
+    }
+
+    private void processEmail(DpsMetadata message, StageTimestamps timestamps, int attempt) {
+
+        if (timestamps.isMarked(StageTimestamps.EMAIL_PROCESSED)) {
+            logger.info("Email already moved to processed folder");
+            finish(message);
+            return;
+        }
+
+        logger.info("Attempting to move email to processed folder, attempt {}", attempt);
+
+        long start = System.nanoTime();
+
+        emailProcessedCoalescer.processed(message).whenComplete((response, e) -> withTransactionId(message, () -> {
+            stageTimer.record(StageTimer.EMAIL_PROCESSED, start, e == null);
+            onEmailProcessed(message, timestamps, attempt, response, e);
+        }));
+    }
+
+    private void onEmailProcessed(DpsMetadata message, StageTimestamps timestamps, int attempt,
+                                  DpsEmailProcessedResponse dpsEmailProcessedResponse, Throwable e) {
+
+        if (e != null) {
+
+            if (!completionJournal.isEnabled()) {
+                logger.error("Email processed callback failed, the message is retried by the broker", e);
+                fail(message, e);
+                return;
+            }
+
+            if (attempt < pipelineProperties.getMaxAttempts()) {
+                logger.warn("Email processed callback failed, attempt {} of {}", attempt,
+                        pipelineProperties.getMaxAttempts(), e);
+                retry(message, attempt, () -> processEmail(message, timestamps, attempt + 1));
+                return;
+            }
+
+            logger.error("Email processed callback failed after {} attempts", attempt, e);
+            notifyMoveEmailToError(message, e.getMessage());
+            finish(message);
+            return;
+        }
+
+        if (!dpsEmailProcessedResponse.isAcknowledge()) {
+            notifyMoveEmailToError(message, dpsEmailProcessedResponse.getMessage());
+            finish(message);
+            return;
+        }
+
+        logger.info("Successfully moved email to processed folder");
+        timestamps.mark(StageTimestamps.EMAIL_PROCESSED);
+        finish(message);
+        stageTimer.recordLatency(timestamps);
+        notifySuccess(message);
+    }
+
+    /**
+     * Saves the stages completed so far, a completion resumed from the journal does not repeat them.
+     */
+    private synchronized void journal(DpsMetadata message, StageTimestamps timestamps) {
+
+        if (!pending.containsKey(getKey(message))) return;
+
+        pending.put(getKey(message), new CompletionJournal.Entry(message, timestamps));
+        rewriteJournal();
+    }
+
+    private void finish(DpsMetadata message) {
+
+        CompletableFuture<Void> acknowledgement;
+
+        synchronized (this) {
+            if (pending.remove(getKey(message)) != null) rewriteJournal();
+            acknowledgement = acknowledgements.remove(getKey(message));
+        }
+
+        progressStore.delete(message);
+
+        if (acknowledgement != null) acknowledgement.complete(null);
+    }
+
+    /**
+     * Ends a completion that is not journaled, its message is not acknowledged and is redelivered by the broker.
+     */
+    private void fail(DpsMetadata message, Throwable e) {
+
+        CompletableFuture<Void> acknowledgement;
+
+        synchronized (this) {
+            pending.remove(getKey(message));
+            acknowledgement = acknowledgements.remove(getKey(message));
+        }
+
+        if (acknowledgement != null) acknowledgement.completeExceptionally(e);
+    }
+
+    /**
+     * Stops a completion the executor cannot run anymore, it stays in the journal when there is one.
+     */
+    private void abandon(DpsMetadata message, RuntimeException e) {
+
+        if (!completionJournal.isEnabled()) {
+            fail(message, e);
+            return;
+        }
+
+        logger.warn("Could not schedule completion of message [{}], the worker is stopping, it is resumed from the " +
+                "journal on the next start", message.getFileInfo().getName());
+    }
+
+    private void rewriteJournal() {
+        try {
+            completionJournal.rewrite(pending.values());
+        } catch (RuntimeException e) {
+            // the entries left behind are completed again on the next start, the completed stages being skipped
+            logger.warn("Could not rewrite completion journal", e);
+        }
+    }
+
+    private void retry(DpsMetadata message, int attempt, Runnable runnable) {
+
+        long delay = pipelineProperties.getRetryDelay() << Math.min(attempt - 1, 16);
+
+        try {
+            executorService.schedule(() -> withTransactionId(message, runnable), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            abandon(message, new DpsEmailWorkerException("Retry rejected, the worker is stopping", e));
+        }
+    }
+
+    private static String getKey(DpsMetadata message) {
+        return message.getFileInfo().getId();
+    }
+
+    private static void withTransactionId(DpsMetadata message, Runnable runnable) {
+
+        MDC.put(MdcConstants.MDC_TRANSACTION_ID_KEY, message.getTransactionId().toString());
+
+        try {
+            runnable.run();
+        } finally {
+            MDC.remove(MdcConstants.MDC_TRANSACTION_ID_KEY);
+        }
+    }
+
+    private void notifySuccess(DpsMetadata message) {
+
+        SystemNotification success = new SystemNotification
+                .Builder()
+                .withCorrelationId(message.getTransactionId().toString())
+                .withCorrelationId(message.getFileInfo().getName())
+                .withApplicationName(Keys.APPLICATION_NAME)
+                .withComponent("Image import")
+                .withMessage("All files were successfully uploaded to KOFAX sftp server.")
+                .withType("DPS UPLOAD SUCCESS")
+                .buildSuccess();
+
+        NotificationService.notify(success);
+
+    }
+
+    private void notifyRegistrationFailed(DpsMetadata message, Exception e) {
+
+        SystemNotification error = new SystemNotification
+                .Builder()
+                .withCorrelationId(message.getTransactionId().toString())
+                .withCorrelationId(message.getFileInfo().getName())
+                .withApplicationName(Keys.APPLICATION_NAME)
+                .withComponent("Package registration")
+                .withAction(MessageFormat.format("Manual Intervention: package {0} was uploaded to KOFAX but could " +
+                        "not be registered in OTS, email with subject {1} in {2} was not moved to Processed folder",
+                        message.getFileInfo().getName(), message.getSubject(), message.getTo()))
+                .withMessage(e.getMessage())
+                .withType("REGISTRATION ERROR")
+                .buildError();
+
+        NotificationService.notify(error);
+    }
+
+    private void notifyMoveEmailToError(DpsMetadata message, String reason) {
+        SystemNotification success = new SystemNotification
+                .Builder()
+                .withCorrelationId(message.getTransactionId().toString())
+                .withCorrelationId(message.getFileInfo().getName())
+                .withApplicationName(Keys.APPLICATION_NAME)
+                .withComponent("Image import")
+                .withAction(MessageFormat.format("Manual Intervention: email with subject {0} in {1} error hold folder can be moved to Processed folder, " +
+                        "it was successfully processed by the system", message.getSubject(), message.getTo()))
+                .withMessage(reason)
+                .withType("MAILBOX ERROR")
+                .buildError();
+
+        NotificationService.notify(success);
+    }
+
+}
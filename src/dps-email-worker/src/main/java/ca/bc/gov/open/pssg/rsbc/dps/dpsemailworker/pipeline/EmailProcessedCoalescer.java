@@ -0,0 +1,143 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailProcessedResponse;
+import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailService;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the email processed callbacks to the poller: the emails acknowledged during coalesceWindow, or up to
+ * coalesceMaxSize emails, are moved to the processed folder with a single call.
+ *
+ * With a coalesceWindow of 0 each email is sent on its own, for pollers without the list endpoint.
+ */
+public class EmailProcessedCoalescer {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final DpsEmailService dpsEmailService;
+    private final ScheduledExecutorService executorService;
+    private final PipelineProperties pipelineProperties;
+
+    // guarded by this
+    private List<Pending> pending = new ArrayList<>();
+
+    public EmailProcessedCoalescer(DpsEmailService dpsEmailService, ScheduledExecutorService executorService,
+                                   PipelineProperties pipelineProperties) {
+        this.dpsEmailService = dpsEmailService;
+        this.executorService = executorService;
+        this.pipelineProperties = pipelineProperties;
+    }
+
+    /**
+     * Queues the email of the message to be moved to the processed folder.
+     *
+     * @param message
+     * @return the response of the poller for this email, completed exceptionally when the call failed
+     */
+    public CompletableFuture<DpsEmailProcessedResponse> processed(DpsMetadata message) {
+
+        CompletableFuture<DpsEmailProcessedResponse> result = new CompletableFuture<>();
+
+        if (pipelineProperties.getCoalesceWindow() <= 0) {
+            try {
+                result.complete(dpsEmailService.dpsEmailProcessed(message.getBase64EmailId(),
+                        message.getTransactionId().toString()));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+
+        int size;
+
+        synchronized (this) {
+            pending.add(new Pending(message.getBase64EmailId(), result));
+            size = pending.size();
+        }
+
+        if (size >= pipelineProperties.getCoalesceMaxSize()) {
+            schedule(0);
+        } else if (size == 1) {
+            schedule(pipelineProperties.getCoalesceWindow());
+        }
+
+        return result;
+    }
+
+    /**
+     * Sends the pending emails, flushes with nothing pending do nothing.
+     */
+    public void flush() {
+
+        List<Pending> emails;
+
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+            emails = pending;
+            pending = new ArrayList<>();
+        }
+
+        List<String> ids = new ArrayList<>(emails.size());
+        emails.forEach(email -> ids.add(email.id));
+
+        DpsEmailProcessedResponse response;
+
+        try {
+            logger.debug("Attempting to move {} emails to processed folder", ids.size());
+            response = dpsEmailService.dpsEmailsProcessed(ids, UUID.randomUUID().toString());
+        } catch (RuntimeException e) {
+            emails.forEach(email -> email.future.completeExceptionally(e));
+            return;
+        }
+
+        if (!response.isAcknowledge()) {
+            emails.forEach(email -> email.future.complete(response));
+            return;
+        }
+
+        Set<String> failedIds = new HashSet<>(response.getFailedIds());
+
+        for (Pending email : emails) {
+            if (failedIds.contains(email.id)) {
+                email.future.complete(DpsEmailProcessedResponse.errorResponse("email could not be moved to processed folder"));
+            } else {
+                email.future.complete(DpsEmailProcessedResponse.successResponse(true, response.getMessage()));
+            }
+        }
+
+        logger.info("Successfully moved {} of {} emails to processed folder", ids.size() - failedIds.size(), ids.size());
+    }
+
+    private void schedule(long delay) {
+        try {
+            executorService.schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Completion pool is stopping, sending pending emails now");
+            flush();
+        }
+    }
+
+    private static class Pending {
+
+        private final String id;
+        private final CompletableFuture<DpsEmailProcessedResponse> future;
+
+        private Pending(String id, CompletableFuture<DpsEmailProcessedResponse> future) {
+            this.id = id;
+            this.future = future;
+        }
+    }
+
+}
@@ -0,0 +1,78 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.JournalFiles;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration.RegistrationService;
+import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DpsMessagingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.Collectors;
+
+@Configuration
+@EnableConfigurationProperties(PipelineProperties.class)
+public class PipelineConfig {
+
+    private final PipelineProperties pipelineProperties;
+
+    public PipelineConfig(PipelineProperties pipelineProperties) {
+        this.pipelineProperties = pipelineProperties;
+    }
+
+    @Bean
+    public StageTimer stageTimer(ObjectProvider<MeterRegistry> meterRegistry,
+                                 ObjectProvider<StageTimer.Listener> listeners) {
+        return new StageTimer(meterRegistry.getIfAvailable(CompositeMeterRegistry::new),
+                listeners.orderedStream().collect(Collectors.toList()));
+    }
+
+    @Bean
+    public ProgressStore progressStore(StorageService storageService) {
+        return pipelineProperties.isProgressEnabled() ? new ProgressStore(storageService) : ProgressStore.disabled();
+    }
+
+    // the completion service is started here so the recovered completions run before the listeners
+    @Bean(destroyMethod = "shutdown")
+    public EmailCompletionService emailCompletionService(DpsEmailService dpsEmailService, StorageService storageService,
+                                                         ProgressStore progressStore,
+                                                         RegistrationService registrationService,
+                                                         DependencyLimiter dependencyLimiter, StageTimer stageTimer) {
+        ScheduledExecutorService executorService =
+                Executors.newScheduledThreadPool(Math.max(1, pipelineProperties.getPoolSize()));
+        EmailCompletionService result = new EmailCompletionService(
+                new EmailProcessedCoalescer(dpsEmailService, executorService, pipelineProperties),
+                completionJournal(), storageService, progressStore,
+                registrationService, dependencyLimiter, stageTimer, executorService, pipelineProperties);
+        result.start();
+        return result;
+    }
+
+    private CompletionJournal completionJournal() {
+
+        if (!StringUtils.hasText(pipelineProperties.getJournalFile())) return CompletionJournal.disabled();
+
+        return new CompletionJournal(JournalFiles.resolve(pipelineProperties.getJournalFile(),
+                "dps.email.pipeline.journal-file"));
+    }
+
+    @Bean
+    public ShutdownCoordinator shutdownCoordinator(RabbitListenerEndpointRegistry rabbitListenerEndpointRegistry,
+                                                   DpsMessagingProperties dpsMessagingProperties) {
+        return new ShutdownCoordinator(rabbitListenerEndpointRegistry::getListenerContainers,
+                dpsMessagingProperties.getTenantRoutingKeys().stream()
+                        .map(dpsMessagingProperties::getMainQueueName)
+                        .collect(Collectors.toList()),
+                pipelineProperties);
+    }
+
+}
@@ -0,0 +1,130 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "dps.email.pipeline")
+public class PipelineProperties {
+
+    private int poolSize = 2;
+
+    private int maxAttempts = 5;
+
+    private long retryDelay = 2000;
+
+    private long shutdownTimeout = 30000;
+
+    private long coalesceWindow = 0;
+
+    private int coalesceMaxSize = 50;
+
+    private long drainTimeout = 30000;
+
+    private boolean progressEnabled = false;
+
+    private String journalFile;
+
+    /**
+     * @return the number of threads completing uploaded messages
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * @return the number of attempts of the registration and of the email processed callback
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @return the delay in milliseconds before the first retry, doubled for each following retry
+     */
+    public long getRetryDelay() {
+        return retryDelay;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for pending completions on shutdown
+     */
+    public long getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(long shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * @return the time in milliseconds the email processed callbacks are grouped before being sent to the poller, 0
+     * sends each email on its own
+     */
+    public long getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    public void setCoalesceWindow(long coalesceWindow) {
+        this.coalesceWindow = coalesceWindow;
+    }
+
+    /**
+     * @return the maximum number of emails sent to the poller in a single call
+     */
+    public int getCoalesceMaxSize() {
+        return coalesceMaxSize;
+    }
+
+    public void setCoalesceMaxSize(int coalesceMaxSize) {
+        this.coalesceMaxSize = coalesceMaxSize;
+    }
+
+    /**
+     * @return the maximum time in milliseconds the email listeners are given on shutdown to finish the messages in
+     * flight, the messages not acknowledged by then are redelivered
+     */
+    public long getDrainTimeout() {
+        return drainTimeout;
+    }
+
+    public void setDrainTimeout(long drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * @return true to save the upload of each message until its completion ends, a message redelivered before its
+     * acknowledgement then skips the upload, at the cost of a redis read per message
+     */
+    public boolean isProgressEnabled() {
+        return progressEnabled;
+    }
+
+    public void setProgressEnabled(boolean progressEnabled) {
+        this.progressEnabled = progressEnabled;
+    }
+
+    /**
+     * @return the journal file of the pending completions, the messages are then acknowledged once their upload is
+     * done. It must be an absolute path on a persistent volume of each replica, the startup fails otherwise. Not set
+     * by default, the messages are acknowledged once their completion ends
+     */
+    public String getJournalFile() {
+        return journalFile;
+    }
+
+    public void setJournalFile(String journalFile) {
+        this.journalFile = journalFile;
+    }
+
+}
@@ -0,0 +1,116 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Keeps the stages a message completed in the redis cache so a message redelivered between the upload of its files
+ * and its acknowledgement does not upload them again.
+ *
+ * The progress is keyed by the document id, written once the files are uploaded and deleted when the completion ends,
+ * the later stages being kept by the {@link CompletionJournal} when one is configured. Reads, writes and deletes are best effort: a progress
+ * that cannot be read or written is logged and the message is processed from the start.
+ */
+public class ProgressStore {
+
+    private static final String KEY_PREFIX = "progress-";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final StorageService storageService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public ProgressStore(StorageService storageService) {
+        this.storageService = storageService;
+    }
+
+    /**
+     * @return a store that keeps no progress, messages are always processed from the start
+     */
+    public static ProgressStore disabled() {
+        return new ProgressStore(null) {
+            @Override
+            public StageTimestamps load(DpsMetadata message, StageTimestamps timestamps) {
+                return timestamps;
+            }
+
+            @Override
+            public void save(DpsMetadata message, StageTimestamps timestamps) { }
+
+            @Override
+            public void delete(DpsMetadata message) { }
+        };
+    }
+
+    /**
+     * Marks the stages saved by a previous delivery of the message.
+     *
+     * @param message
+     * @param timestamps the stages of the current delivery
+     * @return the timestamps
+     */
+    public StageTimestamps load(DpsMetadata message, StageTimestamps timestamps) {
+
+        try {
+
+            byte[] content = storageService.get(getKey(message));
+            if (content == null) return timestamps;
+
+            Map<String, Long> stages = objectMapper.readValue(content, new TypeReference<Map<String, Long>>() { });
+            stages.forEach((stage, epochMillis) -> {
+                if (!timestamps.isMarked(stage)) timestamps.mark(stage, epochMillis);
+            });
+
+            logger.info("Resuming message from saved progress {}", stages.keySet());
+
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load progress of document [{}]", message.getFileInfo().getId(), e);
+        }
+
+        return timestamps;
+    }
+
+    /**
+     * Saves the stages completed so far.
+     *
+     * @param message
+     * @param timestamps
+     */
+    public void save(DpsMetadata message, StageTimestamps timestamps) {
+
+        try {
+            storageService.put(getKey(message), objectMapper.writeValueAsBytes(timestamps.getTimestamps()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("Could not save progress of document [{}]", message.getFileInfo().getId(), e);
+        }
+    }
+
+    /**
+     * Deletes the progress of a message that no longer needs it.
+     *
+     * @param message
+     */
+    public void delete(DpsMetadata message) {
+
+        try {
+            storageService.delete(getKey(message));
+        } catch (RuntimeException e) {
+            logger.warn("Could not delete progress of document [{}]", message.getFileInfo().getId(), e);
+        }
+    }
+
+    private static String getKey(DpsMetadata message) {
+        return KEY_PREFIX + message.getFileInfo().getId();
+    }
+
+}
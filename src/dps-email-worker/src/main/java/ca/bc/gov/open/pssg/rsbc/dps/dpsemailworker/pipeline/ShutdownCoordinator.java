@@ -0,0 +1,88 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the email listener containers of every tenant main queue when the application context is closed, before the containers are stopped by
+ * the lifecycle.
+ *
+ * The running containers stop consuming and are given the drain timeout to finish the messages in flight, the
+ * containers are stopped in parallel. Prefetched messages and messages still in flight after the drain timeout are
+ * not acknowledged and are redelivered, when enabled the {@link ProgressStore} lets them skip an upload already done.
+ * Without a completion journal the messages wait for their completion within the drain timeout, journaled completions
+ * are drained afterwards by the {@link EmailCompletionService} shutdown.
+ */
+public class ShutdownCoordinator implements ApplicationListener<ContextClosedEvent> {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Supplier<Collection<MessageListenerContainer>> containers;
+    private final Collection<String> queueNames;
+    private final PipelineProperties pipelineProperties;
+
+    public ShutdownCoordinator(Supplier<Collection<MessageListenerContainer>> containers, Collection<String> queueNames,
+                               PipelineProperties pipelineProperties) {
+        this.containers = containers;
+        this.queueNames = queueNames;
+        this.pipelineProperties = pipelineProperties;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        drain();
+    }
+
+    /**
+     * Stops the running email listener containers and waits for them up to the drain timeout.
+     */
+    public void drain() {
+
+        List<SimpleMessageListenerContainer> running = containers.get().stream()
+                .filter(SimpleMessageListenerContainer.class::isInstance)
+                .map(SimpleMessageListenerContainer.class::cast)
+                .filter(container -> container.isRunning() &&
+                        Arrays.stream(container.getQueueNames()).anyMatch(queueNames::contains))
+                .collect(Collectors.toList());
+
+        if (running.isEmpty()) return;
+
+        long drainTimeout = pipelineProperties.getDrainTimeout();
+
+        logger.info("Attempting to drain {} email listener containers", running.size());
+
+        CompletableFuture<?>[] stops = running.stream()
+                .map(container -> {
+                    container.setShutdownTimeout(drainTimeout);
+                    return CompletableFuture.runAsync(container::stop);
+                })
+                .toArray(CompletableFuture[]::new);
+
+        try {
+            CompletableFuture.allOf(stops).get(drainTimeout, TimeUnit.MILLISECONDS);
+            logger.info("Successfully drained email listener containers");
+        } catch (TimeoutException e) {
+            logger.warn("Email listener containers still processing after {} ms, unacknowledged messages will be " +
+                    "redelivered", drainTimeout);
+        } catch (ExecutionException e) {
+            logger.error("Error while draining email listener containers", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records the duration of each stage of the email pipeline, tagged by stage and outcome, and the end to end latency of
+ * documents from the {@link StageTimestamps} carried in the message headers, tagged by stage and tenant.
+ */
+public class StageTimer {
+
+    public static final String STAGE_TIMER = "dps.email.stage";
+    public static final String LATENCY_TIMER = "dps.email.latency";
+
+    public static final String IMPORT_SESSION = "import_session";
+    public static final String CACHE_GET = "cache_get";
+    public static final String SFTP_UPLOAD = "sftp_upload";
+    public static final String CACHE_DELETE = "cache_delete";
+    public static final String REGISTRATION = "registration";
+    public static final String EMAIL_PROCESSED = "email_processed";
+    public static final String END_TO_END = "end_to_end";
+
+    private static final String STAGE_TAG = "stage";
+    private static final String OUTCOME_TAG = "outcome";
+    private static final String TENANT_TAG = "tenant";
+    private static final String UNKNOWN = "unknown";
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+
+    private final MeterRegistry meterRegistry;
+    private final List<Listener> listeners;
+
+    /**
+     * Notified of each recorded stage, on the thread that ran it.
+     */
+    public interface Listener {
+        void onStage(String stage, long elapsedNanos, boolean success);
+    }
+
+    public StageTimer(MeterRegistry meterRegistry) {
+        this(meterRegistry, Collections.emptyList());
+    }
+
+    public StageTimer(MeterRegistry meterRegistry, List<Listener> listeners) {
+        this.meterRegistry = meterRegistry;
+        this.listeners = listeners;
+    }
+
+    /**
+     * @return a timer that does not publish anywhere
+     */
+    public static StageTimer noop() {
+        return new StageTimer(new CompositeMeterRegistry());
+    }
+
+    public <T> T record(String stage, Supplier<T> supplier) {
+
+        long start = System.nanoTime();
+        boolean success = false;
+
+        try {
+            T result = supplier.get();
+            success = true;
+            return result;
+        } finally {
+            record(stage, start, success);
+        }
+    }
+
+    /**
+     * Records a stage that completed asynchronously.
+     *
+     * @param stage
+     * @param start the {@link System#nanoTime()} at the start of the stage
+     * @param success
+     */
+    public void record(String stage, long start, boolean success) {
+
+        long elapsed = System.nanoTime() - start;
+
+        Timer.builder(STAGE_TIMER)
+                .tags(STAGE_TAG, stage, OUTCOME_TAG, success ? SUCCESS : FAILURE)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        listeners.forEach(listener -> listener.onStage(stage, elapsed, success));
+    }
+
+    public void run(String stage, Runnable runnable) {
+        record(stage, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records, for each stage, the time since the previous stage and the time from the first to the last stage as
+     * {@link #END_TO_END}. Timestamps of the poller and of the worker come from different hosts, negative times due
+     * to clock skew are recorded as 0.
+     *
+     * @param timestamps
+     */
+    public void recordLatency(StageTimestamps timestamps) {
+
+        Long first = null;
+        Long previous = null;
+
+        for (Map.Entry<String, Long> entry : timestamps.getTimestamps().entrySet()) {
+            if (previous == null) {
+                first = entry.getValue();
+            } else {
+                recordLatency(entry.getKey(), timestamps.getTenant(), entry.getValue() - previous);
+            }
+            previous = entry.getValue();
+        }
+
+        if (first != null && !first.equals(previous)) recordLatency(END_TO_END, timestamps.getTenant(), previous - first);
+    }
+
+    private void recordLatency(String stage, String tenant, long millis) {
+        Timer.builder(LATENCY_TIMER)
+                .tags(STAGE_TAG, stage, TENANT_TAG, tenant == null ? UNKNOWN : tenant)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    }
+
+}
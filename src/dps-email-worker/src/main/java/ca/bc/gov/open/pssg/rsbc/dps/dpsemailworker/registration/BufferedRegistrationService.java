@@ -0,0 +1,182 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration;
+
+import ca.bc.gov.open.ottsoa.ords.client.models.CreatePackageRequest;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registers packages in the background: requests are written to a {@link RegistrationJournal} and sent to the OTS
+ * database when flushSize requests are pending or every flushInterval, at most parallelism at a time.
+ *
+ * Requests that could not be sent stay in the journal and are retried on the next flush, including after a restart.
+ * The journal is the only copy of a buffered request, it must be on a persistent volume, see {@link
+ * ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.JournalFiles}.
+ */
+public class BufferedRegistrationService implements RegistrationService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final RegistrationServiceImpl registrationService;
+    private final RegistrationJournal registrationJournal;
+    private final RegistrationProperties.Buffer bufferProperties;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService sender;
+
+    // pending requests by import guid, guarded by this
+    private final Map<String, CreatePackageRequest> pending = new LinkedHashMap<>();
+
+    private final AtomicBoolean flushing = new AtomicBoolean();
+
+    public BufferedRegistrationService(RegistrationServiceImpl registrationService,
+                                       RegistrationJournal registrationJournal,
+                                       RegistrationProperties.Buffer bufferProperties,
+                                       ScheduledExecutorService scheduler, ExecutorService sender) {
+        this.registrationService = registrationService;
+        this.registrationJournal = registrationJournal;
+        this.bufferProperties = bufferProperties;
+        this.scheduler = scheduler;
+        this.sender = sender;
+    }
+
+    /**
+     * Loads the requests left in the journal and schedules the flushes.
+     */
+    public void start() {
+
+        synchronized (this) {
+            registrationJournal.load().forEach(request -> pending.put(request.getImportGuid(), request));
+            if (!pending.isEmpty()) logger.info("{} package registrations recovered from journal", pending.size());
+        }
+
+        scheduler.scheduleWithFixedDelay(this::flush, bufferProperties.getFlushInterval(),
+                bufferProperties.getFlushInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean isActive() {
+        return true;
+    }
+
+    @Override
+    public void registerPackage(DpsMetadata dpsMetadata) {
+
+        CreatePackageRequest request = registrationService.createPackageRequest(dpsMetadata);
+
+        int size;
+
+        synchronized (this) {
+            registrationJournal.append(request);
+            pending.put(request.getImportGuid(), request);
+            size = pending.size();
+        }
+
+        logger.info("Package registration buffered, {} pending", size);
+
+        if (size >= bufferProperties.getFlushSize()) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                logger.debug("Registration buffer is stopping, the package will be sent on shutdown or next start");
+            }
+        }
+    }
+
+    /**
+     * Sends the pending requests, the requests that failed stay pending.
+     */
+    public void flush() {
+
+        if (!flushing.compareAndSet(false, true)) return;
+
+        try {
+
+            List<CreatePackageRequest> requests;
+
+            synchronized (this) {
+                requests = new ArrayList<>(pending.values());
+            }
+
+            if (requests.isEmpty()) return;
+
+            logger.debug("Attempting to send {} package registrations", requests.size());
+
+            List<String> sent = send(requests);
+
+            synchronized (this) {
+                sent.forEach(pending::remove);
+                registrationJournal.rewrite(pending.values());
+            }
+
+            logger.info("Successfully sent {} of {} package registrations", sent.size(), requests.size());
+
+        } catch (RuntimeException e) {
+            logger.error("Error while flushing package registrations", e);
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    /**
+     * Stops the flushes and makes a last attempt to send the pending requests, what is left stays in the journal.
+     */
+    public void shutdown() {
+
+        scheduler.shutdown();
+
+        try {
+            if (!scheduler.awaitTermination(bufferProperties.getShutdownTimeout(), TimeUnit.MILLISECONDS))
+                logger.warn("Package registration flush still running after {} ms", bufferProperties.getShutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+
+        sender.shutdown();
+
+        synchronized (this) {
+            if (!pending.isEmpty()) logger.warn("{} package registrations left in journal", pending.size());
+        }
+    }
+
+    private List<String> send(List<CreatePackageRequest> requests) {
+
+        List<Callable<Boolean>> tasks = new ArrayList<>(requests.size());
+        requests.forEach(request -> tasks.add(() -> registrationService.createPackage(request)));
+
+        List<String> result = new ArrayList<>(requests.size());
+
+        try {
+
+            List<Future<Boolean>> futures = sender.invokeAll(tasks);
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    if (futures.get(i).get()) result.add(requests.get(i).getImportGuid());
+                } catch (ExecutionException e) {
+                    logger.error("Exception while create package in OTS database", e.getCause());
+                }
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return result;
+    }
+
+}
@@ -1,10 +1,13 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration;
 
 import ca.bc.gov.open.ottsoa.ords.client.OtssoaService;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.JournalFiles;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.Executors;
+
 /**
  * Configure the registration service, if register is false return null otherwhise return the otssoaServiceImpl
  */
@@ -20,10 +23,19 @@ public class RegistrationConfig {
 
     @Bean
     public RegistrationService registrationService(OtssoaService otssoaService) {
-        if(registrationProperties.isEnabled())
-            return new RegistrationServiceImpl(otssoaService);
-        else
+        if(!registrationProperties.isEnabled())
             return new NoActionRegistrationService();
+
+        if(!registrationProperties.getBuffer().isEnabled())
+            return new RegistrationServiceImpl(otssoaService);
+
+        // the inferred destroy method calls shutdown
+        RegistrationProperties.Buffer buffer = registrationProperties.getBuffer();
+        BufferedRegistrationService result = new BufferedRegistrationService(new RegistrationServiceImpl(otssoaService),
+                new RegistrationJournal(JournalFiles.resolve(buffer.getFile(), "dps.registration.buffer.file")), buffer,
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(Math.max(1, buffer.getParallelism())));
+        result.start();
+        return result;
     }
 
 }
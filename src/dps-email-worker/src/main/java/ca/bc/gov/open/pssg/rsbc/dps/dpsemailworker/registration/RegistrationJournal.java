@@ -0,0 +1,109 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration;
+
+import ca.bc.gov.open.ottsoa.ords.client.models.CreatePackageRequest;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.DpsEmailWorkerException;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Local file keeping the package requests not yet sent to the OTS database, one json document per line.
+ *
+ * Appends are synced to disk before returning. The journal is not thread safe, callers serialize the appends and
+ * rewrites.
+ */
+public class RegistrationJournal {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    public RegistrationJournal(Path path) {
+        this.path = path;
+        this.objectMapper = new ObjectMapper()
+                .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * @return the requests left in the journal, lines that cannot be read are skipped
+     */
+    public List<CreatePackageRequest> load() {
+
+        List<CreatePackageRequest> result = new ArrayList<>();
+
+        if (!Files.exists(path)) return result;
+
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isEmpty()) continue;
+                try {
+                    result.add(objectMapper.readValue(line, CreatePackageRequest.class));
+                } catch (JsonProcessingException e) {
+                    logger.warn("Skipping unreadable registration journal entry", e);
+                }
+            }
+        } catch (IOException e) {
+            throw new DpsEmailWorkerException("could not read registration journal", e);
+        }
+
+        return result;
+    }
+
+    public void append(CreatePackageRequest request) {
+        try {
+            Files.write(path, toLine(request).getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.DSYNC);
+        } catch (IOException e) {
+            throw new DpsEmailWorkerException("could not append to registration journal", e);
+        }
+    }
+
+    /**
+     * Replaces the content of the journal with the requests, the file is swapped atomically.
+     *
+     * @param requests
+     */
+    public void rewrite(Collection<CreatePackageRequest> requests) {
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+                    StandardOpenOption.DSYNC)) {
+                for (CreatePackageRequest request : requests) {
+                    writer.write(toLine(request));
+                }
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            throw new DpsEmailWorkerException("could not rewrite registration journal", e);
+        }
+    }
+
+    private String toLine(CreatePackageRequest request) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(request) + System.lineSeparator();
+    }
+
+}
@@ -7,6 +7,7 @@ public class RegistrationProperties {
 
     private boolean enabled;
 
+    private Buffer buffer = new Buffer();
 
     public boolean isEnabled() {
         return enabled;
@@ -15,4 +16,97 @@ public class RegistrationProperties {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+
+    public Buffer getBuffer() {
+        return buffer;
+    }
+
+    public void setBuffer(Buffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Settings of the {@link BufferedRegistrationService}.
+     */
+    public static class Buffer {
+
+        private boolean enabled;
+
+        private String file;
+
+        private int flushSize = 20;
+
+        private long flushInterval = 5000;
+
+        private int parallelism = 4;
+
+        private long shutdownTimeout = 10000;
+
+        /**
+         * @return true to register the packages in the background through a local journal, requires the file
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return the journal file, an absolute path on a persistent volume of each replica. The startup fails when the
+         * buffer is enabled without it, the registrations being acknowledged once journaled
+         */
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        /**
+         * @return the number of pending registrations triggering a flush
+         */
+        public int getFlushSize() {
+            return flushSize;
+        }
+
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+
+        /**
+         * @return the time in milliseconds between two flushes
+         */
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        /**
+         * @return the maximum number of concurrent ORDS calls during a flush
+         */
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * @return the maximum time in milliseconds to wait for a running flush on shutdown
+         */
+        public long getShutdownTimeout() {
+            return shutdownTimeout;
+        }
+
+        public void setShutdownTimeout(long shutdownTimeout) {
+            this.shutdownTimeout = shutdownTimeout;
+        }
+    }
 }
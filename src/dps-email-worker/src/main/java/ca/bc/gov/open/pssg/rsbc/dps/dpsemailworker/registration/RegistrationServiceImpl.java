@@ -28,6 +28,10 @@ public class RegistrationServiceImpl implements RegistrationService {
 
     @Override
     public void registerPackage(DpsMetadata dpsMetadata) {
+        createPackage(createPackageRequest(dpsMetadata));
+    }
+
+    CreatePackageRequest createPackageRequest(DpsMetadata dpsMetadata) {
 
         //TODO: Investigate, the tenant is not passed as a parameter where there is a placeholder for it.
         logger.info("creating package request...");
@@ -44,19 +48,32 @@ public class RegistrationServiceImpl implements RegistrationService {
                 .withPageCount(dpsMetadata.getNumberOfPages())
                 .build();
         logger.info("creating package request completed");
+        return request;
+    }
+
+    /**
+     * Sends the package request to the OTS database.
+     *
+     * @param request
+     * @return false when the ORDS call failed and can be retried, a package rejected by the OTS database is logged and
+     * not retried
+     */
+    boolean createPackage(CreatePackageRequest request) {
         try {
             DefaultResponse response = otssoaService.createPackage(request);
             logger.info("Done sending to otssoa Service...");
             if(StringUtils.isEmpty(response.getRegState()) || !response.getRegState().equals(Keys.REGISTRATION_OPERATION_SUCCESS_STATUS))
             {
                 logger.error("Failed to create package in OTS database: {}", response.getErrorMessage());
-                return;
+                return true;
             }
 
             logger.info("Successfully created package in OTS database");
+            return true;
 
         } catch (ApiException e) {
             logger.error("Exception while create package in OTS database", e);
+            return false;
         }
     }
 }
@@ -4,21 +4,36 @@ import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.Batch;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportSession;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.services.ImportSessionService;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.CompletionJournal;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.EmailCompletionService;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.EmailProcessedCoalescer;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.PipelineProperties;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.ProgressStore;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.StageTimer;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration.RegistrationService;
 import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailProcessedResponse;
 import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailService;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimitExceededException;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpProperties;
 import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
 import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.messaging.support.MessageBuilder;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 @DisplayName("DpsEmailConsumer test suite")
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -27,10 +42,17 @@ public class DpsEmailConsumerTest {
     private static final String CASE_1 = "case1";
     private static final String CASE_2 = "case2";
     private static final String CASE_3 = "case3";
+    private static final String CASE_4 = "case4";
+    private static final String CASE_5 = "case5";
+    private static final String CASE_6 = "case6";
     private static final String EMAIL_EXCEPTION = "email exception";
     private static final String CORRELATION = "correlation";
     private static final String FAKE_CONTENT = "fake content";
     private static final String FILE_NAME = "test.txt";
+    private static final String LIMITED_FILE_NAME = "limited.txt";
+    private static final String FIRST_FILE_NAME = "first.txt";
+    private static final String SECOND_FILE_NAME = "second.txt";
+    private static final String RESUMED_FILE_NAME = "resumed.txt";
     private static final String REMOTE_LOCATION = "anyfolder";
     public static final String EMAIL_ID = "123456";
 
@@ -63,6 +85,11 @@ public class DpsEmailConsumerTest {
     @Mock
     private RegistrationService registrationServiceMock;
 
+    private EmailCompletionService emailCompletionService;
+
+    @TempDir
+    static Path folder;
+
     @BeforeAll
     public void setUp() throws Exception {
 
@@ -85,6 +112,12 @@ public class DpsEmailConsumerTest {
         Mockito.when(storageServiceMock.get(Mockito.eq(CASE_3))).thenReturn(FAKE_CONTENT.getBytes());
         Mockito.doNothing().when(storageServiceMock).delete(Mockito.eq(CASE_3));
 
+        Mockito.when(storageServiceMock.get(Mockito.eq(CASE_4))).thenReturn(FAKE_CONTENT.getBytes());
+        Mockito.when(storageServiceMock.get(Mockito.eq(CASE_6))).thenReturn(FAKE_CONTENT.getBytes());
+
+        Mockito.when(storageServiceMock.get(Mockito.eq("progress-" + CASE_5)))
+                .thenReturn("{\"worker_started\":1000,\"uploaded\":2000}".getBytes());
+
         Mockito.when(dpsMetadataMock.getFileInfo()).thenReturn(dpsFileInfoMock);
         Mockito.when(dpsFileInfoMock.getId()).thenReturn("id");
 
@@ -102,8 +135,22 @@ public class DpsEmailConsumerTest {
         SftpProperties sftpProperties = new SftpProperties();
         sftpProperties.setRemoteLocation(REMOTE_LOCATION);
 
+        ScheduledExecutorService completionExecutor = Executors.newSingleThreadScheduledExecutor();
+        PipelineProperties pipelineProperties = new PipelineProperties();
+
+        emailCompletionService = new EmailCompletionService(
+                new EmailProcessedCoalescer(dpsEmailServiceMock, completionExecutor, pipelineProperties),
+                new CompletionJournal(folder.resolve("journal.json")), storageServiceMock, ProgressStore.disabled(), registrationServiceMock, DependencyLimiter.unlimited(),
+                StageTimer.noop(), completionExecutor, pipelineProperties);
+
         sut = new DpsEmailConsumer(dpsEmailServiceMock, storageServiceMock, fileServiceMock, sftpProperties,
-                importSessionService, registrationServiceMock);
+                importSessionService, emailCompletionService, DependencyLimiter.unlimited(), StageTimer.noop(),
+                ProgressStore.disabled());
+    }
+
+    @BeforeEach
+    public void clearInvocations() {
+        Mockito.clearInvocations(fileServiceMock, storageServiceMock, dpsEmailServiceMock, registrationServiceMock);
     }
 
     @DisplayName("success - with email processed should return acknowledge")
@@ -117,7 +164,7 @@ public class DpsEmailConsumerTest {
                 .withEmailId(EMAIL_ID).build();
 
 
-        Assertions.assertDoesNotThrow(() -> sut.receiveMessage(input));
+        Assertions.assertDoesNotThrow(() -> sut.receiveMessage(input, Collections.emptyMap()));
 
         String expectedRemoteFileName = MessageFormat.format("{0}/{1}", REMOTE_LOCATION, FILE_NAME);
 
@@ -127,13 +174,65 @@ public class DpsEmailConsumerTest {
         Mockito.verify(fileServiceMock, Mockito.times(2))
                 .uploadFile(Mockito.any(InputStream.class), ArgumentMatchers.endsWith(".xml"));
 
-        Mockito.verify(storageServiceMock, Mockito.times(1))
+        Mockito.verify(storageServiceMock, Mockito.timeout(1000).times(1))
                 .delete(Mockito.eq(CASE_1));
 
-        Mockito.verify(dpsEmailServiceMock, Mockito.times(1))
+        Mockito.verify(dpsEmailServiceMock, Mockito.timeout(1000).times(1))
                 .dpsEmailProcessed(Mockito.eq(input.getBase64EmailId()), Mockito.eq(input.getTransactionId().toString()));
     }
 
+    @DisplayName("success - with aggregated messages should upload one definition and one control file")
+    @Test
+    public void withAggregatedMessagesShouldUploadOneDefinition() {
+
+        ImportSession fakeSession = new ImportSession("user", "password", "", "");
+        fakeSession.getBatches().addBatch(new Batch.Builder().withInputChannel("EMAIL").withSequence(1).build());
+        fakeSession.getBatches().addBatch(new Batch.Builder().withInputChannel("EMAIL").withSequence(2).build());
+        Mockito.when(importSessionService.generateImportSession(Mockito.anyList())).thenReturn(fakeSession);
+
+        DpsMetadata first = new DpsMetadata.Builder().withApplicationID(CASE_4)
+                .withFileInfo(new DpsFileInfo(CASE_4, FIRST_FILE_NAME, "String")).withEmailId(EMAIL_ID).build();
+        DpsMetadata second = new DpsMetadata.Builder().withApplicationID(CASE_6)
+                .withFileInfo(new DpsFileInfo(CASE_6, SECOND_FILE_NAME, "String")).withEmailId(EMAIL_ID).build();
+
+        Assertions.assertDoesNotThrow(() -> sut.receiveMessages(Arrays.asList(
+                MessageBuilder.withPayload(first).build(), MessageBuilder.withPayload(second).build())));
+
+        Mockito.verify(fileServiceMock, Mockito.times(1)).uploadFile(Mockito.any(InputStream.class),
+                Mockito.eq(MessageFormat.format("{0}/{1}", REMOTE_LOCATION, FIRST_FILE_NAME)));
+        Mockito.verify(fileServiceMock, Mockito.times(1)).uploadFile(Mockito.any(InputStream.class),
+                Mockito.eq(MessageFormat.format("{0}/{1}", REMOTE_LOCATION, SECOND_FILE_NAME)));
+
+        Mockito.verify(fileServiceMock, Mockito.times(2)).uploadFile(Mockito.any(InputStream.class),
+                ArgumentMatchers.endsWith(fakeSession.getBatchName().get() + ".xml"));
+
+        Mockito.verify(storageServiceMock, Mockito.timeout(1000).times(1))
+                .delete(Mockito.eq(CASE_4));
+        Mockito.verify(storageServiceMock, Mockito.timeout(1000).times(1))
+                .delete(Mockito.eq(CASE_6));
+    }
+
+    @DisplayName("success - with upload saved by a previous delivery should complete without uploading")
+    @Test
+    public void withUploadedProgressShouldCompleteWithoutUploading() {
+
+        SftpProperties sftpProperties = new SftpProperties();
+        sftpProperties.setRemoteLocation(REMOTE_LOCATION);
+
+        DpsEmailConsumer resumingSut = new DpsEmailConsumer(dpsEmailServiceMock, storageServiceMock, fileServiceMock,
+                sftpProperties, importSessionService, emailCompletionService, DependencyLimiter.unlimited(),
+                StageTimer.noop(), new ProgressStore(storageServiceMock));
+
+        DpsMetadata input = new DpsMetadata.Builder().withApplicationID(CASE_5)
+                .withFileInfo(new DpsFileInfo(CASE_5, RESUMED_FILE_NAME, "String")).withEmailId(EMAIL_ID).build();
+
+        Assertions.assertDoesNotThrow(() -> resumingSut.receiveMessage(input, Collections.emptyMap()));
+
+        Mockito.verify(fileServiceMock, Mockito.never())
+                .uploadFile(Mockito.any(InputStream.class), ArgumentMatchers.endsWith(RESUMED_FILE_NAME));
+        Mockito.verify(storageServiceMock, Mockito.timeout(1000).times(1)).delete(Mockito.eq(CASE_5));
+    }
+
     @DisplayName("error - with missing batch name should return error")
     @Test
     public void withMissingBatchNameShouldThrowError() {
@@ -143,11 +242,36 @@ public class DpsEmailConsumerTest {
         Mockito.when(importSessionService.generateImportSession(Mockito.any(DpsMetadata.class))).thenReturn(fakeSession);
 
         Assertions.assertThrows(DpsEmailWorkerException.class, () -> {
-            sut.receiveMessage(new DpsMetadata.Builder().withApplicationID(CASE_1).withFileInfo(new DpsFileInfo(CASE_1, FILE_NAME, "String")).withEmailId("a@a.com").build());
+            sut.receiveMessage(new DpsMetadata.Builder().withApplicationID(CASE_1).withFileInfo(new DpsFileInfo(CASE_1, FILE_NAME, "String")).withEmailId("a@a.com").build(), Collections.emptyMap());
         });
 
     }
 
+    @DisplayName("error - with sftp limit reached should throw error without uploading")
+    @Test
+    public void withSftpLimitReachedShouldThrowLimitExceeded() {
+
+        ImportSession fakeSession = new ImportSession("user", "password", "", "");
+        fakeSession.getBatches().addBatch(new Batch.Builder().withBatchClassName("test").build());
+        Mockito.when(importSessionService.generateImportSession(Mockito.any(DpsMetadata.class))).thenReturn(fakeSession);
+
+        SftpProperties sftpProperties = new SftpProperties();
+        sftpProperties.setRemoteLocation(REMOTE_LOCATION);
+
+        DpsEmailConsumer limitedSut = new DpsEmailConsumer(dpsEmailServiceMock, storageServiceMock, fileServiceMock,
+                sftpProperties, importSessionService, emailCompletionService,
+                new DependencyLimiter(Collections.singletonMap(Keys.SFTP_DEPENDENCY, 0), 0), StageTimer.noop(),
+                ProgressStore.disabled());
+
+        // not wrapped so the message is requeued without spending a retry
+        Assertions.assertThrows(DependencyLimitExceededException.class, () -> {
+            limitedSut.receiveMessage(new DpsMetadata.Builder().withApplicationID(CASE_1).withFileInfo(new DpsFileInfo(CASE_1, LIMITED_FILE_NAME, "String")).withEmailId(EMAIL_ID).build(), Collections.emptyMap());
+        });
+
+        Mockito.verify(fileServiceMock, Mockito.never())
+                .uploadFile(Mockito.any(InputStream.class), ArgumentMatchers.endsWith(LIMITED_FILE_NAME));
+    }
+
     @DisplayName("success - receiveParkedMessage should not throw")
     @Test
     public void withEmailFailedShouldReturnSuccess() {
@@ -168,4 +292,3 @@ public class DpsEmailConsumerTest {
                 .delete(Mockito.eq(CASE_3));
     }
 }
-
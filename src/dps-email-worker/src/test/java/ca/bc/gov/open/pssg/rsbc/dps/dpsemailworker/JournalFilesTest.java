@@ -0,0 +1,54 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+@DisplayName("JournalFiles test suite")
+public class JournalFilesTest {
+
+    private static final String PROPERTY = "dps.test.journal-file";
+
+    @TempDir
+    Path folder;
+
+    @DisplayName("success - with absolute path in an existing directory should return it")
+    @Test
+    public void withAbsolutePathShouldReturnIt() {
+
+        Path file = folder.resolve("journal.json").toAbsolutePath();
+
+        Assertions.assertEquals(file, JournalFiles.resolve(file.toString(), PROPERTY));
+    }
+
+    @DisplayName("error - with relative path should throw")
+    @Test
+    public void withRelativePathShouldThrow() {
+
+        DpsEmailWorkerException exception = Assertions.assertThrows(DpsEmailWorkerException.class,
+                () -> JournalFiles.resolve("journal.json", PROPERTY));
+
+        Assertions.assertTrue(exception.getMessage().startsWith(PROPERTY));
+    }
+
+    @DisplayName("error - without file should throw")
+    @Test
+    public void withoutFileShouldThrow() {
+
+        Assertions.assertThrows(DpsEmailWorkerException.class, () -> JournalFiles.resolve(null, PROPERTY));
+        Assertions.assertThrows(DpsEmailWorkerException.class, () -> JournalFiles.resolve(" ", PROPERTY));
+    }
+
+    @DisplayName("error - with missing directory should throw")
+    @Test
+    public void withMissingDirectoryShouldThrow() {
+
+        Path file = folder.resolve("missing").resolve("journal.json").toAbsolutePath();
+
+        Assertions.assertThrows(DpsEmailWorkerException.class, () -> JournalFiles.resolve(file.toString(), PROPERTY));
+    }
+
+}
@@ -0,0 +1,163 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.backpressure;
+
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline.StageTimer;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DpsMessagingProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("BackPressureController test suite")
+public class BackPressureControllerTest {
+
+    private static final String QUEUE_NAME = "tenant.emailmessage.Q";
+
+    @Mock
+    private SimpleMessageListenerContainer containerMock;
+
+    private DpsMessagingProperties dpsMessagingProperties;
+
+    private BackPressureProperties backPressureProperties;
+
+    @BeforeEach
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+
+        Mockito.when(containerMock.getQueueNames()).thenReturn(new String[] { QUEUE_NAME });
+        Mockito.when(containerMock.isRunning()).thenReturn(true);
+
+        dpsMessagingProperties = new DpsMessagingProperties();
+        dpsMessagingProperties.getListener().setConcurrentConsumers(4);
+
+        backPressureProperties = new BackPressureProperties();
+        backPressureProperties.setMinCalls(2);
+    }
+
+    @DisplayName("success - with sftp failing should reduce then stop consumers")
+    @Test
+    public void withSftpFailingShouldReduceConsumers() {
+
+        BackPressureController sut = newController(Clock.fixed(Instant.ofEpochMilli(100000), ZoneOffset.UTC));
+
+        sut.onStage(StageTimer.SFTP_UPLOAD, 1000, false);
+        sut.onStage(StageTimer.SFTP_UPLOAD, 1000, false);
+
+        Assertions.assertTrue(sut.isSaturated());
+
+        sut.evaluate();
+        Mockito.verify(containerMock).setConcurrentConsumers(2);
+
+        sut.evaluate();
+        Mockito.verify(containerMock).setConcurrentConsumers(1);
+
+        sut.evaluate();
+        Mockito.verify(containerMock).stop();
+    }
+
+    @DisplayName("success - with slow registration should be saturated")
+    @Test
+    public void withSlowRegistrationShouldBeSaturated() {
+
+        BackPressureController sut = newController(Clock.fixed(Instant.ofEpochMilli(100000), ZoneOffset.UTC));
+
+        sut.onStage(StageTimer.REGISTRATION, TimeUnit.SECONDS.toNanos(10), true);
+        sut.onStage(StageTimer.REGISTRATION, TimeUnit.SECONDS.toNanos(10), true);
+        sut.onStage(StageTimer.CACHE_GET, 1000, false);
+
+        Assertions.assertTrue(sut.isSaturated());
+    }
+
+    @DisplayName("success - with downstream recovered should resume gradually")
+    @Test
+    public void withDownstreamRecoveredShouldResume() {
+
+        MutableClock clock = new MutableClock(100000);
+        BackPressureController sut = newController(clock);
+
+        sut.onStage(StageTimer.SFTP_UPLOAD, 1000, false);
+        sut.onStage(StageTimer.SFTP_UPLOAD, 1000, false);
+
+        sut.evaluate();
+        sut.evaluate();
+        sut.evaluate();
+        Mockito.verify(containerMock).stop();
+
+        clock.millis += backPressureProperties.getWindow();
+
+        Assertions.assertFalse(sut.isSaturated());
+
+        sut.evaluate();
+        Mockito.verify(containerMock).start();
+
+        sut.evaluate();
+        Mockito.verify(containerMock, Mockito.times(2)).setConcurrentConsumers(2);
+    }
+
+    @DisplayName("success - with container not running should not be managed")
+    @Test
+    public void withContainerNotRunningShouldNotBeManaged() {
+
+        Mockito.when(containerMock.isRunning()).thenReturn(false);
+
+        BackPressureController sut = newController(Clock.fixed(Instant.ofEpochMilli(100000), ZoneOffset.UTC));
+
+        sut.onStage(StageTimer.SFTP_UPLOAD, 1000, false);
+        sut.onStage(StageTimer.SFTP_UPLOAD, 1000, false);
+
+        sut.evaluate();
+
+        Mockito.verify(containerMock, Mockito.never()).setConcurrentConsumers(Mockito.anyInt());
+        Mockito.verify(containerMock, Mockito.never()).stop();
+    }
+
+    private BackPressureController newController(Clock clock) {
+        List<MessageListenerContainer> containers = Collections.singletonList(containerMock);
+        return new BackPressureController(backPressureProperties, dpsMessagingProperties, () -> containers,
+                Collections.singletonList(QUEUE_NAME), Executors.newSingleThreadScheduledExecutor(), clock);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+}
@@ -1,7 +1,10 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax;
 
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.DpsEmailWorkerException;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.Fakes;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.configuration.TenantProperties;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.Batch;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportError;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportSession;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.services.ImportSessionServiceImpl;
 import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
@@ -13,9 +16,17 @@ import org.junit.jupiter.api.TestInstance;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.regex.Pattern;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -29,11 +40,12 @@ public class ImportSessionServiceImplTest {
     private static final String USER_ID = "changemeuser";
     private static final String TENANT = "TEST";
     private ImportSessionServiceImpl sut;
+    private KofaxProperties kofaxProperties;
 
     @BeforeEach
     public void setUp() {
 
-        KofaxProperties kofaxProperties = new KofaxProperties();
+        kofaxProperties = new KofaxProperties();
         kofaxProperties.setBatchFieldFaxReceiveDate("FaxReceivedDate");
         kofaxProperties.setBatchFieldImportDate("ImportDate");
         kofaxProperties.setBatchFieldImportId("ImportID");
@@ -107,6 +119,82 @@ public class ImportSessionServiceImplTest {
 
     }
 
+    @Test
+    public void withTemplateWriterShouldWriteSameXmlAsJaxb() {
+
+        DpsMetadata metadata = new DpsMetadata.Builder()
+                .withInboundChannelType(INBOUND_CHANNEL_TYPE)
+                .withFileInfo(new DpsFileInfo(CASE_1, "case <1> & \"2\".ext", CONTENT_TYPE))
+                .withRecvdate(getDate())
+                .build();
+
+        ImportSession session = sut.generateImportSession(metadata);
+
+        String expected = new String(sut.convertToXmlBytes(session), StandardCharsets.UTF_8);
+
+        kofaxProperties.setTemplateWriter(true);
+
+        Assertions.assertEquals(expected, new String(sut.convertToXmlBytes(session), StandardCharsets.UTF_8));
+
+    }
+
+    @Test
+    public void withMultipleDocumentsShouldGenerateOneBatchPerDocument() {
+
+        DpsMetadata first = new DpsMetadata.Builder()
+                .withInboundChannelType(INBOUND_CHANNEL_TYPE)
+                .withFileInfo(new DpsFileInfo(CASE_1, NAME, CONTENT_TYPE))
+                .withRecvdate(getDate())
+                .build();
+
+        DpsMetadata second = new DpsMetadata.Builder()
+                .withInboundChannelType(INBOUND_CHANNEL_TYPE)
+                .withFileInfo(new DpsFileInfo(CASE_1, "case2.ext", CONTENT_TYPE))
+                .withRecvdate(getDate())
+                .build();
+
+        ImportSession session = sut.generateImportSession(Arrays.asList(first, second));
+
+        List<Batch> batches = session.getBatches().getBatches();
+
+        Assertions.assertEquals(2, batches.size());
+        Assertions.assertTrue(batches.get(0).getName().endsWith("-1"));
+        Assertions.assertTrue(batches.get(1).getName().endsWith("-2"));
+        Assertions.assertEquals(NAME, batches.get(0).getPages().getPages().get(0).getImportFileName());
+        Assertions.assertEquals("case2.ext", batches.get(1).getPages().getPages().get(0).getImportFileName());
+        Assertions.assertEquals(batches.get(0).getName(), session.getBatchName().get());
+
+    }
+
+    @Test
+    public void withFixedClockShouldFormatDatesLikeSimpleDateFormat() {
+
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(1577836799007L), ZoneId.systemDefault());
+
+        TenantProperties tenantProperties = new TenantProperties();
+        tenantProperties.setName(TENANT);
+
+        ImportSessionServiceImpl clockSut = new ImportSessionServiceImpl(kofaxProperties, tenantProperties,
+                getImportSessionJaxbContext(kofaxProperties, tenantProperties), clock);
+
+        DpsMetadata metadata = new DpsMetadata.Builder()
+                .withInboundChannelType(INBOUND_CHANNEL_TYPE)
+                .withFileInfo(new DpsFileInfo(CASE_1, NAME, CONTENT_TYPE))
+                .withRecvdate(getDate())
+                .build();
+
+        Batch batch = clockSut.generateImportSession(metadata).getBatches().getBatches().get(0);
+        Date now = new Date(clock.millis());
+
+        Assertions.assertEquals(INBOUND_CHANNEL_TYPE + "-" + new SimpleDateFormat("YYYY-MM-dd-HH-mm-ss-SSS").format(now),
+                batch.getName());
+        Assertions.assertEquals(new SimpleDateFormat(kofaxProperties.getXmlDatePattern()).format(now),
+                batch.getBatchFields().getBatchFields().get(0).getValue());
+        Assertions.assertEquals(new SimpleDateFormat("yyyy-MM-dd'T'H:mm:ss'Z'").format(getDate()),
+                batch.getBatchFields().getBatchFields().get(2).getValue());
+
+    }
+
     @Test
     public void withValidInputStreamShouldConvertToImportSession() {
 
@@ -118,6 +206,40 @@ public class ImportSessionServiceImplTest {
 
     }
 
+    @Test
+    public void withValidInputStreamShouldReadImportError() {
+
+        ImportError actual = sut.readImportError(Fakes.getImportSessionInputStream());
+
+        Assertions.assertNull(actual.getErrorCode());
+        Assertions.assertEquals("0308eec8-b6c1-44ab-97f9-8ee313557e6c", actual.getImportId());
+
+    }
+
+    @Test
+    public void withErrorInputStreamShouldReadImportError() {
+
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><ImportSession UserID=\"test\" ErrorCode=\"5\" " +
+                "ErrorMessage=\"batch &amp; pages rejected\"><Batches><Batch Name=\"first\"><BatchFields/></Batch>" +
+                "<Batch Name=\"second\"><BatchFields><BatchField Name=\"ImportID\" Value=\"second\"/></BatchFields>" +
+                "</Batch></Batches></ImportSession>";
+
+        ImportError actual = sut.readImportError(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        Assertions.assertEquals("5", actual.getErrorCode());
+        Assertions.assertEquals("batch & pages rejected", actual.getErrorMessage());
+        Assertions.assertNull(actual.getImportId());
+
+    }
+
+    @Test
+    public void withInvalidInputStreamShouldThrowDpsEmailWorkerException() {
+
+        Assertions.assertThrows(DpsEmailWorkerException.class, () ->
+                sut.readImportError(new ByteArrayInputStream("<ImportSession".getBytes(StandardCharsets.UTF_8))));
+
+    }
+
     private JAXBContext getImportSessionJaxbContext(KofaxProperties kofaxProperties, TenantProperties tenantProperties) {
 
         KofaxConfig config = new KofaxConfig(kofaxProperties, tenantProperties);
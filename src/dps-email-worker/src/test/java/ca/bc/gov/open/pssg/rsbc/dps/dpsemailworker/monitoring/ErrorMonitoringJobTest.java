@@ -3,11 +3,15 @@ package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.monitoring;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.Fakes;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.configuration.TenantProperties;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.KofaxProperties;
-import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportSession;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.models.ImportError;
 import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.kofax.services.ImportSessionService;
+import ca.bc.gov.open.pssg.rsbc.dps.files.FileEntry;
+import ca.bc.gov.open.pssg.rsbc.dps.files.FileOperations;
+import ca.bc.gov.open.pssg.rsbc.dps.files.FileProcessor;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.DpsSftpException;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpProperties;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,8 +21,13 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
 import java.io.InputStream;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class ErrorMonitoringJobTest {
@@ -26,6 +35,10 @@ public class ErrorMonitoringJobTest {
     public static final String REMOTE_LOCATION = "remotelocation";
     public static final String CASE_1 = "case1";
     public static final String CASE_2 = "case2";
+    public static final String CASE_3 = "case3";
+    public static final String CASE_4 = "case4";
+
+    private static final Instant MODIFIED_TIME = Instant.parse("2020-01-01T00:00:00Z");
 
     private ErrorMonitoringJob sut;
 
@@ -35,56 +48,93 @@ public class ErrorMonitoringJobTest {
     @Mock
     private FileService fileServiceMock;
 
+    @Mock
+    private FileOperations fileOperationsMock;
+
+    private ExecutorService workerExecutorService;
+
+    private SftpProperties sftpProperties;
+
+    private List<String> results;
+
+    private TenantProperties tenantProperties;
+
     @Mock
     private ImportSessionService importSessionServiceMock;
 
     @BeforeEach
     public void setUp() {
 
-        SftpProperties sftpProperties = new SftpProperties();
+        sftpProperties = new SftpProperties();
         sftpProperties.setRemoteLocation(REMOTE_LOCATION);
 
-        TenantProperties tenantProperties = new TenantProperties();
+        tenantProperties = new TenantProperties();
         tenantProperties.setName("tenant");
 
         MockitoAnnotations.initMocks(this);
 
-        List<String> fileList1 = new ArrayList<>();
-        fileList1.add(CASE_1 + ".xml");
-        fileList1.add(".");
+        results = new ArrayList<>();
 
-        Mockito
-                .when(fileServiceMock.listFiles(Mockito.eq(REMOTE_LOCATION + "/" + CASE_1)))
-                .thenReturn(fileList1);
+        List<FileEntry> fileList1 = new ArrayList<>();
+        fileList1.add(fakeFileEntry(CASE_1 + ".xml", 0));
+        fileList1.add(new FileEntry("folder.xml", 0, MODIFIED_TIME, true, false));
+
+        fakeProcessFiles(REMOTE_LOCATION + "/" + CASE_1, fileList1);
+
+        List<FileEntry> fileList2 = new ArrayList<>();
+        fileList2.add(fakeFileEntry(CASE_1 + ".xml", 0));
+        fileList2.add(fakeFileEntry(CASE_2 + ".xml", 1));
+
+        fakeProcessFiles(REMOTE_LOCATION + "/" + CASE_2, fileList2);
 
-        List<String> fileList2 = new ArrayList<>();
-        fileList2.add(CASE_1 + ".xml");
-        fileList2.add(CASE_2 + ".xml");
+        // the failed file is older than the moved file
+        List<FileEntry> fileList3 = new ArrayList<>();
+        fileList3.add(fakeFileEntry(CASE_2 + ".xml", 0));
+        fileList3.add(fakeFileEntry(CASE_1 + ".xml", 1));
+
+        fakeProcessFiles(REMOTE_LOCATION + "/" + CASE_3, fileList3);
 
         Mockito
-                .when(fileServiceMock.listFiles(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2)))
-                .thenReturn(fileList2);
+                .when(fileOperationsMock.getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_1 + "/" + CASE_1 + ".xml")))
+                .thenReturn(Fakes.getImportSessionInputStream());
 
         Mockito
-                .when(fileServiceMock.getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_1 + "/" + CASE_1 + ".xml")))
+                .when(fileOperationsMock.getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_1 + ".xml")))
                 .thenReturn(Fakes.getImportSessionInputStream());
 
         Mockito
-                .when(fileServiceMock.getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_1 + ".xml")))
+                .when(fileOperationsMock.getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_2 + ".xml")))
+                .thenThrow(new DpsSftpException("a random exception", null));
+
+        Mockito
+                .when(fileOperationsMock.getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_3 + "/" + CASE_1 + ".xml")))
                 .thenReturn(Fakes.getImportSessionInputStream());
 
         Mockito
-                .when(fileServiceMock.getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_2 + ".xml")))
+                .when(fileOperationsMock.getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_3 + "/" + CASE_2 + ".xml")))
                 .thenThrow(new DpsSftpException("a random exception", null));
 
-        ImportSession importSessionCase1 = new ImportSession("userId", "password", "1", "an error");
+        Mockito
+                .when(fileOperationsMock.getFileContent(Mockito.startsWith(REMOTE_LOCATION + "/" + CASE_4 + "/")))
+                .thenAnswer(invocation -> Fakes.getImportSessionInputStream());
+
+        ImportError importErrorCase1 = new ImportError("1", "an error", "importId");
 
-        Mockito.when(importSessionServiceMock.convertToImportSession(Mockito.any(InputStream.class))).thenReturn(importSessionCase1);
+        Mockito.when(importSessionServiceMock.readImportError(Mockito.any(InputStream.class))).thenReturn(importErrorCase1);
 
 
+        Mockito.when(kofaxPropertiesMock.getErrorProcessedLimit()).thenReturn(100);
+
+        workerExecutorService = Executors.newFixedThreadPool(3);
+
         sut = new ErrorMonitoringJob(fileServiceMock, importSessionServiceMock, kofaxPropertiesMock, sftpProperties,
-                tenantProperties);
+                tenantProperties, workerExecutorService);
+
+    }
 
+    @AfterEach
+    public void tearDown() {
+        workerExecutorService.shutdownNow();
     }
 
 
@@ -96,9 +146,15 @@ public class ErrorMonitoringJobTest {
 
         Assertions.assertDoesNotThrow(() -> sut.run());
 
-        Mockito.verify(fileServiceMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_1 + "/" + CASE_1 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_1 + "/" + CASE_1 + ".xml"));
+
+        Mockito.verify(importSessionServiceMock, Mockito.times(1)).readImportError(Mockito.any(InputStream.class));
 
-        Mockito.verify(importSessionServiceMock, Mockito.times(1)).convertToImportSession(Mockito.any(InputStream.class));
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).moveFile(Mockito.anyString(), Mockito.anyString());
+
+        // the file is read and moved on the connection of the listing, not on a new one
+        Mockito.verify(fileServiceMock, Mockito.never()).getFileContent(Mockito.anyString());
+        Mockito.verify(fileServiceMock, Mockito.never()).moveFile(Mockito.anyString(), Mockito.anyString());
 
     }
 
@@ -109,18 +165,177 @@ public class ErrorMonitoringJobTest {
 
         sut.run();
 
-        Mockito.verify(fileServiceMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_1 + ".xml"));
-        Mockito.verify(fileServiceMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_2 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_1 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_2 + ".xml"));
+
+        Mockito.verify(importSessionServiceMock, Mockito.times(1)).readImportError(Mockito.any(InputStream.class));
+
+        Assertions.assertEquals(Arrays.asList(CASE_1 + ".xml true", CASE_2 + ".xml false"), results);
+
+        Assertions.assertFalse(sut.getProgress().isRunning());
+        Assertions.assertEquals(2, sut.getProgress().getFilesScanned());
+        Assertions.assertEquals(1, sut.getProgress().getFilesMoved());
+        Assertions.assertEquals(1, sut.getProgress().getFilesFailed());
+
+    }
+
+    @Test
+    public void withSecondRunShouldSkipMovedFilesAndRetryFailedFiles() {
+
+        Mockito.when(kofaxPropertiesMock.getErrorLocation()).thenReturn(CASE_2);
+
+        sut.run();
+        sut.run();
+
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_1 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(2)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_2 + ".xml"));
+
+        Assertions.assertEquals(2, sut.getProgress().getFilesScanned());
+        Assertions.assertEquals(1, sut.getProgress().getFilesSkipped());
+        Assertions.assertEquals(0, sut.getProgress().getFilesMoved());
+        Assertions.assertEquals(1, sut.getProgress().getFilesFailed());
+
+    }
+
+    @Test
+    public void withOlderFailedFileShouldRetryItAndSkipMovedFile() {
+
+        Mockito.when(kofaxPropertiesMock.getErrorLocation()).thenReturn(CASE_3);
+
+        sut.run();
+        sut.run();
+
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_3 + "/" + CASE_1 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(2)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_3 + "/" + CASE_2 + ".xml"));
+
+        Assertions.assertEquals(1, sut.getProgress().getFilesSkipped());
+
+    }
+
+    @Test
+    public void withNewFileOlderThanHandledFilesShouldProcessIt() {
+
+        Mockito.when(kofaxPropertiesMock.getErrorLocation()).thenReturn(CASE_4);
+
+        List<FileEntry> fileList = new ArrayList<>();
+        fileList.add(fakeFileEntry(CASE_1 + ".xml", 10));
+        fakeProcessFiles(REMOTE_LOCATION + "/" + CASE_4, fileList);
+
+        sut.run();
+
+        // a file copied with its original modification time
+        fileList.add(fakeFileEntry(CASE_2 + ".xml", 0));
+
+        sut.run();
+
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_4 + "/" + CASE_1 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_4 + "/" + CASE_2 + ".xml"));
+
+        Assertions.assertEquals(1, sut.getProgress().getFilesSkipped());
+        Assertions.assertEquals(1, sut.getProgress().getFilesMoved());
+
+    }
+
+    @Test
+    public void withHandledFileNoLongerListedShouldForgetIt() {
+
+        Mockito.when(kofaxPropertiesMock.getErrorLocation()).thenReturn(CASE_4);
+
+        List<FileEntry> fileList = new ArrayList<>();
+        fileList.add(fakeFileEntry(CASE_1 + ".xml", 0));
+        fakeProcessFiles(REMOTE_LOCATION + "/" + CASE_4, fileList);
+
+        sut.run();
+
+        fileList.clear();
+        sut.run();
+
+        // the file is back in the error folder, for instance moved back from the error hold folder
+        fileList.add(fakeFileEntry(CASE_1 + ".xml", 0));
+        sut.run();
+
+        Mockito.verify(fileOperationsMock, Mockito.times(2)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_4 + "/" + CASE_1 + ".xml"));
+
+    }
+
+    @Test
+    public void withProcessedLimitReachedShouldEvictOldestFile() {
+
+        Mockito.when(kofaxPropertiesMock.getErrorLocation()).thenReturn(CASE_4);
+        Mockito.when(kofaxPropertiesMock.getErrorProcessedLimit()).thenReturn(1);
+
+        List<FileEntry> fileList = new ArrayList<>();
+        fileList.add(fakeFileEntry(CASE_1 + ".xml", 0));
+        fakeProcessFiles(REMOTE_LOCATION + "/" + CASE_4, fileList);
+
+        sut = new ErrorMonitoringJob(fileServiceMock, importSessionServiceMock, kofaxPropertiesMock,
+                sftpProperties, tenantProperties, workerExecutorService);
+
+        sut.run();
+
+        // handling the new file evicts the file handled by the first run
+        fileList.add(0, fakeFileEntry(CASE_2 + ".xml", 1));
+        sut.run();
+
+        Mockito.verify(fileOperationsMock, Mockito.times(2)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_4 + "/" + CASE_1 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_4 + "/" + CASE_2 + ".xml"));
+
+    }
+
+    @Test
+    public void withResetShouldRescanHandledFiles() {
+
+        Mockito.when(kofaxPropertiesMock.getErrorLocation()).thenReturn(CASE_2);
+
+        sut.run();
+        sut.reset();
+        sut.run();
+
+        Mockito.verify(fileOperationsMock, Mockito.times(2)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_1 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(2)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_2 + ".xml"));
 
-        Mockito.verify(importSessionServiceMock, Mockito.times(1)).convertToImportSession(Mockito.any(InputStream.class));
+    }
+
+    @Test
+    public void withMultipleWorkersShouldListOnceAndProcessEachFileOnce() {
+
+        Mockito.when(kofaxPropertiesMock.getErrorLocation()).thenReturn(CASE_2);
+        Mockito.when(kofaxPropertiesMock.getErrorWorkerCount()).thenReturn(3);
+
+        sut.run();
+
+        Mockito.verify(fileServiceMock, Mockito.times(1)).processFiles(Mockito.anyString(), Mockito.anyString(), Mockito.anyInt(), Mockito.eq(3), Mockito.eq(workerExecutorService), Mockito.any(FileProcessor.class));
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_1 + ".xml"));
+        Mockito.verify(fileOperationsMock, Mockito.times(1)).getFileContent(Mockito.eq(REMOTE_LOCATION + "/" + CASE_2 + "/" + CASE_2 + ".xml"));
+
+        Assertions.assertEquals(2, sut.getProgress().getFilesScanned());
 
     }
 
+    @Test
+    public void withSftpExceptionWhileListingShouldBeHandled() {
 
+        Mockito.when(kofaxPropertiesMock.getErrorLocation()).thenReturn("unreachable");
+        Mockito.doThrow(new DpsSftpException("connection refused", null))
+                .when(fileServiceMock).processFiles(Mockito.eq(REMOTE_LOCATION + "/unreachable"), Mockito.anyString(), Mockito.anyInt(), Mockito.anyInt(), Mockito.any(Executor.class), Mockito.any(FileProcessor.class));
 
+        Assertions.assertDoesNotThrow(() -> sut.run());
 
+        Mockito.verify(importSessionServiceMock, Mockito.times(0)).readImportError(Mockito.any(InputStream.class));
 
+    }
 
+    private void fakeProcessFiles(String directory, List<FileEntry> fileEntries) {
+        Mockito.doAnswer(invocation -> {
+            FileProcessor fileProcessor = invocation.getArgument(5);
+            fileEntries.forEach(fileEntry -> results.add(fileEntry.getName() + " " +
+                    fileProcessor.process(fileEntry, fileOperationsMock)));
+            return null;
+        }).when(fileServiceMock).processFiles(Mockito.eq(directory), Mockito.eq("*.xml"), Mockito.anyInt(), Mockito.anyInt(), Mockito.any(Executor.class), Mockito.any(FileProcessor.class));
+    }
 
+    private FileEntry fakeFileEntry(String name, long modifiedSeconds) {
+        return new FileEntry(name, 100, MODIFIED_TIME.plusSeconds(modifiedSeconds), false, true);
+    }
 
 }
@@ -24,7 +24,7 @@ public class JobControllerTest {
 
     private JobController sut;
 
-    @BeforeAll
+    @BeforeEach
     public void setUp() {
 
         List<String> fakeFileList = new ArrayList<>();
@@ -47,13 +47,76 @@ public class JobControllerTest {
     @DisplayName("Success - when job is scheduled")
     public void withCallShouldScheduleJob() {
 
-        ResponseEntity<JobResponse> actual = sut.createErrorJob();
+        ResponseEntity<JobResponse> actual = sut.createErrorJob(false);
 
         Assertions.assertEquals(HttpStatus.ACCEPTED, actual.getStatusCode());
 
         Assertions.assertTrue(actual.getBody().getScheduled());
 
         Mockito.verify(executorServiceMock, Mockito.times(1)).execute(Mockito.any(Runnable.class));
+        Mockito.verify(monitoringJobMock, Mockito.times(0)).reset();
+
+    }
+
+    @Test
+    @DisplayName("Success - when full rescan is requested should reset job")
+    public void withFullShouldResetJob() {
+
+        ResponseEntity<JobResponse> actual = sut.createErrorJob(true);
+
+        Assertions.assertTrue(actual.getBody().getScheduled());
+
+        Mockito.verify(monitoringJobMock, Mockito.times(1)).reset();
+        Mockito.verify(executorServiceMock, Mockito.times(1)).execute(Mockito.any(Runnable.class));
+
+    }
+
+    @Test
+    @DisplayName("Success - when job is running should not schedule job")
+    public void withRunningJobShouldNotScheduleJob() {
+
+        JobProgress progress = new JobProgress();
+        progress.fileScanned();
+        Mockito.when(monitoringJobMock.getProgress()).thenReturn(progress);
+
+        ResponseEntity<JobResponse> actual = sut.createErrorJob(false);
+
+        Assertions.assertEquals(HttpStatus.ACCEPTED, actual.getStatusCode());
+        Assertions.assertFalse(actual.getBody().getScheduled());
+        Assertions.assertTrue(actual.getBody().getRunning());
+        Assertions.assertEquals(1, actual.getBody().getFilesScanned());
+
+        Mockito.verify(executorServiceMock, Mockito.times(0)).execute(Mockito.any(Runnable.class));
+
+    }
+
+    @Test
+    @DisplayName("Success - should return last run progress")
+    public void withCompletedJobShouldReturnProgress() {
+
+        JobProgress progress = new JobProgress();
+        progress.fileScanned();
+        progress.fileMoved();
+        progress.complete();
+        Mockito.when(monitoringJobMock.getProgress()).thenReturn(progress);
+
+        ResponseEntity<JobResponse> actual = sut.getErrorJob();
+
+        Assertions.assertEquals(HttpStatus.OK, actual.getStatusCode());
+        Assertions.assertFalse(actual.getBody().getRunning());
+        Assertions.assertEquals(1, actual.getBody().getFilesMoved());
+        Assertions.assertNotNull(actual.getBody().getDuration());
+
+    }
+
+    @Test
+    @DisplayName("Success - when job never ran should return not running")
+    public void withNoRunShouldReturnNotRunning() {
+
+        ResponseEntity<JobResponse> actual = sut.getErrorJob();
+
+        Assertions.assertFalse(actual.getBody().getRunning());
+        Assertions.assertNull(actual.getBody().getFilesScanned());
 
     }
 
@@ -0,0 +1,389 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.DpsEmailWorkerException;
+import ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration.RegistrationService;
+import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailProcessedResponse;
+import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimitExceededException;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
+import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("EmailCompletionService test suite")
+public class EmailCompletionServiceTest {
+
+    private static final String FILE_ID = "fileId";
+    private static final String FILE_NAME = "test.txt";
+    private static final String EMAIL_ID = "123456";
+    private static final String TENANT = "tenant";
+
+    @Mock
+    private DpsEmailService dpsEmailServiceMock;
+
+    @Mock
+    private StorageService storageServiceMock;
+
+    @Mock
+    private RegistrationService registrationServiceMock;
+
+    @TempDir
+    Path folder;
+
+    private CompletionJournal completionJournal;
+
+    private ScheduledExecutorService executorService;
+
+    private EmailCompletionService sut;
+
+    @BeforeEach
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+
+        completionJournal = new CompletionJournal(folder.resolve("journal.json"));
+
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setMaxAttempts(3);
+        pipelineProperties.setRetryDelay(1);
+
+        Mockito.when(registrationServiceMock.isActive()).thenReturn(true);
+
+        executorService = Executors.newSingleThreadScheduledExecutor();
+
+        sut = new EmailCompletionService(
+                new EmailProcessedCoalescer(dpsEmailServiceMock, executorService, pipelineProperties),
+                completionJournal, storageServiceMock, ProgressStore.disabled(), registrationServiceMock, DependencyLimiter.unlimited(),
+                StageTimer.noop(), executorService, pipelineProperties);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+
+        // the retries rewrite the journal, they must be done before the temp folder is deleted
+        sut.shutdown();
+
+        Assertions.assertTrue(executorService.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @DisplayName("success - with registration failing once should retry then move email")
+    @Test
+    public void withRegistrationFailingOnceShouldRetry() {
+
+        Mockito.doThrow(new RuntimeException("ots unavailable")).doNothing()
+                .when(registrationServiceMock).registerPackage(Mockito.any(DpsMetadata.class));
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test"));
+
+        DpsMetadata message = getMessage();
+
+        sut.complete(message);
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.timeout(1000).times(1))
+                .dpsEmailProcessed(Mockito.eq(message.getBase64EmailId()), Mockito.anyString());
+        Mockito.verify(registrationServiceMock, Mockito.times(2)).registerPackage(Mockito.eq(message));
+        Mockito.verify(storageServiceMock, Mockito.times(1)).delete(Mockito.eq(FILE_ID));
+    }
+
+    @DisplayName("success - with registration limit reached should retry without spending an attempt")
+    @Test
+    public void withRegistrationLimitReachedShouldNotSpendAttempts() {
+
+        DependencyLimitExceededException limitExceeded = new DependencyLimitExceededException("limit reached");
+
+        Mockito.doThrow(limitExceeded).doThrow(limitExceeded).doThrow(limitExceeded).doNothing()
+                .when(registrationServiceMock).registerPackage(Mockito.any(DpsMetadata.class));
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test"));
+
+        DpsMetadata message = getMessage();
+
+        sut.complete(message);
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.timeout(1000).times(1))
+                .dpsEmailProcessed(Mockito.eq(message.getBase64EmailId()), Mockito.anyString());
+        Mockito.verify(registrationServiceMock, Mockito.times(4)).registerPackage(Mockito.eq(message));
+    }
+
+    @DisplayName("error - with callback always failing should stop after max attempts")
+    @Test
+    public void withCallbackFailingShouldStopAfterMaxAttempts() {
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenThrow(new RuntimeException("email service unavailable"));
+
+        sut.complete(getMessage());
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.timeout(1000).times(3))
+                .dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+
+        sut.shutdown();
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.times(3))
+                .dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+        Assertions.assertTrue(completionJournal.load().isEmpty());
+    }
+
+    @DisplayName("error - with registration always failing should not move email")
+    @Test
+    public void withRegistrationFailingShouldNotMoveEmail() {
+
+        Mockito.doThrow(new RuntimeException("ots unavailable"))
+                .when(registrationServiceMock).registerPackage(Mockito.any(DpsMetadata.class));
+
+        sut.complete(getMessage());
+
+        Mockito.verify(registrationServiceMock, Mockito.timeout(1000).times(3)).registerPackage(Mockito.any(DpsMetadata.class));
+
+        sut.shutdown();
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.never()).dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+        Assertions.assertTrue(completionJournal.load().isEmpty());
+    }
+
+    @DisplayName("success - with completion pending on shutdown should keep it in the journal")
+    @Test
+    public void withPendingCompletionShouldKeepItInJournal() {
+
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setRetryDelay(60000);
+        pipelineProperties.setShutdownTimeout(10);
+        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+
+        EmailCompletionService sut = new EmailCompletionService(
+                new EmailProcessedCoalescer(dpsEmailServiceMock, executorService, pipelineProperties),
+                completionJournal, storageServiceMock, ProgressStore.disabled(), registrationServiceMock,
+                DependencyLimiter.unlimited(), StageTimer.noop(), executorService, pipelineProperties);
+
+        Mockito.when(registrationServiceMock.isActive()).thenReturn(false);
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenThrow(new RuntimeException("email service unavailable"));
+
+        sut.complete(getMessage(), new StageTimestamps().withTenant(TENANT).mark(StageTimestamps.UPLOADED, 1000));
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.timeout(1000))
+                .dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+
+        sut.shutdown();
+        executorService.shutdownNow();
+
+        List<CompletionJournal.Entry> entries = completionJournal.load();
+
+        Assertions.assertEquals(1, entries.size());
+        Assertions.assertEquals(FILE_ID, entries.get(0).getMessage().getFileInfo().getId());
+        Assertions.assertEquals(FILE_ID, entries.get(0).getMessage().getApplicationId());
+        Assertions.assertEquals(TENANT, entries.get(0).toTimestamps().getTenant());
+        Assertions.assertTrue(entries.get(0).toTimestamps().isMarked(StageTimestamps.UPLOADED));
+    }
+
+    @DisplayName("success - with completions left in the journal should resume them on start")
+    @Test
+    public void withJournalShouldResumeCompletionsOnStart() {
+
+        completionJournal.append(new CompletionJournal.Entry(getMessage(), new StageTimestamps()
+                .mark(StageTimestamps.UPLOADED, 1000)
+                .mark(StageTimestamps.REGISTERED, 2000)));
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test"));
+
+        sut.start();
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.timeout(1000))
+                .dpsEmailProcessed(Mockito.eq(getMessage().getBase64EmailId()), Mockito.anyString());
+
+        sut.shutdown();
+
+        Mockito.verify(registrationServiceMock, Mockito.never()).registerPackage(Mockito.any(DpsMetadata.class));
+        Assertions.assertTrue(completionJournal.load().isEmpty());
+    }
+
+    @DisplayName("error - with journal not writable should throw before scheduling the completion")
+    @Test
+    public void withJournalNotWritableShouldThrow() {
+
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+
+        EmailCompletionService sut = new EmailCompletionService(
+                new EmailProcessedCoalescer(dpsEmailServiceMock, executorService, pipelineProperties),
+                new CompletionJournal(folder.resolve("missing").resolve("journal.json")), storageServiceMock,
+                ProgressStore.disabled(), registrationServiceMock, DependencyLimiter.unlimited(), StageTimer.noop(),
+                executorService, pipelineProperties);
+
+        Assertions.assertThrows(DpsEmailWorkerException.class, () -> sut.complete(getMessage()));
+
+        sut.shutdown();
+
+        Mockito.verifyZeroInteractions(registrationServiceMock, storageServiceMock, dpsEmailServiceMock);
+    }
+
+    @DisplayName("success - with email moved should record stage latencies")
+    @Test
+    public void withEmailMovedShouldRecordLatency() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+
+        EmailCompletionService sut = new EmailCompletionService(
+                new EmailProcessedCoalescer(dpsEmailServiceMock, executorService, pipelineProperties),
+                completionJournal, storageServiceMock, ProgressStore.disabled(), registrationServiceMock, DependencyLimiter.unlimited(),
+                new StageTimer(meterRegistry), executorService, pipelineProperties);
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test"));
+
+        StageTimestamps timestamps = new StageTimestamps()
+                .withTenant(TENANT)
+                .mark(StageTimestamps.RECEIVED, 1000)
+                .mark(StageTimestamps.UPLOADED, 3000);
+
+        sut.complete(getMessage(), timestamps);
+        sut.shutdown();
+
+        Timer endToEnd = meterRegistry.find(StageTimer.LATENCY_TIMER)
+                .tags("stage", StageTimer.END_TO_END, "tenant", TENANT).timer();
+        Timer uploaded = meterRegistry.find(StageTimer.LATENCY_TIMER)
+                .tags("stage", StageTimestamps.UPLOADED, "tenant", TENANT).timer();
+
+        Assertions.assertNotNull(endToEnd);
+        Assertions.assertEquals(2000, uploaded.totalTime(TimeUnit.MILLISECONDS));
+        Assertions.assertNotNull(meterRegistry.find(StageTimer.LATENCY_TIMER)
+                .tags("stage", StageTimestamps.REGISTERED).timer());
+    }
+
+    @DisplayName("success - with registration already done should only move email and delete the progress")
+    @Test
+    public void withRegisteredProgressShouldSkipRegistration() {
+
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+
+        EmailCompletionService sut = new EmailCompletionService(
+                new EmailProcessedCoalescer(dpsEmailServiceMock, executorService, pipelineProperties),
+                completionJournal, storageServiceMock, new ProgressStore(storageServiceMock), registrationServiceMock,
+                DependencyLimiter.unlimited(), StageTimer.noop(), executorService, pipelineProperties);
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test"));
+
+        sut.complete(getMessage(), new StageTimestamps()
+                .mark(StageTimestamps.UPLOADED, 1000)
+                .mark(StageTimestamps.REGISTERED, 2000));
+        sut.shutdown();
+
+        Mockito.verify(registrationServiceMock, Mockito.never()).registerPackage(Mockito.any(DpsMetadata.class));
+        Mockito.verify(dpsEmailServiceMock, Mockito.times(1)).dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+        Mockito.verify(storageServiceMock, Mockito.never()).put(Mockito.anyString(), Mockito.any(byte[].class));
+        Mockito.verify(storageServiceMock, Mockito.times(1)).delete(Mockito.eq("progress-" + FILE_ID));
+    }
+
+    @DisplayName("success - without journal should acknowledge once the email is moved")
+    @Test
+    public void withoutJournalShouldAcknowledgeOnceEmailMoved() {
+
+        EmailCompletionService sut = getUnjournaledService();
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test"));
+
+        CompletableFuture<Void> result = sut.complete(getMessage());
+
+        Assertions.assertDoesNotThrow(() -> result.get(1, TimeUnit.SECONDS));
+        Mockito.verify(registrationServiceMock, Mockito.times(1)).registerPackage(Mockito.any(DpsMetadata.class));
+        Mockito.verify(dpsEmailServiceMock, Mockito.times(1)).dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+
+        sut.shutdown();
+    }
+
+    @DisplayName("error - without journal should fail the acknowledgement on the first registration error")
+    @Test
+    public void withoutJournalShouldFailOnRegistrationError() {
+
+        EmailCompletionService sut = getUnjournaledService();
+
+        Mockito.doThrow(new RuntimeException("ots unavailable"))
+                .when(registrationServiceMock).registerPackage(Mockito.any(DpsMetadata.class));
+
+        CompletableFuture<Void> result = sut.complete(getMessage());
+
+        CompletionException exception = Assertions.assertThrows(CompletionException.class, result::join);
+        Assertions.assertEquals("ots unavailable", exception.getCause().getMessage());
+
+        sut.shutdown();
+
+        Mockito.verify(registrationServiceMock, Mockito.times(1)).registerPackage(Mockito.any(DpsMetadata.class));
+        Mockito.verify(dpsEmailServiceMock, Mockito.never()).dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+    }
+
+    @DisplayName("error - without journal should fail the acknowledgement on the email processed error")
+    @Test
+    public void withoutJournalShouldFailOnEmailProcessedError() {
+
+        EmailCompletionService sut = getUnjournaledService();
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenThrow(new RuntimeException("email service unavailable"));
+
+        CompletableFuture<Void> result = sut.complete(getMessage());
+
+        Assertions.assertThrows(CompletionException.class, result::join);
+
+        sut.shutdown();
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.times(1)).dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+    }
+
+    @DisplayName("success - with journal should acknowledge once the completion is journaled")
+    @Test
+    public void withJournalShouldAcknowledgeOnceJournaled() {
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.anyString(), Mockito.anyString()))
+                .thenThrow(new RuntimeException("email service unavailable"));
+
+        Assertions.assertTrue(sut.complete(getMessage()).isDone());
+    }
+
+    private EmailCompletionService getUnjournaledService() {
+
+        PipelineProperties pipelineProperties = new PipelineProperties();
+        pipelineProperties.setMaxAttempts(3);
+        pipelineProperties.setRetryDelay(1);
+        ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
+
+        return new EmailCompletionService(
+                new EmailProcessedCoalescer(dpsEmailServiceMock, executorService, pipelineProperties),
+                CompletionJournal.disabled(), storageServiceMock, ProgressStore.disabled(), registrationServiceMock,
+                DependencyLimiter.unlimited(), StageTimer.noop(), executorService, pipelineProperties);
+    }
+
+    private DpsMetadata getMessage() {
+        return new DpsMetadata.Builder()
+                .withApplicationID(FILE_ID)
+                .withFileInfo(new DpsFileInfo(FILE_ID, FILE_NAME, "String"))
+                .withEmailId(EMAIL_ID)
+                .build();
+    }
+
+}
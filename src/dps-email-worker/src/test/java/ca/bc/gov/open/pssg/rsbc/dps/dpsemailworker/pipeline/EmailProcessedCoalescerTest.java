@@ -0,0 +1,119 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailProcessedResponse;
+import ca.bc.gov.open.pssg.rsbc.dps.email.client.DpsEmailService;
+import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@DisplayName("EmailProcessedCoalescer test suite")
+public class EmailProcessedCoalescerTest {
+
+    private static final String EMAIL_1 = "email1";
+    private static final String EMAIL_2 = "email2";
+
+    @Mock
+    private DpsEmailService dpsEmailServiceMock;
+
+    private PipelineProperties pipelineProperties;
+
+    private EmailProcessedCoalescer sut;
+
+    @BeforeEach
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+
+        pipelineProperties = new PipelineProperties();
+        pipelineProperties.setCoalesceWindow(60000);
+        pipelineProperties.setCoalesceMaxSize(2);
+
+        sut = new EmailProcessedCoalescer(dpsEmailServiceMock, Executors.newSingleThreadScheduledExecutor(),
+                pipelineProperties);
+    }
+
+    @DisplayName("success - with max size reached should send emails in a single call")
+    @Test
+    public void withMaxSizeReachedShouldSendSingleCall() throws InterruptedException, ExecutionException, TimeoutException {
+
+        DpsMetadata message1 = getMessage(EMAIL_1);
+        DpsMetadata message2 = getMessage(EMAIL_2);
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailsProcessed(ArgumentMatchers.anyList(), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test",
+                        Collections.singletonList(message2.getBase64EmailId())));
+
+        CompletableFuture<DpsEmailProcessedResponse> result1 = sut.processed(message1);
+        CompletableFuture<DpsEmailProcessedResponse> result2 = sut.processed(message2);
+
+        Assertions.assertTrue(result1.get(1, TimeUnit.SECONDS).isAcknowledge());
+        Assertions.assertFalse(result2.get(1, TimeUnit.SECONDS).isAcknowledge());
+
+        Mockito.verify(dpsEmailServiceMock, Mockito.times(1))
+                .dpsEmailsProcessed(ArgumentMatchers.argThat(x -> x.size() == 2), Mockito.anyString());
+        Mockito.verify(dpsEmailServiceMock, Mockito.never()).dpsEmailProcessed(Mockito.anyString(), Mockito.anyString());
+    }
+
+    @DisplayName("success - with window elapsed should send pending emails")
+    @Test
+    public void withWindowElapsedShouldSend() throws InterruptedException, ExecutionException, TimeoutException {
+
+        pipelineProperties.setCoalesceWindow(10);
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailsProcessed(ArgumentMatchers.anyList(), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test", null));
+
+        Assertions.assertTrue(sut.processed(getMessage(EMAIL_1)).get(1, TimeUnit.SECONDS).isAcknowledge());
+    }
+
+    @DisplayName("error - with call failing should complete all emails exceptionally")
+    @Test
+    public void withCallFailingShouldCompleteExceptionally() {
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailsProcessed(ArgumentMatchers.anyList(), Mockito.anyString()))
+                .thenThrow(new RuntimeException("email service unavailable"));
+
+        CompletableFuture<DpsEmailProcessedResponse> result1 = sut.processed(getMessage(EMAIL_1));
+        CompletableFuture<DpsEmailProcessedResponse> result2 = sut.processed(getMessage(EMAIL_2));
+
+        Assertions.assertThrows(ExecutionException.class, () -> result1.get(1, TimeUnit.SECONDS));
+        Assertions.assertThrows(ExecutionException.class, () -> result2.get(1, TimeUnit.SECONDS));
+    }
+
+    @DisplayName("success - with no window should send each email on its own")
+    @Test
+    public void withNoWindowShouldSendEachEmail() throws InterruptedException, ExecutionException {
+
+        pipelineProperties.setCoalesceWindow(0);
+
+        DpsMetadata message = getMessage(EMAIL_1);
+
+        Mockito.when(dpsEmailServiceMock.dpsEmailProcessed(Mockito.eq(message.getBase64EmailId()), Mockito.anyString()))
+                .thenReturn(DpsEmailProcessedResponse.successResponse(true, "test"));
+
+        Assertions.assertTrue(sut.processed(message).get().isAcknowledge());
+        Mockito.verify(dpsEmailServiceMock, Mockito.never()).dpsEmailsProcessed(ArgumentMatchers.anyList(), Mockito.anyString());
+    }
+
+    private DpsMetadata getMessage(String emailId) {
+        return new DpsMetadata.Builder()
+                .withFileInfo(new DpsFileInfo("fileId", "test.txt", "String"))
+                .withEmailId(emailId)
+                .build();
+    }
+
+}
@@ -0,0 +1,105 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import ca.bc.gov.open.pssg.rsbc.dps.cache.DpsRedisException;
+import ca.bc.gov.open.pssg.rsbc.dps.cache.StorageService;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.StageTimestamps;
+import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+@DisplayName("ProgressStore test suite")
+public class ProgressStoreTest {
+
+    private static final String FILE_ID = "fileId";
+    private static final String PROGRESS_KEY = "progress-" + FILE_ID;
+
+    @Mock
+    private StorageService storageServiceMock;
+
+    private ProgressStore sut;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        sut = new ProgressStore(storageServiceMock);
+    }
+
+    @DisplayName("success - with saved progress should mark the saved stages")
+    @Test
+    public void withSavedProgressShouldMarkStages() {
+
+        ArgumentCaptor<byte[]> content = ArgumentCaptor.forClass(byte[].class);
+
+        sut.save(getMessage(), new StageTimestamps()
+                .mark(StageTimestamps.WORKER_STARTED, 1000)
+                .mark(StageTimestamps.UPLOADED, 2000));
+
+        Mockito.verify(storageServiceMock).put(Mockito.eq(PROGRESS_KEY), content.capture());
+        Mockito.when(storageServiceMock.get(PROGRESS_KEY)).thenReturn(content.getValue());
+
+        StageTimestamps result = sut.load(getMessage(), new StageTimestamps().mark(StageTimestamps.PUBLISHED, 500));
+
+        Assertions.assertTrue(result.isMarked(StageTimestamps.UPLOADED));
+        Assertions.assertEquals(2000, (long) result.getTimestamps().get(StageTimestamps.UPLOADED));
+        Assertions.assertEquals(500, (long) result.getTimestamps().get(StageTimestamps.PUBLISHED));
+    }
+
+    @DisplayName("success - without saved progress should return timestamps")
+    @Test
+    public void withoutSavedProgressShouldReturnTimestamps() {
+
+        StageTimestamps result = sut.load(getMessage(), new StageTimestamps());
+
+        Assertions.assertTrue(result.getTimestamps().isEmpty());
+    }
+
+    @DisplayName("success - with redis unavailable should not throw")
+    @Test
+    public void withRedisUnavailableShouldNotThrow() {
+
+        Mockito.when(storageServiceMock.get(PROGRESS_KEY)).thenThrow(new DpsRedisException("unavailable"));
+        Mockito.doThrow(new DpsRedisException("unavailable"))
+                .when(storageServiceMock).put(Mockito.eq(PROGRESS_KEY), Mockito.any(byte[].class));
+        Mockito.doThrow(new DpsRedisException("unavailable")).when(storageServiceMock).delete(PROGRESS_KEY);
+
+        Assertions.assertFalse(sut.load(getMessage(), new StageTimestamps()).isMarked(StageTimestamps.UPLOADED));
+        Assertions.assertDoesNotThrow(() -> sut.save(getMessage(), new StageTimestamps().mark(StageTimestamps.UPLOADED)));
+        Assertions.assertDoesNotThrow(() -> sut.delete(getMessage()));
+    }
+
+    @DisplayName("success - with completed message should delete the progress")
+    @Test
+    public void withCompletedMessageShouldDeleteProgress() {
+
+        sut.delete(getMessage());
+
+        Mockito.verify(storageServiceMock).delete(Mockito.eq(PROGRESS_KEY));
+    }
+
+    @DisplayName("success - with disabled store should not use redis")
+    @Test
+    public void withDisabledStoreShouldNotUseRedis() {
+
+        ProgressStore disabled = ProgressStore.disabled();
+
+        disabled.save(getMessage(), new StageTimestamps().mark(StageTimestamps.UPLOADED));
+        disabled.delete(getMessage());
+
+        Assertions.assertFalse(disabled.load(getMessage(), new StageTimestamps()).isMarked(StageTimestamps.UPLOADED));
+        Mockito.verifyZeroInteractions(storageServiceMock);
+    }
+
+    private DpsMetadata getMessage() {
+        return new DpsMetadata.Builder()
+                .withFileInfo(new DpsFileInfo(FILE_ID, "test.txt", "String"))
+                .build();
+    }
+
+}
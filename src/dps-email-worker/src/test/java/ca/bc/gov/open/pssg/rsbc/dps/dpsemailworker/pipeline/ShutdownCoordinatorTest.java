@@ -0,0 +1,89 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.pipeline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+@DisplayName("ShutdownCoordinator test suite")
+public class ShutdownCoordinatorTest {
+
+    private static final String QUEUE_NAME = "tenant.emailmessage.Q";
+    private static final String TENANT_QUEUE_NAME = "vips.emailmessage.Q";
+    private static final String PARKING_QUEUE_NAME = "tenant.emailmessage.PL";
+
+    @Mock
+    private SimpleMessageListenerContainer emailContainerMock;
+
+    @Mock
+    private SimpleMessageListenerContainer tenantContainerMock;
+
+    @Mock
+    private SimpleMessageListenerContainer parkingContainerMock;
+
+    @Mock
+    private SimpleMessageListenerContainer stoppedContainerMock;
+
+    private PipelineProperties pipelineProperties;
+
+    @BeforeEach
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+
+        Mockito.when(emailContainerMock.getQueueNames()).thenReturn(new String[] { QUEUE_NAME });
+        Mockito.when(emailContainerMock.isRunning()).thenReturn(true);
+        Mockito.when(tenantContainerMock.getQueueNames()).thenReturn(new String[] { TENANT_QUEUE_NAME });
+        Mockito.when(tenantContainerMock.isRunning()).thenReturn(true);
+        Mockito.when(parkingContainerMock.getQueueNames()).thenReturn(new String[] { PARKING_QUEUE_NAME });
+        Mockito.when(parkingContainerMock.isRunning()).thenReturn(true);
+        Mockito.when(stoppedContainerMock.getQueueNames()).thenReturn(new String[] { QUEUE_NAME });
+        Mockito.when(stoppedContainerMock.isRunning()).thenReturn(false);
+
+        pipelineProperties = new PipelineProperties();
+        pipelineProperties.setDrainTimeout(1000);
+    }
+
+    @DisplayName("success - with running email containers should stop them with drain timeout")
+    @Test
+    public void withRunningEmailContainerShouldStopIt() {
+
+        Collection<MessageListenerContainer> containers =
+                Arrays.asList(emailContainerMock, tenantContainerMock, parkingContainerMock, stoppedContainerMock);
+
+        new ShutdownCoordinator(() -> containers, Arrays.asList(QUEUE_NAME, TENANT_QUEUE_NAME), pipelineProperties)
+                .drain();
+
+        Mockito.verify(emailContainerMock).setShutdownTimeout(1000);
+        Mockito.verify(emailContainerMock).stop();
+        Mockito.verify(tenantContainerMock).stop();
+        Mockito.verify(parkingContainerMock, Mockito.never()).stop();
+        Mockito.verify(stoppedContainerMock, Mockito.never()).stop();
+    }
+
+    @DisplayName("success - with container still processing should return after drain timeout")
+    @Test
+    public void withContainerStillProcessingShouldReturnAfterDrainTimeout() {
+
+        pipelineProperties.setDrainTimeout(50);
+
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(1000);
+            return null;
+        }).when(emailContainerMock).stop();
+
+        new ShutdownCoordinator(() -> Arrays.asList(emailContainerMock),
+                Collections.singletonList(QUEUE_NAME), pipelineProperties).drain();
+
+        Mockito.verify(emailContainerMock).setShutdownTimeout(50);
+    }
+
+}
@@ -0,0 +1,133 @@
+package ca.bc.gov.open.pssg.rsbc.dps.dpsemailworker.registration;
+
+import ca.bc.gov.open.ottsoa.ords.client.OtssoaService;
+import ca.bc.gov.open.ottsoa.ords.client.api.handler.ApiException;
+import ca.bc.gov.open.ottsoa.ords.client.api.model.DefaultResponse;
+import ca.bc.gov.open.ottsoa.ords.client.models.CreatePackageRequest;
+import ca.bc.gov.open.pssg.rsbc.models.DpsFileInfo;
+import ca.bc.gov.open.pssg.rsbc.models.DpsMetadata;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+public class BufferedRegistrationServiceTest {
+
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+    private static final String SUCCESS_STATUS = "0";
+
+    @TempDir
+    Path folder;
+
+    @Mock
+    private OtssoaService otssoaService;
+
+    private RegistrationProperties.Buffer buffer;
+
+    @BeforeEach
+    public void setUp() throws ApiException {
+
+        MockitoAnnotations.initMocks(this);
+
+        DefaultResponse success = new DefaultResponse();
+        success.setRegState(SUCCESS_STATUS);
+
+        Mockito.doReturn(success)
+                .when(otssoaService)
+                .createPackage(ArgumentMatchers.argThat(x -> x.getSource().equals(SUCCESS)));
+
+        Mockito.doThrow(new ApiException("api exception"))
+                .when(otssoaService)
+                .createPackage(ArgumentMatchers.argThat(x -> x.getSource().equals(FAILURE)));
+
+        buffer = new RegistrationProperties.Buffer();
+        buffer.setFlushSize(100);
+        buffer.setFlushInterval(60000);
+    }
+
+    @Test
+    public void withFlushShouldKeepFailedRegistrationsInJournal() throws ApiException {
+
+        RegistrationJournal journal = new RegistrationJournal(folder.resolve("journal.json"));
+        BufferedRegistrationService sut = newService(journal);
+        sut.start();
+
+        DpsMetadata failure = getDpsMetadata(FAILURE);
+
+        sut.registerPackage(getDpsMetadata(SUCCESS));
+        sut.registerPackage(failure);
+
+        Mockito.verify(otssoaService, Mockito.never()).createPackage(Mockito.any(CreatePackageRequest.class));
+        Assertions.assertEquals(2, journal.load().size());
+
+        sut.flush();
+
+        Mockito.verify(otssoaService, Mockito.times(2)).createPackage(Mockito.any(CreatePackageRequest.class));
+
+        List<CreatePackageRequest> left = journal.load();
+        Assertions.assertEquals(1, left.size());
+        Assertions.assertEquals(failure.getTransactionId().toString(), left.get(0).getImportGuid());
+        Assertions.assertEquals(failure.getReceivedDate(), left.get(0).getReceivedDate());
+
+        sut.shutdown();
+    }
+
+    @Test
+    public void withJournalShouldSendRecoveredRegistrationsOnRestart() throws ApiException {
+
+        RegistrationJournal journal = new RegistrationJournal(folder.resolve("journal.json"));
+        RegistrationServiceImpl registrationService = new RegistrationServiceImpl(otssoaService);
+        journal.append(registrationService.createPackageRequest(getDpsMetadata(SUCCESS)));
+
+        BufferedRegistrationService sut = newService(journal);
+        sut.start();
+        sut.shutdown();
+
+        Mockito.verify(otssoaService, Mockito.times(1))
+                .createPackage(ArgumentMatchers.argThat(x -> x.getSource().equals(SUCCESS)));
+        Assertions.assertTrue(journal.load().isEmpty());
+    }
+
+    @Test
+    public void withFlushSizeReachedShouldFlush() throws ApiException {
+
+        buffer.setFlushSize(1);
+
+        BufferedRegistrationService sut = newService(new RegistrationJournal(folder.resolve("journal.json")));
+        sut.start();
+
+        sut.registerPackage(getDpsMetadata(SUCCESS));
+
+        Mockito.verify(otssoaService, Mockito.timeout(1000).times(1))
+                .createPackage(ArgumentMatchers.argThat(x -> x.getSource().equals(SUCCESS)));
+
+        sut.shutdown();
+    }
+
+    private BufferedRegistrationService newService(RegistrationJournal journal) {
+        return new BufferedRegistrationService(new RegistrationServiceImpl(otssoaService), journal, buffer,
+                Executors.newSingleThreadScheduledExecutor(), Executors.newFixedThreadPool(2));
+    }
+
+    private DpsMetadata getDpsMetadata(String source) {
+        return new DpsMetadata
+                .Builder()
+                .withFileInfo(new DpsFileInfo("id", "name.txt", "txt"))
+                .withRecvdate(new Date())
+                .withOriginatingNumber(source)
+                .withNumberOfPages(1)
+                .withTo("to")
+                .build();
+    }
+
+}
@@ -4,20 +4,23 @@ import bcgov.reeks.dps_extensions_common_wsprovider.outputnotificationws.ObjectF
 import bcgov.reeks.dps_extensions_common_wsprovider.outputnotificationws.OutputNotificationRequest;
 import bcgov.reeks.dps_extensions_common_wsprovider.outputnotificationws.OutputNotificationResponse2;
 import bcgov.reeks.dps_extensions_common_wsprovider.outputnotificationws.OutputNotificationWSPortType;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DpsPublisher;
 import ca.bc.gov.open.pssg.rsbc.dps.notification.OutputNotificationMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.AmqpException;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 
 /**
  * Output notifications endpoint
  *
  * When a message is submitted to this endpoint, the tenant is identified then a message is queued in the appropriate queue.
  *
+ * Success is only returned once the broker has confirmed every message of the notification.
  *
  * @author alexjoybc@github
  *
@@ -26,11 +29,11 @@ import org.springframework.stereotype.Service;
 public class OutputNotificationEndpoint implements OutputNotificationWSPortType {
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private final RabbitTemplate mainExchangeRabbitTemplate;
+    private final DpsPublisher dpsPublisher;
 
-    public OutputNotificationEndpoint(@Qualifier("mainExchangeRabbitTemplate")RabbitTemplate mainExchangeRabbitTemplate) {
+    public OutputNotificationEndpoint(DpsPublisher dpsPublisher) {
 
-        this.mainExchangeRabbitTemplate = mainExchangeRabbitTemplate;
+        this.dpsPublisher = dpsPublisher;
     }
 
     @Override
@@ -69,15 +72,15 @@ public class OutputNotificationEndpoint implements OutputNotificationWSPortType
 
         try {
 
-            outputNotificationRequest.getOutputNotificationRequest().getFileList().getFileId().stream().forEach(file -> {
-
-                OutputNotificationMessage message = new OutputNotificationMessage(outputNotificationRequest.getOutputNotificationRequest().getBusinessAreaCd().toString(), file);
+            String businessAreaCd = outputNotificationRequest.getOutputNotificationRequest().getBusinessAreaCd().toString();
 
-                logger.debug("Attempting to publish message to outputNotification exchange with key [{}], fileId: [{}]", message.getBusinessAreaCd(), message.getFileId());
-                mainExchangeRabbitTemplate.convertAndSend(message.getBusinessAreaCd(), message);
-                logger.info("Successfully published message to outputNotification exchange with key [{}], fileId: [{}]", message.getBusinessAreaCd(), message.getFileId());
+            List<OutputNotificationMessage> messages = outputNotificationRequest.getOutputNotificationRequest().getFileList().getFileId().stream()
+                    .map(file -> new OutputNotificationMessage(businessAreaCd, file))
+                    .collect(Collectors.toList());
 
-            });
+            logger.debug("Attempting to publish {} message(s) to outputNotification exchange with key [{}], fileIds: {}", messages.size(), businessAreaCd, outputNotificationRequest.getOutputNotificationRequest().getFileList().getFileId());
+            dpsPublisher.publishAll(businessAreaCd, messages);
+            logger.info("Successfully published {} message(s) to outputNotification exchange with key [{}]", messages.size(), businessAreaCd);
 
             response2.setRespCode(Keys.OUTPUT_NOTIFICATION_RESPONSE_SUCCESS_CODE);
             response2.setRespMsg(Keys.OUTPUT_NOTIFICATION_RESPONSE_SUCCESS_MESSAGE);
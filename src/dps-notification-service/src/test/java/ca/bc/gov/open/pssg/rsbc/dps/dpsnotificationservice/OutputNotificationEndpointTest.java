@@ -1,7 +1,8 @@
 package ca.bc.gov.open.pssg.rsbc.dps.dpsnotificationservice;
 
 import bcgov.reeks.dps_extensions_common_wsprovider.outputnotificationws.*;
-import ca.bc.gov.open.pssg.rsbc.dps.notification.OutputNotificationMessage;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DpsPublishException;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DpsPublisher;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -10,7 +11,6 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.amqp.AmqpException;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class OutputNotificationEndpointTest {
@@ -20,20 +20,24 @@ public class OutputNotificationEndpointTest {
     public static final String BUSINESS_AREA_CD = "BusinessAreaCd";
     public static final String EXCEPTION_CASE = "VIPS";
     public static final String TEST_FILE = "test.file";
+    public static final String NOT_CONFIRMED_CASE = "CRRP";
+    public static final String NOT_CONFIRMED = "not confirmed";
     private OutputNotificationEndpoint sut;
 
     @Mock
-    private RabbitTemplate rabbitTemplateMock;
+    private DpsPublisher dpsPublisherMock;
 
     @BeforeAll
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        Mockito.doNothing().when(rabbitTemplateMock).convertAndSend(Mockito.eq(BUSINESS_AREA_CD), Mockito.any(OutputNotificationMessage.class));
-        Mockito.doThrow(new AmqpException(AMQP_EXCEPTION)).when(rabbitTemplateMock).convertAndSend(Mockito.eq(
-                EXCEPTION_CASE), Mockito.any(OutputNotificationMessage.class));
+        Mockito.doNothing().when(dpsPublisherMock).publishAll(Mockito.eq(BUSINESS_AREA_CD), Mockito.anyList());
+        Mockito.doThrow(new AmqpException(AMQP_EXCEPTION)).when(dpsPublisherMock).publishAll(Mockito.eq(
+                EXCEPTION_CASE), Mockito.anyList());
+        Mockito.doThrow(new DpsPublishException(NOT_CONFIRMED)).when(dpsPublisherMock).publishAll(Mockito.eq(
+                NOT_CONFIRMED_CASE), Mockito.anyList());
 
-        sut = new OutputNotificationEndpoint(rabbitTemplateMock);
+        sut = new OutputNotificationEndpoint(dpsPublisherMock);
     }
 
         @Test
@@ -158,4 +162,47 @@ public class OutputNotificationEndpointTest {
 
         }
 
+        @Test
+        public void withMultipleFilesShouldPublishThemTogether() {
+
+            ObjectFactory factory = new ObjectFactory();
+
+            OutputNotificationRequest request = factory.createOutputNotificationRequest();
+            OutputNotificationRequest2 request2 = factory.createOutputNotificationRequest2();
+            request2.setBusinessAreaCd(BUSINESS_AREA_CD);
+            FileList fileList = new FileList();
+            fileList.getFileId().add(TEST_FILE);
+            fileList.getFileId().add("test2.file");
+            fileList.getFileId().add("test3.file");
+            request2.setFileList(fileList);
+            request.setOutputNotificationRequest(request2);
+
+            OutputNotificationResponse2 response = sut.outputNotification(request);
+
+            Assertions.assertEquals(Keys.OUTPUT_NOTIFICATION_RESPONSE_SUCCESS_CODE, response.getRespCode());
+            Mockito.verify(dpsPublisherMock, Mockito.times(1))
+                    .publishAll(Mockito.eq(BUSINESS_AREA_CD), Mockito.argThat(messages -> messages.size() == 3));
+
+        }
+
+        @Test
+        public void withUnconfirmedPublishShouldReturnError() {
+
+            ObjectFactory factory = new ObjectFactory();
+
+            OutputNotificationRequest request = factory.createOutputNotificationRequest();
+            OutputNotificationRequest2 request2 = factory.createOutputNotificationRequest2();
+            request2.setBusinessAreaCd(NOT_CONFIRMED_CASE);
+            FileList fileList = new FileList();
+            fileList.getFileId().add(TEST_FILE);
+            request2.setFileList(fileList);
+            request.setOutputNotificationRequest(request2);
+
+            OutputNotificationResponse2 response = sut.outputNotification(request);
+
+            Assertions.assertEquals(Keys.OUTPUT_NOTIFICATION_RESPONSE_ERROR_CODE, response.getRespCode());
+            Assertions.assertEquals(NOT_CONFIRMED, response.getRespMsg());
+
+        }
+
 }
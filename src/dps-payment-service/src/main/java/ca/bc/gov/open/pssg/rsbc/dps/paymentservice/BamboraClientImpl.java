@@ -3,16 +3,17 @@ package ca.bc.gov.open.pssg.rsbc.dps.paymentservice;
 import ca.bc.gov.open.pssg.rsbc.dps.paymentservice.configuration.BamboraProperties;
 import ca.bc.gov.open.pssg.rsbc.dps.paymentservice.exception.PaymentServiceException;
 import ca.bc.gov.open.pssg.rsbc.dps.paymentservice.types.SinglePaymentRequest;
+import ca.bc.gov.open.pssg.rsbc.utils.DateUtils;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.MessageFormat;
-import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.TimeZone;
 
 /**
@@ -28,9 +29,21 @@ public class BamboraClientImpl implements PaymentClient {
 
     private BamboraProperties bamboraProperties;
 
+    private final Clock clock;
+
+    private final DateTimeFormatter expiryDateFormatter;
+
     // constructor
     public BamboraClientImpl(BamboraProperties bamboraProperties) {
+        this(bamboraProperties, Clock.systemDefaultZone());
+    }
+
+    public BamboraClientImpl(BamboraProperties bamboraProperties, Clock clock) {
         this.bamboraProperties = bamboraProperties;
+        this.clock = clock;
+        // TimeZone falls back to GMT for unknown ids where ZoneId would fail
+        this.expiryDateFormatter = DateUtils.ofLegacyPattern(PaymentServiceConstants.BAMBORA_PARAM_HASH_EXPIRY_FORMAT)
+                .withZone(TimeZone.getTimeZone(bamboraProperties.getTimezone()).toZoneId());
     }
 
     /**
@@ -95,12 +108,7 @@ public class BamboraClientImpl implements PaymentClient {
     }
 
     private String getExpiryDate(Integer expiryTime) {
-        SimpleDateFormat sdfDate = new SimpleDateFormat(PaymentServiceConstants.BAMBORA_PARAM_HASH_EXPIRY_FORMAT);
-        sdfDate.setTimeZone(TimeZone.getTimeZone(this.bamboraProperties.getTimezone()));
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(new Date());
-        cal.add(Calendar.MINUTE, expiryTime);
-        return sdfDate.format(cal.getTime());
+        return DateUtils.now(Clock.offset(clock, Duration.ofMinutes(expiryTime)), expiryDateFormatter);
     }
 
 
@@ -9,6 +9,12 @@ import org.junit.jupiter.api.Test;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
 
 public class BamboraClientImplTest {
 
@@ -55,6 +61,34 @@ public class BamboraClientImplTest {
 
     }
 
+    @Test
+    public void withFixedClockShouldFormatExpiryLikeSimpleDateFormat() throws MalformedURLException {
+
+        BamboraProperties bamboraProperties = new BamboraProperties();
+        bamboraProperties.setHashkey("12");
+        bamboraProperties.setHostedPaymentEndpoint("https://www.beanstream.com/scripts/payment/payment.asp");
+        bamboraProperties.setMerchantId("338830000");
+        bamboraProperties.setTimezone("PST");
+
+        // 2020-02-01 07:55 GMT, the expiry crosses the hour and is written with the 1-24 hour of the timezone
+        Clock clock = Clock.fixed(Instant.ofEpochMilli(1580543700000L), ZoneId.of("UTC"));
+
+        sut = new BamboraClientImpl(bamboraProperties, clock);
+
+        URL result = sut.calculateSinglePaymentURL(
+                new SinglePaymentRequest.Builder()
+                        .withBamboraTransType(PaymentServiceConstants.BamboraTransType.P)
+                        .withInvoiceNumber("5548")
+                        .withTotalItemsAmount(50.50).build(), 10);
+
+        SimpleDateFormat expected = new SimpleDateFormat(PaymentServiceConstants.BAMBORA_PARAM_HASH_EXPIRY_FORMAT);
+        expected.setTimeZone(TimeZone.getTimeZone("PST"));
+
+        Assertions.assertTrue(result.toExternalForm().contains(PaymentServiceConstants.BAMBORA_PARAM_HASH_EXPIRY + "=" +
+                expected.format(new Date(clock.millis() + 10 * 60 * 1000))));
+
+    }
+
     /**
      * calculateSinglePaymentAlgoTest - Basic testing of the Bambora Payment client, calculateSinglePaymentURL algorithm.
      *
@@ -30,14 +30,24 @@ public class RedisStorageService implements StorageService {
 
         UUID id = UUID.randomUUID();
 
+        put(id.toString(), content);
+
+        return id.toString();
+
+    }
+
+    /**
+     * Store the content in redis cache with the given key, replacing the existing content
+     */
+    @Override
+    public void put(String key, byte[] content) {
+
         try {
-            this.cacheManager.getCache(Keys.DPS_CACHE_NAME).put(id.toString(), content);
+            this.cacheManager.getCache(Keys.DPS_CACHE_NAME).put(key, content);
         } catch (RedisConnectionFailureException e) {
             throw new DpsRedisException(serviceUnavailableMessage, e.getCause());
         }
 
-        return id.toString();
-
     }
 
     /**
@@ -4,6 +4,8 @@ public interface StorageService {
 
     String put(byte[] content);
 
+    void put(String key, byte[] content);
+
     byte[] get(String key);
 
     void delete(String key);
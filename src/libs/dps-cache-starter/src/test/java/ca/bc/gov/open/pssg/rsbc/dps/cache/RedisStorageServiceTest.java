@@ -61,6 +61,17 @@ public class RedisStorageServiceTest {
         Assertions.assertThrows(DpsRedisException.class, () -> sut.put(EXCEPTION_INPUT));
     }
 
+    @Test
+    public void putWithKeyShouldStoreContentWithKey() {
+        Assertions.assertDoesNotThrow(() -> sut.put(KEY, VALID));
+        Mockito.verify(cache).put(KEY, VALID);
+    }
+
+    @Test
+    public void putWithKeyAndRedisConnectionFailureExceptionShouldThrowDpsRedisException() {
+        Assertions.assertThrows(DpsRedisException.class, () -> sut.put(KEY, EXCEPTION_INPUT));
+    }
+
     @Test
     public void getWithExistingKeyShouldGetBytes() {
         byte[] result = sut.get(KEY);
@@ -0,0 +1,247 @@
+package ca.bc.gov.open.pssg.rsbc.utils;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalField;
+import java.time.temporal.WeekFields;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Date formatting helpers built on {@link DateTimeFormatter}.
+ *
+ * Formatters are immutable and thread safe, they are compiled once and kept in constants instead of creating a
+ * {@link java.text.SimpleDateFormat} for each call. The current time is read from a {@link Clock} so it can be fixed in
+ * tests.
+ *
+ * Patterns written for {@link java.text.SimpleDateFormat}, configured ones included, are compiled with
+ * {@link #ofLegacyPattern(String)}: letters such as {@code u} and {@code S} do not mean the same thing to
+ * {@link DateTimeFormatter#ofPattern(String)}.
+ */
+public final class DateUtils {
+
+    private static final String[] ISO_OFFSET_PATTERNS = { "+HH", "+HHMM", "+HH:MM" };
+
+    private DateUtils() { }
+
+    /**
+     * Compiles a {@link java.text.SimpleDateFormat} pattern to a formatter giving the same output in the default
+     * format locale.
+     *
+     * @param pattern
+     * @return
+     * @throws IllegalArgumentException when the pattern is not a valid SimpleDateFormat pattern
+     * @see #ofLegacyPattern(String, Locale)
+     */
+    public static DateTimeFormatter ofLegacyPattern(String pattern) {
+        return ofLegacyPattern(pattern, Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Compiles a {@link java.text.SimpleDateFormat} pattern to a formatter giving the same output in the locale.
+     *
+     * Letters keep their SimpleDateFormat meaning: {@code Y} is the week based year, {@code u} the day number of the
+     * week, {@code S} the milliseconds padded to the letter count, {@code F} the day of week in the month and
+     * {@code Z} always the RFC 822 offset. Numbers are padded to the letter count and never truncated, except for the
+     * two digits years. The formatter is meant for formatting only, it does not parse adjacent numbers.
+     *
+     * @param pattern
+     * @param locale
+     * @return
+     * @throws IllegalArgumentException when the pattern is not a valid SimpleDateFormat pattern
+     */
+    public static DateTimeFormatter ofLegacyPattern(String pattern, Locale locale) {
+
+        DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        WeekFields weekFields = WeekFields.of(locale);
+
+        int index = 0;
+        while (index < pattern.length()) {
+
+            char letter = pattern.charAt(index);
+
+            if (letter == '\'') {
+                index = appendQuoted(builder, pattern, index);
+            } else if ((letter >= 'a' && letter <= 'z') || (letter >= 'A' && letter <= 'Z')) {
+                int count = 1;
+                while (index + count < pattern.length() && pattern.charAt(index + count) == letter) count++;
+                appendField(builder, weekFields, letter, count);
+                index += count;
+            } else {
+                builder.appendLiteral(letter);
+                index++;
+            }
+        }
+
+        return builder.toFormatter(locale);
+    }
+
+    /**
+     * Formats the date in the formatter zone, or in the system default zone when the formatter has no zone.
+     *
+     * @param date
+     * @param formatter
+     * @return
+     */
+    public static String format(Date date, DateTimeFormatter formatter) {
+        return formatter.format(date.toInstant().atZone(ZoneId.systemDefault()));
+    }
+
+    /**
+     * Formats the current time of the clock in the formatter zone, or in the clock zone when the formatter has no zone.
+     *
+     * @param clock
+     * @param formatter
+     * @return
+     */
+    public static String now(Clock clock, DateTimeFormatter formatter) {
+        return formatter.format(ZonedDateTime.now(clock));
+    }
+
+    /**
+     * Converts the local date time of the zone to a legacy date.
+     *
+     * @param dateTime
+     * @param zone
+     * @return
+     */
+    public static Date toDate(LocalDateTime dateTime, ZoneId zone) {
+        return Date.from(dateTime.atZone(zone).toInstant());
+    }
+
+    /**
+     * Appends the quoted text starting at the index, two quotes in a row stand for a quote.
+     *
+     * @return the index following the quoted text
+     */
+    private static int appendQuoted(DateTimeFormatterBuilder builder, String pattern, int start) {
+
+        if (start + 1 < pattern.length() && pattern.charAt(start + 1) == '\'') {
+            builder.appendLiteral('\'');
+            return start + 2;
+        }
+
+        StringBuilder text = new StringBuilder();
+        int index = start + 1;
+        while (index < pattern.length()) {
+            char c = pattern.charAt(index);
+            if (c != '\'') {
+                text.append(c);
+                index++;
+            } else if (index + 1 < pattern.length() && pattern.charAt(index + 1) == '\'') {
+                text.append(c);
+                index += 2;
+            } else {
+                builder.appendLiteral(text.toString());
+                return index + 1;
+            }
+        }
+
+        throw new IllegalArgumentException("Unterminated quote in pattern " + pattern);
+    }
+
+    private static void appendField(DateTimeFormatterBuilder builder, WeekFields weekFields, char letter, int count) {
+        switch (letter) {
+            case 'G':
+                builder.appendText(ChronoField.ERA, TextStyle.SHORT);
+                break;
+            case 'y':
+                appendYear(builder, ChronoField.YEAR_OF_ERA, count);
+                break;
+            case 'Y':
+                appendYear(builder, weekFields.weekBasedYear(), count);
+                break;
+            case 'M':
+                appendMonth(builder, count, TextStyle.SHORT, TextStyle.FULL);
+                break;
+            case 'L':
+                appendMonth(builder, count, TextStyle.SHORT_STANDALONE, TextStyle.FULL_STANDALONE);
+                break;
+            case 'w':
+                appendNumber(builder, weekFields.weekOfWeekBasedYear(), count);
+                break;
+            case 'W':
+                appendNumber(builder, weekFields.weekOfMonth(), count);
+                break;
+            case 'D':
+                appendNumber(builder, ChronoField.DAY_OF_YEAR, count);
+                break;
+            case 'd':
+                appendNumber(builder, ChronoField.DAY_OF_MONTH, count);
+                break;
+            case 'F':
+                appendNumber(builder, ChronoField.ALIGNED_WEEK_OF_MONTH, count);
+                break;
+            case 'E':
+                builder.appendText(ChronoField.DAY_OF_WEEK, count < 4 ? TextStyle.SHORT : TextStyle.FULL);
+                break;
+            case 'u':
+                appendNumber(builder, ChronoField.DAY_OF_WEEK, count);
+                break;
+            case 'a':
+                builder.appendText(ChronoField.AMPM_OF_DAY, TextStyle.SHORT);
+                break;
+            case 'H':
+                appendNumber(builder, ChronoField.HOUR_OF_DAY, count);
+                break;
+            case 'k':
+                appendNumber(builder, ChronoField.CLOCK_HOUR_OF_DAY, count);
+                break;
+            case 'K':
+                appendNumber(builder, ChronoField.HOUR_OF_AMPM, count);
+                break;
+            case 'h':
+                appendNumber(builder, ChronoField.CLOCK_HOUR_OF_AMPM, count);
+                break;
+            case 'm':
+                appendNumber(builder, ChronoField.MINUTE_OF_HOUR, count);
+                break;
+            case 's':
+                appendNumber(builder, ChronoField.SECOND_OF_MINUTE, count);
+                break;
+            case 'S':
+                appendNumber(builder, ChronoField.MILLI_OF_SECOND, count);
+                break;
+            case 'z':
+                builder.appendZoneText(count < 4 ? TextStyle.SHORT : TextStyle.FULL);
+                break;
+            case 'Z':
+                builder.appendOffset("+HHMM", "+0000");
+                break;
+            case 'X':
+                if (count > ISO_OFFSET_PATTERNS.length) throw new IllegalArgumentException("invalid ISO 8601 format: length=" + count);
+                builder.appendOffset(ISO_OFFSET_PATTERNS[count - 1], "Z");
+                break;
+            default:
+                throw new IllegalArgumentException("Illegal pattern character '" + letter + "'");
+        }
+    }
+
+    private static void appendYear(DateTimeFormatterBuilder builder, TemporalField field, int count) {
+        if (count == 2) {
+            builder.appendValueReduced(field, 2, 2, 2000);
+        } else {
+            appendNumber(builder, field, count);
+        }
+    }
+
+    private static void appendMonth(DateTimeFormatterBuilder builder, int count, TextStyle shortStyle, TextStyle fullStyle) {
+        if (count < 3) {
+            appendNumber(builder, ChronoField.MONTH_OF_YEAR, count);
+        } else {
+            builder.appendText(ChronoField.MONTH_OF_YEAR, count == 3 ? shortStyle : fullStyle);
+        }
+    }
+
+    private static void appendNumber(DateTimeFormatterBuilder builder, TemporalField field, int count) {
+        builder.appendValue(field, count, 19, SignStyle.NORMAL);
+    }
+
+}
@@ -0,0 +1,133 @@
+package ca.bc.gov.open.pssg.rsbc.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+@DisplayName("DateUtils test suite")
+public class DateUtilsTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Vancouver");
+
+    // week based year differs from the year, 5 milliseconds, monday
+    private static final Instant END_OF_YEAR = Instant.parse("2019-12-30T08:04:05.005Z");
+
+    // daylight saving time, 345 milliseconds, wednesday in the 3rd week of the month
+    private static final Instant SUMMER = Instant.parse("2020-07-15T22:09:59.345Z");
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "yyyy-MM-dd",
+            "YYYY-MM-dd-HH-mm-ss-SSS",
+            "yyyyMMdd HH:MM:SS",
+            "yyyyMMddkkmm",
+            "yyyy-MM-dd'T'H:mm:ss'Z'",
+            "yy/M/d h:m:s a",
+            "G y yyy yyyyy",
+            "MMM MMMM LLL LLLL",
+            "E EEEE u uu F D DDD w W",
+            "K k hh S SS SSSS",
+            "Z X XX XXX z zzzz",
+            "'o''clock' '' # [ ] { }");
+
+    @DisplayName("success - with legacy patterns should format like SimpleDateFormat")
+    @Test
+    public void withLegacyPatternsShouldFormatLikeSimpleDateFormat() {
+
+        for (String pattern : PATTERNS) {
+            for (Instant instant : Arrays.asList(END_OF_YEAR, SUMMER)) {
+                Assertions.assertEquals(legacyFormat(pattern, instant),
+                        DateUtils.ofLegacyPattern(pattern, Locale.CANADA).withZone(ZONE).format(instant),
+                        pattern + " at " + instant);
+            }
+        }
+    }
+
+    @DisplayName("success - with YYYY should format the week based year")
+    @Test
+    public void withWeekBasedYearShouldFormatWeekBasedYear() {
+
+        Assertions.assertEquals("2020-12-30",
+                DateUtils.ofLegacyPattern("YYYY-MM-dd", Locale.CANADA).withZone(ZONE).format(END_OF_YEAR));
+        Assertions.assertEquals("2019-12-30",
+                DateUtils.ofLegacyPattern("yyyy-MM-dd", Locale.CANADA).withZone(ZONE).format(END_OF_YEAR));
+    }
+
+    @DisplayName("success - with MM and SS in the time should format the month and the milliseconds")
+    @Test
+    public void withMonthAndMillisecondsInTimeShouldFormatThem() {
+
+        DateTimeFormatter sut = DateUtils.ofLegacyPattern("yyyyMMdd HH:MM:SS", Locale.CANADA).withZone(ZONE);
+
+        Assertions.assertEquals("20191230 00:12:05", sut.format(END_OF_YEAR));
+        Assertions.assertEquals("20200715 15:07:345", sut.format(SUMMER));
+    }
+
+    @DisplayName("success - with u should format the day number of the week")
+    @Test
+    public void withDayNumberShouldFormatDayOfWeek() {
+
+        DateTimeFormatter sut = DateUtils.ofLegacyPattern("u uu", Locale.CANADA).withZone(ZONE);
+
+        Assertions.assertEquals("1 01", sut.format(END_OF_YEAR));
+        Assertions.assertEquals("3 03", sut.format(SUMMER));
+    }
+
+    @DisplayName("error - with invalid pattern should throw")
+    @Test
+    public void withInvalidPatternShouldThrow() {
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DateUtils.ofLegacyPattern("yyyy-MM-dd Q"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DateUtils.ofLegacyPattern("yyyy 'unterminated"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> DateUtils.ofLegacyPattern("XXXX"));
+    }
+
+    @DisplayName("success - with date should format in the system default zone")
+    @Test
+    public void withDateShouldFormatInDefaultZone() {
+
+        String pattern = "yyyy-MM-dd HH:mm:ss.SSS";
+        Date date = Date.from(SUMMER);
+
+        Assertions.assertEquals(new SimpleDateFormat(pattern).format(date),
+                DateUtils.format(date, DateUtils.ofLegacyPattern(pattern)));
+    }
+
+    @DisplayName("success - with clock should format its current time in its zone")
+    @Test
+    public void withClockShouldFormatCurrentTime() {
+
+        Clock clock = Clock.fixed(SUMMER, ZONE);
+
+        Assertions.assertEquals("2020-07-15 15:09:59",
+                DateUtils.now(clock, DateUtils.ofLegacyPattern("yyyy-MM-dd HH:mm:ss")));
+        Assertions.assertEquals("2020-07-15 22:09:59",
+                DateUtils.now(clock, DateUtils.ofLegacyPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.of("UTC"))));
+    }
+
+    @DisplayName("success - with local date time should convert it in the zone")
+    @Test
+    public void withLocalDateTimeShouldConvertInZone() {
+
+        Assertions.assertEquals(Date.from(SUMMER),
+                DateUtils.toDate(LocalDateTime.of(2020, 7, 15, 15, 9, 59, 345_000_000), ZONE));
+    }
+
+    private static String legacyFormat(String pattern, Instant instant) {
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern, Locale.CANADA);
+        simpleDateFormat.setTimeZone(TimeZone.getTimeZone(ZONE));
+        return simpleDateFormat.format(Date.from(instant));
+    }
+
+}
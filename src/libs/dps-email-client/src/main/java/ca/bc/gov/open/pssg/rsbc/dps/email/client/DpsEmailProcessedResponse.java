@@ -1,6 +1,8 @@
 package ca.bc.gov.open.pssg.rsbc.dps.email.client;
 
 import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.List;
 
 /**
  *
@@ -13,10 +15,16 @@ public class DpsEmailProcessedResponse {
 
     private boolean acknowledge;
     private String message;
+    private List<String> failedIds;
 
     private DpsEmailProcessedResponse(boolean acknowledge, String message) {
+        this(acknowledge, message, Collections.emptyList());
+    }
+
+    private DpsEmailProcessedResponse(boolean acknowledge, String message, List<String> failedIds) {
         this.acknowledge = acknowledge;
         this.message = message;
+        this.failedIds = failedIds;
     }
 
     public boolean isAcknowledge() {
@@ -27,6 +35,13 @@ public class DpsEmailProcessedResponse {
         return message;
     }
 
+    /**
+     * @return the ids of the emails that could not be processed when a list of emails was sent
+     */
+    public List<String> getFailedIds() {
+        return failedIds;
+    }
+
     public static DpsEmailProcessedResponse errorResponse(String errorMessage) {
         return new DpsEmailProcessedResponse(false, errorMessage);
     }
@@ -35,6 +50,10 @@ public class DpsEmailProcessedResponse {
         return new DpsEmailProcessedResponse(acknowledge, message);
     }
 
+    public static DpsEmailProcessedResponse successResponse(boolean acknowledge, String message, List<String> failedIds) {
+        return new DpsEmailProcessedResponse(acknowledge, message, failedIds == null ? Collections.emptyList() : failedIds);
+    }
+
     @Override
     public String toString() {
         return MessageFormat.format("DpsEmailProcessedResponse: acknowledge [{0}], message [{1}]",
@@ -1,5 +1,7 @@
 package ca.bc.gov.open.pssg.rsbc.dps.email.client;
 
+import java.util.List;
+
 /**
  * Collection of services for dps email client.
  *
@@ -9,4 +11,10 @@ public interface DpsEmailService {
 
      DpsEmailProcessedResponse dpsEmailProcessed(String id, String correlationId);
      DpsEmailProcessedResponse dpsEmailFailed(String id, String correlationId);
+
+     /**
+      * Marks a list of emails as processed with a single call, the ids that could not be moved are returned in the
+      * response failedIds.
+      */
+     DpsEmailProcessedResponse dpsEmailsProcessed(List<String> ids, String correlationId);
 }
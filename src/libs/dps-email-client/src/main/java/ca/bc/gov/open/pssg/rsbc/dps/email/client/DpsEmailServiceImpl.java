@@ -4,9 +4,12 @@ import ca.bc.gov.open.dps.email.client.api.DpsEmailProcessingApi;
 import ca.bc.gov.open.dps.email.client.api.handler.ApiException;
 import ca.bc.gov.open.dps.email.client.api.model.DpsEmailProcessedRequest;
 import ca.bc.gov.open.dps.email.client.api.model.DpsEmailResponse;
+import ca.bc.gov.open.dps.email.client.api.model.DpsEmailsProcessedRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
  * Dps Email Service Implementation.
  *
@@ -55,4 +58,22 @@ public class DpsEmailServiceImpl implements DpsEmailService {
             return DpsEmailProcessedResponse.errorResponse(ex.getMessage());
         }
     }
+
+    @Override
+    public DpsEmailProcessedResponse dpsEmailsProcessed(List<String> ids, String correlationId) {
+
+        try {
+
+            DpsEmailsProcessedRequest request = new DpsEmailsProcessedRequest();
+            request.setIds(ids);
+            request.setCorrelationId(correlationId);
+
+            DpsEmailResponse response = this.dpsEmailProcessingApi.processedAllUsingPUT(request);
+            return DpsEmailProcessedResponse.successResponse(response.getAcknowledge(), response.getMessage(), response.getFailedIds());
+
+        } catch (ApiException ex) {
+            logger.error("Exception caught in dpsEmailsProcessed", ex);
+            return DpsEmailProcessedResponse.errorResponse(ex.getMessage());
+        }
+    }
 }
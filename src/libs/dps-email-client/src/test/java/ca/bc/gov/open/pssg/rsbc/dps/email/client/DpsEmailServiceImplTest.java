@@ -8,10 +8,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class DpsEmailServiceImplTest {
 
@@ -46,6 +50,13 @@ public class DpsEmailServiceImplTest {
         Mockito.when(dpsEmailProcessingApiMock.processedUsingPUT(Mockito.eq(FAIL_ID), Mockito.any(DpsEmailProcessedRequest.class))).thenReturn(errorResponse);
         Mockito.when(dpsEmailProcessingApiMock.processedUsingPUT(Mockito.eq(ERROR_ID), Mockito.any(DpsEmailProcessedRequest.class))).thenThrow(new ApiException(API_EXCEPTION));
 
+        DpsEmailResponse partialResponse = new DpsEmailResponse();
+        partialResponse.setAcknowledge(SUCCESS_EMAIL);
+        partialResponse.setFailedIds(Collections.singletonList(FAIL_ID));
+
+        Mockito.when(dpsEmailProcessingApiMock.processedAllUsingPUT(ArgumentMatchers.argThat(x -> x != null && x.getIds().contains(SUCCESS_ID)))).thenReturn(partialResponse);
+        Mockito.when(dpsEmailProcessingApiMock.processedAllUsingPUT(ArgumentMatchers.argThat(x -> x != null && x.getIds().contains(ERROR_ID)))).thenThrow(new ApiException(API_EXCEPTION));
+
         sut = new DpsEmailServiceImpl(dpsEmailProcessingApiMock);
     }
 
@@ -75,4 +86,24 @@ public class DpsEmailServiceImplTest {
         Assertions.assertEquals(FAIL_EMAIL, result.isAcknowledge());
         Assertions.assertEquals(API_EXCEPTION, result.getMessage());
     }
+
+    @Test
+    public void withListValidResponseShouldReturnFailedIds() {
+
+        DpsEmailProcessedResponse result = sut.dpsEmailsProcessed(Arrays.asList(SUCCESS_ID, FAIL_ID), CORRELATION_ID);
+
+        Assertions.assertEquals(SUCCESS_EMAIL, result.isAcknowledge());
+        Assertions.assertEquals(1, result.getFailedIds().size());
+        Assertions.assertEquals(FAIL_ID, result.getFailedIds().get(0));
+    }
+
+    @Test
+    public void withListApiExceptionShouldReturnValid() {
+
+        DpsEmailProcessedResponse result = sut.dpsEmailsProcessed(Collections.singletonList(ERROR_ID), CORRELATION_ID);
+
+        Assertions.assertEquals(FAIL_EMAIL, result.isAcknowledge());
+        Assertions.assertEquals(API_EXCEPTION, result.getMessage());
+        Assertions.assertTrue(result.getFailedIds().isEmpty());
+    }
 }
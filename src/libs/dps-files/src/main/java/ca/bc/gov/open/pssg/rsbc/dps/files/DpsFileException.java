@@ -0,0 +1,12 @@
+package ca.bc.gov.open.pssg.rsbc.dps.files;
+
+/**
+ * Raised when a local file system operation fails.
+ */
+public class DpsFileException extends RuntimeException {
+
+    public DpsFileException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
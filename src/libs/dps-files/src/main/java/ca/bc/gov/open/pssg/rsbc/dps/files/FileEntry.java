@@ -0,0 +1,54 @@
+package ca.bc.gov.open.pssg.rsbc.dps.files;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+
+/**
+ * Represents a directory entry and its attributes.
+ *
+ * @author alexjoybc@github
+ *
+ */
+public class FileEntry {
+
+    private final String name;
+    private final long size;
+    private final Instant lastModified;
+    private final boolean directory;
+    private final boolean regularFile;
+
+    public FileEntry(String name, long size, Instant lastModified, boolean directory, boolean regularFile) {
+        this.name = name;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.directory = directory;
+        this.regularFile = regularFile;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    public boolean isRegularFile() {
+        return regularFile;
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format("FileEntry: name [{0}], size [{1}], last modified [{2}]", this.name, this.size,
+                this.lastModified);
+    }
+
+}
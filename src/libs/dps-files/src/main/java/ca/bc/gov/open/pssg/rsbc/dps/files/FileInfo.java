@@ -1,28 +1,51 @@
 package ca.bc.gov.open.pssg.rsbc.dps.files;
 
-import java.text.MessageFormat;
+import java.util.Objects;
 
 /**
  * Represents the file information from the sftp server perspective
  *
+ * All the paths are computed once at construction, instances are immutable.
+ *
  * @author alexjoybc@github
  *
  */
-public class FileInfo {
+public final class FileInfo {
+
+    private static final String METADATA_EXTENSION = "xml";
 
-    private static final String RELEASE_FOLDER_NAME = "release";
-    private static final String ARCHIVE_FOLDER_NAME = "archive";
+    private final String rootFolder;
+    private final String fileId;
+    private final String imageExtension;
+    private final PathLayout pathLayout;
 
-    private String rootFolder;
-    private String fileId;
-    private String imageExtension;
-    private String errorFolder;
+    private final String fileName;
+    private final String imageReleaseFileName;
+    private final String imageErrorFileName;
+    private final String imageArchiveFileName;
+    private final String metaDataReleaseFileName;
+    private final String metaDataErrorFileName;
+    private final String metaDataArchiveFileName;
 
-    public FileInfo(String fileId,String imageExtension, String rootFolder, String errorFolder) {
+    public FileInfo(String fileId, String imageExtension, String rootFolder, String errorFolder) {
+        this(fileId, imageExtension, rootFolder, PathLayout.withErrorFolder(errorFolder));
+    }
+
+    public FileInfo(String fileId, String imageExtension, String rootFolder, PathLayout pathLayout) {
         this.rootFolder = rootFolder;
         this.fileId = fileId;
         this.imageExtension = imageExtension;
-        this.errorFolder = errorFolder;
+        this.pathLayout = pathLayout;
+
+        String metaDataFileName = buildFileName(fileId, METADATA_EXTENSION);
+
+        this.fileName = buildFileName(fileId, imageExtension);
+        this.imageReleaseFileName = buildFullFileName(rootFolder, pathLayout.getReleaseFolder(), this.fileName);
+        this.imageErrorFileName = buildFullFileName(rootFolder, pathLayout.getErrorFolder(), this.fileName);
+        this.imageArchiveFileName = buildFullFileName(rootFolder, pathLayout.getArchiveFolder(), this.fileName);
+        this.metaDataReleaseFileName = buildFullFileName(rootFolder, pathLayout.getReleaseFolder(), metaDataFileName);
+        this.metaDataErrorFileName = buildFullFileName(rootFolder, pathLayout.getErrorFolder(), metaDataFileName);
+        this.metaDataArchiveFileName = buildFullFileName(rootFolder, pathLayout.getArchiveFolder(), metaDataFileName);
     }
 
 
@@ -35,56 +58,69 @@ public class FileInfo {
     }
 
     public String getFileName() {
-        return buildFileName(this.imageExtension);
+        return fileName;
     }
 
     public String getImageExtension() {
         return this.imageExtension;
     }
 
+    public PathLayout getPathLayout() {
+        return pathLayout;
+    }
+
     public String getImageReleaseFileName() {
-        return buildImageFileName(RELEASE_FOLDER_NAME);
+        return imageReleaseFileName;
     }
 
     public String getImageErrorFileName() {
-        return buildImageFileName(this.errorFolder);
+        return imageErrorFileName;
     }
 
     public String getImageArchiveFileName() {
-        return buildImageFileName(ARCHIVE_FOLDER_NAME);
+        return imageArchiveFileName;
     }
 
     public String getMetaDataReleaseFileName() {
-        return buildMetaDataFilename(RELEASE_FOLDER_NAME);
+        return metaDataReleaseFileName;
     }
 
     public String getMetaDataErrorFileName() {
-        return buildMetaDataFilename(this.errorFolder);
+        return metaDataErrorFileName;
     }
 
     public String getMetaDataArchiveFileName() {
-        return buildMetaDataFilename(ARCHIVE_FOLDER_NAME);
+        return metaDataArchiveFileName;
     }
 
-    private String buildMetaDataFilename(String folderName) {
-        return buildFullFileName(folderName, "xml");
+    private static String buildFileName(String fileId, String extension) {
+        return fileId + "." + extension;
     }
 
-    private String buildImageFileName(String folderName) {
-        return buildFullFileName(folderName, this.imageExtension);
+    private static String buildFullFileName(String rootFolder, String folderName, String fileName) {
+        return rootFolder + "/" + folderName + "/" + fileName;
     }
 
-    private String buildFileName(String extension) {
-        return MessageFormat.format("{0}.{1}", this.fileId, extension);
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FileInfo fileInfo = (FileInfo) o;
+        return Objects.equals(rootFolder, fileInfo.rootFolder) &&
+                Objects.equals(fileId, fileInfo.fileId) &&
+                Objects.equals(imageExtension, fileInfo.imageExtension) &&
+                Objects.equals(pathLayout, fileInfo.pathLayout);
     }
 
-    private String buildFullFileName(String folderName, String extension) {
-        return MessageFormat.format("{0}/{1}/{2}", this.rootFolder, folderName, buildFileName(extension));
+    @Override
+    public int hashCode() {
+        return Objects.hash(rootFolder, fileId, imageExtension, pathLayout);
     }
 
     @Override
     public String toString() {
-        return MessageFormat.format("FileInfo: original metadata: [{0}], original image: [{1}]", this.getMetaDataReleaseFileName(), this.getImageReleaseFileName());
+        return "FileInfo: original metadata: [" + this.metaDataReleaseFileName + "], original image: [" +
+                this.imageReleaseFileName + "]";
     }
 
 }
@@ -0,0 +1,19 @@
+package ca.bc.gov.open.pssg.rsbc.dps.files;
+
+import java.io.InputStream;
+
+/**
+ * File operations bound to an open connection, handed to a {@link FileProcessor}.
+ *
+ * @author alexjoybc@github
+ *
+ */
+public interface FileOperations {
+
+    InputStream getFileContent(String fileName);
+
+    void uploadFile(InputStream inputStream, String fileName);
+
+    void moveFile(String sourceFileName, String destinationFileName);
+
+}
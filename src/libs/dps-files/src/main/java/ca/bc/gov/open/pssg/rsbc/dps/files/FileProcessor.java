@@ -0,0 +1,19 @@
+package ca.bc.gov.open.pssg.rsbc.dps.files;
+
+/**
+ * Processes directory entries one at a time.
+ *
+ * @author alexjoybc@github
+ *
+ */
+@FunctionalInterface
+public interface FileProcessor {
+
+    /**
+     * @param fileEntry the entry to process
+     * @param fileOperations operations bound to the current connection
+     * @return true if the file has been moved out of the directory, false otherwise, used for reporting only
+     */
+    boolean process(FileEntry fileEntry, FileOperations fileOperations);
+
+}
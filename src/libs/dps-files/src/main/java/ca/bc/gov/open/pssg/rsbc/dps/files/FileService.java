@@ -4,10 +4,14 @@ import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.DpsSftpException;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * An interface that expose functionality to manipulate files.
  *
+ * Failures are reported as {@link DpsSftpException} by the sftp implementation and as {@link DpsFileException} by the
+ * local file system implementation.
+ *
  * @author alexjoybc@github
  *
  */
@@ -37,6 +41,41 @@ public interface FileService {
 
     List<String> listFiles(String remoteDirectory);
 
+    /**
+     * Returns a page of directory entries matching the glob pattern
+     * @param remoteDirectory
+     * @param glob a glob pattern applied to the file name
+     * @param offset number of matching entries to skip
+     * @param limit maximum number of entries returned
+     * @throws DpsSftpException
+     */
+    List<FileEntry> listFiles(String remoteDirectory, String glob, int offset, int limit);
+
+    /**
+     * Streams the directory entries matching the glob pattern to the processor using a single connection and a single
+     * listing of the directory
+     * @param remoteDirectory
+     * @param glob a glob pattern applied to the file name
+     * @param pageSize maximum number of entries held in memory at once
+     * @param fileProcessor
+     * @throws DpsSftpException
+     */
+    void processFiles(String remoteDirectory, String glob, int pageSize, FileProcessor fileProcessor);
+
+    /**
+     * Streams the directory entries matching the glob pattern to workers running on the executor, each worker keeping
+     * its own connection operations for the whole call, the processor is called concurrently
+     * @param remoteDirectory
+     * @param glob a glob pattern applied to the file name
+     * @param pageSize maximum number of entries waiting for a worker
+     * @param workerCount number of workers
+     * @param executor runs the workers
+     * @param fileProcessor
+     * @throws DpsSftpException
+     */
+    void processFiles(String remoteDirectory, String glob, int pageSize, int workerCount, Executor executor,
+                      FileProcessor fileProcessor);
+
     void moveFile(String sourceFileName, String destinationFileName);
 
 }
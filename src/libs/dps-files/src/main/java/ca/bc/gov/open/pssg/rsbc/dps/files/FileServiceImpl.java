@@ -1,10 +1,14 @@
 package ca.bc.gov.open.pssg.rsbc.dps.files;
 
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.DpsSftpException;
+import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpFileEntry;
+import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpOperations;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpService;
 
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of the FileService using sftp server.
@@ -68,9 +72,62 @@ public class FileServiceImpl implements FileService {
         return sftpService.listFiles(remoteDirectory);
     }
 
+    @Override
+    public List<FileEntry> listFiles(String remoteDirectory, String glob, int offset, int limit) {
+        return sftpService.listFiles(remoteDirectory, glob, offset, limit)
+                .stream()
+                .map(FileServiceImpl::toFileEntry)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void processFiles(String remoteDirectory, String glob, int pageSize, FileProcessor fileProcessor) {
+        sftpService.processFiles(remoteDirectory, glob, pageSize,
+                (entry, operations) -> fileProcessor.process(toFileEntry(entry), new SftpFileOperations(operations)));
+    }
+
+    @Override
+    public void processFiles(String remoteDirectory, String glob, int pageSize, int workerCount, Executor executor,
+                             FileProcessor fileProcessor) {
+        sftpService.processFiles(remoteDirectory, glob, pageSize, workerCount, executor,
+                (entry, operations) -> fileProcessor.process(toFileEntry(entry), new SftpFileOperations(operations)));
+    }
+
     @Override
     public void moveFile(String sourceFileName, String destinationFileName) {
         sftpService.moveFile(sourceFileName, destinationFileName);
     }
 
+    private static FileEntry toFileEntry(SftpFileEntry sftpFileEntry) {
+        return new FileEntry(sftpFileEntry.getFilename(), sftpFileEntry.getSize(), sftpFileEntry.getModifiedTime(),
+                sftpFileEntry.isDirectory(), sftpFileEntry.isRegularFile());
+    }
+
+    /**
+     * Adapts the operations of an open sftp channel.
+     */
+    private static class SftpFileOperations implements FileOperations {
+
+        private final SftpOperations sftpOperations;
+
+        private SftpFileOperations(SftpOperations sftpOperations) {
+            this.sftpOperations = sftpOperations;
+        }
+
+        @Override
+        public InputStream getFileContent(String fileName) {
+            return sftpOperations.getContent(fileName);
+        }
+
+        @Override
+        public void uploadFile(InputStream inputStream, String fileName) {
+            sftpOperations.put(inputStream, fileName);
+        }
+
+        @Override
+        public void moveFile(String sourceFileName, String destinationFileName) {
+            sftpOperations.moveFile(sourceFileName, destinationFileName);
+        }
+    }
+
 }
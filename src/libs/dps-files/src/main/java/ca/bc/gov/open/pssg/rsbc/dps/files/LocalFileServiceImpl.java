@@ -0,0 +1,315 @@
+package ca.bc.gov.open.pssg.rsbc.dps.files;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Implementation of the FileService using the local file system, for deployments where the kofax share is mounted.
+ *
+ * File names are resolved against the root directory. Failures are reported as {@link DpsFileException}.
+ *
+ * @author alexjoybc@github
+ */
+public class LocalFileServiceImpl implements FileService, FileOperations {
+
+    private static final long TRANSFER_SIZE = 8L * 1024 * 1024;
+    private static final String PARTIAL_FILE_EXTENSION = ".part";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final Path rootDirectory;
+
+    public LocalFileServiceImpl(Path rootDirectory) {
+        this.rootDirectory = rootDirectory;
+    }
+
+    /**
+     * Moves image and metadata file to the archive folder.
+     *
+     * @param fileInfo
+     * @throws DpsFileException
+     */
+    @Override
+    public void moveFilesToArchive(FileInfo fileInfo) {
+        moveFile(fileInfo.getImageReleaseFileName(), fileInfo.getImageArchiveFileName());
+        moveFile(fileInfo.getMetaDataReleaseFileName(), fileInfo.getMetaDataArchiveFileName());
+    }
+
+    /**
+     * Moves image and metadata file to the error folder.
+     *
+     * @param fileInfo
+     * @throws DpsFileException
+     */
+    @Override
+    public void moveFilesToError(FileInfo fileInfo) {
+        moveFile(fileInfo.getImageReleaseFileName(), fileInfo.getImageErrorFileName());
+        moveFile(fileInfo.getMetaDataReleaseFileName(), fileInfo.getMetaDataErrorFileName());
+    }
+
+    @Override
+    public InputStream getImageFileContent(FileInfo fileInfo) {
+        return getFileContent(fileInfo.getImageReleaseFileName());
+    }
+
+    @Override
+    public InputStream getMetadataFileContent(FileInfo fileInfo) {
+        return getFileContent(fileInfo.getMetaDataReleaseFileName());
+    }
+
+    /**
+     * Returns the file content read in memory, the file is closed before returning like the sftp implementation.
+     *
+     * @param fileName
+     * @throws DpsFileException
+     */
+    @Override
+    public InputStream getFileContent(String fileName) {
+
+        Path path = resolve(fileName);
+
+        try {
+
+            logger.debug("Attempting to read file [{}]", path);
+            byte[] content = Files.readAllBytes(path);
+            logger.debug("Successfully read {} bytes from file [{}]", content.length, path);
+
+            return new ByteArrayInputStream(content);
+
+        } catch (IOException e) {
+            throw new DpsFileException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the content to a partial file then atomically renames it, the file is never visible half written. An
+     * existing file is replaced like an sftp put, the partial file is deleted when the upload fails.
+     *
+     * @param inputStream
+     * @param fileName
+     * @throws DpsFileException
+     */
+    @Override
+    public void uploadFile(InputStream inputStream, String fileName) {
+
+        Path path = resolve(fileName);
+        Path partialPath = path.resolveSibling(path.getFileName() + PARTIAL_FILE_EXTENSION);
+
+        try {
+            write(inputStream, partialPath);
+            move(partialPath, path, true);
+        } catch (DpsFileException e) {
+            deletePartialFile(partialPath);
+            throw e;
+        }
+
+        logger.debug("Successfully uploaded file [{}]", path);
+    }
+
+    @Override
+    public List<String> listFiles(String remoteDirectory) {
+
+        List<String> result = new ArrayList<>();
+
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(resolve(remoteDirectory))) {
+            directoryStream.forEach(path -> result.add(path.getFileName().toString()));
+        } catch (IOException | DirectoryIteratorException e) {
+            throw new DpsFileException(e.getMessage(), e);
+        }
+
+        logger.debug("Successfully listed {} files in [{}]", result.size(), remoteDirectory);
+
+        return result;
+    }
+
+    @Override
+    public List<FileEntry> listFiles(String remoteDirectory, String glob, int offset, int limit) {
+
+        List<FileEntry> result = new ArrayList<>();
+
+        if (limit <= 0) return result;
+
+        int skipped = 0;
+
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(resolve(remoteDirectory), glob)) {
+
+            for (Path path : directoryStream) {
+
+                if (skipped < offset) {
+                    skipped++;
+                    continue;
+                }
+
+                result.add(toFileEntry(path));
+
+                if (result.size() == limit) break;
+            }
+
+        } catch (IOException | DirectoryIteratorException e) {
+            throw new DpsFileException(e.getMessage(), e);
+        }
+
+        logger.debug("Successfully listed {} files matching [{}] in [{}]", result.size(), glob, remoteDirectory);
+
+        return result;
+    }
+
+    /**
+     * Streams the matching entries to the processor one page at a time from a single iteration of the directory,
+     * files moved away by the processor are not listed again.
+     *
+     * @param remoteDirectory
+     * @param glob
+     * @param pageSize
+     * @param fileProcessor
+     * @throws DpsFileException
+     */
+    @Override
+    public void processFiles(String remoteDirectory, String glob, int pageSize, FileProcessor fileProcessor) {
+
+        List<FileEntry> page = new ArrayList<>();
+        int processed = 0;
+        int removed = 0;
+
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(resolve(remoteDirectory), glob)) {
+
+            Iterator<Path> iterator = directoryStream.iterator();
+
+            while (iterator.hasNext()) {
+
+                page.add(toFileEntry(iterator.next()));
+
+                if (page.size() >= pageSize || !iterator.hasNext()) {
+                    for (FileEntry fileEntry : page) {
+                        if (fileProcessor.process(fileEntry, this)) removed++;
+                        processed++;
+                    }
+                    page.clear();
+                }
+            }
+
+        } catch (IOException | DirectoryIteratorException e) {
+            throw new DpsFileException(e.getMessage(), e);
+        }
+
+        logger.debug("Successfully processed {} files in [{}], {} removed", processed, remoteDirectory, removed);
+    }
+
+    /**
+     * The local file system has no connection to share between workers, the entries are processed on the calling
+     * thread.
+     *
+     * @param remoteDirectory
+     * @param glob
+     * @param pageSize
+     * @param workerCount
+     * @param executor
+     * @param fileProcessor
+     * @throws DpsFileException
+     */
+    @Override
+    public void processFiles(String remoteDirectory, String glob, int pageSize, int workerCount, Executor executor,
+                             FileProcessor fileProcessor) {
+        processFiles(remoteDirectory, glob, pageSize, fileProcessor);
+    }
+
+    /**
+     * Moves the file using an atomic rename, falls back to a regular move when the file system does not support it.
+     * The move fails when the destination file already exists.
+     *
+     * @param sourceFileName
+     * @param destinationFileName
+     * @throws DpsFileException
+     */
+    @Override
+    public void moveFile(String sourceFileName, String destinationFileName) {
+        move(resolve(sourceFileName), resolve(destinationFileName), false);
+        logger.debug("Successfully moved file from {} to {}", sourceFileName, destinationFileName);
+    }
+
+    private void move(Path source, Path destination, boolean replace) {
+        try {
+
+            // an atomic rename replaces the destination on most file systems
+            if (!replace && Files.exists(destination, LinkOption.NOFOLLOW_LINKS))
+                throw new FileAlreadyExistsException(destination.toString());
+
+            try {
+                Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                logger.warn("Atomic move not supported from [{}] to [{}], using regular move", source, destination);
+                if (replace) {
+                    Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+                } else {
+                    Files.move(source, destination);
+                }
+            }
+
+        } catch (IOException e) {
+            throw new DpsFileException(e.getMessage(), e);
+        }
+    }
+
+    private void write(InputStream inputStream, Path path) {
+
+        try (ReadableByteChannel source = Channels.newChannel(inputStream);
+             FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            long position = 0;
+            long transferred;
+
+            while ((transferred = fileChannel.transferFrom(source, position, TRANSFER_SIZE)) > 0) {
+                position += transferred;
+            }
+
+            logger.debug("Successfully written {} bytes to [{}]", position, path);
+
+        } catch (IOException e) {
+            throw new DpsFileException(e.getMessage(), e);
+        }
+    }
+
+    private void deletePartialFile(Path partialPath) {
+        try {
+            Files.deleteIfExists(partialPath);
+        } catch (IOException e) {
+            logger.warn("Could not delete partial file [{}]", partialPath, e);
+        }
+    }
+
+    private Path resolve(String fileName) {
+        return rootDirectory.resolve(fileName);
+    }
+
+    private static FileEntry toFileEntry(Path path) throws IOException {
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+                LinkOption.NOFOLLOW_LINKS);
+
+        return new FileEntry(path.getFileName().toString(), attributes.size(),
+                attributes.lastModifiedTime().toInstant(), attributes.isDirectory(), attributes.isRegularFile());
+    }
+
+}
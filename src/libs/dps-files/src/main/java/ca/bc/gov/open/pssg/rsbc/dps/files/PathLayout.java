@@ -0,0 +1,68 @@
+package ca.bc.gov.open.pssg.rsbc.dps.files;
+
+import java.text.MessageFormat;
+import java.util.Objects;
+
+/**
+ * Describes the folders used by a tenant under its root folder.
+ *
+ * @author alexjoybc@github
+ *
+ */
+public final class PathLayout {
+
+    public static final String DEFAULT_RELEASE_FOLDER = "release";
+    public static final String DEFAULT_ARCHIVE_FOLDER = "archive";
+
+    private final String releaseFolder;
+    private final String archiveFolder;
+    private final String errorFolder;
+
+    public PathLayout(String releaseFolder, String archiveFolder, String errorFolder) {
+        this.releaseFolder = releaseFolder;
+        this.archiveFolder = archiveFolder;
+        this.errorFolder = errorFolder;
+    }
+
+    /**
+     * @param errorFolder the error folder name
+     * @return a layout with the default release and archive folders
+     */
+    public static PathLayout withErrorFolder(String errorFolder) {
+        return new PathLayout(DEFAULT_RELEASE_FOLDER, DEFAULT_ARCHIVE_FOLDER, errorFolder);
+    }
+
+    public String getReleaseFolder() {
+        return releaseFolder;
+    }
+
+    public String getArchiveFolder() {
+        return archiveFolder;
+    }
+
+    public String getErrorFolder() {
+        return errorFolder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PathLayout that = (PathLayout) o;
+        return Objects.equals(releaseFolder, that.releaseFolder) &&
+                Objects.equals(archiveFolder, that.archiveFolder) &&
+                Objects.equals(errorFolder, that.errorFolder);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(releaseFolder, archiveFolder, errorFolder);
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format("PathLayout: release [{0}], archive [{1}], error [{2}]", this.releaseFolder,
+                this.archiveFolder, this.errorFolder);
+    }
+
+}
@@ -26,4 +26,31 @@ public class FileInfoTest {
         Assertions.assertEquals("rootFolder/error/fileId.xml", sut.getMetaDataErrorFileName());
 
     }
+
+    @Test
+    public void WithPathLayoutShouldReturnLayoutLocations() {
+
+        FileInfo sut = new FileInfo(FILE_ID, IMAGE_EXTENSION, ROOT_FOLDER, new PathLayout("in", "done", "failed"));
+
+        Assertions.assertEquals("fileId.pdf", sut.getFileName());
+        Assertions.assertEquals("rootFolder/in/fileId.pdf", sut.getImageReleaseFileName());
+        Assertions.assertEquals("rootFolder/done/fileId.pdf", sut.getImageArchiveFileName());
+        Assertions.assertEquals("rootFolder/failed/fileId.pdf", sut.getImageErrorFileName());
+        Assertions.assertEquals("rootFolder/in/fileId.xml", sut.getMetaDataReleaseFileName());
+        Assertions.assertEquals("rootFolder/done/fileId.xml", sut.getMetaDataArchiveFileName());
+        Assertions.assertEquals("rootFolder/failed/fileId.xml", sut.getMetaDataErrorFileName());
+
+    }
+
+    @Test
+    public void WithSameValuesShouldBeEqual() {
+
+        FileInfo sut = new FileInfo(FILE_ID, IMAGE_EXTENSION, ROOT_FOLDER, "error");
+
+        Assertions.assertEquals(new FileInfo(FILE_ID, IMAGE_EXTENSION, ROOT_FOLDER, PathLayout.withErrorFolder("error")), sut);
+        Assertions.assertEquals(new FileInfo(FILE_ID, IMAGE_EXTENSION, ROOT_FOLDER, "error").hashCode(), sut.hashCode());
+        Assertions.assertNotEquals(new FileInfo(FILE_ID, IMAGE_EXTENSION, ROOT_FOLDER, "errorhold"), sut);
+        Assertions.assertSame(sut.getImageReleaseFileName(), sut.getImageReleaseFileName());
+
+    }
 }
@@ -1,5 +1,8 @@
 package ca.bc.gov.open.pssg.rsbc.dps.files;
 
+import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpFileEntry;
+import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpFileProcessor;
+import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpOperations;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpService;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Assertions;
@@ -14,8 +17,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class FileServiceImplTest {
@@ -36,6 +41,9 @@ public class FileServiceImplTest {
     @Mock
     private SftpService sftpServiceMock;
 
+    @Mock
+    private SftpOperations sftpOperationsMock;
+
     @BeforeAll
     public void setUp() {
         MockitoAnnotations.initMocks(this);
@@ -48,6 +56,22 @@ public class FileServiceImplTest {
         fakeFileList.add(FILE_2);
         Mockito.when(sftpServiceMock.listFiles(REMOTE_DIRECTORY)).thenReturn(fakeFileList);
 
+        List<SftpFileEntry> fakeEntries = new ArrayList<>();
+        fakeEntries.add(new SftpFileEntry(FILE_1, 10L, Instant.ofEpochSecond(1000), false, true, false));
+        Mockito.when(sftpServiceMock.listFiles(REMOTE_DIRECTORY, "*.xml", 0, 10)).thenReturn(fakeEntries);
+
+        Mockito.doAnswer(invocation -> {
+            SftpFileProcessor processor = invocation.getArgument(3);
+            processor.process(fakeEntries.get(0), sftpOperationsMock);
+            return null;
+        }).when(sftpServiceMock).processFiles(Mockito.eq(REMOTE_DIRECTORY), Mockito.eq("*.xml"), Mockito.eq(10), Mockito.any(SftpFileProcessor.class));
+
+        Mockito.doAnswer(invocation -> {
+            SftpFileProcessor processor = invocation.getArgument(5);
+            processor.process(fakeEntries.get(0), sftpOperationsMock);
+            return null;
+        }).when(sftpServiceMock).processFiles(Mockito.eq(REMOTE_DIRECTORY), Mockito.eq("*.xml"), Mockito.eq(10), Mockito.eq(2), Mockito.any(Executor.class), Mockito.any(SftpFileProcessor.class));
+
         sut = new FileServiceImpl(sftpServiceMock);
     }
 
@@ -107,6 +131,53 @@ public class FileServiceImplTest {
 
     }
 
+    @Test
+    public void shouldListFileEntries() {
+
+        List<FileEntry> actual = sut.listFiles(REMOTE_DIRECTORY, "*.xml", 0, 10);
+
+        Assertions.assertEquals(1, actual.size());
+        Assertions.assertEquals(FILE_1, actual.get(0).getName());
+        Assertions.assertEquals(10L, actual.get(0).getSize());
+        Assertions.assertEquals(Instant.ofEpochSecond(1000), actual.get(0).getLastModified());
+        Assertions.assertTrue(actual.get(0).isRegularFile());
+
+    }
+
+    @Test
+    public void shouldProcessFilesWithOperationsBoundToTheSession() {
+
+        List<String> processed = new ArrayList<>();
+
+        sut.processFiles(REMOTE_DIRECTORY, "*.xml", 10, (fileEntry, fileOperations) -> {
+            processed.add(fileEntry.getName());
+            fileOperations.moveFile(fileEntry.getName(), FILE_2);
+            return true;
+        });
+
+        Assertions.assertEquals(1, processed.size());
+        Mockito.verify(sftpOperationsMock, Mockito.times(1)).moveFile(Mockito.eq(FILE_1), Mockito.eq(FILE_2));
+
+    }
+
+    @Test
+    public void shouldProcessFilesWithWorkerOperations() {
+
+        List<String> processed = new ArrayList<>();
+        Executor executor = Runnable::run;
+
+        sut.processFiles(REMOTE_DIRECTORY, "*.xml", 10, 2, executor, (fileEntry, fileOperations) -> {
+            processed.add(fileEntry.getName());
+            fileOperations.getFileContent(fileEntry.getName());
+            return false;
+        });
+
+        Assertions.assertEquals(1, processed.size());
+        Mockito.verify(sftpServiceMock, Mockito.times(1)).processFiles(Mockito.eq(REMOTE_DIRECTORY), Mockito.eq("*.xml"), Mockito.eq(10), Mockito.eq(2), Mockito.eq(executor), Mockito.any(SftpFileProcessor.class));
+        Mockito.verify(sftpOperationsMock, Mockito.times(1)).getContent(Mockito.eq(FILE_1));
+
+    }
+
     @Test
     public void shouldGetContentOfFile() throws IOException {
 
@@ -0,0 +1,197 @@
+package ca.bc.gov.open.pssg.rsbc.dps.files;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class LocalFileServiceImplTest {
+
+    public static final String ROOT_FOLDER = "rootFolder";
+    public static final String FILE_ID = "fileId";
+    public static final String IMAGE_EXTENSION = "pdf";
+    public static final String FAKECONTENT = "fakecontent";
+
+    @TempDir
+    public Path tempDirectory;
+
+    private LocalFileServiceImpl sut;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+
+        Files.createDirectories(tempDirectory.resolve(ROOT_FOLDER).resolve("release"));
+        Files.createDirectories(tempDirectory.resolve(ROOT_FOLDER).resolve("archive"));
+        Files.createDirectories(tempDirectory.resolve(ROOT_FOLDER).resolve("error"));
+
+        sut = new LocalFileServiceImpl(tempDirectory);
+    }
+
+    @Test
+    public void uploadThenGetFileContentShouldReturnContent() throws IOException {
+
+        sut.uploadFile(getFakeInputStream(), ROOT_FOLDER + "/test.txt");
+
+        InputStream actual = sut.getFileContent(ROOT_FOLDER + "/test.txt");
+
+        Assertions.assertEquals(FAKECONTENT, IOUtils.toString(actual, "UTF-8"));
+        Assertions.assertFalse(Files.exists(tempDirectory.resolve(ROOT_FOLDER).resolve("test.txt.part")));
+    }
+
+    @Test
+    public void getFileContentWithEmptyFileShouldReturnEmptyStream() throws IOException {
+
+        Files.createFile(tempDirectory.resolve(ROOT_FOLDER).resolve("empty.txt"));
+
+        InputStream actual = sut.getFileContent(ROOT_FOLDER + "/empty.txt");
+
+        Assertions.assertEquals(-1, actual.read());
+    }
+
+    @Test
+    public void getFileContentWithMissingFileShouldThrowDpsFileException() {
+
+        Assertions.assertThrows(DpsFileException.class, () -> sut.getFileContent(ROOT_FOLDER + "/missing.txt"));
+    }
+
+    @Test
+    public void moveFilesToArchiveShouldMoveImageAndMetadata() throws IOException {
+
+        FileInfo fileInfo = new FileInfo(FILE_ID, IMAGE_EXTENSION, ROOT_FOLDER, "error");
+        sut.uploadFile(getFakeInputStream(), fileInfo.getImageReleaseFileName());
+        sut.uploadFile(getFakeInputStream(), fileInfo.getMetaDataReleaseFileName());
+
+        sut.moveFilesToArchive(fileInfo);
+
+        Assertions.assertTrue(Files.exists(tempDirectory.resolve(fileInfo.getImageArchiveFileName())));
+        Assertions.assertTrue(Files.exists(tempDirectory.resolve(fileInfo.getMetaDataArchiveFileName())));
+        Assertions.assertFalse(Files.exists(tempDirectory.resolve(fileInfo.getImageReleaseFileName())));
+        Assertions.assertEquals(FAKECONTENT, IOUtils.toString(
+                sut.getFileContent(fileInfo.getMetaDataArchiveFileName()), "UTF-8"));
+    }
+
+    @Test
+    public void moveFilesToErrorShouldMoveImageAndMetadata() {
+
+        FileInfo fileInfo = new FileInfo(FILE_ID, IMAGE_EXTENSION, ROOT_FOLDER, "error");
+        sut.uploadFile(getFakeInputStream(), fileInfo.getImageReleaseFileName());
+        sut.uploadFile(getFakeInputStream(), fileInfo.getMetaDataReleaseFileName());
+
+        sut.moveFilesToError(fileInfo);
+
+        Assertions.assertTrue(Files.exists(tempDirectory.resolve(fileInfo.getImageErrorFileName())));
+        Assertions.assertTrue(Files.exists(tempDirectory.resolve(fileInfo.getMetaDataErrorFileName())));
+    }
+
+    @Test
+    public void uploadWithFailingStreamShouldDeletePartialFile() {
+
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        Assertions.assertThrows(DpsFileException.class, () -> sut.uploadFile(failing, ROOT_FOLDER + "/failed.txt"));
+
+        Assertions.assertFalse(Files.exists(tempDirectory.resolve(ROOT_FOLDER).resolve("failed.txt.part")));
+        Assertions.assertFalse(Files.exists(tempDirectory.resolve(ROOT_FOLDER).resolve("failed.txt")));
+    }
+
+    @Test
+    public void uploadWithExistingFileShouldReplaceIt() throws IOException {
+
+        sut.uploadFile(new ByteArrayInputStream("old".getBytes(StandardCharsets.UTF_8)), ROOT_FOLDER + "/test.txt");
+        sut.uploadFile(getFakeInputStream(), ROOT_FOLDER + "/test.txt");
+
+        Assertions.assertEquals(FAKECONTENT, IOUtils.toString(sut.getFileContent(ROOT_FOLDER + "/test.txt"), "UTF-8"));
+    }
+
+    @Test
+    public void moveFileWithExistingDestinationShouldThrowAndKeepBothFiles() throws IOException {
+
+        sut.uploadFile(getFakeInputStream(), ROOT_FOLDER + "/release/test.txt");
+        sut.uploadFile(new ByteArrayInputStream("archived".getBytes(StandardCharsets.UTF_8)), ROOT_FOLDER + "/archive/test.txt");
+
+        Assertions.assertThrows(DpsFileException.class,
+                () -> sut.moveFile(ROOT_FOLDER + "/release/test.txt", ROOT_FOLDER + "/archive/test.txt"));
+
+        Assertions.assertEquals(FAKECONTENT,
+                IOUtils.toString(sut.getFileContent(ROOT_FOLDER + "/release/test.txt"), "UTF-8"));
+        Assertions.assertEquals("archived",
+                IOUtils.toString(sut.getFileContent(ROOT_FOLDER + "/archive/test.txt"), "UTF-8"));
+    }
+
+    @Test
+    public void listFilesWithGlobShouldReturnPage() throws IOException {
+
+        sut.uploadFile(getFakeInputStream(), ROOT_FOLDER + "/error/file1.xml");
+        sut.uploadFile(getFakeInputStream(), ROOT_FOLDER + "/error/file2.xml");
+        sut.uploadFile(getFakeInputStream(), ROOT_FOLDER + "/error/file3.pdf");
+
+        List<FileEntry> all = sut.listFiles(ROOT_FOLDER + "/error", "*.xml", 0, 10);
+        List<FileEntry> page = sut.listFiles(ROOT_FOLDER + "/error", "*.xml", 1, 10);
+
+        Assertions.assertEquals(2, all.size());
+        Assertions.assertEquals(1, page.size());
+        Assertions.assertTrue(all.get(0).isRegularFile());
+        Assertions.assertEquals(FAKECONTENT.length(), all.get(0).getSize());
+        Assertions.assertNotNull(all.get(0).getLastModified());
+        Assertions.assertEquals(3, sut.listFiles(ROOT_FOLDER + "/error").size());
+    }
+
+    @Test
+    public void processFilesShouldProcessEveryFileWhenMoved() {
+
+        for (int i = 0; i < 5; i++) {
+            sut.uploadFile(getFakeInputStream(), ROOT_FOLDER + "/error/file" + i + ".xml");
+        }
+
+        int[] processed = {0};
+
+        sut.processFiles(ROOT_FOLDER + "/error", "*.xml", 2, (fileEntry, fileOperations) -> {
+            fileOperations.moveFile(ROOT_FOLDER + "/error/" + fileEntry.getName(),
+                    ROOT_FOLDER + "/archive/" + fileEntry.getName());
+            processed[0]++;
+            return true;
+        });
+
+        Assertions.assertEquals(5, processed[0]);
+        Assertions.assertEquals(0, sut.listFiles(ROOT_FOLDER + "/error").size());
+        Assertions.assertEquals(5, sut.listFiles(ROOT_FOLDER + "/archive").size());
+    }
+
+    @Test
+    public void processFilesShouldProcessEveryFileOnceWhenKept() {
+
+        for (int i = 0; i < 5; i++) {
+            sut.uploadFile(getFakeInputStream(), ROOT_FOLDER + "/error/kept" + i + ".xml");
+        }
+
+        Set<String> processed = new HashSet<>();
+
+        sut.processFiles(ROOT_FOLDER + "/error", "kept*.xml", 2, (fileEntry, fileOperations) -> {
+            Assertions.assertTrue(processed.add(fileEntry.getName()));
+            return false;
+        });
+
+        Assertions.assertEquals(5, processed.size());
+    }
+
+    private InputStream getFakeInputStream() {
+        return new ByteArrayInputStream(FAKECONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
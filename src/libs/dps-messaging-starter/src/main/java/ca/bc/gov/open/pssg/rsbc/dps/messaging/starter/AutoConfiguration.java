@@ -1,6 +1,11 @@
 package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.aopalliance.aop.Advice;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
@@ -9,7 +14,9 @@ import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.boot.autoconfigure.amqp.RabbitProperties;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -17,15 +24,21 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 
 import java.text.MessageFormat;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 @Configuration
 @ComponentScan
 @EnableConfigurationProperties(DpsMessagingProperties.class)
 public class AutoConfiguration {
 
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
     private final DpsMessagingProperties dpsMessagingProperties;
 
     public AutoConfiguration(DpsMessagingProperties dpsMessagingProperties) {
@@ -47,6 +60,11 @@ public class AutoConfiguration {
         connectionFactory.setUsername(rabbitProperties.getUsername());
         connectionFactory.setPassword(rabbitProperties.getPassword());
 
+        if (dpsMessagingProperties.isPublisherConfirms()) {
+            connectionFactory.setPublisherConfirmType(CachingConnectionFactory.ConfirmType.CORRELATED);
+            connectionFactory.setPublisherReturns(true);
+        }
+
         return connectionFactory;
     }
 
@@ -76,18 +94,88 @@ public class AutoConfiguration {
     @Bean
     @ConditionalOnMissingBean(RabbitTemplate.class)
     @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "producer")
-    public RabbitTemplate mainExchangeRabbitTemplate(ConnectionFactory connectionFactory, RabbitProperties rabbitProperties, ObjectMapper objectMapper) {
+    public RabbitTemplate mainExchangeRabbitTemplate(ConnectionFactory connectionFactory, RabbitProperties rabbitProperties, ObjectMapper objectMapper,
+                                                     ObjectProvider<ClaimCheckStore> claimCheckStore) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setExchange(dpsMessagingProperties.getExchangeName());
-        rabbitTemplate.setMessageConverter(this.jsonMessageConverter(objectMapper));
+        rabbitTemplate.setMessageConverter(withClaimCheck(negotiatingMessageConverter(this.jsonMessageConverter(objectMapper)),
+                claimCheckStore.getIfAvailable()));
+
+        if (dpsMessagingProperties.isPublisherConfirms()) {
+            rabbitTemplate.setMandatory(true);
+            rabbitTemplate.setReturnsCallback(returned -> logger.warn("Message returned by the broker with key [{}]: {}",
+                    returned.getRoutingKey(), returned.getReplyText()));
+        }
+
         return rabbitTemplate;
     }
 
+    /**
+     * Publishes to the main exchange and waits for publisher confirms
+     *
+     * @param rabbitTemplate
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "producer")
+    public DpsPublisher dpsPublisher(@Qualifier("mainExchangeRabbitTemplate") RabbitTemplate rabbitTemplate,
+                                     DpsMessagingMetrics dpsMessagingMetrics) {
+        return new DpsPublisher(rabbitTemplate, dpsMessagingProperties.isPublisherConfirms(),
+                dpsMessagingProperties.getConfirmTimeout(), dpsMessagingMetrics);
+    }
+
+    /**
+     * Messaging metrics, published when a meter registry is available
+     *
+     * @param meterRegistry
+     * @return
+     */
+    @Bean
+    public DpsMessagingMetrics dpsMessagingMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new DpsMessagingMetrics(meterRegistry.getIfAvailable(CompositeMeterRegistry::new));
+    }
+
+    /**
+     * Polls the depth of the queues declared for the consumer
+     *
+     * @param rabbitAdmin
+     * @param dpsMessagingMetrics
+     * @return
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
+    public QueueDepthMonitor queueDepthMonitor(RabbitAdmin rabbitAdmin, DpsMessagingMetrics dpsMessagingMetrics) {
+
+        List<String> queueNames = new ArrayList<>();
+
+        for (String tenant : dpsMessagingProperties.getTenantRoutingKeys()) {
+            queueNames.add(dpsMessagingProperties.getMainQueueName(tenant));
+            queueNames.add(dpsMessagingProperties.getDeadLetterQueueName(tenant));
+            queueNames.add(dpsMessagingProperties.getParkingLotQueueName(tenant));
+            for (Integer delay : new LinkedHashSet<>(dpsMessagingProperties.getRetryTiers())) {
+                for (int slot = 0; slot < dpsMessagingProperties.getRetrySlots(); slot++)
+                    queueNames.add(dpsMessagingProperties.getRetryQueueName(tenant, delay, slot));
+            }
+        }
+
+        return new QueueDepthMonitor(rabbitAdmin, dpsMessagingMetrics, queueNames,
+                dpsMessagingProperties.getQueueDepthPollInterval());
+    }
+
     @Bean
     public Jackson2JsonMessageConverter jackson2JsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
     }
 
+    /**
+     * Configures the rabbitmq smile message converter, a compact binary alternative to json
+     * @return
+     */
+    @Bean
+    public SmileMessageConverter smileMessageConverter() {
+        return new SmileMessageConverter();
+    }
+
     /**
      * Configures the rabbitmq json message converter with jackson
      * @param objectMapper
@@ -105,10 +193,7 @@ public class AutoConfiguration {
     @Bean
     @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
     public Queue mainQueue() {
-        return QueueBuilder
-                .durable(dpsMessagingProperties.getMainQueueName())
-                .withArgument(Keys.X_DEAD_LETTER_EXCHANGE_ARG, dpsMessagingProperties.getDeadLetterQueueName())
-                .build();
+        return buildMainQueue(dpsMessagingProperties.getRoutingKey());
     }
 
     /**
@@ -145,12 +230,7 @@ public class AutoConfiguration {
     @Bean
     @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
     Queue dlqQueue() {
-        return QueueBuilder
-                .durable(dpsMessagingProperties.getDeadLetterQueueName())
-                .withArgument(Keys.X_DEAD_LETTER_EXCHANGE_ARG, dpsMessagingProperties.getExchangeName())
-                .withArgument(Keys.X_MESSAGE_TTL_ARG,
-                        Duration.ofSeconds(dpsMessagingProperties.getRetryDelay()).toMillis())
-                .build();
+        return buildDlqQueue(dpsMessagingProperties.getRoutingKey());
     }
 
     /**
@@ -167,6 +247,19 @@ public class AutoConfiguration {
         return bindQueueToExchange(queue, exchange, dpsMessagingProperties.getRoutingKey());
     }
 
+    /**
+     * The retry queues, one per retry tier and jitter slot, bound to the dead letter exchange. Messages expire back to
+     * the main queue.
+     *
+     * @param exchange
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
+    public Declarables retryQueues(@Qualifier("dlqExchange") TopicExchange exchange) {
+        return new Declarables(buildRetryQueues(dpsMessagingProperties.getRoutingKey(), exchange));
+    }
+
     /**
      * The parking lot exchange
      * @return
@@ -185,9 +278,7 @@ public class AutoConfiguration {
     @Bean
     @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
     Queue parkingLotQueue() {
-        return QueueBuilder
-                .durable(dpsMessagingProperties.getParkingLotQueueName())
-                .build();
+        return buildParkingLotQueue(dpsMessagingProperties.getRoutingKey());
     }
 
     /**
@@ -205,6 +296,70 @@ public class AutoConfiguration {
     }
 
 
+    /**
+     * The main, dead letter, retry and parking lot queues of the additional tenants
+     *
+     * @param mainExchange
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
+    public Declarables tenantQueues(@Qualifier("mainExchange") TopicExchange mainExchange) {
+
+        List<Declarable> declarables = new ArrayList<>();
+
+        for (String tenant : dpsMessagingProperties.getTenantRoutingKeys()) {
+
+            if (tenant.equals(dpsMessagingProperties.getRoutingKey())) continue;
+
+            TopicExchange dlqExchange = new TopicExchange(dpsMessagingProperties.getDeadLetterQueueName(tenant), true, false);
+            TopicExchange parkingLotExchange = new TopicExchange(dpsMessagingProperties.getParkingLotQueueName(tenant),
+                    true, false);
+
+            Queue mainQueue = buildMainQueue(tenant);
+            Queue dlqQueue = buildDlqQueue(tenant);
+            Queue parkingLotQueue = buildParkingLotQueue(tenant);
+
+            declarables.add(mainQueue);
+            declarables.add(bindQueueToExchange(mainQueue, mainExchange, tenant));
+            declarables.add(dlqExchange);
+            declarables.add(dlqQueue);
+            declarables.add(bindQueueToExchange(dlqQueue, dlqExchange, tenant));
+            declarables.addAll(buildRetryQueues(tenant, dlqExchange));
+            declarables.add(parkingLotExchange);
+            declarables.add(parkingLotQueue);
+            declarables.add(bindQueueToExchange(parkingLotQueue, parkingLotExchange, tenant));
+
+            logger.info("Declaring queues of tenant [{}] with weight [{}]", tenant,
+                    dpsMessagingProperties.getTenants().get(tenant));
+        }
+
+        return new Declarables(declarables);
+    }
+
+    /**
+     * Shares the tenant concurrency between the tenants according to their weight
+     *
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
+    public TenantScheduler tenantScheduler() {
+        return new TenantScheduler(dpsMessagingProperties.getTenants(), dpsMessagingProperties.getTenantConcurrency());
+    }
+
+    /**
+     * Registers the {@link DpsTenantListener} listener containers
+     *
+     * @param beanFactory
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
+    public TenantListenerConfigurer tenantListenerConfigurer(ConfigurableListableBeanFactory beanFactory) {
+        return new TenantListenerConfigurer(beanFactory, dpsMessagingProperties);
+    }
+
     @Bean
     @ConditionalOnMissingBean(RabbitTemplate.class)
     @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
@@ -212,19 +367,128 @@ public class AutoConfiguration {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setExchange(MessageFormat.format("{0}.{1}.PL", dpsMessagingProperties.getRoutingKey(), dpsMessagingProperties.getExchangeName()));
         rabbitTemplate.setMessageConverter(this.jsonMessageConverter(objectMapper));
+
+        // unroutable retries are returned to their correlation data and not acknowledged
+        if (dpsMessagingProperties.isPublisherConfirms()) rabbitTemplate.setMandatory(true);
+
         return rabbitTemplate;
     }
 
+    /**
+     * Reads json and smile messages, writes messages in the configured format.
+     */
+    private MessageConverter negotiatingMessageConverter(MessageConverter jsonConverter) {
+
+        MessageConverter writer = Keys.MESSAGE_FORMAT_SMILE.equalsIgnoreCase(dpsMessagingProperties.getMessageFormat()) ?
+                smileMessageConverter() : jsonConverter;
+
+        return new ContentNegotiatingMessageConverter(jsonConverter, writer)
+                .withReader(MessageProperties.CONTENT_TYPE_JSON, jsonConverter)
+                .withReader(SmileMessageConverter.CONTENT_TYPE_SMILE, smileMessageConverter());
+    }
+
+    private MessageConverter withClaimCheck(MessageConverter messageConverter, ClaimCheckStore claimCheckStore) {
+
+        if (!dpsMessagingProperties.isClaimCheckEnabled()) return messageConverter;
+
+        if (claimCheckStore == null) {
+            logger.warn("Claim check enabled without a ClaimCheckStore bean, payloads will travel in the messages");
+            return messageConverter;
+        }
+
+        return new ClaimCheckMessageConverter(messageConverter, claimCheckStore,
+                dpsMessagingProperties.getClaimCheckThreshold());
+    }
+
+    private Queue buildMainQueue(String routingKey) {
+        return durable(dpsMessagingProperties.getMainQueueName(routingKey), dpsMessagingProperties.getQueue())
+                .withArgument(Keys.X_DEAD_LETTER_EXCHANGE_ARG, dpsMessagingProperties.getDeadLetterQueueName(routingKey))
+                .build();
+    }
+
+    private Queue buildDlqQueue(String routingKey) {
+        return durable(dpsMessagingProperties.getDeadLetterQueueName(routingKey), dpsMessagingProperties.getQueue())
+                .withArgument(Keys.X_DEAD_LETTER_EXCHANGE_ARG, dpsMessagingProperties.getExchangeName())
+                .withArgument(Keys.X_MESSAGE_TTL_ARG,
+                        Duration.ofSeconds(dpsMessagingProperties.getRetryDelay()).toMillis())
+                .build();
+    }
+
+    private List<Declarable> buildRetryQueues(String routingKey, TopicExchange dlqExchange) {
+
+        List<Declarable> declarables = new ArrayList<>();
+
+        for (Integer delay : new LinkedHashSet<>(dpsMessagingProperties.getRetryTiers())) {
+            for (int slot = 0; slot < dpsMessagingProperties.getRetrySlots(); slot++) {
+
+                Queue queue = durable(dpsMessagingProperties.getRetryQueueName(routingKey, delay, slot), dpsMessagingProperties.getQueue())
+                        .withArgument(Keys.X_DEAD_LETTER_EXCHANGE_ARG, dpsMessagingProperties.getExchangeName())
+                        .withArgument(Keys.X_DEAD_LETTER_ROUTING_KEY_ARG, routingKey)
+                        .withArgument(Keys.X_MESSAGE_TTL_ARG, dpsMessagingProperties.getRetryTtl(delay, slot))
+                        .build();
+
+                declarables.add(queue);
+                declarables.add(bindQueueToExchange(queue, dlqExchange,
+                        dpsMessagingProperties.getRetryRoutingKey(routingKey, delay, slot)));
+            }
+        }
+
+        return declarables;
+    }
+
+    private Queue buildParkingLotQueue(String routingKey) {
+        return durable(dpsMessagingProperties.getParkingLotQueueName(routingKey),
+                dpsMessagingProperties.getParkingLotQueue().mergeWith(dpsMessagingProperties.getQueue()))
+                .build();
+    }
+
+    /**
+     * Creates a durable queue builder with the type, mode and length arguments of the settings.
+     */
+    private QueueBuilder durable(String name, DpsMessagingProperties.QueueSettings settings) {
+
+        QueueBuilder builder = QueueBuilder.durable(name);
+
+        boolean classic = !StringUtils.hasText(settings.getType()) ||
+                Keys.QUEUE_TYPE_CLASSIC.equalsIgnoreCase(settings.getType());
+
+        if (!classic) builder.withArgument(Keys.X_QUEUE_TYPE_ARG, settings.getType());
+
+        if (Boolean.TRUE.equals(settings.getLazy())) {
+            if (classic) {
+                builder.withArgument(Keys.X_QUEUE_MODE_ARG, Keys.QUEUE_MODE_LAZY);
+            } else {
+                logger.warn("Lazy mode ignored for {} queue [{}]", settings.getType(), name);
+            }
+        }
+
+        if (settings.getMaxLength() != null) builder.withArgument(Keys.X_MAX_LENGTH_ARG, settings.getMaxLength());
+        if (StringUtils.hasText(settings.getOverflow())) builder.withArgument(Keys.X_OVERFLOW_ARG, settings.getOverflow());
+
+        return builder;
+    }
+
     private Binding bindQueueToExchange(Queue queue, TopicExchange exhange, String routingKey) {
         return BindingBuilder.bind(queue).to(exhange)
                 .with(routingKey);
     }
 
+    /**
+     * Limits the concurrent calls made to downstream dependencies
+     * @return
+     */
+    @Bean
+    public DependencyLimiter dependencyLimiter() {
+        return new DependencyLimiter(dpsMessagingProperties.getLimits(), dpsMessagingProperties.getLimitTimeout());
+    }
+
     /**
      * Provides as default factory for RabbitListeners
      *
      * @param connectionFactory
      * @param messageConverter
+     * @param claimCheckStore
+     * @param tenantScheduler
      * @return
      */
     @Bean
@@ -232,13 +496,68 @@ public class AutoConfiguration {
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(ConnectionFactory connectionFactory,
                                                                                @Qualifier("jackson2JsonMessageConverter") Jackson2JsonMessageConverter messageConverter,
                                                                                DpsMessagePostProcessor dpsMessagePostProcessor,
-                                                                               DpsMessageErrorHandler dpsMessageErrorHandler) {
+                                                                               DpsMessageErrorHandler dpsMessageErrorHandler,
+                                                                               ObjectProvider<ClaimCheckStore> claimCheckStore,
+                                                                               DpsMessagingMetrics dpsMessagingMetrics,
+                                                                               TenantScheduler tenantScheduler) {
+        return createListenerContainerFactory(connectionFactory, messageConverter, dpsMessagePostProcessor,
+                dpsMessageErrorHandler, claimCheckStore.getIfAvailable(), dpsMessagingMetrics, tenantScheduler);
+    }
+
+    /**
+     * Provides the factory of batch RabbitListeners, the listener receives the messages of a consumer batch as one
+     * list, see dps.messaging.listener.batch-size
+     *
+     * @param connectionFactory
+     * @param messageConverter
+     * @param claimCheckStore
+     * @param tenantScheduler
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
+    public SimpleRabbitListenerContainerFactory batchRabbitListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                                    @Qualifier("jackson2JsonMessageConverter") Jackson2JsonMessageConverter messageConverter,
+                                                                                    DpsMessagePostProcessor dpsMessagePostProcessor,
+                                                                                    DpsMessageErrorHandler dpsMessageErrorHandler,
+                                                                                    ObjectProvider<ClaimCheckStore> claimCheckStore,
+                                                                                    DpsMessagingMetrics dpsMessagingMetrics,
+                                                                                    TenantScheduler tenantScheduler) {
+        SimpleRabbitListenerContainerFactory factory = createListenerContainerFactory(connectionFactory,
+                messageConverter, dpsMessagePostProcessor, dpsMessageErrorHandler, claimCheckStore.getIfAvailable(),
+                dpsMessagingMetrics, tenantScheduler);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        return factory;
+    }
+
+    private SimpleRabbitListenerContainerFactory createListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                                Jackson2JsonMessageConverter messageConverter,
+                                                                                DpsMessagePostProcessor dpsMessagePostProcessor,
+                                                                                DpsMessageErrorHandler dpsMessageErrorHandler,
+                                                                                ClaimCheckStore store,
+                                                                                DpsMessagingMetrics dpsMessagingMetrics,
+                                                                                TenantScheduler tenantScheduler) {
+        List<Advice> adviceChain = new ArrayList<>();
+        // the token is held outside of the listener timer, waiting for a token is not processing time
+        if (dpsMessagingProperties.isFairScheduling())
+            adviceChain.add(new FairSchedulingAdvice(tenantScheduler, dpsMessagingProperties));
+        adviceChain.add(new ListenerMetricsAdvice(dpsMessagingMetrics));
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
         factory.setConnectionFactory(connectionFactory);
-        factory.setMessageConverter(messageConverter);
+        // claim checked messages are always read back when a store is available, so producers can be enabled first
+        if (store != null) {
+            factory.setMessageConverter(new ClaimCheckMessageConverter(negotiatingMessageConverter(messageConverter),
+                    store, dpsMessagingProperties.getClaimCheckThreshold()));
+            adviceChain.add(new ClaimCheckAdvice(store));
+        } else {
+            factory.setMessageConverter(negotiatingMessageConverter(messageConverter));
+        }
+        factory.setAdviceChain(adviceChain.toArray(new Advice[0]));
         factory.setAfterReceivePostProcessors(dpsMessagePostProcessor);
         factory.setErrorHandler(dpsMessageErrorHandler);
         factory.setMissingQueuesFatal(false);
+        factory.setContainerCustomizer(new DpsListenerContainerCustomizer(dpsMessagingProperties));
         return factory;
     }
 
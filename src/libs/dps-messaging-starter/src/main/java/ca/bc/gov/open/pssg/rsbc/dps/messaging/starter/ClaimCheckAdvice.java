@@ -0,0 +1,59 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+
+import java.util.List;
+
+/**
+ * Listener advice removing claim checked payloads from the store once the listener processed the message.
+ *
+ * Payloads of failed messages are kept for the retries and the parking lot.
+ */
+public class ClaimCheckAdvice implements MethodInterceptor {
+
+    private Logger logger = LoggerFactory.getLogger(ClaimCheckAdvice.class);
+
+    private final ClaimCheckStore claimCheckStore;
+
+    public ClaimCheckAdvice(ClaimCheckStore claimCheckStore) {
+        this.claimCheckStore = claimCheckStore;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+
+        Object result = invocation.proceed();
+
+        Object[] arguments = invocation.getArguments();
+        Object data = arguments.length > 1 ? arguments[1] : null;
+
+        if (data instanceof Message) {
+            release((Message) data);
+        } else if (data instanceof List) {
+            for (Object message : (List<?>) data) {
+                if (message instanceof Message) release((Message) message);
+            }
+        }
+
+        return result;
+    }
+
+    private void release(Message message) {
+
+        String key = ClaimCheckMessageConverter.getClaimCheck(message);
+
+        if (key == null) return;
+
+        try {
+            claimCheckStore.delete(key);
+            logger.debug("Removed claim check [{}]", key);
+        } catch (RuntimeException e) {
+            logger.warn("Could not remove claim check [{}]", key, e);
+        }
+    }
+
+}
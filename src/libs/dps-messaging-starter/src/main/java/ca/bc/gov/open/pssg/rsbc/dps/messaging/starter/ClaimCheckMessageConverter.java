@@ -0,0 +1,109 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+
+import java.lang.reflect.Type;
+import java.text.MessageFormat;
+
+/**
+ * Converts messages with the delegate converter and moves payloads above the threshold to the claim check store.
+ *
+ * Only the store key travels on the queue, in the {@link Keys#X_CLAIM_CHECK_HEADER} header, the message properties
+ * and routing are unchanged. The payload is read back from the store before the listener method is invoked and
+ * removed from the store by {@link ClaimCheckAdvice} once the message is processed.
+ */
+public class ClaimCheckMessageConverter implements SmartMessageConverter {
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private Logger logger = LoggerFactory.getLogger(ClaimCheckMessageConverter.class);
+
+    private final MessageConverter delegate;
+    private final ClaimCheckStore claimCheckStore;
+    private final int threshold;
+
+    /**
+     * @param delegate the converter of the payload
+     * @param claimCheckStore the store of large payloads
+     * @param threshold the size in bytes above which payloads are stored
+     */
+    public ClaimCheckMessageConverter(MessageConverter delegate, ClaimCheckStore claimCheckStore, int threshold) {
+        this.delegate = delegate;
+        this.claimCheckStore = claimCheckStore;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        return checkIn(delegate.toMessage(object, messageProperties));
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties, Type genericType) {
+        return checkIn(delegate.toMessage(object, messageProperties, genericType));
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        return delegate.fromMessage(checkOut(message));
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) {
+
+        Message payload = checkOut(message);
+
+        return delegate instanceof SmartMessageConverter ?
+                ((SmartMessageConverter) delegate).fromMessage(payload, conversionHint) :
+                delegate.fromMessage(payload);
+    }
+
+    private Message checkIn(Message message) {
+
+        if (message.getBody() == null || message.getBody().length <= threshold) return message;
+
+        String key = claimCheckStore.put(message.getBody());
+        logger.debug("Stored payload of {} bytes with claim check [{}]", message.getBody().length, key);
+
+        MessageProperties messageProperties = message.getMessageProperties();
+        messageProperties.setHeader(Keys.X_CLAIM_CHECK_HEADER, key);
+        messageProperties.setContentLength(0);
+
+        return new Message(EMPTY_BODY, messageProperties);
+    }
+
+    private Message checkOut(Message message) {
+
+        String key = getClaimCheck(message);
+
+        if (key == null) return message;
+
+        byte[] payload = claimCheckStore.get(key);
+
+        if (payload == null)
+            throw new MessageConversionException(MessageFormat.format("Claim check [{0}] not found", key));
+
+        logger.debug("Retrieved payload of {} bytes with claim check [{}]", payload.length, key);
+
+        return new Message(payload, message.getMessageProperties());
+    }
+
+    /**
+     * @return the claim check key of the message, null if the payload travels in the message
+     */
+    public static String getClaimCheck(Message message) {
+
+        if (message.getMessageProperties() == null) return null;
+
+        Object key = message.getMessageProperties().getHeaders().get(Keys.X_CLAIM_CHECK_HEADER);
+
+        return key == null ? null : key.toString();
+    }
+
+}
@@ -0,0 +1,46 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Stores message payloads too large to travel on the queue, see {@link ClaimCheckMessageConverter}.
+ */
+public interface ClaimCheckStore {
+
+    /**
+     * @return the key of the stored payload
+     */
+    String put(byte[] payload);
+
+    /**
+     * @return the payload, null if not found
+     */
+    byte[] get(String key);
+
+    void delete(String key);
+
+    /**
+     * Creates a store from existing storage operations, for instance <code>ClaimCheckStore.of(storageService::put,
+     * storageService::get, storageService::delete)</code>
+     */
+    static ClaimCheckStore of(Function<byte[], String> put, Function<String, byte[]> get, Consumer<String> delete) {
+        return new ClaimCheckStore() {
+            @Override
+            public String put(byte[] payload) {
+                return put.apply(payload);
+            }
+
+            @Override
+            public byte[] get(String key) {
+                return get.apply(key);
+            }
+
+            @Override
+            public void delete(String key) {
+                delete.accept(key);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,86 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SmartMessageConverter;
+import org.springframework.util.MimeType;
+
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes messages with the configured converter and reads them with the converter matching their content type.
+ *
+ * Consumers read every registered format, so producers can switch format independently of the consumers. Messages
+ * without a known content type are read with the default reader.
+ */
+public class ContentNegotiatingMessageConverter implements SmartMessageConverter {
+
+    private final Map<String, MessageConverter> readers = new LinkedHashMap<>();
+    private final MessageConverter defaultReader;
+    private final MessageConverter writer;
+
+    /**
+     * @param defaultReader the converter reading messages without a known content type
+     * @param writer the converter writing messages
+     */
+    public ContentNegotiatingMessageConverter(MessageConverter defaultReader, MessageConverter writer) {
+        this.defaultReader = defaultReader;
+        this.writer = writer;
+    }
+
+    /**
+     * Registers the converter reading messages of the content type, parameters such as the charset are ignored.
+     */
+    public ContentNegotiatingMessageConverter withReader(String contentType, MessageConverter reader) {
+        readers.put(getMimeType(contentType), reader);
+        return this;
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        return writer.toMessage(object, messageProperties);
+    }
+
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties, Type genericType) {
+        return writer.toMessage(object, messageProperties, genericType);
+    }
+
+    @Override
+    public Object fromMessage(Message message) {
+        return getReader(message).fromMessage(message);
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) {
+
+        MessageConverter reader = getReader(message);
+
+        return reader instanceof SmartMessageConverter ?
+                ((SmartMessageConverter) reader).fromMessage(message, conversionHint) :
+                reader.fromMessage(message);
+    }
+
+    private MessageConverter getReader(Message message) {
+
+        String contentType = message.getMessageProperties() == null ? null :
+                message.getMessageProperties().getContentType();
+
+        if (contentType == null) return defaultReader;
+
+        return readers.getOrDefault(getMimeType(contentType), defaultReader);
+    }
+
+    private static String getMimeType(String contentType) {
+        try {
+            MimeType mimeType = MimeType.valueOf(contentType);
+            return mimeType.getType() + "/" + mimeType.getSubtype();
+        } catch (IllegalArgumentException e) {
+            return contentType;
+        }
+    }
+
+}
@@ -0,0 +1,9 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+public class DependencyLimitExceededException extends RuntimeException {
+
+    public DependencyLimitExceededException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,88 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent calls made to each downstream dependency, independently of the number of listener
+ * consumers.
+ *
+ * Dependencies without a configured limit are not limited. When a permit cannot be acquired within the timeout a
+ * {@link DependencyLimitExceededException} is thrown, the {@link DpsMessageErrorHandler} then requeues the message
+ * without spending one of its retries. The limits are meant to be set below the number of listener consumers, a limit
+ * equal to the number of consumers is never reached.
+ */
+public class DependencyLimiter {
+
+    private Logger logger = LoggerFactory.getLogger(DependencyLimiter.class);
+
+    private final Map<String, Semaphore> semaphores = new HashMap<>();
+    private final long timeout;
+
+    /**
+     * @param limits the maximum number of concurrent calls keyed by dependency name
+     * @param timeout the maximum time in milliseconds to wait for a permit
+     */
+    public DependencyLimiter(Map<String, Integer> limits, long timeout) {
+        limits.forEach((dependency, limit) -> semaphores.put(dependency, new Semaphore(limit, true)));
+        this.timeout = timeout;
+    }
+
+    public static DependencyLimiter unlimited() {
+        return new DependencyLimiter(Collections.emptyMap(), 0);
+    }
+
+    public <T> T call(String dependency, Supplier<T> supplier) {
+
+        Semaphore semaphore = semaphores.get(dependency);
+
+        if (semaphore == null) return supplier.get();
+
+        acquire(dependency, semaphore);
+
+        try {
+            return supplier.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    public void run(String dependency, Runnable runnable) {
+        call(dependency, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the number of calls that can be made to the dependency right now, -1 if not limited
+     */
+    public int availablePermits(String dependency) {
+        Semaphore semaphore = semaphores.get(dependency);
+        return semaphore == null ? -1 : semaphore.availablePermits();
+    }
+
+    private void acquire(String dependency, Semaphore semaphore) {
+
+        try {
+            if (!semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                logger.warn("Could not acquire a permit for [{}] within {} ms", dependency, timeout);
+                throw new DependencyLimitExceededException(MessageFormat.format(
+                        "Concurrency limit reached for dependency [{0}]", dependency));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DependencyLimitExceededException(MessageFormat.format(
+                    "Interrupted while waiting for dependency [{0}]", dependency));
+        }
+    }
+
+}
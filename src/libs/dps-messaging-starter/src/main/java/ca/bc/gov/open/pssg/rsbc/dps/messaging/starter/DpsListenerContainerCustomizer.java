@@ -0,0 +1,69 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.rabbit.config.ContainerCustomizer;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+
+import java.util.Collections;
+
+/**
+ * Applies the listener settings of {@link DpsMessagingProperties} to each listener container, using the settings of
+ * the first queue the container listens to.
+ */
+public class DpsListenerContainerCustomizer implements ContainerCustomizer<SimpleMessageListenerContainer> {
+
+    private Logger logger = LoggerFactory.getLogger(DpsListenerContainerCustomizer.class);
+
+    private final DpsMessagingProperties dpsMessagingProperties;
+
+    public DpsListenerContainerCustomizer(DpsMessagingProperties dpsMessagingProperties) {
+        this.dpsMessagingProperties = dpsMessagingProperties;
+    }
+
+    @Override
+    public void configure(SimpleMessageListenerContainer container) {
+
+        String[] queueNames = container.getQueueNames();
+        String queueName = queueNames.length > 0 ? queueNames[0] : null;
+
+        DpsMessagingProperties.Listener listener = dpsMessagingProperties.getListener(queueName);
+
+        int concurrentConsumers = listener.getConcurrentConsumers() != null ? listener.getConcurrentConsumers() : 1;
+        int maxConcurrentConsumers = listener.getMaxConcurrentConsumers() != null ?
+                Math.max(listener.getMaxConcurrentConsumers(), concurrentConsumers) : concurrentConsumers;
+
+        // the container validates the consumers against the current bounds, so the max is raised first.
+        container.setMaxConcurrentConsumers(Math.max(maxConcurrentConsumers, 1));
+        container.setConcurrentConsumers(concurrentConsumers);
+        container.setMaxConcurrentConsumers(maxConcurrentConsumers);
+
+        if (listener.getPrefetch() != null) {
+            container.setPrefetchCount(listener.getPrefetch());
+        } else if (dpsMessagingProperties.isFairScheduling()) {
+            // messages prefetched by a consumer waiting for a tenant token are held back from other workers
+            container.setPrefetchCount(1);
+        }
+        if (listener.getBatchSize() != null) container.setBatchSize(listener.getBatchSize());
+        if (listener.getConsecutiveActiveTrigger() != null)
+            container.setConsecutiveActiveTrigger(listener.getConsecutiveActiveTrigger());
+        if (listener.getConsecutiveIdleTrigger() != null)
+            container.setConsecutiveIdleTrigger(listener.getConsecutiveIdleTrigger());
+        if (listener.getStartConsumerMinInterval() != null)
+            container.setStartConsumerMinInterval(listener.getStartConsumerMinInterval());
+        if (listener.getStopConsumerMinInterval() != null)
+            container.setStopConsumerMinInterval(listener.getStopConsumerMinInterval());
+        if (listener.getPriority() != null)
+            container.setConsumerArguments(Collections.singletonMap(Keys.X_PRIORITY_ARG, listener.getPriority()));
+        if (listener.getReceiveTimeout() != null) container.setReceiveTimeout(listener.getReceiveTimeout());
+
+        // batch listeners receive the messages of a consumer batch as one list
+        if (container.getMessageListener() instanceof BatchMessageListener) container.setConsumerBatchEnabled(true);
+
+        logger.info("Listener container for [{}]: consumers [{}-{}], prefetch [{}], batch size [{}], priority [{}]",
+                queueName, concurrentConsumers, maxConcurrentConsumers, listener.getPrefetch(), listener.getBatchSize(),
+                listener.getPriority());
+    }
+
+}
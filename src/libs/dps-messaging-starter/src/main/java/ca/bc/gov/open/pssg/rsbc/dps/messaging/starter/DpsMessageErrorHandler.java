@@ -3,19 +3,62 @@ package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.AmqpRejectAndDontRequeueException;
 import org.springframework.amqp.ImmediateAcknowledgeAmqpException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.util.ErrorHandler;
 
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends failed messages to a retry queue of their attempt, the delay grows with every attempt. Each tier has several
+ * retry queues expiring their messages after slightly shorter delays, a random queue is picked for each retry so
+ * messages that failed together are not all retried at the same time.
+ *
+ * Messages that failed more than retryCount times are moved to the parking lot. Messages that failed because a
+ * {@link DependencyLimiter} permit could not be acquired in time are requeued without spending a retry, the
+ * dependency was not called.
+ *
+ * With publisher confirms enabled a message is only acknowledged once the broker confirmed it was routed to its retry
+ * queue or parking lot. The messages of a consumer batch are handled one by one: a message that cannot be sent to its
+ * retry queue is parked, and the batch is requeued only when a message can be neither retried nor parked.
+ */
 @Component
 @ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
 public class DpsMessageErrorHandler implements ErrorHandler  {
 
         private Logger logger = LoggerFactory.getLogger(DpsMessageErrorHandler.class);
 
+        private final DpsMessagingProperties dpsMessagingProperties;
+
+        private final DpsPublisher dpsPublisher;
+
+        private final DpsMessagingMetrics dpsMessagingMetrics;
+
+        public DpsMessageErrorHandler(DpsMessagingProperties dpsMessagingProperties,
+                                      @Qualifier("parkingLotExchangeRabbitTemplate") RabbitTemplate parkingLotExchangeRabbitTemplate,
+                                      DpsMessagingMetrics dpsMessagingMetrics) {
+            this.dpsMessagingProperties = dpsMessagingProperties;
+            this.dpsPublisher = new DpsPublisher(parkingLotExchangeRabbitTemplate,
+                    dpsMessagingProperties.isPublisherConfirms(), dpsMessagingProperties.getConfirmTimeout(),
+                    dpsMessagingMetrics);
+            this.dpsMessagingMetrics = dpsMessagingMetrics;
+
+            if (!dpsMessagingProperties.isPublisherConfirms())
+                logger.warn("Publisher confirms disabled, failed messages are acknowledged without waiting for the " +
+                        "retry queue");
+        }
+
         @Override
         public void handleError(Throwable t) {
 
@@ -23,14 +66,121 @@ public class DpsMessageErrorHandler implements ErrorHandler  {
 
             if(!(t instanceof ListenerExecutionFailedException)) {
                 logger.error("Error not instance of ListenerExecutionFailedException, the message will be acknowledged and discard from the queue.");
+                dpsMessagingMetrics.discarded(null);
                 MDC.clear();
                 throw new ImmediateAcknowledgeAmqpException(t);
             }
 
+            Collection<Message> messages = ((ListenerExecutionFailedException) t).getFailedMessages();
+
+            if (isDependencyLimitExceeded(t)) {
+                logger.warn("Dependency limit reached, the delivery will be requeued without spending a retry");
+                MDC.clear();
+                messages.forEach(message -> dpsMessagingMetrics.requeued(message == null ||
+                        message.getMessageProperties() == null ? null : message.getMessageProperties().getConsumerQueue()));
+                throw new ImmediateRequeueAmqpException("dependency limit reached, the delivery is requeued", t);
+            }
+
             logger.error("error while processing message.", t.getMessage());
             MDC.clear();
-            throw new AmqpRejectAndDontRequeueException(t);
 
+            // Messages from the ".PL" queue are not retried
+            if(messages.isEmpty() || messages.stream().anyMatch(message -> message == null ||
+                    message.getMessageProperties() == null ||
+                    message.getMessageProperties().getConsumerQueue() == null ||
+                    message.getMessageProperties().getConsumerQueue().endsWith(".PL"))) {
+                messages.forEach(message -> dpsMessagingMetrics.deadLettered(message == null ||
+                        message.getMessageProperties() == null ? null : message.getMessageProperties().getConsumerQueue()));
+                throw new AmqpRejectAndDontRequeueException(t);
+            }
+
+            // the messages of a consumer batch are acknowledged together, each one is retried or parked on its own
+            int failed = 0;
+
+            for (Message message : messages) {
+                if (!retryOrPark(message, t)) failed++;
+            }
+
+            if (failed > 0) {
+                // rejecting to the dead letter queue would retry the messages already sent a second time
+                throw new DpsPublishException(MessageFormat.format("{0} of {1} message(s) could be neither retried " +
+                        "nor parked, the delivery will be requeued", failed, messages.size()));
+            }
+
+            throw new ImmediateAcknowledgeAmqpException(messages.size() == 1 ? "message has been sent to retry queue" :
+                    "messages have been sent to retry queue");
+
+        }
+
+        /**
+         * @return true when the message was sent to its retry queue or the parking lot
+         */
+        private boolean retryOrPark(Message message, Throwable t) {
+
+            String queue = message.getMessageProperties().getConsumerQueue();
+            String routingKey = dpsMessagingProperties.getTenantRoutingKey(queue);
+
+            int retryCount = getRetryCount(message);
+
+            if(retryCount >= dpsMessagingProperties.getRetryCount()) {
+                logger.error("Message has reach retry limit of {} retries and will be moved to parking lot", dpsMessagingProperties.getRetryCount());
+                return park(message, queue, routingKey, t);
+            }
+
+            int delay = getRetryDelay(retryCount);
+            int slot = ThreadLocalRandom.current().nextInt(dpsMessagingProperties.getRetrySlots());
+
+            message.getMessageProperties().setHeader(Keys.X_RETRY_COUNT_HEADER, retryCount + 1);
+
+            try {
+
+                dpsPublisher.send(dpsMessagingProperties.getDeadLetterQueueName(routingKey),
+                        dpsMessagingProperties.getRetryRoutingKey(routingKey, delay, slot), message);
+
+            } catch (AmqpException e) {
+                logger.error("Could not send message to retry queue, message will be moved to parking lot", e);
+                message.getMessageProperties().setHeader(Keys.X_RETRY_COUNT_HEADER, retryCount);
+                return park(message, queue, routingKey, t);
+            }
+
+            dpsMessagingMetrics.retried(queue, delay);
+
+            logger.info("Message will be retried in {} ms, attempt {} of {}", dpsMessagingProperties.getRetryTtl(delay, slot),
+                    retryCount + 1, dpsMessagingProperties.getRetryCount());
+
+            return true;
+        }
+
+        private boolean park(Message message, String queue, String routingKey, Throwable t) {
+
+            ParkingLotHeaders.stamp(message, t.getCause());
+
+            try {
+                dpsPublisher.send(dpsMessagingProperties.getParkingLotQueueName(routingKey), routingKey, message);
+            } catch (AmqpException e) {
+                logger.error("Could not send message to parking lot", e);
+                return false;
+            }
+
+            dpsMessagingMetrics.parked(queue, t.getCause() != null ? t.getCause().getClass().getSimpleName() : null);
+            return true;
+        }
+
+        private static boolean isDependencyLimitExceeded(Throwable t) {
+            for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+                if (cause instanceof DependencyLimitExceededException) return true;
+            }
+            return false;
+        }
+
+        private int getRetryDelay(int retryCount) {
+            List<Integer> retryDelays = dpsMessagingProperties.getRetryTiers();
+            return retryDelays.get(Math.min(retryCount, retryDelays.size() - 1));
+        }
+
+        private static int getRetryCount(Message message) {
+            Object retryCount = message.getMessageProperties().getHeaders().get(Keys.X_RETRY_COUNT_HEADER);
+            return retryCount instanceof Number ? ((Number) retryCount).intValue() : 0;
         }
 
     }
@@ -3,7 +3,6 @@ package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.AmqpException;
-import org.springframework.amqp.ImmediateAcknowledgeAmqpException;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
@@ -24,10 +23,14 @@ public class DpsMessagePostProcessor implements MessagePostProcessor {
 
     private final RabbitTemplate parkingLotExchangeRabbitTemplate;
 
+    private final DpsMessagingMetrics dpsMessagingMetrics;
+
     public DpsMessagePostProcessor(DpsMessagingProperties dpsMessagingProperties,
-                                  @Qualifier("parkingLotExchangeRabbitTemplate")RabbitTemplate parkingLotExchangeRabbitTemplate) {
+                                  @Qualifier("parkingLotExchangeRabbitTemplate")RabbitTemplate parkingLotExchangeRabbitTemplate,
+                                  DpsMessagingMetrics dpsMessagingMetrics) {
         this.dpsMessagingProperties = dpsMessagingProperties;
         this.parkingLotExchangeRabbitTemplate = parkingLotExchangeRabbitTemplate;
+        this.dpsMessagingMetrics = dpsMessagingMetrics;
     }
 
     @Override
@@ -41,8 +44,12 @@ public class DpsMessagePostProcessor implements MessagePostProcessor {
         // process them too many times.
         if(message.getMessageProperties().getConsumerQueue().endsWith(".PL")) return message;
 
+        String queue = message.getMessageProperties().getConsumerQueue();
+
         List<Map<String, ?>> xDeathCollection = message.getMessageProperties().getXDeathHeader();
 
+        dpsMessagingMetrics.recordRetryCount(queue, getRetryCount(message, xDeathCollection));
+
         if(xDeathCollection == null || xDeathCollection.isEmpty()) return message;
 
         Map<String, ?> xDeath = xDeathCollection.get(0);
@@ -52,12 +59,32 @@ public class DpsMessagePostProcessor implements MessagePostProcessor {
 
             logger.error("Message has reach retry limit of {} retries and will be moved to parking lot", dpsMessagingProperties.getRetryCount());
 
-            parkingLotExchangeRabbitTemplate.convertAndSend(dpsMessagingProperties.getRoutingKey(), message);
+            ParkingLotHeaders.stamp(message, null);
+            dpsMessagingMetrics.parked(queue, "retry_limit");
+            String routingKey = dpsMessagingProperties.getTenantRoutingKey(queue);
+            parkingLotExchangeRabbitTemplate.convertAndSend(dpsMessagingProperties.getParkingLotQueueName(routingKey),
+                    routingKey, message);
 
-            throw new ImmediateAcknowledgeAmqpException("message has been put in parking lot");
+            // returning null acknowledges this message only, throwing would also acknowledge the messages already
+            // received for a consumer batch
+            return null;
         }
 
         return message;
     }
 
+    /**
+     * Returns the attempts recorded by the error handler, or by the broker for messages dead lettered without it.
+     */
+    private static long getRetryCount(Message message, List<Map<String, ?>> xDeathCollection) {
+
+        Object retryCount = message.getMessageProperties().getHeaders().get(Keys.X_RETRY_COUNT_HEADER);
+        if(retryCount instanceof Number) return ((Number) retryCount).longValue();
+
+        if(xDeathCollection == null || xDeathCollection.isEmpty() || xDeathCollection.get(0) == null) return 0;
+
+        Object count = xDeathCollection.get(0).get("count");
+        return count instanceof Number ? ((Number) count).longValue() : 0;
+    }
+
 }
@@ -0,0 +1,120 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records listener, retry, parking lot, publish and queue depth metrics, tagged by queue.
+ *
+ * @author alexjoybc@github
+ */
+public class DpsMessagingMetrics {
+
+    public static final String LISTENER_TIMER = "dps.messaging.listener";
+    public static final String RETRY_COUNT_SUMMARY = "dps.messaging.retry.count";
+    public static final String RETRIED_COUNTER = "dps.messaging.retried";
+    public static final String PARKED_COUNTER = "dps.messaging.parked";
+    public static final String DISCARDED_COUNTER = "dps.messaging.discarded";
+    public static final String DEAD_LETTERED_COUNTER = "dps.messaging.dead.lettered";
+    public static final String REQUEUED_COUNTER = "dps.messaging.requeued";
+    public static final String PUBLISH_TIMER = "dps.messaging.publish";
+    public static final String QUEUE_DEPTH_GAUGE = "dps.messaging.queue.depth";
+    public static final String QUEUE_CONSUMERS_GAUGE = "dps.messaging.queue.consumers";
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+
+    private static final String QUEUE_TAG = "queue";
+    private static final String OUTCOME_TAG = "outcome";
+    private static final String REASON_TAG = "reason";
+    private static final String DELAY_TAG = "delay";
+    private static final String ROUTING_KEY_TAG = "routing_key";
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicLong> queueDepths = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> queueConsumers = new ConcurrentHashMap<>();
+
+    public DpsMessagingMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return metrics that are not published anywhere
+     */
+    public static DpsMessagingMetrics noop() {
+        return new DpsMessagingMetrics(new CompositeMeterRegistry());
+    }
+
+    public void recordListener(String queue, String outcome, long elapsedNanos) {
+        Timer.builder(LISTENER_TIMER)
+                .tags(QUEUE_TAG, tagValue(queue), OUTCOME_TAG, outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the number of previous attempts of a received message.
+     */
+    public void recordRetryCount(String queue, long retryCount) {
+        DistributionSummary.builder(RETRY_COUNT_SUMMARY)
+                .tags(QUEUE_TAG, tagValue(queue))
+                .serviceLevelObjectives(0, 1, 2, 3, 4, 5, 10)
+                .register(meterRegistry)
+                .record(retryCount);
+    }
+
+    public void retried(String queue, int delay) {
+        meterRegistry.counter(RETRIED_COUNTER, QUEUE_TAG, tagValue(queue), DELAY_TAG, String.valueOf(delay)).increment();
+    }
+
+    public void parked(String queue, String reason) {
+        meterRegistry.counter(PARKED_COUNTER, QUEUE_TAG, tagValue(queue), REASON_TAG, tagValue(reason)).increment();
+    }
+
+    public void discarded(String queue) {
+        meterRegistry.counter(DISCARDED_COUNTER, QUEUE_TAG, tagValue(queue)).increment();
+    }
+
+    public void deadLettered(String queue) {
+        meterRegistry.counter(DEAD_LETTERED_COUNTER, QUEUE_TAG, tagValue(queue)).increment();
+    }
+
+    public void requeued(String queue) {
+        meterRegistry.counter(REQUEUED_COUNTER, QUEUE_TAG, tagValue(queue)).increment();
+    }
+
+    public void recordPublish(String routingKey, String outcome, long elapsedNanos) {
+        Timer.builder(PUBLISH_TIMER)
+                .tags(ROUTING_KEY_TAG, tagValue(routingKey), OUTCOME_TAG, outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Updates the last polled depth and consumer count of the queue, registering the gauges on first use.
+     */
+    public void updateQueue(String queue, long depth, long consumers) {
+        queueDepths.computeIfAbsent(queue, name -> registerGauge(QUEUE_DEPTH_GAUGE, name)).set(depth);
+        queueConsumers.computeIfAbsent(queue, name -> registerGauge(QUEUE_CONSUMERS_GAUGE, name)).set(consumers);
+    }
+
+    private AtomicLong registerGauge(String gauge, String queue) {
+        AtomicLong value = new AtomicLong();
+        Gauge.builder(gauge, value, AtomicLong::get).tags(QUEUE_TAG, queue).register(meterRegistry);
+        return value;
+    }
+
+    private static String tagValue(String value) {
+        return value == null ? UNKNOWN : value;
+    }
+
+}
@@ -3,6 +3,13 @@ package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 
 @ConfigurationProperties(prefix = "dps.messaging")
 public class DpsMessagingProperties {
@@ -11,7 +18,26 @@ public class DpsMessagingProperties {
     private String routingKey;
     private int retryCount;
     private int retryDelay;
+    private List<Integer> retryDelays = new ArrayList<>();
+    private double retryJitter = 0.2;
+    private int retryJitterSlots = 4;
     private String type;
+    private Listener listener = new Listener();
+    private Map<String, Listener> queues = new HashMap<>();
+    private QueueSettings queue = new QueueSettings();
+    private QueueSettings parkingLotQueue = new QueueSettings();
+    private Map<String, Integer> limits = new HashMap<>();
+    private long limitTimeout = 30000;
+    private boolean publisherConfirms;
+    private long confirmTimeout = 5000;
+    private boolean claimCheckEnabled;
+    private String messageFormat = Keys.MESSAGE_FORMAT_JSON;
+    private double replayRate = 10;
+    private boolean replayEndpointEnabled;
+    private long queueDepthPollInterval = 15000;
+    private Map<String, Integer> tenants = new HashMap<>();
+    private int tenantConcurrency = 4;
+    private int claimCheckThreshold = 16384;
 
     public String getExchangeName() {
         return exchangeName;
@@ -45,6 +71,72 @@ public class DpsMessagingProperties {
         this.retryDelay = retryDelay;
     }
 
+    /**
+     * The delay in seconds of each retry tier, attempts beyond the last tier use the last tier delay, for instance
+     * <code>dps.messaging.retry-delays=5,30,120,600</code>
+     *
+     * @return
+     */
+    public List<Integer> getRetryDelays() {
+        return retryDelays;
+    }
+
+    public void setRetryDelays(List<Integer> retryDelays) {
+        this.retryDelays = retryDelays;
+    }
+
+    /**
+     * @return the retry tier delays, defaults to a single tier of retryDelay
+     */
+    public List<Integer> getRetryTiers() {
+        return retryDelays == null || retryDelays.isEmpty() ? Collections.singletonList(retryDelay) : retryDelays;
+    }
+
+    /**
+     * @return the maximum fraction of the retry delay randomly removed from each retry
+     */
+    public double getRetryJitter() {
+        return retryJitter;
+    }
+
+    public void setRetryJitter(double retryJitter) {
+        this.retryJitter = retryJitter;
+    }
+
+    /**
+     * The number of retry queues of each tier, the jitter is applied by sending each retry to one of the queues at
+     * random. The queues of a tier expire their messages after the tier delay reduced by an increasing part of the
+     * jitter, messages are never given their own expiration so a queue always expires them in order.
+     *
+     * @return
+     */
+    public int getRetryJitterSlots() {
+        return retryJitterSlots;
+    }
+
+    public void setRetryJitterSlots(int retryJitterSlots) {
+        this.retryJitterSlots = retryJitterSlots;
+    }
+
+    /**
+     * @return the number of retry queues declared for each tier, 1 when the jitter is disabled
+     */
+    public int getRetrySlots() {
+        return retryJitter > 0 && retryJitterSlots > 1 ? retryJitterSlots : 1;
+    }
+
+    /**
+     * Returns the time to live in milliseconds of a retry queue, the tier delay reduced by the slot part of the jitter.
+     *
+     * @param delay the tier delay in seconds
+     * @param slot
+     * @return
+     */
+    public long getRetryTtl(int delay, int slot) {
+        long ttl = Duration.ofSeconds(delay).toMillis();
+        return ttl - (long) (ttl * retryJitter * slot / getRetrySlots());
+    }
+
     public String getType() {
         return type;
     }
@@ -53,16 +145,498 @@ public class DpsMessagingProperties {
         this.type = type;
     }
 
+    /**
+     * @return the listener container settings applied to every queue
+     */
+    public Listener getListener() {
+        return listener;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Listener container settings overriding {@link #getListener()} for a queue, keyed by queue name, for instance
+     * <code>dps.messaging.queues[CRRP.notification.Q].max-concurrent-consumers=4</code>
+     *
+     * @return
+     */
+    public Map<String, Listener> getQueues() {
+        return queues;
+    }
+
+    public void setQueues(Map<String, Listener> queues) {
+        this.queues = queues;
+    }
+
+    /**
+     * @return the declaration settings of the main, dead letter and retry queues
+     */
+    public QueueSettings getQueue() {
+        return queue;
+    }
+
+    public void setQueue(QueueSettings queue) {
+        this.queue = queue;
+    }
+
+    /**
+     * @return the declaration settings of the parking lot queue, unset values fallback on {@link #getQueue()}
+     */
+    public QueueSettings getParkingLotQueue() {
+        return parkingLotQueue;
+    }
+
+    public void setParkingLotQueue(QueueSettings parkingLotQueue) {
+        this.parkingLotQueue = parkingLotQueue;
+    }
+
+    /**
+     * @return the maximum number of concurrent calls keyed by downstream dependency name
+     */
+    public Map<String, Integer> getLimits() {
+        return limits;
+    }
+
+    public void setLimits(Map<String, Integer> limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for a dependency permit
+     */
+    public long getLimitTimeout() {
+        return limitTimeout;
+    }
+
+    public void setLimitTimeout(long limitTimeout) {
+        this.limitTimeout = limitTimeout;
+    }
+
+    /**
+     * @return true when published messages are confirmed by the broker and returned when unroutable, false by default
+     */
+    public boolean isPublisherConfirms() {
+        return publisherConfirms;
+    }
+
+    public void setPublisherConfirms(boolean publisherConfirms) {
+        this.publisherConfirms = publisherConfirms;
+    }
+
+    /**
+     * @return the maximum time in milliseconds to wait for the confirms of a publish
+     */
+    public long getConfirmTimeout() {
+        return confirmTimeout;
+    }
+
+    public void setConfirmTimeout(long confirmTimeout) {
+        this.confirmTimeout = confirmTimeout;
+    }
+
+    /**
+     * @return true when large payloads are moved to the claim check store, requires a {@link ClaimCheckStore} bean
+     */
+    public boolean isClaimCheckEnabled() {
+        return claimCheckEnabled;
+    }
+
+    public void setClaimCheckEnabled(boolean claimCheckEnabled) {
+        this.claimCheckEnabled = claimCheckEnabled;
+    }
+
+    /**
+     * @return the payload size in bytes above which payloads are moved to the claim check store
+     */
+    public int getClaimCheckThreshold() {
+        return claimCheckThreshold;
+    }
+
+    public void setClaimCheckThreshold(int claimCheckThreshold) {
+        this.claimCheckThreshold = claimCheckThreshold;
+    }
+
+    /**
+     * @return the format of published messages, json or smile, consumers read both formats
+     */
+    public String getMessageFormat() {
+        return messageFormat;
+    }
+
+    public void setMessageFormat(String messageFormat) {
+        this.messageFormat = messageFormat;
+    }
+
+    /**
+     * @return the default maximum number of parked messages replayed per second
+     */
+    public double getReplayRate() {
+        return replayRate;
+    }
+
+    public void setReplayRate(double replayRate) {
+        this.replayRate = replayRate;
+    }
+
+    /**
+     * @return true when consumers expose the /parking-lot/replay endpoint, consumers handling their parked messages
+     * leave them in the parking lot for a replay
+     */
+    public boolean isReplayEndpointEnabled() {
+        return replayEndpointEnabled;
+    }
+
+    public void setReplayEndpointEnabled(boolean replayEndpointEnabled) {
+        this.replayEndpointEnabled = replayEndpointEnabled;
+    }
+
+    /**
+     * @return the time in milliseconds between two polls of the queue depth gauges
+     */
+    public long getQueueDepthPollInterval() {
+        return queueDepthPollInterval;
+    }
+
+    public void setQueueDepthPollInterval(long queueDepthPollInterval) {
+        this.queueDepthPollInterval = queueDepthPollInterval;
+    }
+
+    /**
+     * Additional tenants consumed by this worker, the weight of each tenant keyed by its routing key, for instance
+     * <code>dps.messaging.tenants.VIPS=3</code>. The routing key of this worker is always a tenant and has a weight of
+     * 1 unless configured here.
+     *
+     * @return
+     */
+    public Map<String, Integer> getTenants() {
+        return tenants;
+    }
+
+    public void setTenants(Map<String, Integer> tenants) {
+        this.tenants = tenants;
+    }
+
+    /**
+     * @return the number of messages processed at the same time across all the tenant queues
+     */
+    public int getTenantConcurrency() {
+        return tenantConcurrency;
+    }
+
+    public void setTenantConcurrency(int tenantConcurrency) {
+        this.tenantConcurrency = tenantConcurrency;
+    }
+
+    /**
+     * @return true when messages of several tenants are consumed and scheduled fairly
+     */
+    public boolean isFairScheduling() {
+        return tenants != null && !tenants.isEmpty();
+    }
+
+    /**
+     * @return the routing key of this worker followed by the routing keys of the additional tenants
+     */
+    public List<String> getTenantRoutingKeys() {
+        LinkedHashSet<String> result = new LinkedHashSet<>();
+        result.add(routingKey);
+        if (tenants != null) result.addAll(tenants.keySet());
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Returns the tenant routing key of a main queue, falling back on the routing key of this worker.
+     *
+     * @param queueName
+     * @return
+     */
+    public String getTenantRoutingKey(String queueName) {
+        return getTenantRoutingKeys().stream()
+                .filter(tenant -> getMainQueueName(tenant).equals(queueName))
+                .findFirst()
+                .orElse(routingKey);
+    }
+
+    /**
+     * Returns the listener settings of the queue, falling back on the default listener settings.
+     *
+     * @param queueName
+     * @return
+     */
+    public Listener getListener(String queueName) {
+        Listener override = queues.get(queueName);
+        return override == null ? listener : override.mergeWith(listener);
+    }
+
     public String getMainQueueName() {
+        return getMainQueueName(routingKey);
+    }
+
+    public String getMainQueueName(String routingKey) {
         return MessageFormat.format("{0}.{1}.Q", routingKey, exchangeName);
     }
 
     public String getDeadLetterQueueName() {
+        return getDeadLetterQueueName(routingKey);
+    }
+
+    public String getDeadLetterQueueName(String routingKey) {
         return MessageFormat.format("{0}.{1}.DLQ", routingKey, exchangeName);
     }
 
     public String getParkingLotQueueName() {
+        return getParkingLotQueueName(routingKey);
+    }
+
+    public String getParkingLotQueueName(String routingKey) {
         return MessageFormat.format("{0}.{1}.PL", routingKey, exchangeName);
     }
 
+    public String getRetryQueueName(int delay) {
+        return getRetryQueueName(routingKey, delay);
+    }
+
+    public String getRetryQueueName(String routingKey, int delay) {
+        return MessageFormat.format("{0}.{1}s", getDeadLetterQueueName(routingKey), String.valueOf(delay));
+    }
+
+    public String getRetryRoutingKey(int delay) {
+        return getRetryRoutingKey(routingKey, delay);
+    }
+
+    public String getRetryRoutingKey(String routingKey, int delay) {
+        return MessageFormat.format("{0}.retry.{1}s", routingKey, String.valueOf(delay));
+    }
+
+    public String getRetryQueueName(String routingKey, int delay, int slot) {
+        return slot == 0 ? getRetryQueueName(routingKey, delay) :
+                MessageFormat.format("{0}.{1}", getRetryQueueName(routingKey, delay), String.valueOf(slot));
+    }
+
+    public String getRetryRoutingKey(String routingKey, int delay, int slot) {
+        return slot == 0 ? getRetryRoutingKey(routingKey, delay) :
+                MessageFormat.format("{0}.{1}", getRetryRoutingKey(routingKey, delay), String.valueOf(slot));
+    }
+
+    /**
+     * Listener container settings, unset values fallback on the framework defaults.
+     *
+     * Consumers are started between concurrentConsumers and maxConcurrentConsumers when messages keep being available,
+     * see consecutiveActiveTrigger and startConsumerMinInterval, and stopped when idle.
+     */
+    public static class Listener {
+
+        private Integer concurrentConsumers;
+        private Integer maxConcurrentConsumers;
+        private Integer prefetch;
+        private Integer batchSize;
+        private Integer consecutiveActiveTrigger;
+        private Integer consecutiveIdleTrigger;
+        private Long startConsumerMinInterval;
+        private Long stopConsumerMinInterval;
+        private Integer priority;
+        private Long receiveTimeout;
+
+        public Integer getConcurrentConsumers() {
+            return concurrentConsumers;
+        }
+
+        public void setConcurrentConsumers(Integer concurrentConsumers) {
+            this.concurrentConsumers = concurrentConsumers;
+        }
+
+        public Integer getMaxConcurrentConsumers() {
+            return maxConcurrentConsumers;
+        }
+
+        public void setMaxConcurrentConsumers(Integer maxConcurrentConsumers) {
+            this.maxConcurrentConsumers = maxConcurrentConsumers;
+        }
+
+        public Integer getPrefetch() {
+            return prefetch;
+        }
+
+        public void setPrefetch(Integer prefetch) {
+            this.prefetch = prefetch;
+        }
+
+        /**
+         * @return the number of messages acknowledged together, a failure rejects all the unacknowledged messages
+         */
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Integer getConsecutiveActiveTrigger() {
+            return consecutiveActiveTrigger;
+        }
+
+        public void setConsecutiveActiveTrigger(Integer consecutiveActiveTrigger) {
+            this.consecutiveActiveTrigger = consecutiveActiveTrigger;
+        }
+
+        public Integer getConsecutiveIdleTrigger() {
+            return consecutiveIdleTrigger;
+        }
+
+        public void setConsecutiveIdleTrigger(Integer consecutiveIdleTrigger) {
+            this.consecutiveIdleTrigger = consecutiveIdleTrigger;
+        }
+
+        /**
+         * @return the minimum time in milliseconds between two consumer starts
+         */
+        public Long getStartConsumerMinInterval() {
+            return startConsumerMinInterval;
+        }
+
+        public void setStartConsumerMinInterval(Long startConsumerMinInterval) {
+            this.startConsumerMinInterval = startConsumerMinInterval;
+        }
+
+        /**
+         * @return the minimum time in milliseconds between two consumer stops
+         */
+        public Long getStopConsumerMinInterval() {
+            return stopConsumerMinInterval;
+        }
+
+        public void setStopConsumerMinInterval(Long stopConsumerMinInterval) {
+            this.stopConsumerMinInterval = stopConsumerMinInterval;
+        }
+
+        /**
+         * @return the consumer priority, messages are delivered to lower priority consumers only when higher
+         * priority consumers are busy
+         */
+        public Integer getPriority() {
+            return priority;
+        }
+
+        public void setPriority(Integer priority) {
+            this.priority = priority;
+        }
+
+        /**
+         * @return the time in milliseconds a consumer waits for the next message before delivering a partial batch
+         */
+        public Long getReceiveTimeout() {
+            return receiveTimeout;
+        }
+
+        public void setReceiveTimeout(Long receiveTimeout) {
+            this.receiveTimeout = receiveTimeout;
+        }
+
+        /**
+         * Returns a copy of this listener where unset values are taken from the defaults.
+         *
+         * @param defaults
+         * @return
+         */
+        public Listener mergeWith(Listener defaults) {
+            Listener result = new Listener();
+            result.setConcurrentConsumers(valueOrDefault(concurrentConsumers, defaults.getConcurrentConsumers()));
+            result.setMaxConcurrentConsumers(valueOrDefault(maxConcurrentConsumers, defaults.getMaxConcurrentConsumers()));
+            result.setPrefetch(valueOrDefault(prefetch, defaults.getPrefetch()));
+            result.setBatchSize(valueOrDefault(batchSize, defaults.getBatchSize()));
+            result.setConsecutiveActiveTrigger(valueOrDefault(consecutiveActiveTrigger, defaults.getConsecutiveActiveTrigger()));
+            result.setConsecutiveIdleTrigger(valueOrDefault(consecutiveIdleTrigger, defaults.getConsecutiveIdleTrigger()));
+            result.setStartConsumerMinInterval(valueOrDefault(startConsumerMinInterval, defaults.getStartConsumerMinInterval()));
+            result.setStopConsumerMinInterval(valueOrDefault(stopConsumerMinInterval, defaults.getStopConsumerMinInterval()));
+            result.setPriority(valueOrDefault(priority, defaults.getPriority()));
+            result.setReceiveTimeout(valueOrDefault(receiveTimeout, defaults.getReceiveTimeout()));
+            return result;
+        }
+
+    }
+
+    /**
+     * Queue declaration settings, unset values are not declared and fallback on the broker defaults.
+     *
+     * The arguments of an existing queue cannot be changed, the queue must be deleted or the settings applied with a
+     * broker policy. Stream queues are rejected: they do not support dead lettering, and the parking lot replay reads
+     * messages with basic.get and acknowledges them, which streams do not support.
+     */
+    public static class QueueSettings {
+
+        private String type;
+        private Boolean lazy;
+        private Long maxLength;
+        private String overflow;
+
+        /**
+         * @return the queue type, classic or quorum
+         */
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            if (Keys.QUEUE_TYPE_STREAM.equalsIgnoreCase(type))
+                throw new IllegalArgumentException("stream queues are not supported, use classic or quorum");
+            this.type = type;
+        }
+
+        /**
+         * @return true to keep the messages of a classic queue on disk instead of memory
+         */
+        public Boolean getLazy() {
+            return lazy;
+        }
+
+        public void setLazy(Boolean lazy) {
+            this.lazy = lazy;
+        }
+
+        /**
+         * @return the maximum number of ready messages in the queue
+         */
+        public Long getMaxLength() {
+            return maxLength;
+        }
+
+        public void setMaxLength(Long maxLength) {
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * @return the behaviour when the queue is full, drop-head, reject-publish or reject-publish-dlx
+         */
+        public String getOverflow() {
+            return overflow;
+        }
+
+        public void setOverflow(String overflow) {
+            this.overflow = overflow;
+        }
+
+        /**
+         * Returns a copy of these settings where unset values are taken from the defaults.
+         *
+         * @param defaults
+         * @return
+         */
+        public QueueSettings mergeWith(QueueSettings defaults) {
+            QueueSettings result = new QueueSettings();
+            result.setType(valueOrDefault(type, defaults.getType()));
+            result.setLazy(valueOrDefault(lazy, defaults.getLazy()));
+            result.setMaxLength(valueOrDefault(maxLength, defaults.getMaxLength()));
+            result.setOverflow(valueOrDefault(overflow, defaults.getOverflow()));
+            return result;
+        }
+
+    }
+
+    private static <T> T valueOrDefault(T value, T defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
 }
@@ -0,0 +1,18 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.springframework.amqp.AmqpException;
+
+/**
+ * Thrown when the broker did not confirm a published message.
+ */
+public class DpsPublishException extends AmqpException {
+
+    public DpsPublishException(String message) {
+        super(message);
+    }
+
+    public DpsPublishException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
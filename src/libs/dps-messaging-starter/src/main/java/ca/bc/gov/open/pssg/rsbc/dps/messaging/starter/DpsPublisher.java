@@ -0,0 +1,171 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes messages to the main exchange and waits for the broker to confirm them.
+ *
+ * Messages of a batch are all sent before waiting, the confirms are then collected together within a single timeout.
+ * A message is confirmed when the broker acknowledged it and it was routed to at least one queue. When publisher
+ * confirms are disabled messages are sent without waiting.
+ */
+public class DpsPublisher {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final RabbitTemplate rabbitTemplate;
+    private final boolean publisherConfirms;
+    private final long confirmTimeout;
+    private final DpsMessagingMetrics dpsMessagingMetrics;
+
+    /**
+     * @param rabbitTemplate the template used to publish
+     * @param publisherConfirms true when the connection factory has correlated publisher confirms enabled
+     * @param confirmTimeout the maximum time in milliseconds to wait for the confirms of a batch
+     */
+    public DpsPublisher(RabbitTemplate rabbitTemplate, boolean publisherConfirms, long confirmTimeout) {
+        this(rabbitTemplate, publisherConfirms, confirmTimeout, DpsMessagingMetrics.noop());
+    }
+
+    public DpsPublisher(RabbitTemplate rabbitTemplate, boolean publisherConfirms, long confirmTimeout,
+                        DpsMessagingMetrics dpsMessagingMetrics) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.publisherConfirms = publisherConfirms;
+        this.confirmTimeout = confirmTimeout;
+        this.dpsMessagingMetrics = dpsMessagingMetrics;
+    }
+
+    /**
+     * Publishes the message and waits for its confirm.
+     *
+     * @param routingKey
+     * @param message
+     * @throws DpsPublishException when the message is not confirmed
+     */
+    public void publish(String routingKey, Object message) {
+        publishAll(routingKey, Collections.singletonList(message));
+    }
+
+    /**
+     * Publishes every message then waits for all the confirms.
+     *
+     * @param routingKey
+     * @param messages
+     * @throws DpsPublishException when a message is not confirmed
+     */
+    public void publishAll(String routingKey, List<?> messages) {
+
+        long start = System.nanoTime();
+        String outcome = DpsMessagingMetrics.FAILURE;
+
+        try {
+            doPublishAll(routingKey, messages);
+            outcome = DpsMessagingMetrics.SUCCESS;
+        } finally {
+            dpsMessagingMetrics.recordPublish(routingKey, outcome, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Sends an already converted message to an exchange and waits for its confirm.
+     *
+     * @param exchange
+     * @param routingKey
+     * @param message
+     * @throws DpsPublishException when the message is not confirmed
+     */
+    public void send(String exchange, String routingKey, Message message) {
+
+        long start = System.nanoTime();
+        String outcome = DpsMessagingMetrics.FAILURE;
+
+        try {
+
+            if (publisherConfirms) {
+                CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+                rabbitTemplate.send(exchange, routingKey, message, correlationData);
+                awaitConfirm(correlationData, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeout));
+            } else {
+                rabbitTemplate.send(exchange, routingKey, message);
+            }
+
+            outcome = DpsMessagingMetrics.SUCCESS;
+
+        } finally {
+            dpsMessagingMetrics.recordPublish(routingKey, outcome, System.nanoTime() - start);
+        }
+    }
+
+    private void doPublishAll(String routingKey, List<?> messages) {
+
+        if (!publisherConfirms) {
+            messages.forEach(message -> rabbitTemplate.convertAndSend(routingKey, message));
+            return;
+        }
+
+        List<CorrelationData> pendingConfirms = new ArrayList<>(messages.size());
+
+        for (Object message : messages) {
+            CorrelationData correlationData = new CorrelationData(UUID.randomUUID().toString());
+            rabbitTemplate.convertAndSend(routingKey, message, correlationData);
+            pendingConfirms.add(correlationData);
+        }
+
+        logger.debug("Published {} message(s) with key [{}], waiting for confirms", messages.size(), routingKey);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeout);
+
+        for (CorrelationData correlationData : pendingConfirms) {
+            awaitConfirm(correlationData, deadline);
+        }
+
+        logger.info("Successfully confirmed {} message(s) with key [{}]", messages.size(), routingKey);
+    }
+
+    private void awaitConfirm(CorrelationData correlationData, long deadline) {
+
+        CorrelationData.Confirm confirm;
+
+        try {
+            confirm = correlationData.getFuture().get(Math.max(0, deadline - System.nanoTime()),
+                    TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new DpsPublishException(MessageFormat.format("Message [{0}] not confirmed within {1} ms",
+                    correlationData.getId(), confirmTimeout));
+        } catch (ExecutionException e) {
+            throw new DpsPublishException(MessageFormat.format("Message [{0}] confirm failed",
+                    correlationData.getId()), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DpsPublishException(MessageFormat.format("Interrupted while waiting for message [{0}] confirm",
+                    correlationData.getId()), e);
+        }
+
+        if (!confirm.isAck()) {
+            throw new DpsPublishException(MessageFormat.format("Message [{0}] rejected by the broker: {1}",
+                    correlationData.getId(), confirm.getReason()));
+        }
+
+        ReturnedMessage returned = correlationData.getReturned();
+
+        if (returned != null) {
+            throw new DpsPublishException(MessageFormat.format("Message [{0}] not routed with key [{1}]: {2}",
+                    correlationData.getId(), returned.getRoutingKey(), returned.getReplyText()));
+        }
+    }
+
+}
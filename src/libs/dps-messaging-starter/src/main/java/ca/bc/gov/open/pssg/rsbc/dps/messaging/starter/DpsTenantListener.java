@@ -0,0 +1,26 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a listener method consuming the main queue of every tenant, see {@link DpsMessagingProperties#getTenants()}.
+ *
+ * A listener container is registered per tenant main queue, so the consumers and prefetch of each tenant can be set
+ * with <code>dps.messaging.queues</code>, and messages are processed within the shared tenant concurrency.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface DpsTenantListener {
+
+    /**
+     * @return whether the tenant containers start with the application context, supports property placeholders and
+     * SpEL expressions, the container factory setting is used when empty
+     */
+    String autoStartup() default "";
+
+}
@@ -0,0 +1,53 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+
+import java.util.List;
+
+/**
+ * Listener advice holding a {@link TenantScheduler} token while a message of a tenant main queue is processed.
+ *
+ * Messages of other queues, such as the parking lot, are processed without a token.
+ */
+public class FairSchedulingAdvice implements MethodInterceptor {
+
+    private final TenantScheduler tenantScheduler;
+    private final DpsMessagingProperties dpsMessagingProperties;
+
+    public FairSchedulingAdvice(TenantScheduler tenantScheduler, DpsMessagingProperties dpsMessagingProperties) {
+        this.tenantScheduler = tenantScheduler;
+        this.dpsMessagingProperties = dpsMessagingProperties;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+
+        Object[] arguments = invocation.getArguments();
+        String tenant = getTenant(arguments.length > 1 ? arguments[1] : null);
+
+        if (tenant == null) return invocation.proceed();
+
+        tenantScheduler.acquire(tenant);
+
+        try {
+            return invocation.proceed();
+        } finally {
+            tenantScheduler.release(tenant);
+        }
+    }
+
+    private String getTenant(Object data) {
+
+        if (data instanceof List && !((List<?>) data).isEmpty()) data = ((List<?>) data).get(0);
+
+        if (!(data instanceof Message) || ((Message) data).getMessageProperties() == null) return null;
+
+        String queue = ((Message) data).getMessageProperties().getConsumerQueue();
+        String tenant = dpsMessagingProperties.getTenantRoutingKey(queue);
+
+        return dpsMessagingProperties.getMainQueueName(tenant).equals(queue) ? tenant : null;
+    }
+
+}
@@ -3,6 +3,54 @@ package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
 public class Keys {
 
     public static final String X_DEAD_LETTER_EXCHANGE_ARG = "x-dead-letter-exchange";
+    public static final String X_DEAD_LETTER_ROUTING_KEY_ARG = "x-dead-letter-routing-key";
     public static final String X_MESSAGE_TTL_ARG = "x-message-ttl";
+    public static final String X_QUEUE_TYPE_ARG = "x-queue-type";
+    public static final String X_QUEUE_MODE_ARG = "x-queue-mode";
+    public static final String X_MAX_LENGTH_ARG = "x-max-length";
+    public static final String X_OVERFLOW_ARG = "x-overflow";
+    public static final String X_PRIORITY_ARG = "x-priority";
+
+    public static final String QUEUE_TYPE_CLASSIC = "classic";
+    public static final String QUEUE_TYPE_STREAM = "stream";
+    public static final String QUEUE_MODE_LAZY = "lazy";
+
+    public static final String MESSAGE_FORMAT_JSON = "json";
+    public static final String MESSAGE_FORMAT_SMILE = "smile";
+
+    /**
+     * The number of times a message has been sent to a retry queue
+     */
+    public static final String X_RETRY_COUNT_HEADER = "x-dps-retry-count";
+
+    /**
+     * The claim check store key of a payload that does not travel in the message
+     */
+    public static final String X_CLAIM_CHECK_HEADER = "x-dps-claim-check";
+
+    /**
+     * The time in epoch milliseconds a message was moved to the parking lot
+     */
+    public static final String X_PARKED_AT_HEADER = "x-dps-parked-at";
+
+    /**
+     * The simple class name of the exception that moved a message to the parking lot
+     */
+    public static final String X_ERROR_TYPE_HEADER = "x-dps-error-type";
+
+    /**
+     * The routing key a parked message was received with
+     */
+    public static final String X_ORIGINAL_ROUTING_KEY_HEADER = "x-dps-original-routing-key";
+
+    /**
+     * The tenant a message was published for
+     */
+    public static final String X_TENANT_HEADER = "x-dps-tenant";
+
+    /**
+     * The prefix of the headers holding the time in epoch milliseconds a document reached a stage of the pipeline
+     */
+    public static final String X_STAGE_TIMESTAMP_HEADER_PREFIX = "x-dps-ts-";
 
 }
@@ -0,0 +1,45 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.amqp.core.Message;
+
+import java.util.List;
+
+/**
+ * Listener advice timing the processing of messages by queue and outcome.
+ */
+public class ListenerMetricsAdvice implements MethodInterceptor {
+
+    private final DpsMessagingMetrics dpsMessagingMetrics;
+
+    public ListenerMetricsAdvice(DpsMessagingMetrics dpsMessagingMetrics) {
+        this.dpsMessagingMetrics = dpsMessagingMetrics;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+
+        long start = System.nanoTime();
+        String outcome = DpsMessagingMetrics.FAILURE;
+
+        try {
+            Object result = invocation.proceed();
+            outcome = DpsMessagingMetrics.SUCCESS;
+            return result;
+        } finally {
+            Object[] arguments = invocation.getArguments();
+            dpsMessagingMetrics.recordListener(getQueue(arguments.length > 1 ? arguments[1] : null), outcome,
+                    System.nanoTime() - start);
+        }
+    }
+
+    private static String getQueue(Object data) {
+
+        if (data instanceof List && !((List<?>) data).isEmpty()) data = ((List<?>) data).get(0);
+
+        return data instanceof Message && ((Message) data).getMessageProperties() != null ?
+                ((Message) data).getMessageProperties().getConsumerQueue() : null;
+    }
+
+}
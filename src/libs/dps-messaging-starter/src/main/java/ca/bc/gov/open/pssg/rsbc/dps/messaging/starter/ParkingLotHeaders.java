@@ -0,0 +1,27 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+/**
+ * Records why and when a message was parked, used to filter parking lot replays.
+ */
+final class ParkingLotHeaders {
+
+    private ParkingLotHeaders() {}
+
+    static void stamp(Message message, Throwable cause) {
+
+        MessageProperties messageProperties = message.getMessageProperties();
+
+        messageProperties.setHeader(Keys.X_PARKED_AT_HEADER, System.currentTimeMillis());
+
+        if (cause != null)
+            messageProperties.setHeader(Keys.X_ERROR_TYPE_HEADER, cause.getClass().getSimpleName());
+
+        if (messageProperties.getReceivedRoutingKey() != null &&
+                !messageProperties.getHeaders().containsKey(Keys.X_ORIGINAL_ROUTING_KEY_HEADER))
+            messageProperties.setHeader(Keys.X_ORIGINAL_ROUTING_KEY_HEADER, messageProperties.getReceivedRoutingKey());
+    }
+
+}
@@ -0,0 +1,76 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+/**
+ * Starts and monitors parking lot replays, exposed by consumers when dps.messaging.replay-endpoint-enabled is set.
+ */
+@RestController
+@ConditionalOnClass(name = "org.springframework.web.bind.annotation.RestController")
+@ConditionalOnExpression("'${dps.messaging.type:}' == 'consumer' and ${dps.messaging.replay-endpoint-enabled:false}")
+public class ParkingLotReplayController {
+
+    private Logger logger = LoggerFactory.getLogger(ParkingLotReplayController.class);
+
+    private final ParkingLotReplayer parkingLotReplayer;
+
+    public ParkingLotReplayController(ParkingLotReplayer parkingLotReplayer) {
+        this.parkingLotReplayer = parkingLotReplayer;
+    }
+
+    @PostMapping(path = "/parking-lot/replay", produces = "application/json")
+    public ResponseEntity<ReplayProgress> replay(
+            @RequestParam(name = "routingKey", required = false) String routingKey,
+            @RequestParam(name = "errorType", required = false) String errorType,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "rate", required = false) Double rate) {
+
+        ReplayFilter filter = new ReplayFilter();
+        filter.setRoutingKey(routingKey);
+        filter.setErrorType(errorType);
+        filter.setFrom(from);
+        filter.setTo(to);
+        filter.setLimit(limit);
+
+        boolean started;
+
+        try {
+            started = parkingLotReplayer.start(filter, rate);
+        } catch (IllegalArgumentException e) {
+            logger.error("Parking lot replay not scheduled: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        if (!started) {
+            logger.info("Parking lot replay is already running, not scheduling a new one.");
+            return new ResponseEntity<>(parkingLotReplayer.getProgress(), HttpStatus.CONFLICT);
+        }
+
+        logger.info("Parking lot replay has been scheduled to run in the background.");
+
+        return new ResponseEntity<>(parkingLotReplayer.getProgress(), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping(path = "/parking-lot/replay", produces = "application/json")
+    public ResponseEntity<ReplayProgress> getReplay() {
+
+        ReplayProgress progress = parkingLotReplayer.getProgress();
+
+        return progress == null ? new ResponseEntity<>(HttpStatus.NO_CONTENT) : new ResponseEntity<>(progress, HttpStatus.OK);
+    }
+
+}
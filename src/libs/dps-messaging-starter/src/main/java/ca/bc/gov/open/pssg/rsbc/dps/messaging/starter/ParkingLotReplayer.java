@@ -0,0 +1,249 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ReturnListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replays parked messages to the main exchange once the cause of the failures is fixed.
+ *
+ * The parking lot of the tenant selected by the filter routing key, or of this worker, is scanned once, up to the
+ * number of messages it held when the replay started. Matching messages are published to the main exchange with their
+ * retry history removed, at most replayRate messages per second, the others are moved to the back of the parking lot
+ * through the default exchange. Messages are published as mandatory on a confirmed channel and acknowledged only once
+ * the broker confirmed the publish and did not return it, otherwise they are requeued and the replay stops.
+ */
+@Component
+@ConditionalOnProperty(value = "dps.messaging.type", havingValue = "consumer")
+public class ParkingLotReplayer {
+
+    private static final String X_DEATH_HEADER = "x-death";
+
+    private Logger logger = LoggerFactory.getLogger(ParkingLotReplayer.class);
+
+    private final DpsMessagingProperties dpsMessagingProperties;
+    private final RabbitTemplate parkingLotExchangeRabbitTemplate;
+    private final MessagePropertiesConverter messagePropertiesConverter = new DefaultMessagePropertiesConverter();
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile ReplayProgress progress;
+
+    public ParkingLotReplayer(DpsMessagingProperties dpsMessagingProperties,
+                              @Qualifier("parkingLotExchangeRabbitTemplate") RabbitTemplate parkingLotExchangeRabbitTemplate) {
+        this.dpsMessagingProperties = dpsMessagingProperties;
+        this.parkingLotExchangeRabbitTemplate = parkingLotExchangeRabbitTemplate;
+    }
+
+    /**
+     * Starts a replay in the background.
+     *
+     * @param filter the messages to replay
+     * @param rate the maximum number of messages replayed per second, the configured rate when null
+     * @return false if a replay is already running
+     * @throws IllegalArgumentException if the rate is not greater than 0
+     */
+    public boolean start(ReplayFilter filter, Double rate) {
+
+        double replayRate = rate != null ? rate : dpsMessagingProperties.getReplayRate();
+
+        if (!(replayRate > 0))
+            throw new IllegalArgumentException(MessageFormat.format("replay rate must be greater than 0, was {0}",
+                    replayRate));
+
+        if (!running.compareAndSet(false, true)) return false;
+
+        ReplayProgress replayProgress = new ReplayProgress();
+        this.progress = replayProgress;
+
+        executorService.execute(() -> {
+            try {
+                replay(filter, replayRate, replayProgress);
+            } finally {
+                replayProgress.complete();
+                running.set(false);
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * @return the progress of the last replay, null if none was started
+     */
+    public ReplayProgress getProgress() {
+        return progress;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    private void replay(ReplayFilter filter, double rate, ReplayProgress replayProgress) {
+
+        String queueName = getParkingLotQueueName(filter);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long nextReplay = System.nanoTime();
+
+        try {
+
+            Long depth = parkingLotExchangeRabbitTemplate.execute(channel -> channel.messageCount(queueName));
+
+            logger.info("Starting replay of [{}] with {} message(s) at {} message(s) per second", queueName, depth,
+                    rate);
+
+            for (long i = 0; i < depth; i++) {
+
+                if (filter.getLimit() != null && replayProgress.getReplayed() >= filter.getLimit()) break;
+
+                if (Thread.currentThread().isInterrupted()) break;
+
+                long wait = nextReplay - System.nanoTime();
+                if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+
+                Boolean replayed = parkingLotExchangeRabbitTemplate.execute(channel ->
+                        replayNext(channel, queueName, filter, replayProgress));
+
+                if (replayed == null) break;
+                if (replayed) nextReplay = Math.max(nextReplay, System.nanoTime()) + intervalNanos;
+            }
+
+        } catch (InterruptedException e) {
+            logger.warn("Replay of [{}] interrupted", queueName);
+            Thread.currentThread().interrupt();
+        } catch (AmqpException e) {
+            replayProgress.messageFailed();
+            logger.error("Replay of [{}] stopped", queueName, e);
+        }
+
+        logger.info("Replay of [{}] completed: scanned [{}], replayed [{}], skipped [{}], failed [{}]", queueName,
+                replayProgress.getScanned(), replayProgress.getReplayed(), replayProgress.getSkipped(),
+                replayProgress.getFailed());
+    }
+
+    /**
+     * @return true if the message was replayed, false if it was moved back to the parking lot, null if the parking
+     * lot is empty
+     */
+    private Boolean replayNext(Channel channel, String queueName, ReplayFilter filter,
+                               ReplayProgress replayProgress) throws Exception {
+
+        GetResponse response = channel.basicGet(queueName, false);
+
+        if (response == null) return null;
+
+        replayProgress.messageScanned();
+
+        MessageProperties messageProperties = messagePropertiesConverter.toMessageProperties(response.getProps(),
+                response.getEnvelope(), StandardCharsets.UTF_8.name());
+        Message message = new Message(response.getBody(), messageProperties);
+
+        try {
+
+            boolean replay = filter.matches(message);
+
+            if (replay) {
+
+                String routingKey = getOriginalRoutingKey(messageProperties);
+                resetRetryHistory(messageProperties);
+                publish(channel, dpsMessagingProperties.getExchangeName(), routingKey, message);
+                replayProgress.messageReplayed();
+
+            } else {
+
+                // the default exchange routes to the parking lot whatever the routing key of the message
+                publish(channel, "", queueName, message);
+                replayProgress.messageSkipped();
+
+            }
+
+            channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+
+            return replay;
+
+        } catch (Exception e) {
+            // a channel closed by a failed confirm requeues its unacknowledged messages
+            if (channel.isOpen()) channel.basicNack(response.getEnvelope().getDeliveryTag(), false, true);
+            throw e;
+        }
+    }
+
+    /**
+     * Publishes the message as mandatory and waits for the broker confirm.
+     *
+     * @throws DpsPublishException if the message was returned as unroutable
+     */
+    private void publish(Channel channel, String exchange, String routingKey, Message message) throws Exception {
+
+        AMQP.BasicProperties basicProperties = messagePropertiesConverter.fromMessageProperties(
+                message.getMessageProperties(), StandardCharsets.UTF_8.name());
+
+        AtomicBoolean returned = new AtomicBoolean();
+        ReturnListener returnListener = (replyCode, replyText, returnExchange, returnRoutingKey, properties, body) ->
+                returned.set(true);
+
+        channel.confirmSelect();
+        channel.addReturnListener(returnListener);
+
+        try {
+            channel.basicPublish(exchange, routingKey, true, basicProperties, message.getBody());
+            // returns are delivered before the confirm of the same message
+            channel.waitForConfirmsOrDie(dpsMessagingProperties.getConfirmTimeout());
+        } finally {
+            channel.removeReturnListener(returnListener);
+        }
+
+        if (returned.get())
+            throw new DpsPublishException(MessageFormat.format("Message returned by exchange [{0}] with routing key " +
+                    "[{1}]", exchange, routingKey));
+    }
+
+    private String getParkingLotQueueName(ReplayFilter filter) {
+        return filter.getRoutingKey() != null && dpsMessagingProperties.getTenantRoutingKeys().contains(filter.getRoutingKey()) ?
+                dpsMessagingProperties.getParkingLotQueueName(filter.getRoutingKey()) :
+                dpsMessagingProperties.getParkingLotQueueName();
+    }
+
+    private static void resetRetryHistory(MessageProperties messageProperties) {
+        messageProperties.getHeaders().remove(X_DEATH_HEADER);
+        messageProperties.getHeaders().remove(Keys.X_RETRY_COUNT_HEADER);
+        messageProperties.getHeaders().remove(Keys.X_PARKED_AT_HEADER);
+        messageProperties.getHeaders().remove(Keys.X_ERROR_TYPE_HEADER);
+        messageProperties.getHeaders().remove(Keys.X_ORIGINAL_ROUTING_KEY_HEADER);
+        messageProperties.setExpiration(null);
+    }
+
+    static String getOriginalRoutingKey(MessageProperties messageProperties) {
+        Object routingKey = messageProperties.getHeaders().get(Keys.X_ORIGINAL_ROUTING_KEY_HEADER);
+        return routingKey != null ? routingKey.toString() : messageProperties.getReceivedRoutingKey();
+    }
+
+    static Instant getParkedAt(MessageProperties messageProperties) {
+        Object parkedAt = messageProperties.getHeaders().get(Keys.X_PARKED_AT_HEADER);
+        if (parkedAt instanceof Number) return Instant.ofEpochMilli(((Number) parkedAt).longValue());
+        return messageProperties.getTimestamp() != null ? messageProperties.getTimestamp().toInstant() : null;
+    }
+
+}
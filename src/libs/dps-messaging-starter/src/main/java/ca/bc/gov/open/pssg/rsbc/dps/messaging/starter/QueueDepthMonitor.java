@@ -0,0 +1,66 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls the depth and consumer count of the queues declared by the starter and publishes them as gauges.
+ */
+public class QueueDepthMonitor {
+
+    private Logger logger = LoggerFactory.getLogger(QueueDepthMonitor.class);
+
+    private final RabbitAdmin rabbitAdmin;
+    private final DpsMessagingMetrics dpsMessagingMetrics;
+    private final List<String> queueNames;
+    private final long pollInterval;
+
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * @param pollInterval the time in milliseconds between two polls
+     */
+    public QueueDepthMonitor(RabbitAdmin rabbitAdmin, DpsMessagingMetrics dpsMessagingMetrics,
+                             List<String> queueNames, long pollInterval) {
+        this.rabbitAdmin = rabbitAdmin;
+        this.dpsMessagingMetrics = dpsMessagingMetrics;
+        this.queueNames = queueNames;
+        this.pollInterval = pollInterval;
+    }
+
+    public void start() {
+        scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dps-queue-depth-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduledExecutorService.scheduleWithFixedDelay(this::poll, 0, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        if (scheduledExecutorService != null) scheduledExecutorService.shutdownNow();
+    }
+
+    void poll() {
+
+        for (String queueName : queueNames) {
+            try {
+                QueueInformation queueInformation = rabbitAdmin.getQueueInfo(queueName);
+                if (queueInformation == null) continue;
+                dpsMessagingMetrics.updateQueue(queueName, queueInformation.getMessageCount(),
+                        queueInformation.getConsumerCount());
+            } catch (AmqpException e) {
+                logger.warn("Could not poll queue [{}]: {}", queueName, e.getMessage());
+            }
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.time.Instant;
+
+/**
+ * Selects the parked messages to replay, unset criteria match every message.
+ */
+public class ReplayFilter {
+
+    private String routingKey;
+    private String errorType;
+    private Instant from;
+    private Instant to;
+    private Integer limit;
+
+    /**
+     * @return the routing key the message was originally published with, the tenant for email messages
+     */
+    public String getRoutingKey() {
+        return routingKey;
+    }
+
+    public void setRoutingKey(String routingKey) {
+        this.routingKey = routingKey;
+    }
+
+    /**
+     * @return the simple class name of the exception that parked the message
+     */
+    public String getErrorType() {
+        return errorType;
+    }
+
+    public void setErrorType(String errorType) {
+        this.errorType = errorType;
+    }
+
+    /**
+     * @return the earliest time the message was parked, inclusive
+     */
+    public Instant getFrom() {
+        return from;
+    }
+
+    public void setFrom(Instant from) {
+        this.from = from;
+    }
+
+    /**
+     * @return the latest time the message was parked, exclusive
+     */
+    public Instant getTo() {
+        return to;
+    }
+
+    public void setTo(Instant to) {
+        this.to = to;
+    }
+
+    /**
+     * @return the maximum number of messages to replay
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public boolean matches(Message message) {
+
+        MessageProperties messageProperties = message.getMessageProperties();
+
+        if (routingKey != null && !routingKey.equals(ParkingLotReplayer.getOriginalRoutingKey(messageProperties)))
+            return false;
+
+        if (errorType != null && !errorType.equals(messageProperties.getHeaders().get(Keys.X_ERROR_TYPE_HEADER)))
+            return false;
+
+        if (from == null && to == null) return true;
+
+        Instant parkedAt = ParkingLotReplayer.getParkedAt(messageProperties);
+
+        if (parkedAt == null) return false;
+        if (from != null && parkedAt.isBefore(from)) return false;
+        return to == null || parkedAt.isBefore(to);
+    }
+
+}
@@ -0,0 +1,75 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the progress of a parking lot replay, safe to read while the replay is running.
+ */
+public class ReplayProgress {
+
+    private final Instant startTime = Instant.now();
+    private volatile Instant endTime;
+
+    private final AtomicInteger scanned = new AtomicInteger();
+    private final AtomicInteger replayed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    void messageScanned() {
+        scanned.incrementAndGet();
+    }
+
+    void messageReplayed() {
+        replayed.incrementAndGet();
+    }
+
+    void messageSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    void messageFailed() {
+        failed.incrementAndGet();
+    }
+
+    void complete() {
+        endTime = Instant.now();
+    }
+
+    public boolean isRunning() {
+        return endTime == null;
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * @return the duration of the replay in milliseconds, up to now if still running
+     */
+    public long getDuration() {
+        return Duration.between(startTime, endTime != null ? endTime : Instant.now()).toMillis();
+    }
+
+    public int getScanned() {
+        return scanned.get();
+    }
+
+    public int getReplayed() {
+        return replayed.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+}
@@ -0,0 +1,60 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.AbstractJackson2MessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+
+/**
+ * Converts messages to and from the Jackson Smile binary format, a compact encoding of the json data model.
+ *
+ * Messages keep the same type headers as the json converter and are published with the
+ * {@link #CONTENT_TYPE_SMILE} content type. Smile messages are read from the body bytes, the parent converter decodes
+ * the body to a string first, which the smile parser does not support.
+ */
+public class SmileMessageConverter extends AbstractJackson2MessageConverter {
+
+    public static final String CONTENT_TYPE_SMILE = "application/x-jackson-smile";
+
+    private static final MimeType SMILE_MIME_TYPE = MimeType.valueOf(CONTENT_TYPE_SMILE);
+
+    public SmileMessageConverter() {
+        this(new ObjectMapper(new SmileFactory()).configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false));
+    }
+
+    public SmileMessageConverter(ObjectMapper smileObjectMapper) {
+        super(smileObjectMapper, SMILE_MIME_TYPE, "*");
+    }
+
+    @Override
+    public Object fromMessage(Message message, Object conversionHint) {
+
+        MessageProperties messageProperties = message.getMessageProperties();
+
+        if (messageProperties == null || message.getBody() == null || !isSmile(messageProperties.getContentType()))
+            return super.fromMessage(message, conversionHint);
+
+        JavaType javaType = conversionHint instanceof ParameterizedTypeReference ?
+                objectMapper.constructType(((ParameterizedTypeReference<?>) conversionHint).getType()) :
+                getJavaTypeMapper().toJavaType(messageProperties);
+
+        try {
+            return objectMapper.readValue(message.getBody(), javaType);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to convert smile message content", e);
+        }
+    }
+
+    private static boolean isSmile(String contentType) {
+        return contentType == null || contentType.contains(SMILE_MIME_TYPE.getSubtype());
+    }
+
+}
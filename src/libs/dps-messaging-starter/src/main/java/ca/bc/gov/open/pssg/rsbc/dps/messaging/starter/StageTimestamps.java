@@ -0,0 +1,126 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.slf4j.MDC;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The times a document reached each stage of the pipeline, carried from the poller to the worker in the message
+ * headers, see {@link Keys#X_STAGE_TIMESTAMP_HEADER_PREFIX} and {@link Keys#X_TENANT_HEADER}.
+ *
+ * Timestamps are epoch milliseconds taken on the host marking the stage, stages are ordered by time.
+ */
+public class StageTimestamps {
+
+    public static final String RECEIVED = "received";
+    public static final String STORED = "stored";
+    public static final String PUBLISHED = "published";
+    public static final String WORKER_STARTED = "worker_started";
+    public static final String UPLOADED = "uploaded";
+    public static final String REGISTERED = "registered";
+    public static final String EMAIL_PROCESSED = "email_processed";
+
+    private static final String MDC_PREFIX = "dps.ts.";
+
+    private final Clock clock;
+
+    // guarded by this
+    private final Map<String, Long> timestamps = new HashMap<>();
+
+    private String tenant;
+
+    public StageTimestamps() {
+        this(Clock.systemUTC());
+    }
+
+    public StageTimestamps(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Reads the timestamps and tenant from message headers, headers that are not timestamps are ignored.
+     *
+     * @param headers
+     * @return
+     */
+    public static StageTimestamps fromHeaders(Map<String, ?> headers) {
+
+        StageTimestamps result = new StageTimestamps();
+
+        if (headers == null) return result;
+
+        headers.forEach((name, value) -> {
+            if (name.startsWith(Keys.X_STAGE_TIMESTAMP_HEADER_PREFIX) && value instanceof Number)
+                result.mark(name.substring(Keys.X_STAGE_TIMESTAMP_HEADER_PREFIX.length()), ((Number) value).longValue());
+        });
+
+        Object tenant = headers.get(Keys.X_TENANT_HEADER);
+        if (tenant != null) result.withTenant(tenant.toString());
+
+        return result;
+    }
+
+    public StageTimestamps withTenant(String tenant) {
+        this.tenant = tenant;
+        return this;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Marks the stage at the current time of the clock.
+     */
+    public StageTimestamps mark(String stage) {
+        return mark(stage, clock.millis());
+    }
+
+    public synchronized StageTimestamps mark(String stage, long epochMillis) {
+        timestamps.put(stage, epochMillis);
+        return this;
+    }
+
+    public synchronized boolean isMarked(String stage) {
+        return timestamps.containsKey(stage);
+    }
+
+    /**
+     * @return the timestamps by stage, ordered by time
+     */
+    public synchronized Map<String, Long> getTimestamps() {
+
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(timestamps.entrySet());
+        entries.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        entries.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    /**
+     * Writes the timestamps and tenant to the message headers.
+     */
+    public void writeTo(Map<String, Object> headers) {
+        getTimestamps().forEach((stage, epochMillis) -> headers.put(Keys.X_STAGE_TIMESTAMP_HEADER_PREFIX + stage, epochMillis));
+        if (tenant != null) headers.put(Keys.X_TENANT_HEADER, tenant);
+    }
+
+    /**
+     * Puts the timestamps in the MDC so they are logged with the current thread entries.
+     */
+    public void putInMdc() {
+        getTimestamps().forEach((stage, epochMillis) -> MDC.put(MDC_PREFIX + stage, String.valueOf(epochMillis)));
+    }
+
+    public void removeFromMdc() {
+        getTimestamps().keySet().forEach(stage -> MDC.remove(MDC_PREFIX + stage));
+    }
+
+}
@@ -0,0 +1,95 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanExpressionContext;
+import org.springframework.beans.factory.config.BeanExpressionResolver;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.text.MessageFormat;
+import java.util.Map;
+
+/**
+ * Registers a listener container per tenant main queue for each method annotated with {@link DpsTenantListener}.
+ */
+public class TenantListenerConfigurer implements RabbitListenerConfigurer {
+
+    private Logger logger = LoggerFactory.getLogger(TenantListenerConfigurer.class);
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final DpsMessagingProperties dpsMessagingProperties;
+
+    public TenantListenerConfigurer(ConfigurableListableBeanFactory beanFactory,
+                                    DpsMessagingProperties dpsMessagingProperties) {
+        this.beanFactory = beanFactory;
+        this.dpsMessagingProperties = dpsMessagingProperties;
+    }
+
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+
+        DefaultMessageHandlerMethodFactory messageHandlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+        messageHandlerMethodFactory.setBeanFactory(beanFactory);
+        messageHandlerMethodFactory.afterPropertiesSet();
+
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+
+            Class<?> beanType = beanFactory.getType(beanName);
+
+            if (beanType == null) continue;
+
+            Map<Method, DpsTenantListener> methods = MethodIntrospector.selectMethods(ClassUtils.getUserClass(beanType),
+                    (MethodIntrospector.MetadataLookup<DpsTenantListener>) method ->
+                            AnnotatedElementUtils.findMergedAnnotation(method, DpsTenantListener.class));
+
+            if (methods.isEmpty()) continue;
+
+            Object bean = beanFactory.getBean(beanName);
+
+            for (Map.Entry<Method, DpsTenantListener> entry : methods.entrySet()) {
+
+                Method method = entry.getKey();
+                Boolean autoStartup = resolveAutoStartup(entry.getValue().autoStartup());
+
+                for (String tenant : dpsMessagingProperties.getTenantRoutingKeys()) {
+
+                    MethodRabbitListenerEndpoint endpoint = new MethodRabbitListenerEndpoint();
+                    endpoint.setId(MessageFormat.format("{0}.{1}.{2}", beanName, method.getName(), tenant));
+                    endpoint.setBean(bean);
+                    endpoint.setMethod(AopUtils.selectInvocableMethod(method, bean.getClass()));
+                    endpoint.setQueueNames(dpsMessagingProperties.getMainQueueName(tenant));
+                    endpoint.setMessageHandlerMethodFactory(messageHandlerMethodFactory);
+                    endpoint.setBeanFactory(beanFactory);
+                    if (autoStartup != null) endpoint.setAutoStartup(autoStartup);
+
+                    registrar.registerEndpoint(endpoint);
+
+                    logger.info("Registered tenant listener [{}] on [{}]", endpoint.getId(),
+                            dpsMessagingProperties.getMainQueueName(tenant));
+                }
+            }
+        }
+    }
+
+    private Boolean resolveAutoStartup(String autoStartup) {
+
+        if (!StringUtils.hasText(autoStartup)) return null;
+
+        String resolved = beanFactory.resolveEmbeddedValue(autoStartup);
+        BeanExpressionResolver resolver = beanFactory.getBeanExpressionResolver();
+        Object result = resolver == null ? resolved : resolver.evaluate(resolved, new BeanExpressionContext(beanFactory, null));
+
+        return result instanceof Boolean ? (Boolean) result : Boolean.valueOf(String.valueOf(result));
+    }
+
+}
@@ -0,0 +1,143 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares a fixed number of processing tokens between tenants, in proportion to their weight.
+ *
+ * Uses stride scheduling: each tenant has a pass advanced by 1/weight every time it gets a token, when tokens are
+ * contended the waiting tenant with the lowest pass is served first. A tenant coming back from idle starts at the
+ * pass of the last served tenant, so idle time is never saved up as credit for a later burst.
+ */
+public class TenantScheduler {
+
+    private final Map<String, Integer> weights;
+    private final int tokens;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Map<String, TenantState> states = new HashMap<>();
+
+    private int inUse;
+    private double virtualTime;
+
+    /**
+     * @param weights the weight keyed by tenant, tenants without a weight have a weight of 1
+     * @param tokens the number of tokens shared by all the tenants
+     */
+    public TenantScheduler(Map<String, Integer> weights, int tokens) {
+        this.weights = new HashMap<>(weights);
+        this.tokens = Math.max(tokens, 1);
+    }
+
+    /**
+     * Waits for a token for the tenant.
+     *
+     * @param tenant
+     * @throws InterruptedException
+     */
+    public void acquire(String tenant) throws InterruptedException {
+
+        lock.lock();
+
+        try {
+
+            TenantState state = states.computeIfAbsent(tenant, key -> new TenantState());
+
+            if (state.waiting == 0 && state.running == 0) state.pass = Math.max(state.pass, virtualTime);
+
+            state.waiting++;
+            boolean acquired = false;
+
+            try {
+                while (inUse >= tokens || !isNext(state)) released.await();
+                acquired = true;
+            } finally {
+                state.waiting--;
+                // a waiting tenant with a lower pass left, the next one may be eligible now
+                if (!acquired) released.signalAll();
+            }
+
+            state.running++;
+            inUse++;
+            virtualTime = state.pass;
+            state.pass += 1.0 / getWeight(tenant);
+
+            if (inUse < tokens) released.signalAll();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the token acquired for the tenant.
+     *
+     * @param tenant
+     */
+    public void release(String tenant) {
+
+        lock.lock();
+
+        try {
+            TenantState state = states.get(tenant);
+            if (state == null || state.running == 0) return;
+            state.running--;
+            inUse--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of messages of the tenant being processed
+     */
+    public int getRunning(String tenant) {
+
+        lock.lock();
+
+        try {
+            TenantState state = states.get(tenant);
+            return state == null ? 0 : state.running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of messages of the tenant waiting for a token
+     */
+    public int getWaiting(String tenant) {
+
+        lock.lock();
+
+        try {
+            TenantState state = states.get(tenant);
+            return state == null ? 0 : state.waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isNext(TenantState candidate) {
+        return states.values().stream()
+                .filter(state -> state.waiting > 0)
+                .noneMatch(state -> state.pass < candidate.pass);
+    }
+
+    private int getWeight(String tenant) {
+        Integer weight = weights.get(tenant);
+        return weight == null || weight < 1 ? 1 : weight;
+    }
+
+    private static class TenantState {
+        private double pass;
+        private int waiting;
+        private int running;
+    }
+
+}
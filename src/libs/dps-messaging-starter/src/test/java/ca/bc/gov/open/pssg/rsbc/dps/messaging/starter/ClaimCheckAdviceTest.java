@@ -0,0 +1,92 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import com.rabbitmq.client.Channel;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.Arrays;
+
+@DisplayName("ClaimCheckAdvice test suite")
+public class ClaimCheckAdviceTest {
+
+    @Mock
+    private ClaimCheckStore claimCheckStoreMock;
+
+    @Mock
+    private MethodInvocation invocationMock;
+
+    @Mock
+    private Channel channelMock;
+
+    private ClaimCheckAdvice sut;
+
+    @BeforeEach
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+
+        sut = new ClaimCheckAdvice(claimCheckStoreMock);
+    }
+
+    @DisplayName("success - with processed claim checked message should delete the payload")
+    @Test
+    public void withProcessedMessageShouldDeletePayload() throws Throwable {
+
+        Mockito.when(invocationMock.getArguments()).thenReturn(new Object[] { channelMock, getMessage("key") });
+
+        sut.invoke(invocationMock);
+
+        Mockito.verify(claimCheckStoreMock).delete("key");
+    }
+
+    @DisplayName("success - with processed batch should delete the claim checked payloads")
+    @Test
+    public void withProcessedBatchShouldDeletePayloads() throws Throwable {
+
+        Mockito.when(invocationMock.getArguments()).thenReturn(new Object[] { channelMock,
+                Arrays.asList(getMessage("key1"), getMessage(null), getMessage("key2")) });
+
+        sut.invoke(invocationMock);
+
+        Mockito.verify(claimCheckStoreMock).delete("key1");
+        Mockito.verify(claimCheckStoreMock).delete("key2");
+        Mockito.verifyNoMoreInteractions(claimCheckStoreMock);
+    }
+
+    @DisplayName("success - with store unavailable should not fail the message")
+    @Test
+    public void withStoreUnavailableShouldNotThrow() throws Throwable {
+
+        Mockito.when(invocationMock.getArguments()).thenReturn(new Object[] { channelMock, getMessage("key") });
+        Mockito.doThrow(new IllegalStateException("unavailable")).when(claimCheckStoreMock).delete("key");
+
+        Assertions.assertDoesNotThrow(() -> sut.invoke(invocationMock));
+    }
+
+    @DisplayName("error - with failed listener should keep the payload")
+    @Test
+    public void withFailedListenerShouldKeepPayload() throws Throwable {
+
+        Mockito.when(invocationMock.getArguments()).thenReturn(new Object[] { channelMock, getMessage("key") });
+        Mockito.when(invocationMock.proceed()).thenThrow(new IllegalStateException("failed"));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> sut.invoke(invocationMock));
+
+        Mockito.verifyZeroInteractions(claimCheckStoreMock);
+    }
+
+    private static Message getMessage(String claimCheck) {
+        MessageProperties messageProperties = new MessageProperties();
+        if (claimCheck != null) messageProperties.setHeader(Keys.X_CLAIM_CHECK_HEADER, claimCheck);
+        return new Message(new byte[0], messageProperties);
+    }
+
+}
@@ -0,0 +1,72 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@DisplayName("ClaimCheckMessageConverter test suite")
+public class ClaimCheckMessageConverterTest {
+
+    private static final int THRESHOLD = 10;
+
+    private Map<String, byte[]> store;
+
+    private ClaimCheckMessageConverter sut;
+
+    @BeforeEach
+    public void setUp() {
+
+        store = new HashMap<>();
+
+        ClaimCheckStore claimCheckStore = ClaimCheckStore.of(payload -> {
+            String key = "key" + store.size();
+            store.put(key, payload);
+            return key;
+        }, store::get, store::remove);
+
+        sut = new ClaimCheckMessageConverter(new SimpleMessageConverter(), claimCheckStore, THRESHOLD);
+    }
+
+    @DisplayName("success - with small payload should keep it in the message")
+    @Test
+    public void withSmallPayloadShouldKeepItInMessage() {
+
+        Message message = sut.toMessage("small", new MessageProperties());
+
+        Assertions.assertNull(ClaimCheckMessageConverter.getClaimCheck(message));
+        Assertions.assertEquals("small", new String(message.getBody()));
+        Assertions.assertTrue(store.isEmpty());
+    }
+
+    @DisplayName("success - with large payload should store it and read it back")
+    @Test
+    public void withLargePayloadShouldStoreAndReadBack() {
+
+        Message message = sut.toMessage("a payload above the threshold", new MessageProperties());
+
+        Assertions.assertEquals("key0", ClaimCheckMessageConverter.getClaimCheck(message));
+        Assertions.assertEquals(0, message.getBody().length);
+        Assertions.assertEquals(1, store.size());
+
+        Assertions.assertEquals("a payload above the threshold", sut.fromMessage(message));
+    }
+
+    @DisplayName("error - with missing stored payload should throw")
+    @Test
+    public void withMissingStoredPayloadShouldThrow() {
+
+        Message message = sut.toMessage("a payload above the threshold", new MessageProperties());
+        store.clear();
+
+        Assertions.assertThrows(MessageConversionException.class, () -> sut.fromMessage(message));
+    }
+
+}
@@ -0,0 +1,71 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.Collections;
+import java.util.Map;
+
+@DisplayName("ContentNegotiatingMessageConverter test suite")
+public class ContentNegotiatingMessageConverterTest {
+
+    private static final Map<String, String> PAYLOAD = Collections.singletonMap("id", "value");
+
+    private final Jackson2JsonMessageConverter json = new Jackson2JsonMessageConverter();
+    private final SmileMessageConverter smile = new SmileMessageConverter();
+
+    @DisplayName("success - with smile writer should read smile and json messages")
+    @Test
+    public void withSmileWriterShouldReadBothFormats() {
+
+        MessageConverter sut = getConverter(smile);
+
+        Message smileMessage = sut.toMessage(PAYLOAD, new MessageProperties());
+        Message jsonMessage = json.toMessage(PAYLOAD, new MessageProperties());
+
+        Assertions.assertEquals(SmileMessageConverter.CONTENT_TYPE_SMILE,
+                smileMessage.getMessageProperties().getContentType());
+        Assertions.assertEquals(PAYLOAD, sut.fromMessage(smileMessage));
+        Assertions.assertEquals(PAYLOAD, sut.fromMessage(jsonMessage));
+    }
+
+    @DisplayName("success - with json writer should read smile messages")
+    @Test
+    public void withJsonWriterShouldReadSmileMessages() {
+
+        MessageConverter sut = getConverter(json);
+
+        Message jsonMessage = sut.toMessage(PAYLOAD, new MessageProperties());
+
+        Assertions.assertEquals(MessageProperties.CONTENT_TYPE_JSON, jsonMessage.getMessageProperties().getContentType());
+        Assertions.assertEquals(PAYLOAD, sut.fromMessage(smile.toMessage(PAYLOAD, new MessageProperties())));
+    }
+
+    @DisplayName("success - with content type parameters or unknown content type should use the matching or default reader")
+    @Test
+    public void withContentTypeParametersShouldUseMatchingReader() {
+
+        MessageConverter sut = getConverter(smile);
+
+        Message jsonMessage = json.toMessage(PAYLOAD, new MessageProperties());
+        jsonMessage.getMessageProperties().setContentType("application/json;charset=UTF-8");
+
+        Message unknownMessage = json.toMessage(PAYLOAD, new MessageProperties());
+        unknownMessage.getMessageProperties().setContentType(null);
+
+        Assertions.assertEquals(PAYLOAD, sut.fromMessage(jsonMessage));
+        Assertions.assertEquals(PAYLOAD, sut.fromMessage(unknownMessage));
+    }
+
+    private MessageConverter getConverter(MessageConverter writer) {
+        return new ContentNegotiatingMessageConverter(json, writer)
+                .withReader(MessageProperties.CONTENT_TYPE_JSON, json)
+                .withReader(SmileMessageConverter.CONTENT_TYPE_SMILE, smile);
+    }
+
+}
@@ -0,0 +1,57 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+@DisplayName("DependencyLimiter test suite")
+public class DependencyLimiterTest {
+
+    private static final String SFTP = "sftp";
+
+    @DisplayName("success - with unlimited dependency should call it")
+    @Test
+    public void withUnlimitedDependencyShouldCall() {
+
+        DependencyLimiter sut = DependencyLimiter.unlimited();
+
+        Assertions.assertEquals("result", sut.call(SFTP, () -> "result"));
+        Assertions.assertEquals(-1, sut.availablePermits(SFTP));
+    }
+
+    @DisplayName("success - with limited dependency should hold a permit during the call")
+    @Test
+    public void withLimitedDependencyShouldHoldPermit() {
+
+        DependencyLimiter sut = new DependencyLimiter(Collections.singletonMap(SFTP, 2), 0);
+
+        Assertions.assertEquals(1, (int) sut.call(SFTP, () -> sut.availablePermits(SFTP)));
+        Assertions.assertEquals(2, sut.availablePermits(SFTP));
+    }
+
+    @DisplayName("success - with failed call should release the permit")
+    @Test
+    public void withFailedCallShouldReleasePermit() {
+
+        DependencyLimiter sut = new DependencyLimiter(Collections.singletonMap(SFTP, 1), 0);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> sut.run(SFTP, () -> {
+            throw new IllegalStateException("failed");
+        }));
+        Assertions.assertEquals(1, sut.availablePermits(SFTP));
+    }
+
+    @DisplayName("error - with limit reached should throw after the timeout")
+    @Test
+    public void withLimitReachedShouldThrow() {
+
+        DependencyLimiter sut = new DependencyLimiter(Collections.singletonMap(SFTP, 1), 10);
+
+        Assertions.assertThrows(DependencyLimitExceededException.class,
+                () -> sut.run(SFTP, () -> sut.run(SFTP, () -> { })));
+        Assertions.assertEquals(1, sut.availablePermits(SFTP));
+    }
+
+}
@@ -0,0 +1,109 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.BatchMessageListener;
+import org.springframework.amqp.core.MessageListener;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Map;
+
+@DisplayName("DpsListenerContainerCustomizer test suite")
+public class DpsListenerContainerCustomizerTest {
+
+    private static final String MAIN_QUEUE = "CRRP.exchange.Q";
+    private static final String PARKING_LOT_QUEUE = "CRRP.exchange.PL";
+
+    private DpsMessagingProperties properties;
+
+    private DpsListenerContainerCustomizer sut;
+
+    @BeforeEach
+    public void setUp() {
+
+        properties = new DpsMessagingProperties();
+        properties.setExchangeName("exchange");
+        properties.setRoutingKey("CRRP");
+        properties.getListener().setConcurrentConsumers(2);
+        properties.getListener().setMaxConcurrentConsumers(4);
+        properties.getListener().setPrefetch(10);
+        properties.getListener().setBatchSize(5);
+
+        DpsMessagingProperties.Listener parkingLot = new DpsMessagingProperties.Listener();
+        parkingLot.setMaxConcurrentConsumers(1);
+        parkingLot.setPrefetch(1);
+        parkingLot.setPriority(-1);
+        properties.setQueues(Collections.singletonMap(PARKING_LOT_QUEUE, parkingLot));
+
+        sut = new DpsListenerContainerCustomizer(properties);
+    }
+
+    @DisplayName("success - with default listener settings should apply them")
+    @Test
+    public void withDefaultSettingsShouldApplyThem() {
+
+        SimpleMessageListenerContainer container = getContainer(MAIN_QUEUE, message -> { });
+
+        sut.configure(container);
+
+        Assertions.assertEquals(2, ReflectionTestUtils.getField(container, "concurrentConsumers"));
+        Assertions.assertEquals(4, ReflectionTestUtils.getField(container, "maxConcurrentConsumers"));
+        Assertions.assertEquals(10, ReflectionTestUtils.getField(container, "prefetchCount"));
+        Assertions.assertEquals(5, ReflectionTestUtils.getField(container, "batchSize"));
+        Assertions.assertFalse(container.isConsumerBatchEnabled());
+    }
+
+    @DisplayName("success - with queue settings should override the default settings")
+    @Test
+    public void withQueueSettingsShouldOverrideDefaults() {
+
+        SimpleMessageListenerContainer container = getContainer(PARKING_LOT_QUEUE, message -> { });
+
+        sut.configure(container);
+
+        // the max concurrent consumers cannot be lower than the inherited concurrent consumers
+        Assertions.assertEquals(2, ReflectionTestUtils.getField(container, "concurrentConsumers"));
+        Assertions.assertEquals(2, ReflectionTestUtils.getField(container, "maxConcurrentConsumers"));
+        Assertions.assertEquals(1, ReflectionTestUtils.getField(container, "prefetchCount"));
+        Assertions.assertEquals(-1, ((Map<?, ?>) ReflectionTestUtils.getField(container, "consumerArgs"))
+                .get(Keys.X_PRIORITY_ARG));
+    }
+
+    @DisplayName("success - with fair scheduling and no prefetch should prefetch one message")
+    @Test
+    public void withFairSchedulingShouldPrefetchOneMessage() {
+
+        properties.getListener().setPrefetch(null);
+        properties.setTenants(Collections.singletonMap("VIPS", 1));
+
+        SimpleMessageListenerContainer container = getContainer(MAIN_QUEUE, message -> { });
+
+        sut.configure(container);
+
+        Assertions.assertEquals(1, ReflectionTestUtils.getField(container, "prefetchCount"));
+    }
+
+    @DisplayName("success - with batch listener should enable consumer batching")
+    @Test
+    public void withBatchListenerShouldEnableConsumerBatching() {
+
+        SimpleMessageListenerContainer container = getContainer(MAIN_QUEUE,
+                (BatchMessageListener) messages -> { });
+
+        sut.configure(container);
+
+        Assertions.assertTrue(container.isConsumerBatchEnabled());
+    }
+
+    private static SimpleMessageListenerContainer getContainer(String queueName, MessageListener messageListener) {
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+        container.setQueueNames(queueName);
+        container.setMessageListener(messageListener);
+        return container;
+    }
+
+}
@@ -0,0 +1,219 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.AmqpRejectAndDontRequeueException;
+import org.springframework.amqp.ImmediateAcknowledgeAmqpException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.ListenerExecutionFailedException;
+
+import java.util.Arrays;
+
+@DisplayName("DpsMessageErrorHandler test suite")
+public class DpsMessageErrorHandlerTest {
+
+    private static final String TENANT = "CRRP";
+    private static final String MAIN_QUEUE = "CRRP.exchange.Q";
+    private static final String DLQ_EXCHANGE = "CRRP.exchange.DLQ";
+    private static final String PARKING_LOT_EXCHANGE = "CRRP.exchange.PL";
+
+    @Mock
+    private RabbitTemplate rabbitTemplateMock;
+
+    private DpsMessagingProperties properties;
+
+    private DpsMessageErrorHandler sut;
+
+    @BeforeEach
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+
+        properties = new DpsMessagingProperties();
+        properties.setExchangeName("exchange");
+        properties.setRoutingKey(TENANT);
+        properties.setRetryCount(2);
+        properties.setRetryDelays(Arrays.asList(5, 30));
+        properties.setPublisherConfirms(true);
+        properties.setConfirmTimeout(100);
+
+        sut = new DpsMessageErrorHandler(properties, rabbitTemplateMock, DpsMessagingMetrics.noop());
+    }
+
+    @DisplayName("success - with confirmed retry should acknowledge")
+    @Test
+    public void withConfirmedRetryShouldAcknowledge() {
+
+        confirm(DLQ_EXCHANGE, true);
+        Message message = getMessage(MAIN_QUEUE, 0);
+
+        Assertions.assertThrows(ImmediateAcknowledgeAmqpException.class, () -> sut.handleError(failed(message)));
+
+        ArgumentCaptor<String> routingKey = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(rabbitTemplateMock).send(Mockito.eq(DLQ_EXCHANGE), routingKey.capture(), Mockito.eq(message),
+                Mockito.any(CorrelationData.class));
+        Assertions.assertTrue(routingKey.getValue().startsWith("CRRP.retry.5s"));
+        Assertions.assertEquals(1, message.getMessageProperties().getHeaders().get(Keys.X_RETRY_COUNT_HEADER));
+        Assertions.assertNull(message.getMessageProperties().getExpiration());
+    }
+
+    @DisplayName("success - with retry limit reached should park")
+    @Test
+    public void withRetryLimitReachedShouldPark() {
+
+        confirm(PARKING_LOT_EXCHANGE, true);
+        Message message = getMessage(MAIN_QUEUE, 2);
+
+        Assertions.assertThrows(ImmediateAcknowledgeAmqpException.class, () -> sut.handleError(failed(message)));
+
+        Mockito.verify(rabbitTemplateMock).send(Mockito.eq(PARKING_LOT_EXCHANGE), Mockito.eq(TENANT),
+                Mockito.eq(message), Mockito.any(CorrelationData.class));
+        Assertions.assertNotNull(message.getMessageProperties().getHeaders().get(Keys.X_PARKED_AT_HEADER));
+    }
+
+    @DisplayName("success - with retry rejected by the broker should park")
+    @Test
+    public void withRetryNackShouldPark() {
+
+        confirm(DLQ_EXCHANGE, false);
+        confirm(PARKING_LOT_EXCHANGE, true);
+        Message message = getMessage(MAIN_QUEUE, 0);
+
+        Assertions.assertThrows(ImmediateAcknowledgeAmqpException.class, () -> sut.handleError(failed(message)));
+
+        Mockito.verify(rabbitTemplateMock).send(Mockito.eq(PARKING_LOT_EXCHANGE), Mockito.eq(TENANT),
+                Mockito.eq(message), Mockito.any(CorrelationData.class));
+        Assertions.assertEquals(0, message.getMessageProperties().getHeaders().get(Keys.X_RETRY_COUNT_HEADER));
+    }
+
+    @DisplayName("success - with unroutable retry should park")
+    @Test
+    public void withReturnedRetryShouldPark() {
+
+        Mockito.doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.setReturned(new ReturnedMessage(invocation.getArgument(2), 312, "NO_ROUTE",
+                    DLQ_EXCHANGE, invocation.getArgument(1)));
+            correlationData.getFuture().set(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplateMock).send(Mockito.eq(DLQ_EXCHANGE), Mockito.anyString(), Mockito.any(Message.class),
+                Mockito.any(CorrelationData.class));
+        confirm(PARKING_LOT_EXCHANGE, true);
+
+        Assertions.assertThrows(ImmediateAcknowledgeAmqpException.class,
+                () -> sut.handleError(failed(getMessage(MAIN_QUEUE, 0))));
+
+        Mockito.verify(rabbitTemplateMock).send(Mockito.eq(PARKING_LOT_EXCHANGE), Mockito.eq(TENANT),
+                Mockito.any(Message.class), Mockito.any(CorrelationData.class));
+    }
+
+    @DisplayName("error - with message neither retried nor parked should requeue")
+    @Test
+    public void withUnconfirmedMessageShouldRequeue() {
+
+        confirm(DLQ_EXCHANGE, false);
+        confirm(PARKING_LOT_EXCHANGE, false);
+
+        Assertions.assertThrows(DpsPublishException.class, () -> sut.handleError(failed(getMessage(MAIN_QUEUE, 0))));
+    }
+
+    @DisplayName("error - with batch partially sent should requeue without dead lettering")
+    @Test
+    public void withBatchPartiallySentShouldRequeue() {
+
+        Message retried = getMessage(MAIN_QUEUE, 0);
+        Message unconfirmed = getMessage(MAIN_QUEUE, 2);
+
+        confirm(DLQ_EXCHANGE, true);
+        confirm(PARKING_LOT_EXCHANGE, false);
+
+        Assertions.assertThrows(DpsPublishException.class, () -> sut.handleError(failed(retried, unconfirmed)));
+
+        Mockito.verify(rabbitTemplateMock, Mockito.never()).send(Mockito.eq(PARKING_LOT_EXCHANGE), Mockito.anyString(),
+                Mockito.eq(retried), Mockito.any(CorrelationData.class));
+        Mockito.verify(rabbitTemplateMock, Mockito.times(1)).send(Mockito.eq(DLQ_EXCHANGE), Mockito.anyString(),
+                Mockito.eq(retried), Mockito.any(CorrelationData.class));
+    }
+
+    @DisplayName("success - with dependency limit exceeded should requeue without spending a retry")
+    @Test
+    public void withDependencyLimitExceededShouldRequeue() {
+
+        Message message = getMessage(MAIN_QUEUE, 1);
+        IllegalStateException error = new IllegalStateException("error",
+                new DependencyLimitExceededException("Concurrency limit reached for dependency [sftp]"));
+
+        Assertions.assertThrows(ImmediateRequeueAmqpException.class, () -> sut.handleError(
+                new ListenerExecutionFailedException("listener failed", error, message)));
+
+        Mockito.verifyZeroInteractions(rabbitTemplateMock);
+        Assertions.assertEquals(1, message.getMessageProperties().getHeaders().get(Keys.X_RETRY_COUNT_HEADER));
+    }
+
+    @DisplayName("success - with publisher confirms disabled should send without waiting")
+    @Test
+    public void withPublisherConfirmsDisabledShouldSend() {
+
+        properties.setPublisherConfirms(false);
+        sut = new DpsMessageErrorHandler(properties, rabbitTemplateMock, DpsMessagingMetrics.noop());
+
+        Message message = getMessage(MAIN_QUEUE, 0);
+
+        Assertions.assertThrows(ImmediateAcknowledgeAmqpException.class, () -> sut.handleError(failed(message)));
+
+        Mockito.verify(rabbitTemplateMock).send(Mockito.eq(DLQ_EXCHANGE), Mockito.anyString(), Mockito.eq(message));
+    }
+
+    @DisplayName("error - with parking lot message should reject")
+    @Test
+    public void withParkingLotMessageShouldReject() {
+
+        Assertions.assertThrows(AmqpRejectAndDontRequeueException.class,
+                () -> sut.handleError(failed(getMessage(PARKING_LOT_EXCHANGE, 0))));
+
+        Mockito.verifyZeroInteractions(rabbitTemplateMock);
+    }
+
+    @DisplayName("success - with other error should acknowledge")
+    @Test
+    public void withOtherErrorShouldAcknowledge() {
+
+        Assertions.assertThrows(ImmediateAcknowledgeAmqpException.class,
+                () -> sut.handleError(new IllegalStateException("error")));
+
+        Mockito.verifyZeroInteractions(rabbitTemplateMock);
+    }
+
+    private void confirm(String exchange, boolean ack) {
+        Mockito.doAnswer(invocation -> {
+            CorrelationData correlationData = invocation.getArgument(3);
+            correlationData.getFuture().set(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplateMock).send(Mockito.eq(exchange), Mockito.anyString(), Mockito.any(Message.class),
+                Mockito.any(CorrelationData.class));
+    }
+
+    private static ListenerExecutionFailedException failed(Message... messages) {
+        return new ListenerExecutionFailedException("listener failed", new IllegalStateException("error"), messages);
+    }
+
+    private static Message getMessage(String queue, int retryCount) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setConsumerQueue(queue);
+        messageProperties.setReceivedRoutingKey(TENANT);
+        if (retryCount > 0) messageProperties.setHeader(Keys.X_RETRY_COUNT_HEADER, retryCount);
+        return new Message("{}".getBytes(), messageProperties);
+    }
+
+}
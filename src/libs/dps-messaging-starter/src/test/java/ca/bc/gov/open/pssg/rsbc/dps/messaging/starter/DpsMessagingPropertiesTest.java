@@ -0,0 +1,43 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Collections;
+
+@DisplayName("DpsMessagingProperties test suite")
+public class DpsMessagingPropertiesTest {
+
+    @DisplayName("success - with quorum parking lot queue should bind")
+    @Test
+    public void withQuorumParkingLotQueueShouldBind() {
+
+        DpsMessagingProperties result = bind("dps.messaging.parking-lot-queue.type", "quorum");
+
+        Assertions.assertEquals("quorum", result.getParkingLotQueue().getType());
+    }
+
+    @DisplayName("error - with stream parking lot queue should fail to bind")
+    @Test
+    public void withStreamParkingLotQueueShouldFail() {
+
+        Assertions.assertThrows(BindException.class, () -> bind("dps.messaging.parking-lot-queue.type", "stream"));
+    }
+
+    @DisplayName("error - with stream queue should fail to bind")
+    @Test
+    public void withStreamQueueShouldFail() {
+
+        Assertions.assertThrows(BindException.class, () -> bind("dps.messaging.queue.type", "STREAM"));
+    }
+
+    private static DpsMessagingProperties bind(String name, String value) {
+        return new Binder(new MapConfigurationPropertySource(Collections.singletonMap(name, value)))
+                .bind("dps.messaging", DpsMessagingProperties.class).get();
+    }
+
+}
@@ -0,0 +1,103 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import com.rabbitmq.client.Channel;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.util.Collections;
+
+@DisplayName("FairSchedulingAdvice test suite")
+public class FairSchedulingAdviceTest {
+
+    private static final String CRRP = "CRRP";
+    private static final String VIPS = "VIPS";
+
+    @Mock
+    private TenantScheduler tenantSchedulerMock;
+
+    @Mock
+    private MethodInvocation invocationMock;
+
+    @Mock
+    private Channel channelMock;
+
+    private FairSchedulingAdvice sut;
+
+    @BeforeEach
+    public void setUp() throws Throwable {
+
+        MockitoAnnotations.initMocks(this);
+
+        DpsMessagingProperties properties = new DpsMessagingProperties();
+        properties.setExchangeName("exchange");
+        properties.setRoutingKey(CRRP);
+        properties.setTenants(Collections.singletonMap(VIPS, 2));
+
+        Mockito.when(invocationMock.proceed()).thenReturn("result");
+
+        sut = new FairSchedulingAdvice(tenantSchedulerMock, properties);
+    }
+
+    @DisplayName("success - with tenant main queue message should hold a token while processing")
+    @Test
+    public void withTenantMainQueueMessageShouldHoldToken() throws Throwable {
+
+        Mockito.when(invocationMock.getArguments()).thenReturn(new Object[] { channelMock, getMessage("VIPS.exchange.Q") });
+
+        Assertions.assertEquals("result", sut.invoke(invocationMock));
+
+        Mockito.verify(tenantSchedulerMock).acquire(VIPS);
+        Mockito.verify(tenantSchedulerMock).release(VIPS);
+    }
+
+    @DisplayName("success - with batch of tenant messages should hold a token of the first message tenant")
+    @Test
+    public void withBatchShouldHoldTokenOfFirstMessageTenant() throws Throwable {
+
+        Mockito.when(invocationMock.getArguments()).thenReturn(new Object[] { channelMock,
+                Collections.singletonList(getMessage("CRRP.exchange.Q")) });
+
+        sut.invoke(invocationMock);
+
+        Mockito.verify(tenantSchedulerMock).acquire(CRRP);
+        Mockito.verify(tenantSchedulerMock).release(CRRP);
+    }
+
+    @DisplayName("success - with parking lot message should process without a token")
+    @Test
+    public void withParkingLotMessageShouldProcessWithoutToken() throws Throwable {
+
+        Mockito.when(invocationMock.getArguments()).thenReturn(new Object[] { channelMock, getMessage("CRRP.exchange.PL") });
+
+        Assertions.assertEquals("result", sut.invoke(invocationMock));
+
+        Mockito.verifyZeroInteractions(tenantSchedulerMock);
+    }
+
+    @DisplayName("error - with failed listener should release the token")
+    @Test
+    public void withFailedListenerShouldReleaseToken() throws Throwable {
+
+        Mockito.when(invocationMock.getArguments()).thenReturn(new Object[] { channelMock, getMessage("CRRP.exchange.Q") });
+        Mockito.when(invocationMock.proceed()).thenThrow(new IllegalStateException("failed"));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> sut.invoke(invocationMock));
+
+        Mockito.verify(tenantSchedulerMock).release(CRRP);
+    }
+
+    private static Message getMessage(String consumerQueue) {
+        MessageProperties messageProperties = new MessageProperties();
+        messageProperties.setConsumerQueue(consumerQueue);
+        return new Message("{}".getBytes(), messageProperties);
+    }
+
+}
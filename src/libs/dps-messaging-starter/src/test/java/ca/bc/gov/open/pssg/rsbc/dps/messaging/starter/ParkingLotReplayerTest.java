@@ -0,0 +1,175 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.rabbitmq.client.ReturnListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+@DisplayName("ParkingLotReplayer test suite")
+public class ParkingLotReplayerTest {
+
+    private static final String TENANT = "CRRP";
+    private static final String OTHER_TENANT = "VIPS";
+    private static final String EXCHANGE = "exchange";
+    private static final String PARKING_LOT_QUEUE = "CRRP.exchange.PL";
+    private static final String OTHER_PARKING_LOT_QUEUE = "VIPS.exchange.PL";
+    private static final long DELIVERY_TAG = 1;
+
+    @Mock
+    private RabbitTemplate rabbitTemplateMock;
+
+    @Mock
+    private Channel channelMock;
+
+    private ParkingLotReplayer sut;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+
+        MockitoAnnotations.initMocks(this);
+
+        DpsMessagingProperties properties = new DpsMessagingProperties();
+        properties.setExchangeName(EXCHANGE);
+        properties.setRoutingKey(TENANT);
+        properties.setTenants(Collections.singletonMap(OTHER_TENANT, 1));
+        properties.setReplayRate(1000);
+        properties.setConfirmTimeout(100);
+
+        Mockito.when(rabbitTemplateMock.execute(Mockito.<ChannelCallback<Object>>any()))
+                .thenAnswer(invocation -> invocation.<ChannelCallback<?>>getArgument(0).doInRabbit(channelMock));
+        Mockito.when(channelMock.isOpen()).thenReturn(true);
+
+        sut = new ParkingLotReplayer(properties, rabbitTemplateMock);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sut.shutdown();
+    }
+
+    @DisplayName("success - with matching message should publish as mandatory and acknowledge after confirm")
+    @Test
+    public void withMatchingMessageShouldPublishAndAcknowledge() throws Exception {
+
+        parked(PARKING_LOT_QUEUE, TENANT, "retry");
+
+        Assertions.assertTrue(sut.start(new ReplayFilter(), null));
+        ReplayProgress progress = awaitCompletion();
+
+        Mockito.verify(channelMock).confirmSelect();
+        Mockito.verify(channelMock).basicPublish(Mockito.eq(EXCHANGE), Mockito.eq(TENANT), Mockito.eq(true),
+                Mockito.any(AMQP.BasicProperties.class), Mockito.any(byte[].class));
+        Mockito.verify(channelMock).waitForConfirmsOrDie(100);
+        Mockito.verify(channelMock).basicAck(DELIVERY_TAG, false);
+        Assertions.assertEquals(1, progress.getReplayed());
+    }
+
+    @DisplayName("success - with other tenant routing key should replay from the tenant parking lot")
+    @Test
+    public void withOtherTenantRoutingKeyShouldReplayTenantParkingLot() throws Exception {
+
+        parked(OTHER_PARKING_LOT_QUEUE, OTHER_TENANT, "retry");
+
+        ReplayFilter filter = new ReplayFilter();
+        filter.setRoutingKey(OTHER_TENANT);
+
+        Assertions.assertTrue(sut.start(filter, null));
+        awaitCompletion();
+
+        Mockito.verify(channelMock).basicGet(OTHER_PARKING_LOT_QUEUE, false);
+        Mockito.verify(channelMock).basicPublish(Mockito.eq(EXCHANGE), Mockito.eq(OTHER_TENANT), Mockito.eq(true),
+                Mockito.any(AMQP.BasicProperties.class), Mockito.any(byte[].class));
+        Mockito.verify(channelMock).basicAck(DELIVERY_TAG, false);
+    }
+
+    @DisplayName("success - with non matching message should move it back to the parking lot queue")
+    @Test
+    public void withNonMatchingMessageShouldMoveItBack() throws Exception {
+
+        parked(PARKING_LOT_QUEUE, OTHER_TENANT, "retry");
+
+        ReplayFilter filter = new ReplayFilter();
+        filter.setErrorType("fatal");
+
+        Assertions.assertTrue(sut.start(filter, null));
+        ReplayProgress progress = awaitCompletion();
+
+        Mockito.verify(channelMock).basicPublish(Mockito.eq(""), Mockito.eq(PARKING_LOT_QUEUE), Mockito.eq(true),
+                Mockito.any(AMQP.BasicProperties.class), Mockito.any(byte[].class));
+        Mockito.verify(channelMock).basicAck(DELIVERY_TAG, false);
+        Assertions.assertEquals(1, progress.getSkipped());
+    }
+
+    @DisplayName("error - with returned message should requeue it without acknowledging")
+    @Test
+    public void withReturnedMessageShouldRequeue() throws Exception {
+
+        parked(PARKING_LOT_QUEUE, TENANT, "retry");
+
+        ArgumentCaptor<ReturnListener> returnListener = ArgumentCaptor.forClass(ReturnListener.class);
+        Mockito.doNothing().when(channelMock).addReturnListener(returnListener.capture());
+        Mockito.doAnswer(invocation -> {
+            returnListener.getValue().handleReturn(312, "NO_ROUTE", EXCHANGE, TENANT, null, new byte[0]);
+            return null;
+        }).when(channelMock).basicPublish(Mockito.anyString(), Mockito.anyString(), Mockito.anyBoolean(),
+                Mockito.any(AMQP.BasicProperties.class), Mockito.any(byte[].class));
+
+        Assertions.assertTrue(sut.start(new ReplayFilter(), null));
+        ReplayProgress progress = awaitCompletion();
+
+        Mockito.verify(channelMock, Mockito.never()).basicAck(Mockito.anyLong(), Mockito.anyBoolean());
+        Mockito.verify(channelMock).basicNack(DELIVERY_TAG, false, true);
+        Mockito.verify(channelMock).removeReturnListener(returnListener.getValue());
+        Assertions.assertEquals(0, progress.getReplayed());
+        Assertions.assertEquals(1, progress.getFailed());
+    }
+
+    @DisplayName("error - with rate not greater than 0 should throw")
+    @Test
+    public void withInvalidRateShouldThrow() {
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> sut.start(new ReplayFilter(), 0d));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> sut.start(new ReplayFilter(), -1d));
+        Assertions.assertNull(sut.getProgress());
+    }
+
+    private void parked(String queueName, String originalRoutingKey, String errorType) throws Exception {
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(Keys.X_ORIGINAL_ROUTING_KEY_HEADER, originalRoutingKey);
+        headers.put(Keys.X_ERROR_TYPE_HEADER, errorType);
+        headers.put(Keys.X_RETRY_COUNT_HEADER, 3);
+
+        GetResponse response = new GetResponse(new Envelope(DELIVERY_TAG, false, queueName, originalRoutingKey),
+                new AMQP.BasicProperties.Builder().headers(headers).build(), "{}".getBytes(), 0);
+
+        Mockito.when(channelMock.messageCount(queueName)).thenReturn(1L);
+        Mockito.when(channelMock.basicGet(queueName, false)).thenReturn(response);
+    }
+
+    private ReplayProgress awaitCompletion() throws InterruptedException {
+
+        for (int i = 0; i < 100 && sut.getProgress().isRunning(); i++) Thread.sleep(20);
+
+        Assertions.assertFalse(sut.getProgress().isRunning());
+
+        return sut.getProgress();
+    }
+
+}
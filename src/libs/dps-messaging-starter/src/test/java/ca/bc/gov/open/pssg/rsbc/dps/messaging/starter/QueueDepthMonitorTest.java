@@ -0,0 +1,88 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+
+import java.net.ConnectException;
+import java.util.Arrays;
+
+@DisplayName("QueueDepthMonitor test suite")
+public class QueueDepthMonitorTest {
+
+    private static final String MAIN_QUEUE = "CRRP.exchange.Q";
+    private static final String PARKING_LOT_QUEUE = "CRRP.exchange.PL";
+    private static final String MISSING_QUEUE = "CRRP.exchange.DLQ";
+
+    @Mock
+    private RabbitAdmin rabbitAdminMock;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private QueueDepthMonitor sut;
+
+    @BeforeEach
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+
+        meterRegistry = new SimpleMeterRegistry();
+
+        sut = new QueueDepthMonitor(rabbitAdminMock, new DpsMessagingMetrics(meterRegistry),
+                Arrays.asList(MAIN_QUEUE, MISSING_QUEUE, PARKING_LOT_QUEUE), 1000);
+    }
+
+    @DisplayName("success - with polled queues should publish depth and consumer gauges")
+    @Test
+    public void withPolledQueuesShouldPublishGauges() {
+
+        Mockito.when(rabbitAdminMock.getQueueInfo(MAIN_QUEUE)).thenReturn(new QueueInformation(MAIN_QUEUE, 12, 3));
+        Mockito.when(rabbitAdminMock.getQueueInfo(PARKING_LOT_QUEUE))
+                .thenReturn(new QueueInformation(PARKING_LOT_QUEUE, 1, 0));
+
+        sut.poll();
+
+        Assertions.assertEquals(12, getGauge(DpsMessagingMetrics.QUEUE_DEPTH_GAUGE, MAIN_QUEUE));
+        Assertions.assertEquals(3, getGauge(DpsMessagingMetrics.QUEUE_CONSUMERS_GAUGE, MAIN_QUEUE));
+        Assertions.assertEquals(1, getGauge(DpsMessagingMetrics.QUEUE_DEPTH_GAUGE, PARKING_LOT_QUEUE));
+        Assertions.assertNull(meterRegistry.find(DpsMessagingMetrics.QUEUE_DEPTH_GAUGE).tag("queue", MISSING_QUEUE).gauge());
+    }
+
+    @DisplayName("success - with broker unavailable should keep polling the other queues")
+    @Test
+    public void withBrokerUnavailableShouldKeepPolling() {
+
+        Mockito.when(rabbitAdminMock.getQueueInfo(MAIN_QUEUE))
+                .thenThrow(new AmqpConnectException(new ConnectException("unavailable")));
+        Mockito.when(rabbitAdminMock.getQueueInfo(PARKING_LOT_QUEUE))
+                .thenReturn(new QueueInformation(PARKING_LOT_QUEUE, 5, 1));
+
+        Assertions.assertDoesNotThrow(() -> sut.poll());
+
+        Assertions.assertEquals(5, getGauge(DpsMessagingMetrics.QUEUE_DEPTH_GAUGE, PARKING_LOT_QUEUE));
+    }
+
+    @DisplayName("success - with started monitor should poll until stopped")
+    @Test
+    public void withStartedMonitorShouldPoll() {
+
+        sut.start();
+
+        Mockito.verify(rabbitAdminMock, Mockito.timeout(1000)).getQueueInfo(MAIN_QUEUE);
+
+        sut.stop();
+    }
+
+    private double getGauge(String name, String queue) {
+        return meterRegistry.get(name).tag("queue", queue).gauge().value();
+    }
+
+}
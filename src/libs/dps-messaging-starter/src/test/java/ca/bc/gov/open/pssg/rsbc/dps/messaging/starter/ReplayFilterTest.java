@@ -0,0 +1,88 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+
+import java.time.Instant;
+import java.util.Date;
+
+@DisplayName("ReplayFilter test suite")
+public class ReplayFilterTest {
+
+    private static final Instant PARKED_AT = Instant.parse("2020-01-01T10:00:00Z");
+
+    @DisplayName("success - without criteria should match every message")
+    @Test
+    public void withoutCriteriaShouldMatch() {
+
+        Assertions.assertTrue(new ReplayFilter().matches(getMessage("CRRP", "retry", PARKED_AT)));
+        Assertions.assertTrue(new ReplayFilter().matches(new Message(new byte[0], new MessageProperties())));
+    }
+
+    @DisplayName("success - with routing key and error type should match the parked headers")
+    @Test
+    public void withRoutingKeyAndErrorTypeShouldMatchHeaders() {
+
+        ReplayFilter sut = new ReplayFilter();
+        sut.setRoutingKey("CRRP");
+        sut.setErrorType("retry");
+
+        Assertions.assertTrue(sut.matches(getMessage("CRRP", "retry", PARKED_AT)));
+        Assertions.assertFalse(sut.matches(getMessage("VIPS", "retry", PARKED_AT)));
+        Assertions.assertFalse(sut.matches(getMessage("CRRP", "fatal", PARKED_AT)));
+    }
+
+    @DisplayName("success - without original routing key header should match the received routing key")
+    @Test
+    public void withoutOriginalRoutingKeyShouldMatchReceivedRoutingKey() {
+
+        ReplayFilter sut = new ReplayFilter();
+        sut.setRoutingKey("CRRP");
+
+        Message message = getMessage(null, "retry", PARKED_AT);
+        message.getMessageProperties().setReceivedRoutingKey("CRRP");
+
+        Assertions.assertTrue(sut.matches(message));
+    }
+
+    @DisplayName("success - with time range should match messages parked from inclusive to exclusive")
+    @Test
+    public void withTimeRangeShouldMatchParkedTime() {
+
+        ReplayFilter sut = new ReplayFilter();
+        sut.setFrom(PARKED_AT);
+        sut.setTo(PARKED_AT.plusSeconds(60));
+
+        Assertions.assertTrue(sut.matches(getMessage("CRRP", "retry", PARKED_AT)));
+        Assertions.assertFalse(sut.matches(getMessage("CRRP", "retry", PARKED_AT.minusMillis(1))));
+        Assertions.assertFalse(sut.matches(getMessage("CRRP", "retry", PARKED_AT.plusSeconds(60))));
+        Assertions.assertFalse(sut.matches(getMessage("CRRP", "retry", null)));
+    }
+
+    @DisplayName("success - without parked header should match on the message timestamp")
+    @Test
+    public void withoutParkedHeaderShouldMatchTimestamp() {
+
+        ReplayFilter sut = new ReplayFilter();
+        sut.setFrom(PARKED_AT);
+
+        Message message = getMessage("CRRP", "retry", null);
+        message.getMessageProperties().setTimestamp(Date.from(PARKED_AT));
+
+        Assertions.assertTrue(sut.matches(message));
+    }
+
+    private static Message getMessage(String routingKey, String errorType, Instant parkedAt) {
+
+        MessageProperties messageProperties = new MessageProperties();
+        if (routingKey != null) messageProperties.setHeader(Keys.X_ORIGINAL_ROUTING_KEY_HEADER, routingKey);
+        messageProperties.setHeader(Keys.X_ERROR_TYPE_HEADER, errorType);
+        if (parkedAt != null) messageProperties.setHeader(Keys.X_PARKED_AT_HEADER, parkedAt.toEpochMilli());
+
+        return new Message(new byte[0], messageProperties);
+    }
+
+}
@@ -0,0 +1,38 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@DisplayName("SmileMessageConverter test suite")
+public class SmileMessageConverterTest {
+
+    private final SmileMessageConverter sut = new SmileMessageConverter();
+
+    @DisplayName("success - with payload should round trip with smile content type and json type headers")
+    @Test
+    public void withPayloadShouldRoundTrip() {
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", "value");
+        payload.put("count", 3);
+
+        Message message = sut.toMessage(payload, new MessageProperties());
+        Message jsonMessage = new Jackson2JsonMessageConverter().toMessage(payload, new MessageProperties());
+
+        Assertions.assertEquals(SmileMessageConverter.CONTENT_TYPE_SMILE, message.getMessageProperties().getContentType());
+        Assertions.assertEquals(jsonMessage.getMessageProperties().getInferredArgumentType(),
+                message.getMessageProperties().getInferredArgumentType());
+        Assertions.assertEquals(jsonMessage.getMessageProperties().getHeaders().get("__TypeId__"),
+                message.getMessageProperties().getHeaders().get("__TypeId__"));
+        Assertions.assertTrue(message.getBody().length < jsonMessage.getBody().length);
+        Assertions.assertEquals(payload, sut.fromMessage(message));
+    }
+
+}
@@ -0,0 +1,131 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.amqp.rabbit.listener.MethodRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.expression.StandardBeanExpressionResolver;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DisplayName("TenantListenerConfigurer test suite")
+public class TenantListenerConfigurerTest {
+
+    @Mock
+    private RabbitListenerEndpointRegistrar registrarMock;
+
+    private DefaultListableBeanFactory beanFactory;
+
+    private DpsMessagingProperties properties;
+
+    @BeforeEach
+    public void setUp() {
+
+        MockitoAnnotations.initMocks(this);
+
+        beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("tenantConsumer", new RootBeanDefinition(TenantConsumer.class));
+        beanFactory.registerBeanDefinition("otherBean", new RootBeanDefinition(OtherBean.class));
+
+        properties = new DpsMessagingProperties();
+        properties.setExchangeName("exchange");
+        properties.setRoutingKey("CRRP");
+    }
+
+    @DisplayName("success - with tenants should register a listener per tenant main queue")
+    @Test
+    public void withTenantsShouldRegisterListenerPerTenant() {
+
+        properties.setTenants(Collections.singletonMap("VIPS", 2));
+
+        List<MethodRabbitListenerEndpoint> endpoints = configure();
+
+        Assertions.assertEquals(2, endpoints.size());
+        Assertions.assertEquals(Arrays.asList("tenantConsumer.receive.CRRP", "tenantConsumer.receive.VIPS"),
+                endpoints.stream().map(RabbitListenerEndpoint::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(Arrays.asList("CRRP.exchange.Q", "VIPS.exchange.Q"),
+                endpoints.stream().flatMap(endpoint -> endpoint.getQueueNames().stream()).collect(Collectors.toList()));
+        Assertions.assertEquals("receive", endpoints.get(0).getMethod().getName());
+        Assertions.assertSame(beanFactory.getBean("tenantConsumer"), endpoints.get(0).getBean());
+    }
+
+    @DisplayName("success - without tenants should register a listener on the worker main queue")
+    @Test
+    public void withoutTenantsShouldRegisterListenerOnMainQueue() {
+
+        List<MethodRabbitListenerEndpoint> endpoints = configure();
+
+        Assertions.assertEquals(1, endpoints.size());
+        Assertions.assertEquals(Collections.singletonList("CRRP.exchange.Q"), endpoints.get(0).getQueueNames());
+    }
+
+    @DisplayName("success - with auto startup should resolve placeholders and expressions")
+    @Test
+    public void withAutoStartupShouldResolveExpression() {
+
+        beanFactory = new DefaultListableBeanFactory();
+        beanFactory.addEmbeddedValueResolver(new StandardEnvironment()::resolvePlaceholders);
+        beanFactory.setBeanExpressionResolver(new StandardBeanExpressionResolver());
+        beanFactory.registerBeanDefinition("disabledConsumer", new RootBeanDefinition(DisabledConsumer.class));
+        beanFactory.registerBeanDefinition("expressionConsumer", new RootBeanDefinition(ExpressionConsumer.class));
+        beanFactory.registerBeanDefinition("tenantConsumer", new RootBeanDefinition(TenantConsumer.class));
+
+        List<MethodRabbitListenerEndpoint> endpoints = configure();
+
+        Assertions.assertEquals(3, endpoints.size());
+        Assertions.assertEquals(Boolean.FALSE, endpoints.get(0).getAutoStartup());
+        Assertions.assertEquals(Boolean.TRUE, endpoints.get(1).getAutoStartup());
+        Assertions.assertNull(endpoints.get(2).getAutoStartup());
+    }
+
+    private List<MethodRabbitListenerEndpoint> configure() {
+
+        new TenantListenerConfigurer(beanFactory, properties).configureRabbitListeners(registrarMock);
+
+        ArgumentCaptor<MethodRabbitListenerEndpoint> endpoints = ArgumentCaptor.forClass(MethodRabbitListenerEndpoint.class);
+        Mockito.verify(registrarMock, Mockito.atLeast(0)).registerEndpoint(endpoints.capture());
+
+        return endpoints.getAllValues();
+    }
+
+    public static class TenantConsumer {
+
+        @DpsTenantListener
+        public void receive(String message) { }
+
+    }
+
+    public static class DisabledConsumer {
+
+        @DpsTenantListener(autoStartup = "${dps.test.auto-startup:false}")
+        public void receive(String message) { }
+
+    }
+
+    public static class ExpressionConsumer {
+
+        @DpsTenantListener(autoStartup = "#{!${dps.test.aggregation-enabled:false}}")
+        public void receive(String message) { }
+
+    }
+
+    public static class OtherBean {
+
+        public void receive(String message) { }
+
+    }
+
+}
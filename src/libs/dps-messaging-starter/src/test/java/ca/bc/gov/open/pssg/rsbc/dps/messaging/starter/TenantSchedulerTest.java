@@ -0,0 +1,199 @@
+package ca.bc.gov.open.pssg.rsbc.dps.messaging.starter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@DisplayName("TenantScheduler test suite")
+public class TenantSchedulerTest {
+
+    private static final String CRRP = "CRRP";
+    private static final String VIPS = "VIPS";
+
+    private static final String HOLDER = "HOLDER";
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    public void setUp() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @DisplayName("success - with free tokens should acquire and release")
+    @Test
+    public void withFreeTokensShouldAcquireAndRelease() throws Exception {
+
+        TenantScheduler sut = new TenantScheduler(Collections.emptyMap(), 2);
+
+        sut.acquire(CRRP);
+        sut.acquire(VIPS);
+
+        Assertions.assertEquals(1, sut.getRunning(CRRP));
+        Assertions.assertEquals(1, sut.getRunning(VIPS));
+
+        sut.release(CRRP);
+        sut.release(VIPS);
+
+        Assertions.assertEquals(0, sut.getRunning(CRRP));
+        Assertions.assertEquals(0, sut.getRunning(VIPS));
+    }
+
+    @DisplayName("success - with all tokens in use should wait for a release")
+    @Test
+    public void withAllTokensInUseShouldWait() throws Exception {
+
+        TenantScheduler sut = new TenantScheduler(Collections.emptyMap(), 1);
+
+        sut.acquire(CRRP);
+
+        Future<?> waiting = executorService.submit(() -> {
+            sut.acquire(VIPS);
+            return null;
+        });
+
+        Assertions.assertThrows(TimeoutException.class, () -> waiting.get(100, TimeUnit.MILLISECONDS));
+
+        sut.release(CRRP);
+
+        waiting.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(1, sut.getRunning(VIPS));
+    }
+
+    @DisplayName("success - with interrupted waiting tenant should let the next tenant acquire")
+    @Test
+    public void withInterruptedWaitingTenantShouldLetNextAcquire() throws Exception {
+
+        TenantScheduler sut = new TenantScheduler(Collections.emptyMap(), 1);
+
+        sut.acquire(CRRP);
+
+        Future<?> interrupted = executorService.submit(() -> {
+            sut.acquire(VIPS);
+            return null;
+        });
+
+        Assertions.assertThrows(TimeoutException.class, () -> interrupted.get(100, TimeUnit.MILLISECONDS));
+        interrupted.cancel(true);
+
+        // a waiter signalled before it sees the interrupt keeps the token, release once it left the queue
+        long deadline = System.currentTimeMillis() + 1000;
+        while (sut.getWaiting(VIPS) > 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+        sut.release(CRRP);
+
+        Future<?> next = executorService.submit(() -> {
+            sut.acquire(CRRP);
+            return null;
+        });
+
+        next.get(1, TimeUnit.SECONDS);
+        Assertions.assertEquals(0, sut.getRunning(VIPS));
+        Assertions.assertEquals(1, sut.getRunning(CRRP));
+    }
+
+    @DisplayName("success - with weighted tenants should serve them in proportion to their weight")
+    @Test
+    public void withWeightedTenantsShouldServeProportionally() throws Exception {
+
+        TenantScheduler sut = new TenantScheduler(Collections.singletonMap(VIPS, 2), 1);
+
+        sut.acquire(HOLDER);
+
+        BlockingQueue<String> granted = new LinkedBlockingQueue<>();
+        submitWaiting(sut, granted, CRRP, 3);
+        submitWaiting(sut, granted, VIPS, 3);
+
+        sut.release(HOLDER);
+
+        List<String> order = serve(sut, granted, 6);
+
+        // vips advances half as fast as crrp, it gets two of the first three tokens whichever tenant goes first
+        Assertions.assertEquals(2, Collections.frequency(order.subList(0, 3), VIPS));
+        Assertions.assertEquals(3, Collections.frequency(order, CRRP));
+        Assertions.assertEquals(3, Collections.frequency(order, VIPS));
+    }
+
+    @DisplayName("success - with backlogged tenant should serve an arriving tenant next")
+    @Test
+    public void withBacklogShouldServeArrivingTenantNext() throws Exception {
+
+        TenantScheduler sut = new TenantScheduler(Collections.emptyMap(), 1);
+
+        sut.acquire(CRRP);
+
+        BlockingQueue<String> granted = new LinkedBlockingQueue<>();
+        submitWaiting(sut, granted, CRRP, 5);
+        submitWaiting(sut, granted, VIPS, 1);
+
+        sut.release(CRRP);
+
+        List<String> order = serve(sut, granted, 6);
+
+        Assertions.assertEquals(VIPS, order.get(0));
+        Assertions.assertEquals(Collections.nCopies(5, CRRP), order.subList(1, 6));
+    }
+
+    @DisplayName("success - with release without acquire should be ignored")
+    @Test
+    public void withReleaseWithoutAcquireShouldBeIgnored() throws Exception {
+
+        TenantScheduler sut = new TenantScheduler(Collections.emptyMap(), 1);
+
+        sut.release(CRRP);
+        sut.acquire(VIPS);
+
+        Assertions.assertEquals(0, sut.getRunning(CRRP));
+        Assertions.assertEquals(1, sut.getRunning(VIPS));
+    }
+
+    private void submitWaiting(TenantScheduler sut, BlockingQueue<String> granted, String tenant, int count)
+            throws InterruptedException {
+
+        for (int i = 0; i < count; i++) {
+            executorService.submit(() -> {
+                sut.acquire(tenant);
+                granted.add(tenant);
+                return null;
+            });
+        }
+
+        long deadline = System.currentTimeMillis() + 1000;
+        while (sut.getWaiting(tenant) < count && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+        Assertions.assertEquals(count, sut.getWaiting(tenant));
+    }
+
+    private static List<String> serve(TenantScheduler sut, BlockingQueue<String> granted, int count)
+            throws InterruptedException {
+
+        List<String> order = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            String tenant = granted.poll(1, TimeUnit.SECONDS);
+            Assertions.assertNotNull(tenant);
+            order.add(tenant);
+            sut.release(tenant);
+        }
+
+        return order;
+    }
+
+}
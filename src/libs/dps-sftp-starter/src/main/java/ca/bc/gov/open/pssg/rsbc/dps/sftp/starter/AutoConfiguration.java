@@ -2,9 +2,12 @@ package ca.bc.gov.open.pssg.rsbc.dps.sftp.starter;
 
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -61,14 +64,26 @@ public class AutoConfiguration {
         return jsch;
     }
 
+    /**
+     * Returns the sftp metrics, published to the application meter registry when there is one
+     * @param meterRegistry
+     * @return
+     */
+    @Bean
+    public SftpMetrics sftpMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new SftpMetrics(meterRegistry.getIfAvailable(CompositeMeterRegistry::new), sftpProperties.getHost(),
+                sftpProperties.getSlowOperationThreshold());
+    }
+
     /**
      * Returns the sftp service implementation
      * @param jschSessionProvider
+     * @param sftpMetrics
      * @return
      */
     @Bean
-    public SftpService sftpService(JschSessionProvider jschSessionProvider) {
-        return new SftpServiceImpl(jschSessionProvider);
+    public SftpService sftpService(JschSessionProvider jschSessionProvider, SftpMetrics sftpMetrics) {
+        return new SftpServiceImpl(jschSessionProvider, sftpMetrics);
     }
 
 
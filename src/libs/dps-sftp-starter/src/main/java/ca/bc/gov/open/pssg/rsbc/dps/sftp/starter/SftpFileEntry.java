@@ -0,0 +1,78 @@
+package ca.bc.gov.open.pssg.rsbc.dps.sftp.starter;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpATTRS;
+
+import java.text.MessageFormat;
+import java.time.Instant;
+
+/**
+ * Represents a remote directory entry with its attributes as returned by the sftp server.
+ *
+ * @author alexjoybc@github
+ */
+public class SftpFileEntry {
+
+    private final String filename;
+    private final long size;
+    private final Instant modifiedTime;
+    private final boolean directory;
+    private final boolean regularFile;
+    private final boolean link;
+
+    public SftpFileEntry(String filename, long size, Instant modifiedTime, boolean directory, boolean regularFile,
+                         boolean link) {
+        this.filename = filename;
+        this.size = size;
+        this.modifiedTime = modifiedTime;
+        this.directory = directory;
+        this.regularFile = regularFile;
+        this.link = link;
+    }
+
+    public static SftpFileEntry fromLsEntry(ChannelSftp.LsEntry lsEntry) {
+
+        SftpATTRS attrs = lsEntry.getAttrs();
+
+        if (attrs == null) return new SftpFileEntry(lsEntry.getFilename(), 0, null, false, true, false);
+
+        return new SftpFileEntry(
+                lsEntry.getFilename(),
+                attrs.getSize(),
+                Instant.ofEpochSecond(attrs.getMTime()),
+                attrs.isDir(),
+                attrs.isReg(),
+                attrs.isLink());
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public Instant getModifiedTime() {
+        return modifiedTime;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    public boolean isRegularFile() {
+        return regularFile;
+    }
+
+    public boolean isLink() {
+        return link;
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format("SftpFileEntry: filename [{0}], size [{1}], modified [{2}]", this.filename,
+                this.size, this.modifiedTime);
+    }
+
+}
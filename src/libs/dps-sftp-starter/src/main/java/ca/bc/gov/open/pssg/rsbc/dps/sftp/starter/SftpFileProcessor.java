@@ -0,0 +1,19 @@
+package ca.bc.gov.open.pssg.rsbc.dps.sftp.starter;
+
+/**
+ * Callback used to process remote directory entries one at a time within a single sftp session.
+ *
+ * @author alexjoybc@github
+ */
+@FunctionalInterface
+public interface SftpFileProcessor {
+
+    /**
+     * @param entry the directory entry to process
+     * @param operations operations bound to the current sftp channel
+     * @return true if the entry has been removed from the directory (moved or deleted), false if it is still there,
+     * used for reporting only
+     */
+    boolean process(SftpFileEntry entry, SftpOperations operations);
+
+}
@@ -0,0 +1,119 @@
+package ca.bc.gov.open.pssg.rsbc.dps.sftp.starter;
+
+import com.jcraft.jsch.SftpException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records sftp operation timings, failures and transferred bytes, tagged by host, and logs slow operations.
+ *
+ * @author alexjoybc@github
+ */
+public class SftpMetrics {
+
+    public static final String OPERATION_TIMER = "dps.sftp.operation";
+    public static final String FAILURE_COUNTER = "dps.sftp.failures";
+    public static final String BYTES_COUNTER = "dps.sftp.bytes";
+
+    public static final String CONNECT = "connect";
+    public static final String OPEN_CHANNEL = "open_channel";
+    public static final String GET = "get";
+    public static final String PUT = "put";
+    public static final String RENAME = "rename";
+    public static final String LS = "ls";
+
+    private static final String HOST_TAG = "host";
+    private static final String OPERATION_TAG = "operation";
+    private static final String OUTCOME_TAG = "outcome";
+    private static final String REASON_TAG = "reason";
+    private static final String SUCCESS = "success";
+    private static final String FAILURE = "failure";
+
+    @FunctionalInterface
+    public interface SftpCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final MeterRegistry meterRegistry;
+    private final String host;
+    private final long slowOperationThresholdNanos;
+
+    public SftpMetrics(MeterRegistry meterRegistry, String host, long slowOperationThresholdMillis) {
+        this.meterRegistry = meterRegistry;
+        this.host = host == null ? "" : host;
+        this.slowOperationThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowOperationThresholdMillis);
+    }
+
+    /**
+     * @return metrics that are not published anywhere and never log slow operations
+     */
+    public static SftpMetrics noop() {
+        return new SftpMetrics(new CompositeMeterRegistry(), "", Long.MAX_VALUE);
+    }
+
+    /**
+     * Executes and times the call.
+     *
+     * @param operation the operation name, one of the constants of this class
+     * @param target the remote path or resource, used for slow operation logging only
+     * @param call the call to execute
+     */
+    public <T, E extends Exception> T record(String operation, String target, SftpCall<T, E> call) throws E {
+
+        long start = System.nanoTime();
+        String outcome = FAILURE;
+
+        try {
+            T result = call.call();
+            outcome = SUCCESS;
+            return result;
+        } catch (Exception e) {
+            meterRegistry.counter(FAILURE_COUNTER, HOST_TAG, host, OPERATION_TAG, operation, REASON_TAG,
+                    getReason(e)).increment();
+            throw e;
+        } finally {
+            recordElapsed(operation, target, System.nanoTime() - start, SUCCESS.equals(outcome));
+        }
+    }
+
+    /**
+     * Records an operation timed by the caller, used when the operation cannot be wrapped in a single call.
+     *
+     * @param operation the operation name, one of the constants of this class
+     * @param target the remote path or resource, used for slow operation logging only
+     * @param elapsedNanos the duration of the operation
+     * @param success true when the operation succeeded
+     */
+    public void recordElapsed(String operation, String target, long elapsedNanos, boolean success) {
+
+        Timer.builder(OPERATION_TIMER)
+                .tags(HOST_TAG, host, OPERATION_TAG, operation, OUTCOME_TAG, success ? SUCCESS : FAILURE)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        if (elapsedNanos >= slowOperationThresholdNanos) {
+            logger.warn("Slow sftp {} on [{}] took {} ms", operation, target,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    /**
+     * Adds transferred bytes to the operation counter.
+     */
+    public void recordBytes(String operation, long bytes) {
+        meterRegistry.counter(BYTES_COUNTER, HOST_TAG, host, OPERATION_TAG, operation).increment(bytes);
+    }
+
+    private static String getReason(Exception e) {
+        if (e instanceof SftpException) return "sftp_status_" + ((SftpException) e).id;
+        return e.getClass().getSimpleName();
+    }
+
+}
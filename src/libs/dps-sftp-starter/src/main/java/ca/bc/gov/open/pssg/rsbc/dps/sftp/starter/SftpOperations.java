@@ -0,0 +1,21 @@
+package ca.bc.gov.open.pssg.rsbc.dps.sftp.starter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * File operations bound to an already opened sftp channel.
+ *
+ * Instances are only valid for the duration of the callback they are handed to.
+ *
+ * @author alexjoybc@github
+ */
+public interface SftpOperations {
+
+    ByteArrayInputStream getContent(String remoteFilename);
+
+    void moveFile(String remoteFileName, String destinationFilename);
+
+    void put(InputStream inputStream, String remoteFileName);
+
+}
@@ -19,6 +19,7 @@ public class SftpProperties {
     private String sshPrivateKey;
     private String sshPrivatePassphrase;
     private boolean allowUnknownKeys;
+    private long slowOperationThreshold = 1000;
 
     public String getHost() {
         return host;
@@ -91,4 +92,15 @@ public class SftpProperties {
     public void setAllowUnknownKeys(boolean allowUnknownKeys) {
         this.allowUnknownKeys = allowUnknownKeys;
     }
+
+    /**
+     * @return the duration in milliseconds above which an sftp operation is logged as slow
+     */
+    public long getSlowOperationThreshold() {
+        return slowOperationThreshold;
+    }
+
+    public void setSlowOperationThreshold(long slowOperationThreshold) {
+        this.slowOperationThreshold = slowOperationThreshold;
+    }
 }
@@ -3,6 +3,7 @@ package ca.bc.gov.open.pssg.rsbc.dps.sftp.starter;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public interface SftpService {
 
@@ -18,4 +19,42 @@ public interface SftpService {
 
     List<String> listFiles(String remoteDirectory);
 
+    /**
+     * Returns a page of directory entries matching the glob pattern, with their attributes.
+     *
+     * @param remoteDirectory the remote directory
+     * @param glob a glob pattern applied to the file name, for instance <code>*.xml</code>
+     * @param offset the number of matching entries to skip
+     * @param limit the maximum number of entries to return
+     */
+    List<SftpFileEntry> listFiles(String remoteDirectory, String glob, int offset, int limit);
+
+    /**
+     * Streams the directory entries matching the glob pattern to the processor, one page at a time, using a
+     * single sftp session and a single listing of the directory.
+     *
+     * @param remoteDirectory the remote directory
+     * @param glob a glob pattern applied to the file name, for instance <code>*.xml</code>
+     * @param pageSize the maximum number of entries held in memory at once
+     * @param processor the entry processor
+     */
+    void processFiles(String remoteDirectory, String glob, int pageSize, SftpFileProcessor processor);
+
+    /**
+     * Streams the directory entries matching the glob pattern to workers running on the executor, using a single
+     * sftp session and a single listing of the directory.
+     *
+     * Each worker keeps its own sftp channel for the whole call and hands its operations to the processor, the
+     * processor is called concurrently. The listing waits while pageSize entries are waiting for a worker.
+     *
+     * @param remoteDirectory the remote directory
+     * @param glob a glob pattern applied to the file name, for instance <code>*.xml</code>
+     * @param pageSize the maximum number of entries waiting for a worker
+     * @param workerCount the number of workers, entries are processed on the calling thread when below 2
+     * @param executor runs the workers, it needs a thread per worker for the workers to run concurrently
+     * @param processor the entry processor
+     */
+    void processFiles(String remoteDirectory, String glob, int pageSize, int workerCount, Executor executor,
+                      SftpFileProcessor processor);
+
 }
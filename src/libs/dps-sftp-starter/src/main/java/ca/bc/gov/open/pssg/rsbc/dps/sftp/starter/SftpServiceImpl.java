@@ -4,6 +4,7 @@ import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpException;
+import org.apache.commons.io.input.CountingInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,63 +12,50 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SftpServiceImpl implements SftpService {
 
     interface SftpFunction {
-        void exec(ChannelSftp channelSftp) throws SftpException;
+        void exec(ChannelSftp channelSftp) throws SftpException, JSchException;
     }
 
     public static final int BUFFER_SIZE = 8000;
+    private static final String CURRENT_DIRECTORY = ".";
+    private static final String PARENT_DIRECTORY = "..";
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final JschSessionProvider jschSessionProvider;
+    private final SftpMetrics sftpMetrics;
 
     public SftpServiceImpl(JschSessionProvider jschSessionProvider) {
+        this(jschSessionProvider, SftpMetrics.noop());
+    }
+
+    public SftpServiceImpl(JschSessionProvider jschSessionProvider, SftpMetrics sftpMetrics) {
         this.jschSessionProvider = jschSessionProvider;
+        this.sftpMetrics = sftpMetrics;
     }
 
     public ByteArrayInputStream getContent(String remoteFilename) {
 
-        ByteArrayInputStream result = null;
-        byte[] buff = new byte[BUFFER_SIZE];
-
-        Session session = null;
-
-        try (ByteArrayOutputStream bao = new ByteArrayOutputStream()) {
-
-            executeSftpFunction(channelSftp -> {
-                try {
-
-                    int bytesRead;
-
-                    logger.debug("Attempting to get remote file [{}]", remoteFilename);
-                    InputStream inputStream = channelSftp.get(remoteFilename);
-                    logger.debug("Successfully get remote file [{}]", remoteFilename);
-
-                    while ((bytesRead = inputStream.read(buff)) != -1) {
-                        bao.write(buff, 0, bytesRead);
-                    }
-
-                } catch (IOException e) {
-                    throw new DpsSftpException(e.getMessage(), e.getCause());
-                }
-            });
-
-            byte[] data = bao.toByteArray();
+        ByteArrayInputStream[] result = new ByteArrayInputStream[1];
 
-            try (ByteArrayInputStream resultBao = new ByteArrayInputStream(data)) {
-                result = resultBao;
-            }
+        executeSftpFunction(channelSftp -> result[0] = getContent(channelSftp, remoteFilename));
 
-        } catch (IOException e) {
-            throw new DpsSftpException(e.getMessage(), e.getCause());
-        }
-
-        return result;
+        return result[0];
     }
 
     /**
@@ -79,21 +67,14 @@ public class SftpServiceImpl implements SftpService {
      */
     public void moveFile(String remoteFileName, String destinationFilename) {
 
-        executeSftpFunction(channelSftp -> {
-                channelSftp.rename(remoteFileName, destinationFilename);
-                logger.debug("Successfully renamed files on the sftp server from {} to {}", remoteFileName,
-                        destinationFilename);
-        });
+        executeSftpFunction(channelSftp -> moveFile(channelSftp, remoteFileName, destinationFilename));
 
     }
 
     @Override
     public void put(InputStream inputStream, String remoteFileName) {
 
-        executeSftpFunction(channelSftp -> {
-                channelSftp.put(inputStream, remoteFileName);
-                logger.debug("Successfully uploadeed file [{}]", remoteFileName);
-        });
+        executeSftpFunction(channelSftp -> put(channelSftp, inputStream, remoteFileName));
     }
 
     /**
@@ -107,20 +88,292 @@ public class SftpServiceImpl implements SftpService {
         List<String> result = new ArrayList<>();
 
         executeSftpFunction(channelSftp -> {
-            Vector fileList = channelSftp.ls(remoteDirectory);
+            logger.debug("Attempting to list files in [{}]", remoteDirectory);
+            Vector fileList = sftpMetrics.record(SftpMetrics.LS, remoteDirectory, () -> channelSftp.ls(remoteDirectory));
 
             for(int i = 0; i < fileList.size(); i++) {
-                logger.debug("Attempting to list files in [{}]", remoteDirectory);
                 ChannelSftp.LsEntry lsEntry = (ChannelSftp.LsEntry)fileList.get(i);
-                logger.debug("Successfully to list files in [{}]", remoteDirectory);
                 result.add(lsEntry.getFilename());
             }
+            logger.debug("Successfully listed {} files in [{}]", result.size(), remoteDirectory);
+        });
+
+        return result;
+    }
+
+    /**
+     * Returns a page of directory entries matching the glob pattern.
+     *
+     * The listing stops reading the directory as soon as the page is full.
+     *
+     * @param remoteDirectory
+     * @param glob
+     * @param offset
+     * @param limit
+     * @return
+     */
+    @Override
+    public List<SftpFileEntry> listFiles(String remoteDirectory, String glob, int offset, int limit) {
+
+        List<SftpFileEntry> result = new ArrayList<>();
+
+        executeSftpFunction(channelSftp -> result.addAll(listFiles(channelSftp, remoteDirectory, glob, offset, limit)));
+
+        return result;
+    }
+
+    /**
+     * Streams matching directory entries to the processor using a single sftp session.
+     *
+     * The directory is listed once, the matching entries are handed to the processor a page at a time while the
+     * listing is read. The processor operations run on a second channel of the session so they do not interleave with
+     * the listing, files moved away by the processor are not listed again.
+     *
+     * @param remoteDirectory
+     * @param glob
+     * @param pageSize
+     * @param processor
+     */
+    @Override
+    public void processFiles(String remoteDirectory, String glob, int pageSize, SftpFileProcessor processor) {
+
+        executeSftpFunction(channelSftp -> {
+
+            ChannelSftp operationsChannel = openChannel(channelSftp.getSession());
+
+            try {
+
+                SftpOperations operations = new ChannelSftpOperations(operationsChannel);
+                PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+                List<SftpFileEntry> page = new ArrayList<>();
+                int[] counts = {0, 0};
+                long[] processingNanos = {0};
+
+                logger.debug("Attempting to process files matching [{}] in [{}]", glob, remoteDirectory);
+
+                long start = System.nanoTime();
+                boolean success = false;
+
+                try {
+
+                    channelSftp.ls(remoteDirectory, lsEntry -> {
+
+                        if (!isMatch(lsEntry, pathMatcher)) return ChannelSftp.LsEntrySelector.CONTINUE;
+
+                        page.add(SftpFileEntry.fromLsEntry(lsEntry));
+
+                        if (page.size() >= pageSize)
+                            processingNanos[0] += processPage(page, processor, operations, counts);
+
+                        return ChannelSftp.LsEntrySelector.CONTINUE;
+                    });
+
+                    success = true;
+
+                } finally {
+                    // the time spent in the processor is recorded by its own operations
+                    sftpMetrics.recordElapsed(SftpMetrics.LS, remoteDirectory,
+                            System.nanoTime() - start - processingNanos[0], success);
+                }
+
+                processPage(page, processor, operations, counts);
+
+                logger.debug("Successfully processed {} files in [{}], {} removed", counts[0], remoteDirectory,
+                        counts[1]);
+
+            } finally {
+                if (operationsChannel.isConnected()) operationsChannel.disconnect();
+            }
 
         });
 
+    }
+
+    /**
+     * Streams matching directory entries to workers using a single sftp session.
+     *
+     * The directory is listed once and the matching entries are queued for the workers, each worker opens its own
+     * channel of the session once and processes queued entries until the listing is done. The first processor failure
+     * stops the workers and the listing and is rethrown.
+     *
+     * @param remoteDirectory
+     * @param glob
+     * @param pageSize
+     * @param workerCount
+     * @param executor
+     * @param processor
+     */
+    @Override
+    public void processFiles(String remoteDirectory, String glob, int pageSize, int workerCount, Executor executor,
+                             SftpFileProcessor processor) {
+
+        if (workerCount < 2) {
+            processFiles(remoteDirectory, glob, pageSize, processor);
+            return;
+        }
+
+        executeSftpFunction(channelSftp -> {
+
+            SftpWorkers workers = new SftpWorkers(pageSize, processor);
+
+            try {
+
+                workers.start(channelSftp.getSession(), workerCount, executor);
+
+                PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+
+                logger.debug("Attempting to process files matching [{}] in [{}] with {} workers", glob,
+                        remoteDirectory, workerCount);
+
+                long start = System.nanoTime();
+                boolean success = false;
+
+                try {
+
+                    channelSftp.ls(remoteDirectory, lsEntry -> {
+
+                        if (!isMatch(lsEntry, pathMatcher)) return ChannelSftp.LsEntrySelector.CONTINUE;
+
+                        return workers.offer(SftpFileEntry.fromLsEntry(lsEntry)) ?
+                                ChannelSftp.LsEntrySelector.CONTINUE : ChannelSftp.LsEntrySelector.BREAK;
+                    });
+
+                    success = true;
+
+                } finally {
+                    // the time spent waiting for the workers is recorded by their own operations
+                    sftpMetrics.recordElapsed(SftpMetrics.LS, remoteDirectory,
+                            System.nanoTime() - start - workers.getWaitingNanos(), success);
+                }
+
+            } finally {
+                workers.close();
+            }
+
+            workers.throwIfFailed();
+
+            logger.debug("Successfully processed {} files in [{}], {} removed", workers.getProcessed(),
+                    remoteDirectory, workers.getRemoved());
+
+        });
+
+    }
+
+    /**
+     * Hands the page to the processor and clears it.
+     *
+     * @return the time spent processing the page in nanoseconds
+     */
+    private long processPage(List<SftpFileEntry> page, SftpFileProcessor processor, SftpOperations operations,
+                             int[] counts) {
+
+        long start = System.nanoTime();
+
+        for (SftpFileEntry entry : page) {
+            if (processor.process(entry, operations)) counts[1]++;
+            counts[0]++;
+        }
+
+        page.clear();
+
+        return System.nanoTime() - start;
+    }
+
+    private List<SftpFileEntry> listFiles(ChannelSftp channelSftp, String remoteDirectory, String glob, int offset,
+                                          int limit) throws SftpException {
+
+        List<SftpFileEntry> result = new ArrayList<>();
+
+        if (limit <= 0) return result;
+
+        PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        int[] skipped = {0};
+
+        logger.debug("Attempting to list files matching [{}] in [{}]", glob, remoteDirectory);
+
+        sftpMetrics.record(SftpMetrics.LS, remoteDirectory, () -> {
+
+            channelSftp.ls(remoteDirectory, lsEntry -> {
+
+                if (!isMatch(lsEntry, pathMatcher)) return ChannelSftp.LsEntrySelector.CONTINUE;
+
+                if (skipped[0] < offset) {
+                    skipped[0]++;
+                    return ChannelSftp.LsEntrySelector.CONTINUE;
+                }
+
+                result.add(SftpFileEntry.fromLsEntry(lsEntry));
+
+                return result.size() < limit ? ChannelSftp.LsEntrySelector.CONTINUE : ChannelSftp.LsEntrySelector.BREAK;
+            });
+
+            return null;
+        });
+
+        logger.debug("Successfully listed {} files matching [{}] in [{}]", result.size(), glob, remoteDirectory);
+
         return result;
     }
 
+    private static boolean isMatch(ChannelSftp.LsEntry lsEntry, PathMatcher pathMatcher) {
+        String filename = lsEntry.getFilename();
+        return !CURRENT_DIRECTORY.equals(filename) && !PARENT_DIRECTORY.equals(filename) &&
+                pathMatcher.matches(Paths.get(filename));
+    }
+
+    private ByteArrayInputStream getContent(ChannelSftp channelSftp, String remoteFilename) throws SftpException {
+
+        byte[] buff = new byte[BUFFER_SIZE];
+
+        try (ByteArrayOutputStream bao = new ByteArrayOutputStream()) {
+
+            sftpMetrics.record(SftpMetrics.GET, remoteFilename, () -> {
+
+                int bytesRead;
+
+                logger.debug("Attempting to get remote file [{}]", remoteFilename);
+                InputStream inputStream = channelSftp.get(remoteFilename);
+                logger.debug("Successfully get remote file [{}]", remoteFilename);
+
+                try {
+                    while ((bytesRead = inputStream.read(buff)) != -1) {
+                        bao.write(buff, 0, bytesRead);
+                    }
+                } catch (IOException e) {
+                    throw new DpsSftpException(e.getMessage(), e.getCause());
+                }
+
+                return null;
+            });
+
+            sftpMetrics.recordBytes(SftpMetrics.GET, bao.size());
+
+            return new ByteArrayInputStream(bao.toByteArray());
+
+        } catch (IOException e) {
+            throw new DpsSftpException(e.getMessage(), e.getCause());
+        }
+    }
+
+    private void moveFile(ChannelSftp channelSftp, String remoteFileName, String destinationFilename) throws SftpException {
+        sftpMetrics.record(SftpMetrics.RENAME, remoteFileName, () -> {
+            channelSftp.rename(remoteFileName, destinationFilename);
+            return null;
+        });
+        logger.debug("Successfully renamed files on the sftp server from {} to {}", remoteFileName,
+                destinationFilename);
+    }
+
+    private void put(ChannelSftp channelSftp, InputStream inputStream, String remoteFileName) throws SftpException {
+        CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+        sftpMetrics.record(SftpMetrics.PUT, remoteFileName, () -> {
+            channelSftp.put(countingInputStream, remoteFileName);
+            return null;
+        });
+        sftpMetrics.recordBytes(SftpMetrics.PUT, countingInputStream.getByteCount());
+        logger.debug("Successfully uploadeed file [{}]", remoteFileName);
+    }
+
     private void executeSftpFunction(SftpFunction sftpFunction) {
 
         ChannelSftp channelSftp = null;
@@ -128,12 +381,9 @@ public class SftpServiceImpl implements SftpService {
 
         try {
 
-            session = jschSessionProvider.getSession();
+            session = sftpMetrics.record(SftpMetrics.CONNECT, "session", jschSessionProvider::getSession);
 
-            logger.debug("Attempting to open sftp channel");
-            channelSftp = (ChannelSftp) session.openChannel("sftp");
-            channelSftp.connect();
-            logger.debug("Successfully connected to sftp server");
+            channelSftp = openChannel(session);
 
             sftpFunction.exec(channelSftp);
 
@@ -147,7 +397,187 @@ public class SftpServiceImpl implements SftpService {
         }
     }
 
+    private ChannelSftp openChannel(Session session) throws JSchException {
+
+        logger.debug("Attempting to open sftp channel");
+        ChannelSftp result = sftpMetrics.record(SftpMetrics.OPEN_CHANNEL, "sftp", () -> {
+            ChannelSftp channel = (ChannelSftp) session.openChannel("sftp");
+            channel.connect();
+            return channel;
+        });
+        logger.debug("Successfully connected to sftp server");
+
+        return result;
+    }
+
+    /**
+     * Workers processing the entries queued by the listing, each on its own channel of the listing session.
+     */
+    private class SftpWorkers {
+
+        private static final long POLL_TIMEOUT = 100;
+
+        private final BlockingQueue<SftpFileEntry> queue;
+        private final SftpFileProcessor processor;
+        private final List<ChannelSftp> channels = new ArrayList<>();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger removed = new AtomicInteger();
+        private CountDownLatch done = new CountDownLatch(0);
+        private volatile boolean closed;
+        private long waitingNanos;
+
+        private SftpWorkers(int pageSize, SftpFileProcessor processor) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, pageSize));
+            this.processor = processor;
+        }
+
+        private void start(Session session, int workerCount, Executor executor) throws JSchException {
+
+            for (int i = 0; i < workerCount; i++) channels.add(openChannel(session));
+
+            done = new CountDownLatch(workerCount);
+
+            int started = 0;
+
+            try {
+                for (ChannelSftp channel : channels) {
+                    executor.execute(() -> work(new ChannelSftpOperations(channel)));
+                    started++;
+                }
+            } finally {
+                for (int i = started; i < workerCount; i++) done.countDown();
+            }
+        }
+
+        private void work(SftpOperations operations) {
+
+            try {
+
+                while (failure.get() == null) {
+
+                    SftpFileEntry entry = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+
+                    if (entry == null) {
+                        // entries are all queued before closing
+                        if (closed && queue.isEmpty()) return;
+                        continue;
+                    }
+
+                    if (processor.process(entry, operations)) removed.incrementAndGet();
+                    processed.incrementAndGet();
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new DpsSftpException("sftp worker interrupted", e));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Queues the entry, waits while the queue is full.
+         *
+         * @return false if the workers failed, the entry is not queued
+         */
+        private boolean offer(SftpFileEntry entry) {
+
+            long start = System.nanoTime();
+
+            try {
+
+                while (failure.get() == null) {
+                    if (queue.offer(entry, POLL_TIMEOUT, TimeUnit.MILLISECONDS)) return true;
+                }
+
+                return false;
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new DpsSftpException("sftp listing interrupted", e));
+                return false;
+            } finally {
+                waitingNanos += System.nanoTime() - start;
+            }
+        }
+
+        /**
+         * Waits for the workers to process the queued entries and closes their channels.
+         */
+        private void close() {
+
+            closed = true;
+
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new DpsSftpException("interrupted while waiting for sftp workers", e));
+            }
+
+            for (ChannelSftp channel : channels) {
+                if (channel.isConnected()) channel.disconnect();
+            }
+        }
+
+        private void throwIfFailed() {
+            RuntimeException exception = failure.get();
+            if (exception != null) throw exception;
+        }
+
+        private long getWaitingNanos() {
+            return waitingNanos;
+        }
+
+        private int getProcessed() {
+            return processed.get();
+        }
+
+        private int getRemoved() {
+            return removed.get();
+        }
+    }
+
+    /**
+     * Sftp operations executed on the channels opened by {@link #processFiles}.
+     */
+    private class ChannelSftpOperations implements SftpOperations {
+
+        private final ChannelSftp channelSftp;
+
+        private ChannelSftpOperations(ChannelSftp channelSftp) {
+            this.channelSftp = channelSftp;
+        }
+
+        @Override
+        public ByteArrayInputStream getContent(String remoteFilename) {
+            try {
+                return SftpServiceImpl.this.getContent(channelSftp, remoteFilename);
+            } catch (SftpException e) {
+                throw new DpsSftpException(e.getMessage(), e.getCause());
+            }
+        }
 
+        @Override
+        public void moveFile(String remoteFileName, String destinationFilename) {
+            try {
+                SftpServiceImpl.this.moveFile(channelSftp, remoteFileName, destinationFilename);
+            } catch (SftpException e) {
+                throw new DpsSftpException(e.getMessage(), e.getCause());
+            }
+        }
 
+        @Override
+        public void put(InputStream inputStream, String remoteFileName) {
+            try {
+                SftpServiceImpl.this.put(channelSftp, inputStream, remoteFileName);
+            } catch (SftpException e) {
+                throw new DpsSftpException(e.getMessage(), e.getCause());
+            }
+        }
+    }
 
 }
@@ -0,0 +1,69 @@
+package ca.bc.gov.open.pssg.rsbc.dps.sftp.starter;
+
+import com.jcraft.jsch.JSchException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SftpMetricsTest {
+
+    public static final String HOST = "host";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private SftpMetrics sut;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        sut = new SftpMetrics(meterRegistry, HOST, 1000);
+    }
+
+    @Test
+    public void withSuccessShouldRecordTimer() {
+
+        String actual = sut.record(SftpMetrics.GET, "file", () -> "result");
+
+        Assertions.assertEquals("result", actual);
+        Assertions.assertEquals(1, meterRegistry.get(SftpMetrics.OPERATION_TIMER)
+                .tags("host", HOST, "operation", SftpMetrics.GET, "outcome", "success").timer().count());
+
+    }
+
+    @Test
+    public void withExceptionShouldRecordFailure() {
+
+        Assertions.assertThrows(JSchException.class, () -> sut.record(SftpMetrics.CONNECT, "session", () -> {
+            throw new JSchException("auth fail");
+        }));
+
+        Assertions.assertEquals(1, meterRegistry.get(SftpMetrics.OPERATION_TIMER)
+                .tags("operation", SftpMetrics.CONNECT, "outcome", "failure").timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(SftpMetrics.FAILURE_COUNTER)
+                .tags("host", HOST, "operation", SftpMetrics.CONNECT, "reason", "JSchException").counter().count());
+
+    }
+
+    @Test
+    public void withBytesShouldIncrementCounter() {
+
+        sut.recordBytes(SftpMetrics.PUT, 10);
+        sut.recordBytes(SftpMetrics.PUT, 5);
+
+        Assertions.assertEquals(15, meterRegistry.get(SftpMetrics.BYTES_COUNTER)
+                .tags("operation", SftpMetrics.PUT).counter().count());
+
+    }
+
+    @Test
+    public void withNoopShouldNotThrow() {
+
+        Assertions.assertDoesNotThrow(() -> {
+            SftpMetrics.noop().record(SftpMetrics.LS, "dir", () -> null);
+            SftpMetrics.noop().recordBytes(SftpMetrics.GET, 10);
+        });
+
+    }
+
+}
@@ -3,21 +3,32 @@ package ca.bc.gov.open.pssg.rsbc.dps.sftp.starter;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
 import org.junit.jupiter.api.*;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class SftpServiceImplListFileTest {
 
     public static final String FILENAME_1 = "filename1";
     public static final String FILENAME_2 = "filename2";
+    public static final String XML_1 = "file1.xml";
+    public static final String XML_2 = "file2.xml";
+    public static final String XML_3 = "file3.xml";
     private static String CASE_1 = "case1";
+    private static String CASE_2 = "case2";
 
 
     @Mock
@@ -35,6 +46,11 @@ public class SftpServiceImplListFileTest {
     @Mock
     private ChannelSftp.LsEntry lsEntry2Mock;
 
+    @Mock
+    private SftpATTRS sftpATTRSMock;
+
+    private List<ChannelSftp.LsEntry> fakeEntries;
+
     private SftpServiceImpl sut;
 
 
@@ -45,6 +61,7 @@ public class SftpServiceImplListFileTest {
         MockitoAnnotations.initMocks(this);
 
         Mockito.when(sessionMock.openChannel(Mockito.eq("sftp"))).thenReturn(channelSftpMock);
+        Mockito.when(channelSftpMock.getSession()).thenReturn(sessionMock);
         Mockito.when(jschSessionProviderMock.getSession()).thenReturn(sessionMock);
 
         Mockito.when(lsEntry1Mock.getFilename()).thenReturn(FILENAME_1);
@@ -55,6 +72,29 @@ public class SftpServiceImplListFileTest {
         fakeList.add(lsEntry2Mock);
 
         Mockito.when(channelSftpMock.ls(CASE_1)).thenReturn(fakeList);
+
+        Mockito.when(sftpATTRSMock.getSize()).thenReturn(10L);
+        Mockito.when(sftpATTRSMock.getMTime()).thenReturn(1000);
+        Mockito.when(sftpATTRSMock.isReg()).thenReturn(true);
+
+        fakeEntries = new ArrayList<>();
+        fakeEntries.add(fakeLsEntry("."));
+        fakeEntries.add(fakeLsEntry(".."));
+        fakeEntries.add(fakeLsEntry(XML_1));
+        fakeEntries.add(fakeLsEntry(FILENAME_1));
+        fakeEntries.add(fakeLsEntry(XML_2));
+        fakeEntries.add(fakeLsEntry(XML_3));
+
+        Mockito.doAnswer(invocation -> {
+            ChannelSftp.LsEntrySelector selector = invocation.getArgument(1);
+            // a listing is not affected by the entries moved while it is read
+            for (ChannelSftp.LsEntry entry : new ArrayList<>(fakeEntries)) {
+                if (selector.select(entry) == ChannelSftp.LsEntrySelector.BREAK) break;
+            }
+            return null;
+        }).when(channelSftpMock).ls(Mockito.eq(CASE_2), Mockito.any(ChannelSftp.LsEntrySelector.class));
+
+        Mockito.when(channelSftpMock.get(Mockito.anyString())).thenAnswer(invocation -> new ByteArrayInputStream("content".getBytes()));
         Mockito.when(channelSftpMock.isConnected()).thenReturn(true);
 
         sut = new SftpServiceImpl(jschSessionProviderMock);
@@ -72,5 +112,172 @@ public class SftpServiceImplListFileTest {
 
     }
 
+    @Test
+    @DisplayName("Success - Test with glob filter should return entries with attributes")
+    public void withGlobShouldReturnMatchingEntries() {
+
+        List<SftpFileEntry> actual = sut.listFiles(CASE_2, "*.xml", 0, 10);
+
+        Assertions.assertEquals(3, actual.size());
+        Assertions.assertEquals(XML_1, actual.get(0).getFilename());
+        Assertions.assertEquals(10L, actual.get(0).getSize());
+        Assertions.assertEquals(1000L, actual.get(0).getModifiedTime().getEpochSecond());
+        Assertions.assertTrue(actual.get(0).isRegularFile());
+        Assertions.assertFalse(actual.get(0).isDirectory());
+
+    }
+
+    @Test
+    @DisplayName("Success - Test with offset and limit should return a page of entries")
+    public void withOffsetAndLimitShouldReturnPage() {
+
+        List<SftpFileEntry> actual = sut.listFiles(CASE_2, "*.xml", 1, 1);
+
+        Assertions.assertEquals(1, actual.size());
+        Assertions.assertEquals(XML_2, actual.get(0).getFilename());
+
+    }
+
+    @Test
+    @DisplayName("Success - Test processing all entries within one session")
+    public void withProcessorShouldProcessAllEntriesInOneSession() throws JSchException, SftpException {
+
+        List<String> processed = new ArrayList<>();
+
+        sut.processFiles(CASE_2, "*.xml", 2, (entry, operations) -> {
+            operations.getContent(entry.getFilename());
+            processed.add(entry.getFilename());
+            return false;
+        });
+
+        Assertions.assertEquals(3, processed.size());
+        Assertions.assertTrue(processed.contains(XML_1));
+        Assertions.assertTrue(processed.contains(XML_2));
+        Assertions.assertTrue(processed.contains(XML_3));
+        Mockito.verify(jschSessionProviderMock, Mockito.times(1)).getSession();
+        Mockito.verify(channelSftpMock, Mockito.times(1))
+                .ls(Mockito.eq(CASE_2), Mockito.any(ChannelSftp.LsEntrySelector.class));
+        // one channel lists the directory, the other runs the processor operations
+        Mockito.verify(sessionMock, Mockito.times(2)).openChannel(Mockito.eq("sftp"));
+
+    }
+
+    @Test
+    @DisplayName("Success - Test processing entries removed from the directory")
+    public void withProcessorRemovingEntriesShouldNotSkipEntries() throws SftpException {
+
+        List<String> processed = new ArrayList<>();
+
+        sut.processFiles(CASE_2, "*.xml", 2, (entry, operations) -> {
+            processed.add(entry.getFilename());
+            fakeEntries.removeIf(x -> x.getFilename().equals(entry.getFilename()));
+            return true;
+        });
+
+        Assertions.assertEquals(3, processed.size());
+        Mockito.verify(channelSftpMock, Mockito.times(1))
+                .ls(Mockito.eq(CASE_2), Mockito.any(ChannelSftp.LsEntrySelector.class));
+
+    }
+
+    @Test
+    @DisplayName("Success - Test processing should hand entries to the processor a page at a time while listing")
+    public void withPageSizeShouldProcessPagesWhileListing() throws JSchException, SftpException {
+
+        List<String> events = new ArrayList<>();
+
+        Mockito.reset(channelSftpMock);
+        Mockito.when(channelSftpMock.getSession()).thenReturn(sessionMock);
+        Mockito.when(channelSftpMock.isConnected()).thenReturn(true);
+        Mockito.doAnswer(invocation -> {
+            ChannelSftp.LsEntrySelector selector = invocation.getArgument(1);
+            for (ChannelSftp.LsEntry entry : new ArrayList<>(fakeEntries)) {
+                events.add("listed " + entry.getFilename());
+                selector.select(entry);
+            }
+            return null;
+        }).when(channelSftpMock).ls(Mockito.eq(CASE_2), Mockito.any(ChannelSftp.LsEntrySelector.class));
+
+        sut.processFiles(CASE_2, "*.xml", 2, (entry, operations) -> {
+            events.add("processed " + entry.getFilename());
+            return false;
+        });
+
+        Assertions.assertEquals(Arrays.asList("listed .", "listed ..", "listed " + XML_1, "listed " + FILENAME_1,
+                "listed " + XML_2, "processed " + XML_1, "processed " + XML_2, "listed " + XML_3,
+                "processed " + XML_3), events);
+    }
+
+    @Test
+    @DisplayName("Success - Test processing entries with workers each on its own channel of one session")
+    public void withWorkersShouldProcessAllEntriesInOneSession() throws JSchException, SftpException {
+
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        try {
+            sut.processFiles(CASE_2, "*.xml", 1, 2, executorService, (entry, operations) -> {
+                operations.getContent(entry.getFilename());
+                processed.add(entry.getFilename());
+                return true;
+            });
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assertions.assertEquals(3, processed.size());
+        Assertions.assertTrue(processed.containsAll(Arrays.asList(XML_1, XML_2, XML_3)));
+        Mockito.verify(jschSessionProviderMock, Mockito.times(1)).getSession();
+        Mockito.verify(channelSftpMock, Mockito.times(1))
+                .ls(Mockito.eq(CASE_2), Mockito.any(ChannelSftp.LsEntrySelector.class));
+        // one channel lists the directory, each worker keeps its own channel
+        Mockito.verify(sessionMock, Mockito.times(3)).openChannel(Mockito.eq("sftp"));
+        Mockito.verify(channelSftpMock, Mockito.times(3)).get(Mockito.anyString());
+
+    }
+
+    @Test
+    @DisplayName("Error - Test processing with a failing worker should stop and throw")
+    public void withFailingWorkerShouldThrow() {
+
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+        try {
+            DpsSftpException actual = Assertions.assertThrows(DpsSftpException.class, () ->
+                    sut.processFiles(CASE_2, "*.xml", 1, 2, executorService, (entry, operations) -> {
+                        throw new DpsSftpException("random", null);
+                    }));
+            Assertions.assertEquals("random", actual.getMessage());
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Mockito.verify(channelSftpMock, Mockito.atLeastOnce()).disconnect();
+
+    }
+
+    @Test
+    @DisplayName("Success - Test processing with a single worker should process on the listing session")
+    public void withSingleWorkerShouldProcessOnCallingThread() throws JSchException {
+
+        Thread caller = Thread.currentThread();
+        List<Thread> threads = new ArrayList<>();
+
+        sut.processFiles(CASE_2, "*.xml", 2, 1, Runnable::run, (entry, operations) -> {
+            threads.add(Thread.currentThread());
+            return false;
+        });
+
+        Assertions.assertEquals(Arrays.asList(caller, caller, caller), threads);
+        Mockito.verify(sessionMock, Mockito.times(2)).openChannel(Mockito.eq("sftp"));
+
+    }
+
+    private ChannelSftp.LsEntry fakeLsEntry(String filename) {
+        ChannelSftp.LsEntry lsEntry = Mockito.mock(ChannelSftp.LsEntry.class);
+        Mockito.when(lsEntry.getFilename()).thenReturn(filename);
+        Mockito.when(lsEntry.getAttrs()).thenReturn(sftpATTRSMock);
+        return lsEntry;
+    }
 
 }
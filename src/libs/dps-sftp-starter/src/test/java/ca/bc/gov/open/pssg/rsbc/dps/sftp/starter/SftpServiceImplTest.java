@@ -4,6 +4,7 @@ import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -127,4 +128,33 @@ public class SftpServiceImplTest {
         });
     }
 
+    @Test
+    public void withMetricsShouldRecordOperationsAndBytes() throws IOException {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SftpServiceImpl instrumented = new SftpServiceImpl(jschSessionProviderMock, new SftpMetrics(meterRegistry,
+                "host", 1000));
+
+        IOUtils.toString(instrumented.getContent(CASE_1), StandardCharsets.UTF_8.name());
+
+        Assertions.assertEquals(1, meterRegistry.get(SftpMetrics.OPERATION_TIMER).tags("operation", SftpMetrics.CONNECT).timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(SftpMetrics.OPERATION_TIMER).tags("operation", SftpMetrics.OPEN_CHANNEL).timer().count());
+        Assertions.assertEquals(1, meterRegistry.get(SftpMetrics.OPERATION_TIMER).tags("operation", SftpMetrics.GET).timer().count());
+        Assertions.assertEquals(FAKE_INPUT_STREAM.length(), meterRegistry.get(SftpMetrics.BYTES_COUNTER).tags("operation", SftpMetrics.GET).counter().count());
+
+    }
+
+    @Test
+    public void withMetricsAndSftpExceptionShouldRecordFailure() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SftpServiceImpl instrumented = new SftpServiceImpl(jschSessionProviderMock, new SftpMetrics(meterRegistry,
+                "host", 1000));
+
+        Assertions.assertThrows(DpsSftpException.class, () -> instrumented.getContent(CASE_3));
+
+        Assertions.assertEquals(1, meterRegistry.get(SftpMetrics.FAILURE_COUNTER).tags("operation", SftpMetrics.GET).counter().count());
+
+    }
+
 }
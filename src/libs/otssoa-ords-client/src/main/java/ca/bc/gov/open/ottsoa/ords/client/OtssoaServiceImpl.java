@@ -7,13 +7,17 @@ import ca.bc.gov.open.ottsoa.ords.client.api.model.CreatePackagePayload;
 import ca.bc.gov.open.ottsoa.ords.client.api.model.DefaultResponse;
 import ca.bc.gov.open.ottsoa.ords.client.models.CreateObjectRequest;
 import ca.bc.gov.open.ottsoa.ords.client.models.CreatePackageRequest;
+import ca.bc.gov.open.pssg.rsbc.utils.DateUtils;
 import org.apache.commons.lang3.StringUtils;
 
-import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
 import java.util.Date;
 
 public class OtssoaServiceImpl implements OtssoaService {
 
+    // Keys.ORDS_DATE_PATTERN as rendered by SimpleDateFormat: MM is the month and SS the milliseconds on 2 digits or more
+    private static final DateTimeFormatter ORDS_DATE_FORMATTER = DateUtils.ofLegacyPattern(Keys.ORDS_DATE_PATTERN);
+
     private final OtssoaApi otssoaApi;
 
     public OtssoaServiceImpl(OtssoaApi otssoaApi) {
@@ -60,8 +64,7 @@ public class OtssoaServiceImpl implements OtssoaService {
 
 
     private String formatDate(Date date) {
-        SimpleDateFormat sdf = new SimpleDateFormat(Keys.ORDS_DATE_PATTERN);
-        return sdf.format(date);
+        return DateUtils.format(date, ORDS_DATE_FORMATTER);
     }
 
 }
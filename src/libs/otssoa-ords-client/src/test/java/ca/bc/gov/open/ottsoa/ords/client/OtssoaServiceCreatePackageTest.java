@@ -9,10 +9,12 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.UUID;
 
@@ -78,4 +80,22 @@ public class OtssoaServiceCreatePackageTest {
     }
 
 
+    @Test
+    public void withReceivedDateItShouldFormatLikeSimpleDateFormat() throws ApiException {
+
+        for (long millis : new long[] { 1580553026007L, 1580553026123L }) {
+
+            Date receivedDate = new Date(millis);
+
+            sut.createPackage(new CreatePackageRequest.Builder().withReceivedDate(receivedDate).build());
+
+            ArgumentCaptor<CreatePackagePayload> payload = ArgumentCaptor.forClass(CreatePackagePayload.class);
+            Mockito.verify(otssoaApiMock, Mockito.atLeastOnce()).createPackagePost(payload.capture());
+
+            Assertions.assertEquals(new SimpleDateFormat(Keys.ORDS_DATE_PATTERN).format(receivedDate),
+                    payload.getValue().getReceivedDate());
+        }
+
+    }
+
 }
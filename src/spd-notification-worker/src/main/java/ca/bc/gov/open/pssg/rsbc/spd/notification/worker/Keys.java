@@ -19,5 +19,10 @@ public class Keys {
 
     public static final String APP_NAME = "spd-notification-worker";
 
+    /**
+     * The FIGARO ords dependency name used to limit concurrent calls
+     */
+    public static final String FIGARO_DEPENDENCY = "figaro";
+
 
 }
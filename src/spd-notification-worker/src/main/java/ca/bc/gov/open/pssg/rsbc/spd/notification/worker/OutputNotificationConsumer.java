@@ -2,8 +2,11 @@ package ca.bc.gov.open.pssg.rsbc.spd.notification.worker;
 
 import ca.bc.gov.dps.monitoring.NotificationService;
 import ca.bc.gov.dps.monitoring.SystemNotification;
+import ca.bc.gov.open.pssg.rsbc.dps.files.DpsFileException;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileInfo;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
+import ca.bc.gov.open.pssg.rsbc.dps.files.PathLayout;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
 import ca.bc.gov.open.pssg.rsbc.dps.notification.OutputNotificationMessage;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.DpsSftpException;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpProperties;
@@ -44,17 +47,23 @@ public class OutputNotificationConsumer {
     private final SftpProperties sftpProperties;
     private final DocumentService documentService;
     private final JAXBContext kofaxOutputMetadataContext;
+    private final PathLayout pathLayout;
+    private final DependencyLimiter dependencyLimiter;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     public OutputNotificationConsumer(FileService fileService,
                                       SftpProperties sftpProperties,
                                       DocumentService documentService,
-                                      @Qualifier("kofaxOutputMetadataContext") JAXBContext kofaxOutputMetadataContext) {
+                                      @Qualifier("kofaxOutputMetadataContext") JAXBContext kofaxOutputMetadataContext,
+                                      PathLayout pathLayout,
+                                      DependencyLimiter dependencyLimiter) {
         this.fileService = fileService;
         this.sftpProperties = sftpProperties;
         this.documentService = documentService;
         this.kofaxOutputMetadataContext = kofaxOutputMetadataContext;
+        this.pathLayout = pathLayout;
+        this.dependencyLimiter = dependencyLimiter;
     }
 
     @RabbitListener(queues = Keys.CRRP_QUEUE_NAME)
@@ -65,7 +74,7 @@ public class OutputNotificationConsumer {
         MDC.put(DPS_FILE_ID_KEY, message.getFileId());
         MDC.put(DPS_BUSINESS_AREA_CD_KEY, message.getBusinessAreaCd());
 
-        FileInfo fileInfo = new FileInfo(message.getFileId(), IMAGE_EXTENSION, sftpProperties.getRemoteLocation(), "errorhold");
+        FileInfo fileInfo = new FileInfo(message.getFileId(), IMAGE_EXTENSION, sftpProperties.getRemoteLocation(), pathLayout);
 
         try {
 
@@ -80,7 +89,8 @@ public class OutputNotificationConsumer {
             DpsDocumentRequestBody documentRequestBody = new DpsDocumentRequestBody(sftpProperties.getHost(),
                     fileInfo.getFileName());
             logger.debug("attempting to store spd document, request: {}", documentRequestBody.toString());
-            DpsDocumentResponse documentResponse = documentService.storeDocument(documentRequestBody);
+            DpsDocumentResponse documentResponse = dependencyLimiter.call(Keys.FIGARO_DEPENDENCY,
+                    () -> documentService.storeDocument(documentRequestBody));
 
             if (documentResponse.getRespCode() == SUCCESS_CODE) {
 
@@ -134,8 +144,8 @@ public class OutputNotificationConsumer {
 
                 logger.debug("figaro request: {}");
 
-                DpsDataIntoFigaroResponse figaroResponse =
-                        documentService.dpsDataIntoFigaro(dpsDataIntoFigaroRequestBody);
+                DpsDataIntoFigaroResponse figaroResponse = dependencyLimiter.call(Keys.FIGARO_DEPENDENCY,
+                        () -> documentService.dpsDataIntoFigaro(dpsDataIntoFigaroRequestBody));
 
 
                 if (figaroResponse.getRespCode() == SUCCESS_CODE) {
@@ -158,7 +168,7 @@ public class OutputNotificationConsumer {
         } catch (IOException | JAXBException e) {
             logger.error("{} while processing file id [{}]: ", e.getClass().getSimpleName(), fileInfo.getFileId(), e);
             fileService.moveFilesToError(fileInfo);
-        } catch (DpsSftpException e) {
+        } catch (DpsSftpException | DpsFileException e) {
             logger.error("{} while processing file id [{}]: ", e.getClass().getSimpleName(), fileInfo.getFileId(), e);
         } finally {
             MDC.remove(DPS_FILE_ID_KEY);
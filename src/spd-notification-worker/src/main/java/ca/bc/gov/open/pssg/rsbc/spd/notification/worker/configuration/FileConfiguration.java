@@ -2,16 +2,36 @@ package ca.bc.gov.open.pssg.rsbc.spd.notification.worker.configuration;
 
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileServiceImpl;
+import ca.bc.gov.open.pssg.rsbc.dps.files.LocalFileServiceImpl;
+import ca.bc.gov.open.pssg.rsbc.dps.files.PathLayout;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Paths;
+
 @Configuration
 public class FileConfiguration {
 
     @Bean
+    @ConditionalOnProperty(value = "dps.files.type", havingValue = "sftp", matchIfMissing = true)
     public FileService fileService(SftpService sftpService) {
         return new FileServiceImpl(sftpService);
     }
 
+    @Bean
+    @ConditionalOnProperty(value = "dps.files.type", havingValue = "local")
+    public FileService localFileService(@Value("${dps.files.local-root}") String localRoot) {
+        return new LocalFileServiceImpl(Paths.get(localRoot));
+    }
+
+    @Bean
+    public PathLayout pathLayout(@Value("${dps.files.release-folder}") String releaseFolder,
+                                 @Value("${dps.files.archive-folder}") String archiveFolder,
+                                 @Value("${dps.files.error-folder}") String errorFolder) {
+        return new PathLayout(releaseFolder, archiveFolder, errorFolder);
+    }
+
 }
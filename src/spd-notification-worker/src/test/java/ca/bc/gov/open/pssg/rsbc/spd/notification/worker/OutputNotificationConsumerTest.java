@@ -1,6 +1,8 @@
 package ca.bc.gov.open.pssg.rsbc.spd.notification.worker;
 
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileInfo;
+import ca.bc.gov.open.pssg.rsbc.dps.files.PathLayout;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
 import ca.bc.gov.open.pssg.rsbc.dps.notification.OutputNotificationMessage;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.DpsSftpException;
@@ -187,7 +189,8 @@ public class OutputNotificationConsumerTest {
         SftpProperties sftpProperties = new SftpProperties();
         sftpProperties.setRemoteLocation(REMOTE_LOCATION);
 
-        sut = new OutputNotificationConsumer(fileServiceMock, sftpProperties, documentServiceMock, jaxbContextMock);
+        sut = new OutputNotificationConsumer(fileServiceMock, sftpProperties, documentServiceMock, jaxbContextMock,
+                PathLayout.withErrorFolder("errorhold"), DependencyLimiter.unlimited());
     }
 
     @DisplayName("Success: test with valid message")
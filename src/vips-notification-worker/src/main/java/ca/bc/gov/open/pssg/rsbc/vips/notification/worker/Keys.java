@@ -20,5 +20,10 @@ public class Keys {
 
     public static final String APP_NAME = "vips-notification-worker";
 
+    /**
+     * The VIPS document service dependency name used to limit concurrent calls
+     */
+    public static final String VIPS_DEPENDENCY = "vips";
+
 
 }
@@ -4,8 +4,11 @@ import ca.bc.gov.dps.monitoring.NotificationService;
 import ca.bc.gov.dps.monitoring.SystemNotification;
 import ca.bc.gov.open.jagvipsclient.document.DocumentService;
 import ca.bc.gov.open.jagvipsclient.document.VipsDocumentResponse;
+import ca.bc.gov.open.pssg.rsbc.dps.files.DpsFileException;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileInfo;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
+import ca.bc.gov.open.pssg.rsbc.dps.files.PathLayout;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
 import ca.bc.gov.open.pssg.rsbc.dps.notification.OutputNotificationMessage;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.DpsSftpException;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.SftpProperties;
@@ -47,15 +50,21 @@ public class OutputNotificationConsumer {
     private final SftpProperties sftpProperties;
     private final DocumentService documentService;
     private final JAXBContext kofaxOutputMetadataContext;
+    private final PathLayout pathLayout;
+    private final DependencyLimiter dependencyLimiter;
 
     public OutputNotificationConsumer(FileService fileService,
                                       SftpProperties sftpProperties,
                                       DocumentService documentService,
-                                      @Qualifier("kofaxOutputMetadataContext") JAXBContext kofaxOutputMetadataContext) {
+                                      @Qualifier("kofaxOutputMetadataContext") JAXBContext kofaxOutputMetadataContext,
+                                      PathLayout pathLayout,
+                                      DependencyLimiter dependencyLimiter) {
         this.fileService = fileService;
         this.sftpProperties = sftpProperties;
         this.documentService = documentService;
         this.kofaxOutputMetadataContext = kofaxOutputMetadataContext;
+        this.pathLayout = pathLayout;
+        this.dependencyLimiter = dependencyLimiter;
     }
 
     @RabbitListener(queues = Keys.VIPS_QUEUE_NAME)
@@ -66,7 +75,7 @@ public class OutputNotificationConsumer {
         MDC.put(DPS_FILE_ID_KEY, message.getFileId());
         MDC.put(DPS_BUSINESS_AREA_CD_KEY, message.getBusinessAreaCd());
 
-        FileInfo fileInfo = new FileInfo(message.getFileId(), IMAGE_EXTENSION, sftpProperties.getRemoteLocation(), "error");
+        FileInfo fileInfo = new FileInfo(message.getFileId(), IMAGE_EXTENSION, sftpProperties.getRemoteLocation(), pathLayout);
 
         try {
 
@@ -74,14 +83,17 @@ public class OutputNotificationConsumer {
             String metadata = getMetadata(fileInfo);
             logger.info("successfully downloaded file [{}]", fileInfo.getMetaDataReleaseFileName());
 
-            VipsDocumentResponse vipsDocumentResponse =
+            String documentType = unmarshallMetadataXml(metadata).getDocumentData().getDType();
+            File image = getImage(fileInfo);
+
+            VipsDocumentResponse vipsDocumentResponse = dependencyLimiter.call(Keys.VIPS_DEPENDENCY, () ->
                     documentService.vipsDocument(
-                            unmarshallMetadataXml(metadata).getDocumentData().getDType(),
+                            documentType,
                             Base64.encodeToString(metadata.getBytes(),false),
                             MIME,
                             MIME_SUBTYPE,
                             "",
-                            getImage(fileInfo));
+                            image));
 
             if (vipsDocumentResponse.getRespCode() == SUCCESS_CODE) {
                 logger.info("success: {} with {}", vipsDocumentResponse, fileInfo);
@@ -97,7 +109,7 @@ public class OutputNotificationConsumer {
         } catch (IOException | JAXBException e) {
             logger.error("{} while processing file id [{}]: ", e.getClass().getSimpleName(), fileInfo.getFileId(), e);
             moveFilesToError(fileInfo);
-        } catch (DpsSftpException e) {
+        } catch (DpsSftpException | DpsFileException e) {
             logger.error("{} while processing file id [{}]:", e.getClass().getSimpleName(), fileInfo.getFileId(), e);
         } finally {
             MDC.remove(DPS_FILE_ID_KEY);
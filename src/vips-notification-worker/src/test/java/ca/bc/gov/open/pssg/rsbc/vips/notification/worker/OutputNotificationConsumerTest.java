@@ -3,6 +3,8 @@ package ca.bc.gov.open.pssg.rsbc.vips.notification.worker;
 import ca.bc.gov.open.jagvipsclient.document.DocumentService;
 import ca.bc.gov.open.jagvipsclient.document.VipsDocumentResponse;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileInfo;
+import ca.bc.gov.open.pssg.rsbc.dps.files.PathLayout;
+import ca.bc.gov.open.pssg.rsbc.dps.messaging.starter.DependencyLimiter;
 import ca.bc.gov.open.pssg.rsbc.dps.files.FileService;
 import ca.bc.gov.open.pssg.rsbc.dps.notification.OutputNotificationMessage;
 import ca.bc.gov.open.pssg.rsbc.dps.sftp.starter.DpsSftpException;
@@ -103,7 +105,8 @@ public class OutputNotificationConsumerTest {
         VipsDocumentResponse errorResponse = VipsDocumentResponse.errorResponse("error result");
         Mockito.when(documentServiceMock.vipsDocument(Mockito.eq(TYPE_CODE_ERROR), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(), Mockito.anyString(),Mockito.any())).thenReturn(errorResponse);
 
-        sut = new OutputNotificationConsumer(fileServiceMock, sftpProperties, documentServiceMock, jaxbContextMock);
+        sut = new OutputNotificationConsumer(fileServiceMock, sftpProperties, documentServiceMock, jaxbContextMock,
+                PathLayout.withErrorFolder("error"), DependencyLimiter.unlimited());
     }
 
     @DisplayName("Success: test with valid message")